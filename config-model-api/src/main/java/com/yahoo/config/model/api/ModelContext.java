@@ -52,6 +52,7 @@ public interface ModelContext {
 
     interface FeatureFlags {
         @ModelFeatureFlag(owner = "bjorncs") default boolean enableAutomaticReindexing() { return false; }
+        @ModelFeatureFlag(owner = "agent") default boolean optimizeRankProfileFunctions() { return false; }
     }
 
     /** Warning: As elsewhere in this package, do not make backwards incompatible changes that will break old config models! */
@@ -38,6 +38,7 @@ public class TestProperties implements ModelContext.Properties, ModelContext.Fea
     private boolean useThreePhaseUpdates = false;
     private boolean useDirectStorageApiRpc = false;
     private boolean useFastValueTensorImplementation = false;
+    private boolean optimizeRankProfileFunctions = false;
     private double defaultTermwiseLimit = 1.0;
     private String jvmGCOptions = null;
     private String sequencerType = "LATENCY";
@@ -72,6 +73,7 @@ public class TestProperties implements ModelContext.Properties, ModelContext.Fea
     @Override public boolean useThreePhaseUpdates() { return useThreePhaseUpdates; }
     @Override public boolean useDirectStorageApiRpc() { return useDirectStorageApiRpc; }
     @Override public boolean useFastValueTensorImplementation() { return useFastValueTensorImplementation; }
+    @Override public boolean optimizeRankProfileFunctions() { return optimizeRankProfileFunctions; }
     @Override public Optional<AthenzDomain> athenzDomain() { return Optional.ofNullable(athenzDomain); }
     @Override public Optional<ApplicationRoles> applicationRoles() { return Optional.ofNullable(applicationRoles); }
     @Override public String responseSequencerType() { return responseSequencerType; }
@@ -135,6 +137,11 @@ public class TestProperties implements ModelContext.Properties, ModelContext.Fea
         return this;
     }
 
+    public TestProperties setOptimizeRankProfileFunctions(boolean optimizeRankProfileFunctions) {
+        this.optimizeRankProfileFunctions = optimizeRankProfileFunctions;
+        return this;
+    }
+
     public TestProperties setApplicationId(ApplicationId applicationId) {
         this.applicationId = applicationId;
         return this;
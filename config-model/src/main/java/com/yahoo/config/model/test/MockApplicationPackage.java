@@ -67,7 +67,7 @@ public class MockApplicationPackage implements ApplicationPackage {
                                      String schemaDir,
                                      String deploymentSpec, String validationOverrides, boolean failOnValidateXml,
                                      String queryProfile, String queryProfileType) {
-        this.root = root;
+        this.root = relativeToCurrentDir(root);
         this.hostsS = hosts;
         this.servicesS = services;
         this.schemas = schemas;
@@ -92,6 +92,12 @@ public class MockApplicationPackage implements ApplicationPackage {
     /** Returns the root of this application package relative to the current dir */
     protected File root() { return root; }
 
+    /** Returns the given file relative to the current dir, as files are resolved from paths which are always relative */
+    private static File relativeToCurrentDir(File file) {
+        if ( ! file.isAbsolute()) return file;
+        return new File("").getAbsoluteFile().toPath().relativize(file.toPath()).toFile();
+    }
+
     @Override
     @SuppressWarnings("deprecation")
     public String getApplicationName() {
@@ -16,10 +16,13 @@ import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.FeatureList;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.searchlib.rankingexpression.rule.Arguments;
 import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.transform.FunctionSetOptimizer;
+import com.yahoo.searchlib.rankingexpression.transform.TransformContext;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.vespa.model.VespaModel;
 
@@ -42,6 +45,7 @@ import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.function.Supplier;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -52,6 +56,8 @@ import java.util.stream.Stream;
  */
 public class RankProfile implements Cloneable {
 
+    private static final Logger log = Logger.getLogger(RankProfile.class.getName());
+
     /** The search definition-unique name of this rank profile */
     private final String name;
 
@@ -692,9 +698,20 @@ public class RankProfile implements Cloneable {
      * Compiled profiles should never be modified.
      */
     public RankProfile compile(QueryProfileRegistry queryProfiles, ImportedMlModels importedModels) {
+        return compile(queryProfiles, importedModels, false);
+    }
+
+    /**
+     * Returns a copy of this where the content is optimized for execution.
+     * Compiled profiles should never be modified.
+     *
+     * @param optimizeFunctions whether to also optimize the functions and ranking phases of this together,
+     *                          see {@link FunctionSetOptimizer}
+     */
+    public RankProfile compile(QueryProfileRegistry queryProfiles, ImportedMlModels importedModels, boolean optimizeFunctions) {
         try {
             RankProfile compiled = this.clone();
-            compiled.compileThis(queryProfiles, importedModels);
+            compiled.compileThis(queryProfiles, importedModels, optimizeFunctions);
             return compiled;
         }
         catch (IllegalArgumentException e) {
@@ -702,7 +719,7 @@ public class RankProfile implements Cloneable {
         }
     }
 
-    private void compileThis(QueryProfileRegistry queryProfiles, ImportedMlModels importedModels) {
+    private void compileThis(QueryProfileRegistry queryProfiles, ImportedMlModels importedModels, boolean optimizeFunctions) {
         checkNameCollisions(getFunctions(), getConstants());
         ExpressionTransforms expressionTransforms = new ExpressionTransforms();
 
@@ -717,6 +734,49 @@ public class RankProfile implements Cloneable {
         // Function compiling second pass: compile all functions and insert previously compiled inline functions
         functions = compileFunctions(this::getFunctions, queryProfiles, featureTypes, importedModels, inlineFunctions, expressionTransforms);
 
+        if (optimizeFunctions)
+            optimizeFunctions(queryProfiles, featureTypes);
+    }
+
+    /**
+     * Optimizes the compiled functions and ranking phases of this together: Folds constants, inlines
+     * small functions and extracts subexpressions computed multiple times to new functions.
+     * Functions declared inline are already inlined, and are left as-is to not be referenced again.
+     */
+    private void optimizeFunctions(QueryProfileRegistry queryProfiles, Map<Reference, TensorType> featureTypes) {
+        Map<String, ExpressionFunction> expressionFunctions = new LinkedHashMap<>();
+        functions.forEach((name, function) -> {
+            if ( ! function.inline())
+                expressionFunctions.put(name, function.function());
+        });
+        List<RankingExpression> phases = new ArrayList<>();
+        if (firstPhaseRanking != null) phases.add(firstPhaseRanking);
+        if (secondPhaseRanking != null) phases.add(secondPhaseRanking);
+
+        OptimizationReport report = new OptimizationReport();
+        FunctionSetOptimizer.Result result =
+                new FunctionSetOptimizer().optimize(expressionFunctions,
+                                                    phases,
+                                                    functions.keySet(),
+                                                    new TransformContext(getConstants(), typeContext(queryProfiles, featureTypes)),
+                                                    report);
+
+        Map<String, RankingExpressionFunction> optimizedFunctions = new LinkedHashMap<>();
+        functions.forEach((name, function) -> {
+            if (function.inline())
+                optimizedFunctions.put(name, function);
+            else
+                optimizedFunctions.put(name, function.withExpression(result.functions().get(name).getBody()));
+        });
+        result.functions().forEach((name, function) -> { // add extracted functions
+            if (expressionFunctions.containsKey(name)) return;
+            optimizedFunctions.put(name, new RankingExpressionFunction(function, false));
+        });
+        functions = optimizedFunctions;
+        Iterator<RankingExpression> optimizedPhases = result.expressions().iterator();
+        if (firstPhaseRanking != null) firstPhaseRanking = optimizedPhases.next();
+        if (secondPhaseRanking != null) secondPhaseRanking = optimizedPhases.next();
+        log.fine(() -> "Optimized rank profile '" + getName() + "':\n" + report);
     }
 
     private void checkNameCollisions(Map<String, RankingExpressionFunction> functions, Map<String, Value> constants) {
@@ -168,7 +168,8 @@ public class RawRankProfile implements RankProfilesConfig.Producer {
         Deriver(RankProfile rankProfile, QueryProfileRegistry queryProfiles, ImportedMlModels importedModels,
                        AttributeFields attributeFields, ModelContext.Properties deployProperties)
         {
-            RankProfile compiled = rankProfile.compile(queryProfiles, importedModels);
+            RankProfile compiled = rankProfile.compile(queryProfiles, importedModels,
+                                                       deployProperties.featureFlags().optimizeRankProfileFunctions());
             attributeTypes = compiled.getAttributeTypes();
             queryFeatureTypes = compiled.getQueryFeatureTypes();
             deriveRankingFeatures(compiled, deployProperties);
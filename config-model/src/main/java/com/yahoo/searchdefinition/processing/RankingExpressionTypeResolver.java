@@ -81,9 +81,12 @@ public class RankingExpressionTypeResolver extends Processor {
 
             TensorType type = resolveType(expressionFunction.getBody(), "function '" + function.getKey() + "'", context);
             function.getValue().setReturnType(type);
+            if (validate)
+                ensureSupportedValueType(type, "function '" + function.getKey() + "'");
         }
 
         if (validate) {
+            context.featureTypes().forEach((feature, type) -> ensureSupportedValueType(type, "feature " + feature));
             profile.getSummaryFeatures().forEach(f -> resolveType(f, "summary feature " + f, context));
             ensureValidDouble(profile.getFirstPhaseRanking(), "first-phase expression", context);
             ensureValidDouble(profile.getSecondPhaseRanking(), "second-phase expression", context);
@@ -121,6 +124,14 @@ public class RankingExpressionTypeResolver extends Processor {
         return type;
     }
 
+    /** Ranking in content clusters computes with float and double values only */
+    private void ensureSupportedValueType(TensorType type, String description) {
+        if (type.valueType() == TensorType.Value.BFLOAT16 || type.valueType() == TensorType.Value.INT8)
+            throw new IllegalArgumentException("The " + description + " has type " + type + ", but the value type '" +
+                                               type.valueType().id() + "' is not supported in rank profiles. " +
+                                               "Use 'float' or 'double'.");
+    }
+
     private void ensureValidDouble(RankingExpression expression, String expressionDescription, TypeContext context) {
         if (expression == null) return;
         TensorType type = resolveType(expression, expressionDescription, context);
@@ -9,6 +9,7 @@ import com.yahoo.searchdefinition.Search;
 import com.yahoo.searchdefinition.document.HnswIndexParams;
 import com.yahoo.searchdefinition.document.ImmutableSDField;
 import com.yahoo.searchdefinition.document.SDField;
+import com.yahoo.tensor.TensorType;
 import com.yahoo.vespa.model.container.search.QueryProfiles;
 
 /**
@@ -27,6 +28,7 @@ public class TensorFieldProcessor extends Processor {
         for (var field : search.allConcreteFields()) {
             if ( field.getDataType() instanceof TensorDataType ) {
                 if (validate) {
+                    validateValueTypeForTensorField(field);
                     validateIndexingScripsForTensorField(field);
                     validateAttributeSettingForTensorField(field);
                 }
@@ -40,6 +42,14 @@ public class TensorFieldProcessor extends Processor {
         }
     }
 
+    private void validateValueTypeForTensorField(SDField field) {
+        var valueType = ((TensorDataType)field.getDataType()).getTensorType().valueType();
+        if (valueType == TensorType.Value.BFLOAT16 || valueType == TensorType.Value.INT8) {
+            fail(search, field, "A tensor of type '" + tensorTypeToString(field) + "' is not supported: " +
+                    "The value type '" + valueType.id() + "' can not be stored in content clusters. Use 'float' or 'double'.");
+        }
+    }
+
     private void validateIndexingScripsForTensorField(SDField field) {
         if (field.doesIndexing() && !isTensorTypeThatSupportsHnswIndex(field)) {
             fail(search, field, "A tensor of type '" + tensorTypeToString(field) + "' does not support having an 'index'. " +
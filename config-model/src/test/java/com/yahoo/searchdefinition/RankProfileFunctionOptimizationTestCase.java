@@ -0,0 +1,125 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchdefinition;
+
+import ai.vespa.rankingexpression.importer.configmodelview.ImportedMlModels;
+import com.yahoo.collections.Pair;
+import com.yahoo.config.model.deploy.TestProperties;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.searchdefinition.derived.AttributeFields;
+import com.yahoo.searchdefinition.derived.RawRankProfile;
+import com.yahoo.searchdefinition.parser.ParseException;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author agent
+ */
+public class RankProfileFunctionOptimizationTestCase extends SchemaTestCase {
+
+    private static final String schema =
+            "search test {\n" +
+            "    document test { \n" +
+            "        field a type double { \n" +
+            "            indexing: attribute \n" +
+            "        }\n" +
+            "        field b type double { \n" +
+            "            indexing: attribute \n" +
+            "        }\n" +
+            "    }\n" +
+            "    \n" +
+            "    rank-profile test {\n" +
+            "        constants {\n" +
+            "            c1: 3 \n" +
+            "            c2: 4 \n" +
+            "        }\n" +
+            "        first-phase {\n" +
+            "            expression: f1 + sqrt(attribute(a) * attribute(b) + c1)\n" +
+            "        }\n" +
+            "        second-phase {\n" +
+            "            expression: f2 * inlined\n" +
+            "        }\n" +
+            "        function f1() {\n" +
+            "            expression: sqrt(attribute(a) * attribute(b) + c1) * (c1 + c2)\n" +
+            "        }\n" +
+            "        function f2() {\n" +
+            "            expression: sqrt(attribute(a) * attribute(b) + c1) + attribute(b)\n" +
+            "        }\n" +
+            "        function inline inlined() {\n" +
+            "            expression: log(attribute(a) * attribute(b) + c2)\n" +
+            "        }\n" +
+            "    }\n" +
+            "\n" +
+            "}\n";
+
+    @Test
+    public void testFunctionOptimization() throws ParseException {
+        RankProfileRegistry rankProfileRegistry = new RankProfileRegistry();
+        SearchBuilder builder = new SearchBuilder(rankProfileRegistry);
+        builder.importString(schema);
+        builder.build();
+        Search s = builder.getSearch();
+
+        RankProfile test = rankProfileRegistry.get(s, "test").compile(new QueryProfileRegistry(), new ImportedMlModels(), true);
+        assertEquals("sqrt(attribute(a) * attribute(b) + 3.0)",
+                     test.getFunctions().get("common_subexpression_1").function().getBody().getRoot().toString());
+        assertEquals("common_subexpression_1 * 7.0", test.getFunctions().get("f1").function().getBody().getRoot().toString());
+        assertEquals("common_subexpression_1 + attribute(b)", test.getFunctions().get("f2").function().getBody().getRoot().toString());
+        assertEquals("f1 + common_subexpression_1", test.getFirstPhaseRanking().getRoot().toString());
+        assertEquals("Inline functions are not optimized",
+                     "log(attribute(a) * attribute(b) + 4.0)",
+                     test.getFunctions().get("inlined").function().getBody().getRoot().toString());
+        assertEquals(List.of("f1", "f2", "inlined", "common_subexpression_1"), List.copyOf(test.getFunctions().keySet()));
+
+        RankProfile unoptimized = rankProfileRegistry.get(s, "test").compile(new QueryProfileRegistry(), new ImportedMlModels());
+        assertFalse(unoptimized.getFunctions().containsKey("common_subexpression_1"));
+    }
+
+    @Test
+    public void testExtractedFunctionsAreNotGivenTheNamesOfInlineFunctions() throws ParseException {
+        RankProfileRegistry rankProfileRegistry = new RankProfileRegistry();
+        SearchBuilder builder = new SearchBuilder(rankProfileRegistry);
+        builder.importString(schema.replace("inlined", "common_subexpression_1"));
+        builder.build();
+        Search s = builder.getSearch();
+
+        RankProfile test = rankProfileRegistry.get(s, "test").compile(new QueryProfileRegistry(), new ImportedMlModels(), true);
+        assertEquals("log(attribute(a) * attribute(b) + 4.0)",
+                     test.getFunctions().get("common_subexpression_1").function().getBody().getRoot().toString());
+        assertEquals("sqrt(attribute(a) * attribute(b) + 3.0)",
+                     test.getFunctions().get("common_subexpression_2").function().getBody().getRoot().toString());
+        assertEquals("f1 + common_subexpression_2", test.getFirstPhaseRanking().getRoot().toString());
+    }
+
+    @Test
+    public void testFunctionOptimizationIsControlledByFeatureFlag() throws ParseException {
+        RankProfileRegistry rankProfileRegistry = new RankProfileRegistry();
+        SearchBuilder builder = new SearchBuilder(rankProfileRegistry);
+        builder.importString(schema);
+        builder.build();
+        Search s = builder.getSearch();
+        RankProfile test = rankProfileRegistry.get(s, "test");
+
+        List<Pair<String, String>> optimized =
+                new RawRankProfile(test, new QueryProfileRegistry(), new ImportedMlModels(), new AttributeFields(s),
+                                   new TestProperties().setOptimizeRankProfileFunctions(true)).configProperties();
+        assertEquals("sqrt(attribute(a) * attribute(b) + 3.0)",
+                     property("rankingExpression(common_subexpression_1).rankingScript", optimized).get());
+        assertEquals("rankingExpression(f1) + rankingExpression(common_subexpression_1)",
+                     property("rankingExpression(firstphase).rankingScript", optimized).get());
+
+        List<Pair<String, String>> unoptimized =
+                new RawRankProfile(test, new QueryProfileRegistry(), new ImportedMlModels(), new AttributeFields(s))
+                        .configProperties();
+        assertFalse(property("rankingExpression(common_subexpression_1).rankingScript", unoptimized).isPresent());
+    }
+
+    private Optional<String> property(String name, List<Pair<String, String>> properties) {
+        return properties.stream().filter(p -> p.getFirst().equals(name)).map(Pair::getSecond).findFirst();
+    }
+
+}
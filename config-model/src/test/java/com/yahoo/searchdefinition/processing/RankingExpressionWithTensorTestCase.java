@@ -2,6 +2,7 @@
 package com.yahoo.searchdefinition.processing;
 
 import com.yahoo.searchdefinition.parser.ParseException;
+import com.yahoo.yolean.Exceptions;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -160,6 +161,32 @@ public class RankingExpressionWithTensorTestCase {
         }
     }
 
+    @Test
+    public void requireThatReducedPrecisionValueTypesAreNotSupportedInRankProfiles() throws ParseException {
+        try {
+            RankProfileSearchFixture f = new RankProfileSearchFixture(
+                    "  rank-profile my_profile {\n" +
+                    "    first-phase {\n" +
+                    "      expression: sum(my_tensor)\n" +
+                    "    }\n" +
+                    "    constants {\n" +
+                    "      my_tensor {\n" +
+                    "        value: { {x:0}:1, {x:1}:2 }\n" +
+                    "        type: tensor<int8>(x[2])\n" +
+                    "      }\n" +
+                    "    }\n" +
+                    "  }");
+            f.compileRankProfile("my_profile");
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("In search definition 'test', rank profile 'my_profile': The feature constant(my_tensor) has type " +
+                         "tensor<int8>(x[2]), but the value type 'int8' is not supported in rank profiles. " +
+                         "Use 'float' or 'double'.",
+                         Exceptions.toMessageString(e));
+        }
+    }
+
     private void assertStartsWith(String prefix, String string) {
         assertEquals(prefix, string.substring(0, Math.min(prefix.length(), string.length())));
     }
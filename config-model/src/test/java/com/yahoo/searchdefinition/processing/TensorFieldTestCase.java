@@ -55,6 +55,28 @@ public class TensorFieldTestCase {
         }
     }
 
+    @Test
+    public void requireThatTensorFieldCannotHaveReducedPrecisionValueType() throws ParseException {
+        try {
+            createFromString(getSd("field f1 type tensor<bfloat16>(x[3]) { indexing: attribute }"));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("For search 'test', field 'f1': A tensor of type 'tensor<bfloat16>(x[3])' is not supported: " +
+                         "The value type 'bfloat16' can not be stored in content clusters. Use 'float' or 'double'.",
+                         e.getMessage());
+        }
+        try {
+            createFromString(getSd("field f1 type tensor<int8>(x[3]) { indexing: summary }"));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("For search 'test', field 'f1': A tensor of type 'tensor<int8>(x[3])' is not supported: " +
+                         "The value type 'int8' can not be stored in content clusters. Use 'float' or 'double'.",
+                         e.getMessage());
+        }
+    }
+
     @Test
     public void requireThatIllegalTensorTypeSpecThrowsException() throws ParseException {
         try {
@@ -148,12 +148,15 @@ public class ModelContextImpl implements ModelContext {
     public static class FeatureFlags implements ModelContext.FeatureFlags {
 
         private final boolean enableAutomaticReindexing;
+        private final boolean optimizeRankProfileFunctions;
 
         public FeatureFlags(FlagSource source, ApplicationId appId) {
             this.enableAutomaticReindexing = flagValue(source, appId, Flags.ENABLE_AUTOMATIC_REINDEXING);
+            this.optimizeRankProfileFunctions = flagValue(source, appId, Flags.OPTIMIZE_RANK_PROFILE_FUNCTIONS);
         }
 
         @Override public boolean enableAutomaticReindexing() { return enableAutomaticReindexing; }
+        @Override public boolean optimizeRankProfileFunctions() { return optimizeRankProfileFunctions; }
 
         private static <V> V flagValue(FlagSource source, ApplicationId appId, UnboundFlag<? extends V, ?, ?> flag) {
             return flag.bindTo(source)
@@ -32,6 +32,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static com.yahoo.container.QrSearchersConfig.Searchcluster.Indexingmode.STREAMING;
 
@@ -249,6 +251,27 @@ public class ClusterSearcher extends Searcher {
 
     @Override
     public Result search(Query query, Execution execution) {
+        Result invalid = validateSearch(query);
+        if (invalid != null) return invalid;
+
+        return doSearch(server, query, execution);
+    }
+
+    /** Searches like {@link #search}, but without holding a thread while waiting for the backend when possible */
+    @Override
+    public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+        Result invalid = validateSearch(query);
+        if (invalid != null) return CompletableFuture.completedFuture(invalid);
+
+        if (documentTypes.size() > 1)
+            return CompletableFuture.completedFuture(searchMultipleDocumentTypes(server, query, execution));
+        invalid = restrictToSingleDocumentType(query);
+        if (invalid != null) return CompletableFuture.completedFuture(invalid);
+        return server.searchAsync(query, execution);
+    }
+
+    /** Validates the query and returns a result with an error if it cannot be searched, or null if it can */
+    private Result validateSearch(Query query) {
         validateQueryTimeout(query);
         validateQueryCache(query);
         VespaBackEndSearcher searcher = server;
@@ -258,8 +281,7 @@ public class ClusterSearcher extends Searcher {
         if (query.getTimeLeft() <= 0) {
             return new Result(query, ErrorMessage.createTimeout("No time left for searching"));
         }
-
-        return doSearch(searcher, query, execution);
+        return null;
     }
 
     private void validateQueryTimeout(Query query) {
@@ -287,18 +309,27 @@ public class ClusterSearcher extends Searcher {
         if (documentTypes.size() > 1) {
             return searchMultipleDocumentTypes(searcher, query, execution);
         } else {
-            String docType = documentTypes.iterator().next();
-
-            Result invalidRankProfile = checkValidRankProfiles(query, documentTypes);
+            Result invalidRankProfile = restrictToSingleDocumentType(query);
             if (invalidRankProfile != null) {
                 return invalidRankProfile;
             }
-
-            query.getModel().setRestrict(docType);
             return searcher.search(query, execution);
         }
     }
 
+    /** Restricts the query to the single document type of this, or returns a result with an error if invalid */
+    private Result restrictToSingleDocumentType(Query query) {
+        String docType = documentTypes.iterator().next();
+
+        Result invalidRankProfile = checkValidRankProfiles(query, documentTypes);
+        if (invalidRankProfile != null) {
+            return invalidRankProfile;
+        }
+
+        query.getModel().setRestrict(docType);
+        return null;
+    }
+
     private Result searchMultipleDocumentTypes(Searcher searcher, Query query, Execution execution) {
         Set<String> docTypes = resolveDocumentTypes(query, execution.context().getIndexFacts());
 
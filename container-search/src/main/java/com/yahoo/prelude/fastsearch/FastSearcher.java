@@ -18,7 +18,10 @@ import com.yahoo.search.result.HitGroup;
 import com.yahoo.search.searchchain.Execution;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Level;
 
 /**
@@ -84,30 +87,66 @@ public class FastSearcher extends VespaBackEndSearcher {
         if (dispatcher.searchCluster().groupSize() == 1)
             forceSinglePassGrouping(query);
         try (SearchInvoker invoker = getSearchInvoker(query)) {
-            Result result = invoker.search(query, execution);
-            injectSource(result.hits());
-
-            if (query.properties().getBoolean(Ranking.RANKFEATURES, false)) {
-                // There is currently no correct choice for which
-                // summary class we want to fetch at this point. If we
-                // fetch the one selected by the user it may not
-                // contain the data we need. If we fetch the default
-                // one we end up fetching docsums twice unless the
-                // user also requested the default one.
-                fill(result, query.getPresentation().getSummary(), execution); // ARGH
-            }
-            return result;
+            return searchReturned(query, invoker.search(query, execution), execution);
         } catch (TimeoutException e) {
             return new Result(query,ErrorMessage.createTimeout(e.getMessage()));
         } catch (IOException e) {
-            Result result = new Result(query);
-            if (query.getTraceLevel() >= 1)
-                query.trace(getName() + " error response: " + result, false, 1);
-            result.hits().addError(ErrorMessage.createBackendCommunicationError(getName() + " failed: "+ e.getMessage()));
-            return result;
+            return backendCommunicationError(query, e);
         }
     }
 
+    /**
+     * Searches like doSearch2, but processes the response in a dispatcher thread when it arrives.
+     * Queries requesting rank features are searched synchronously, as they are filled when the response arrives.
+     */
+    @Override
+    protected CompletionStage<Result> doSearch2Async(Query query, Execution execution) {
+        if (query.properties().getBoolean(Ranking.RANKFEATURES, false))
+            return super.doSearch2Async(query, execution);
+
+        if (dispatcher.searchCluster().groupSize() == 1)
+            forceSinglePassGrouping(query);
+        SearchInvoker invoker = getSearchInvoker(query);
+        return invoker.searchAsync(query, execution, dispatcher.responseExecutor()).handle((result, exception) -> {
+            try (invoker) {
+                if (exception == null)
+                    return searchReturned(query, result, execution);
+
+                Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                if (cause instanceof UncheckedIOException)
+                    cause = cause.getCause();
+                if (cause instanceof TimeoutException)
+                    return new Result(query, ErrorMessage.createTimeout(cause.getMessage()));
+                if (cause instanceof IOException)
+                    return backendCommunicationError(query, (IOException)cause);
+                throw new CompletionException(cause);
+            }
+        });
+    }
+
+    private Result searchReturned(Query query, Result result, Execution execution) {
+        injectSource(result.hits());
+
+        if (query.properties().getBoolean(Ranking.RANKFEATURES, false)) {
+            // There is currently no correct choice for which
+            // summary class we want to fetch at this point. If we
+            // fetch the one selected by the user it may not
+            // contain the data we need. If we fetch the default
+            // one we end up fetching docsums twice unless the
+            // user also requested the default one.
+            fill(result, query.getPresentation().getSummary(), execution); // ARGH
+        }
+        return result;
+    }
+
+    private Result backendCommunicationError(Query query, IOException e) {
+        Result result = new Result(query);
+        if (query.getTraceLevel() >= 1)
+            query.trace(getName() + " error response: " + result, false, 1);
+        result.hits().addError(ErrorMessage.createBackendCommunicationError(getName() + " failed: "+ e.getMessage()));
+        return result;
+    }
+
     /**
      * Perform a partial docsum fill for a temporary result
      * representing a partition of the complete fill request.
@@ -27,6 +27,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -158,10 +160,35 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
     protected void transformQuery(Query query) { }
 
     public Result search(Query query, Execution execution) {
+        Optional<Result> emptyResult = prepareSearch(query);
+        if (emptyResult.isPresent()) return emptyResult.get();
+
+        return searchReturned(query, doSearch2(query, execution));
+    }
+
+    /** Searches like {@link #search}, but uses {@link #doSearch2Async} to search the backend */
+    @Override
+    public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+        Optional<Result> emptyResult = prepareSearch(query);
+        if (emptyResult.isPresent()) return CompletableFuture.completedFuture(emptyResult.get());
+
+        return doSearch2Async(query, execution).thenApply(result -> searchReturned(query, result));
+    }
+
+    /**
+     * Override this to search the backend without holding a thread while waiting for the response.
+     * The default implementation returns the result of doSearch2.
+     */
+    protected CompletionStage<Result> doSearch2Async(Query query, Execution execution) {
+        return CompletableFuture.completedFuture(doSearch2(query, execution));
+    }
+
+    /** Prepares the query for searching, and returns the result to return if it should not be searched */
+    private Optional<Result> prepareSearch(Query query) {
         // query root should not be null here
         Item root = query.getModel().getQueryTree().getRoot();
         if (root == null || root instanceof NullItem) {
-            return new Result(query, ErrorMessage.createNullQuery(query.getHttpRequest().getUri().toString()));
+            return Optional.of(new Result(query, ErrorMessage.createNullQuery(query.getHttpRequest().getUri().toString())));
         }
 
         QueryRewrite.optimizeByRestrict(query);
@@ -170,7 +197,7 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
 
         root = query.getModel().getQueryTree().getRoot();
         if (root == null || root instanceof NullItem) // root can become null after optimization
-            return new Result(query);
+            return Optional.of(new Result(query));
 
         resolveDocumentDatabase(query);
         transformQuery(query);
@@ -178,9 +205,11 @@ public abstract class VespaBackEndSearcher extends PingableSearcher {
 
         root = query.getModel().getQueryTree().getRoot();
         if (root == null || root instanceof NullItem) // root can become null after resolving and transformation?
-            return new Result(query);
+            return Optional.of(new Result(query));
+        return Optional.empty();
+    }
 
-        Result result = doSearch2(query, execution);
+    private Result searchReturned(Query query, Result result) {
         if (isLoggingFine())
             getLogger().fine("Result NOT retrieved from cache");
 
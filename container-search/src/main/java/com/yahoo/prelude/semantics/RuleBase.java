@@ -64,6 +64,9 @@ public class RuleBase {
     /** Should we allow stemmed matches? */
     private boolean stemming=true;
 
+    /** Should we only evaluate the rules which may match some term of the query? */
+    private boolean indexing=true;
+
     /** Creates an empty rule base. TODO: Disallow */
     public RuleBase() {
     }
@@ -102,6 +105,15 @@ public class RuleBase {
         return base;
     }
 
+    /**
+     * Set to false to evaluate every rule over every query, instead of only the rules
+     * which may match terms of the query. True by default
+     */
+    public void setIndexing(boolean indexing) { this.indexing=indexing; }
+
+    /** Returns whether only the rules which may match terms of a query are evaluated over it. True by default */
+    public boolean getIndexing() { return indexing; }
+
     /** Set to true to enable stemmed matches. True by default */
     public void setStemming(boolean stemming) { this.stemming=stemming; }
 
@@ -117,6 +129,7 @@ public class RuleBase {
      * for that rule base.</p>
      */
     public void include(RuleBase include) {
+        analyzer.invalidate();
         productionRules.add(new IncludeDirective(include));
         includedNames.addAll(include.includedNames);
         includedNames.add(include.getName());
@@ -164,6 +177,7 @@ public class RuleBase {
 
     /** Adds a named condition which can be referenced by rules */
     public void addCondition(NamedCondition namedCondition) {
+        analyzer.invalidate();
         namedConditions.put(namedCondition.getName(),namedCondition);
 
         Condition condition=namedCondition.getCondition();
@@ -286,6 +300,7 @@ public class RuleBase {
 
     // Note that included rules are added though a list iterator, not this */
     public void addRule(ProductionRule productionRule) {
+        analyzer.invalidate();
         productionRules.add(productionRule);
     }
 
@@ -302,6 +317,7 @@ public class RuleBase {
     public void initialize() {
         inlineIncluded();
         makeReferences();
+        analyzer.initialize();
     }
 
     /**
@@ -5,9 +5,12 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import com.yahoo.search.Query;
 import com.yahoo.prelude.semantics.RuleBase;
@@ -34,32 +37,71 @@ public class RuleBaseBenchmark {
         while((line=reader.readLine())!=null){
             queries.add(line);
         }
-        Date start = new Date();
+        System.out.print("BENCHMARK: rulebase=" + ruleBaseFile +
+                "\n           fsa=" + fsaFile +
+                "\n           queries=" + queryFile +
+                "\n           iterations=" + iterations + "\n");
+        compareEngines(ruleBase, queries, iterations);
+    }
+
+    /**
+     * Benchmarks a generated rule base of the given number of synonym and phrase rules,
+     * over queries of which a few terms are matched by some rule
+     */
+    public void benchmarkSynthetic(int ruleCount, int iterations) throws IOException, ParseException {
+        StringBuilder rules = new StringBuilder();
+        for (int i = 0; i < ruleCount; i++) {
+            if (i % 2 == 0)
+                rules.append("word").append(i).append(" +> synonym").append(i).append(";\n");
+            else
+                rules.append("brand").append(i).append(" model").append(i).append(" -> product").append(i).append(";\n");
+        }
+        RuleBase ruleBase = new RuleImporter().importString(rules.toString(), null, "synthetic");
+        Random random = new Random(1);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int rule = random.nextInt(ruleCount);
+            queries.add("some " + (rule % 2 == 0 ? "word" + rule : "brand" + rule + " model" + rule) + " other terms");
+        }
+        System.out.print("BENCHMARK: rulebase=" + ruleCount + " generated rules" +
+                "\n           iterations=" + iterations + "\n");
+        compareEngines(ruleBase, queries, iterations);
+    }
+
+    /** Runs the queries over the rule base with and without indexing of the rules */
+    private void compareEngines(RuleBase ruleBase, List<String> queries, int iterations) {
+        for (boolean indexing : new boolean[] { false, true }) {
+            ruleBase.setIndexing(indexing);
+            analyze(ruleBase, queries, Math.max(1, iterations / 10)); // warm-up
+            long start = System.nanoTime();
+            analyze(ruleBase, queries, iterations);
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            System.out.print("           " + (indexing ? "indexed" : "linear ") + " elapsed=" + elapsed + "ms\n");
+        }
+    }
+
+    private void analyze(RuleBase ruleBase, List<String> queries, int iterations) {
         for (int i=0;i<iterations;i++){
             for (Iterator<String> iter = queries.iterator(); iter.hasNext(); ){
                 String queryString = iter.next();
-                Query query = new Query("?query="+queryString);
+                Query query = new Query("?query=" + URLEncoder.encode(queryString, StandardCharsets.UTF_8));
                 ruleBase.analyze(query,0);
             }
         }
-        Date end = new Date();
-        long elapsed = end.getTime()-start.getTime();
-        System.out.print("BENCHMARK: rulebase=" + ruleBaseFile +
-                "\n           fsa=" + fsaFile +
-                "\n           queries=" + queryFile +
-                "\n           iterations=" + iterations +
-                "\n           elapsed=" + elapsed + "ms\n");
     }
 
-
     public static void main(String[] args) {
         if(args.length<3){
             System.out.println("USAGE: RuleBaseBenchmark ruleBaseFile queryFile iterations");
+            System.out.println("       RuleBaseBenchmark -synthetic ruleCount iterations");
             System.exit(1);
         }
 
         try {
-            new RuleBaseBenchmark().benchmark(args[0],args[1],Integer.parseInt(args[2]));
+            if (args[0].equals("-synthetic"))
+                new RuleBaseBenchmark().benchmarkSynthetic(Integer.parseInt(args[1]),Integer.parseInt(args[2]));
+            else
+                new RuleBaseBenchmark().benchmark(args[0],args[1],Integer.parseInt(args[2]));
         }
         catch (Exception e) {
             System.out.println("ERROR: " + collectMessage(e));
@@ -7,11 +7,14 @@ import com.yahoo.prelude.semantics.RuleBase;
 import com.yahoo.prelude.semantics.RuleBaseException;
 import com.yahoo.prelude.semantics.rule.ProductionRule;
 
+import java.util.BitSet;
 import java.util.ListIterator;
 
 /**
  * Evaluates the rules of a rule base. This method is thread safe on analyze calls, but
  * not on modification calls.
+ * Once initialized, only the rules which may match some term of the query (or which
+ * are not indexed on terms) are evaluated, see {@link RuleIndex}.
  *
  * @author bratseth
  */
@@ -19,10 +22,26 @@ public class RuleEngine {
 
     private RuleBase rules;
 
+    /** The index of the rules to evaluate for a query, or null if the rules are not indexed currently */
+    private volatile RuleIndex index = null;
+
     public RuleEngine(RuleBase rules) {
         this.rules=rules;
     }
 
+    /**
+     * Indexes the current rules of the rule base, such that only the rules which may match
+     * a query are evaluated over it. Call this when all rules are added.
+     */
+    public void initialize() {
+        index = new RuleIndex(rules);
+    }
+
+    /** Drops the current index, if any. Call this when the rules of the rule base are changed. */
+    public void invalidate() {
+        index = null;
+    }
+
     /**
      * Evaluates a rule base over a query
      *
@@ -32,20 +51,30 @@ public class RuleEngine {
      *         If there is an error, this query is destroyed (unusable)
      */
     public String evaluate(Query query, int traceLevel) {
-        // TODO: This is O(query size*rule base size). We'll eventually need to create indices
-        //       on rules to look up rule candidates per term to make it O(query size) instead
-        //       Probably create indices on the first term like Prolog implementations use to
-
         boolean matchedAnything = false;
         Evaluation evaluation = new Evaluation(query, traceLevel);
         evaluation.setStemming(rules.getStemming());
         if (traceLevel >= 2)
             evaluation.trace(2,"Evaluating query '" + evaluation.getQuery().getModel().getQueryTree().getRoot() + "':");
-        for (ListIterator<ProductionRule> i = rules.ruleIterator(); i.hasNext(); ) {
-            evaluation.reset();
-            ProductionRule rule = i.next();
-            boolean matched = matchRuleAtAllStartPoints(evaluation,rule);
-            matchedAnything |= matched;
+        RuleIndex index = rules.getIndexing() ? this.index : null;
+        if (index != null) {
+            // Evaluate the candidate rules in rule order, looking them up again each time a production changes the query
+            BitSet candidates = index.candidates(evaluation.termValues());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                evaluation.reset();
+                boolean matched = matchRuleAtAllStartPoints(evaluation, index.rule(i));
+                if (matched)
+                    candidates = index.candidates(evaluation.termValues());
+                matchedAnything |= matched;
+            }
+        }
+        else {
+            for (ListIterator<ProductionRule> i = rules.ruleIterator(); i.hasNext(); ) {
+                evaluation.reset();
+                ProductionRule rule = i.next();
+                boolean matched = matchRuleAtAllStartPoints(evaluation,rule);
+                matchedAnything |= matched;
+            }
         }
 
         if ( ! matchedAnything) return null;
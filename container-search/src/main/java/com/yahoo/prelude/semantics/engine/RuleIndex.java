@@ -0,0 +1,128 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.semantics.engine;
+
+import com.yahoo.prelude.semantics.RuleBase;
+import com.yahoo.prelude.semantics.rule.AndCondition;
+import com.yahoo.prelude.semantics.rule.ChoiceCondition;
+import com.yahoo.prelude.semantics.rule.CompositeCondition;
+import com.yahoo.prelude.semantics.rule.Condition;
+import com.yahoo.prelude.semantics.rule.ConditionReference;
+import com.yahoo.prelude.semantics.rule.NamedCondition;
+import com.yahoo.prelude.semantics.rule.ProductionRule;
+import com.yahoo.prelude.semantics.rule.SequenceCondition;
+import com.yahoo.prelude.semantics.rule.TermCondition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index from terms to the rules of a rule base which can only match queries containing one of them.
+ * This allows the candidate rules of a query to be found in a single pass over the terms of the query,
+ * instead of trying every rule of the rule base at every position in the query.
+ * Rules which are not known to require any particular term (rules containing e.g. only negations,
+ * ellipses, comparisons, automata references or other name spaces) are candidates for every query.
+ *
+ * <p>This is immutable.</p>
+ *
+ * @author agent
+ */
+final class RuleIndex {
+
+    /** The rules of the rule base, in evaluation order */
+    private final List<ProductionRule> rules;
+
+    /** The positions of the rules which require one of the terms in the key set to match */
+    private final Map<String, BitSet> rulesByTerm = new HashMap<>();
+
+    /** The positions of the rules which must always be evaluated */
+    private final BitSet unindexedRules = new BitSet();
+
+    RuleIndex(RuleBase ruleBase) {
+        this.rules = new ArrayList<>(ruleBase.rules());
+        for (int position = 0; position < rules.size(); position++) {
+            Set<String> terms = requiredTerms(rules.get(position).getCondition(), ruleBase, new HashSet<>());
+            if (terms == null) {
+                unindexedRules.set(position);
+            }
+            else {
+                for (String term : terms)
+                    rulesByTerm.computeIfAbsent(term, __ -> new BitSet()).set(position);
+            }
+        }
+    }
+
+    /** Returns the rule at the given position */
+    ProductionRule rule(int position) { return rules.get(position); }
+
+    /**
+     * Returns the positions of the rules which may match a query containing the given terms.
+     * This includes the rules which may match some stemmed form of the terms, as that is
+     * decided per evaluation.
+     */
+    BitSet candidates(Collection<String> queryTerms) {
+        BitSet candidates = (BitSet)unindexedRules.clone();
+        for (String term : queryTerms) {
+            addRulesRequiring(term, candidates);
+            addRulesRequiring(term + "s", candidates); // See TermCondition.termMatchesWithStemming
+            if (term.endsWith("s"))
+                addRulesRequiring(term.substring(0, term.length() - 1), candidates);
+        }
+        return candidates;
+    }
+
+    private void addRulesRequiring(String term, BitSet candidates) {
+        BitSet rules = rulesByTerm.get(term);
+        if (rules != null)
+            candidates.or(rules);
+    }
+
+    /**
+     * Returns a set of terms such that the given condition can only match queries containing at least one of them,
+     * or null if no such set is known.
+     */
+    private static Set<String> requiredTerms(Condition condition, RuleBase ruleBase, Set<String> referencedConditions) {
+        if (condition == null) return null;
+        if (condition.getNameSpace() != null) return null;
+
+        if (condition instanceof TermCondition) {
+            String term = ((TermCondition)condition).getTerm();
+            return term == null ? null : Set.of(term);
+        }
+        if (condition instanceof SequenceCondition || condition instanceof AndCondition) { // any child suffices
+            Set<String> smallest = null;
+            for (Iterator<Condition> i = ((CompositeCondition)condition).conditionIterator(); i.hasNext(); ) {
+                Set<String> terms = requiredTerms(i.next(), ruleBase, referencedConditions);
+                if (terms != null && (smallest == null || terms.size() < smallest.size()))
+                    smallest = terms;
+            }
+            return smallest;
+        }
+        if (condition instanceof ChoiceCondition) { // every alternative must be covered
+            Set<String> union = new HashSet<>();
+            for (Iterator<Condition> i = ((CompositeCondition)condition).conditionIterator(); i.hasNext(); ) {
+                Set<String> terms = requiredTerms(i.next(), ruleBase, referencedConditions);
+                if (terms == null) return null;
+                union.addAll(terms);
+            }
+            return union.isEmpty() ? null : union;
+        }
+        if (condition instanceof ConditionReference) {
+            String name = ((ConditionReference)condition).getConditionName();
+            NamedCondition namedCondition = ruleBase.getCondition(name);
+            if (namedCondition == null) return null; // an automata reference
+            if ( ! referencedConditions.add(name)) return null; // recursive
+            Set<String> terms = requiredTerms(namedCondition.getCondition(), ruleBase, referencedConditions);
+            referencedConditions.remove(name);
+            return terms;
+        }
+        return null;
+    }
+
+}
@@ -6,6 +6,8 @@ import com.yahoo.processing.Processor;
 import com.yahoo.processing.Response;
 import com.yahoo.search.searchchain.Execution;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Logger;
 
 /**
@@ -127,6 +129,28 @@ public abstract class Searcher extends Processor {
      */
     public abstract Result search(Query query,Execution execution);
 
+    /**
+     * Override this to implement a searcher which does not hold a thread while waiting for the results of
+     * the searchers following it, or of other chains or backends.
+     * <p>
+     * Implementations must call <code>execution.searchAsync</code> (or <code>execution.search</code>)
+     * before this returns, if they invoke the rest of the chain, as the execution is positioned at this searcher
+     * only during this call. Continuations may access and modify the query and result, but must not use
+     * the execution to search. Errors are signalled as in {@link #search}, either by throwing or by completing
+     * the returned stage exceptionally.
+     * <p>
+     * The default implementation invokes the synchronous {@link #search} and returns its result as a completed stage,
+     * so searchers which are not asynchronous need not implement this. Note that a synchronous searcher waits
+     * for the searchers following it, so a chain only avoids holding a thread if the searchers preceding
+     * the asynchronous ones implement this as well.
+     *
+     * @param query the query
+     * @return a stage which completes with the result of making this query
+     */
+    public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+        return CompletableFuture.completedFuture(search(query, execution));
+    }
+
     /** Use the search method in Searcher processors. This forwards to it. */
     @Override
     public final Response process(com.yahoo.processing.Request request, com.yahoo.processing.execution.Execution execution) {
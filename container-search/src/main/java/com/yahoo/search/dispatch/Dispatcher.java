@@ -6,6 +6,7 @@ import com.yahoo.cloud.config.ClusterInfoConfig;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.ComponentId;
 import com.yahoo.compress.Compressor;
+import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
@@ -32,6 +33,11 @@ import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -76,6 +82,9 @@ public class Dispatcher extends AbstractComponent {
 
     private final int maxHitsPerNode;
 
+    /** Processes the responses of asynchronous searches */
+    private final Executor responseExecutor;
+
     private static final QueryProfileType argumentType;
 
     static {
@@ -104,15 +113,29 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private Dispatcher(RpcResourcePool resourcePool, SearchCluster searchCluster, DispatchConfig dispatchConfig, Metric metric) {
-        this(new ClusterMonitor<>(searchCluster, true), searchCluster, dispatchConfig, new RpcInvokerFactory(resourcePool, searchCluster), metric);
+        this(new ClusterMonitor<>(searchCluster, true), searchCluster, dispatchConfig, new RpcInvokerFactory(resourcePool, searchCluster),
+             metric, createResponseExecutor());
     }
 
-    /* Protected for simple mocking in tests. Beware that searchCluster is shutdown on in deconstruct() */
+    /*
+     * Protected for simple mocking in tests. Beware that searchCluster is shutdown on in deconstruct().
+     * Responses to asynchronous searches are processed in the thread delivering them.
+     */
     protected Dispatcher(ClusterMonitor clusterMonitor,
                          SearchCluster searchCluster,
                          DispatchConfig dispatchConfig,
                          InvokerFactory invokerFactory,
                          Metric metric) {
+        this(clusterMonitor, searchCluster, dispatchConfig, invokerFactory, metric, Runnable::run);
+    }
+
+    /** Creates a dispatcher processing the responses of asynchronous searches in the given executor */
+    protected Dispatcher(ClusterMonitor clusterMonitor,
+                         SearchCluster searchCluster,
+                         DispatchConfig dispatchConfig,
+                         InvokerFactory invokerFactory,
+                         Metric metric,
+                         Executor executor) {
         if (dispatchConfig.useMultilevelDispatch())
             throw new IllegalArgumentException(searchCluster + " is configured with multilevel dispatch, but this is not supported");
 
@@ -124,6 +147,7 @@ public class Dispatcher extends AbstractComponent {
         this.metric = metric;
         this.metricContext = metric.createContext(null);
         this.maxHitsPerNode = dispatchConfig.maxHitsPerNode();
+        this.responseExecutor = executor;
         searchCluster.addMonitoring(clusterMonitor);
         Thread warmup = new Thread(new Runnable() {
             @Override
@@ -157,6 +181,19 @@ public class Dispatcher extends AbstractComponent {
         return new Compressor().warmup(seconds);
     }
 
+    /**
+     * Creates a bounded pool dedicated to processing responses, such that this never waits for tasks queued
+     * in the container's request thread pool, which may be held by requests waiting for these responses.
+     */
+    private static ExecutorService createResponseExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(1000),
+                                                             ThreadFactoryFactory.getDaemonThreadFactory("dispatch-response"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /** Returns the search cluster this dispatches to */
     public SearchCluster searchCluster() {
         return searchCluster;
@@ -167,6 +204,16 @@ public class Dispatcher extends AbstractComponent {
         /* The clustermonitor must be shutdown first as it uses the invokerfactory through the searchCluster. */
         clusterMonitor.shutdown();
         invokerFactory.release();
+        if (responseExecutor instanceof ExecutorService)
+            ((ExecutorService)responseExecutor).shutdown();
+    }
+
+    /**
+     * Returns the executor processing responses from content nodes in asynchronous searches.
+     * This rejects tasks when it is overloaded, which callers must then run in the thread delivering the response.
+     */
+    public Executor responseExecutor() {
+        return responseExecutor;
     }
 
     public FillInvoker getFillInvoker(Result result, VespaBackEndSearcher searcher) {
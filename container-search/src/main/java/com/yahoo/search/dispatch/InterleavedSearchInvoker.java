@@ -11,6 +11,7 @@ import com.yahoo.search.searchchain.Execution;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -19,8 +20,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -44,6 +49,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final LinkedBlockingQueue<SearchInvoker> availableForProcessing;
     private final Set<Integer> alreadyFailedNodes;
     private Query query;
+    private AsyncSearch asyncSearch = null;
 
     private boolean adaptiveTimeoutCalculated = false;
     private long adaptiveTimeoutMin = 0;
@@ -121,6 +127,29 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
             throw new RuntimeException("Interrupted while waiting for search results", e);
         }
 
+        return completeResult(result, merged);
+    }
+
+    /**
+     * Searches asynchronously: Responses are merged by the given executor as they arrive, or by the thread
+     * delivering them if the executor rejects this, and the returned future is completed when all have arrived or the (adaptive) timeout is reached, such that no thread
+     * is held while waiting for responses.
+     */
+    @Override
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution, Executor executor) {
+        AsyncSearch search = new AsyncSearch(execution, executor);
+        asyncSearch = search;
+        try {
+            sendSearchRequest(query, null);
+        }
+        catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        search.start();
+        return search.future;
+    }
+
+    private InvokerResult completeResult(InvokerResult result, List<LeanHit> merged) {
         insertNetworkErrors(result.getResult());
         result.getResult().setCoverage(createCoverage());
         int needed = query.getOffset() + query.getHits();
@@ -312,6 +341,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
         }
+        if (asyncSearch != null) {
+            asyncSearch.signal();
+        }
     }
 
     @Override
@@ -331,4 +363,92 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
     // For testing
     Collection<SearchInvoker> invokers() { return invokers; }
+
+    /**
+     * The state of an asynchronous search. Responses and timeouts signal this, and each signal causes the
+     * available responses to be processed by the executor. Processing is never done by multiple threads at
+     * the same time, so the state of the invoker is only accessed by one thread at the time.
+     */
+    private class AsyncSearch {
+
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        private final Execution execution;
+        private final Executor executor;
+        private final AtomicInteger signals = new AtomicInteger();
+        private volatile boolean started = false;
+
+        private InvokerResult result;
+        private List<LeanHit> merged = Collections.emptyList();
+        private long waitUntil;
+
+        AsyncSearch(Execution execution, Executor executor) {
+            this.execution = execution;
+            this.executor = executor;
+        }
+
+        /** Starts processing responses, which must be done after the requests are sent */
+        void start() {
+            result = new InvokerResult(query, query.getHits());
+            scheduleTimeout(query.getTimeLeft());
+            started = true;
+            signal();
+        }
+
+        void signal() {
+            if ( ! started) return;
+            if (signals.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::drain);
+                }
+                catch (RejectedExecutionException e) { // overloaded: process in this thread
+                    drain();
+                }
+            }
+        }
+
+        private void scheduleTimeout(long timeout) {
+            waitUntil = currentTime() + timeout;
+            CompletableFuture.delayedExecutor(Math.max(0, timeout), TimeUnit.MILLISECONDS).execute(this::signal);
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if ( ! future.isDone())
+                    process();
+                missed = signals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void process() {
+            try {
+                boolean expired = false;
+                SearchInvoker invoker;
+                while ( ! invokers.isEmpty() && (invoker = availableForProcessing.poll()) != null) {
+                    merged = mergeResult(result.getResult(), invoker.getSearchResult(execution), merged);
+                    ejectInvoker(invoker);
+                    long nextTimeout = nextTimeout();
+                    if (nextTimeout < 0) {
+                        expired = true;
+                        break;
+                    }
+                    if ( ! invokers.isEmpty())
+                        scheduleTimeout(nextTimeout);
+                }
+                if ( ! expired && ! invokers.isEmpty() && currentTime() < waitUntil) return;
+
+                if ( ! invokers.isEmpty())
+                    log.fine(() -> "Search timed out with " + askedNodes + " requests made, " + answeredNodes + " responses received");
+                future.complete(complete(completeResult(result, merged)));
+            }
+            catch (IOException e) {
+                future.completeExceptionally(new UncheckedIOException(e));
+            }
+            catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+    }
+
 }
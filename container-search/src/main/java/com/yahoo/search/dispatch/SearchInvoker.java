@@ -9,7 +9,12 @@ import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.searchchain.Execution;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * SearchInvoker encapsulates an allocated connection for running a single search query.
@@ -33,7 +38,50 @@ public abstract class SearchInvoker extends CloseableInvoker {
      */
     public Result search(Query query, Execution execution) throws IOException {
         sendSearchRequest(query, null);
-        InvokerResult result = getSearchResult(execution);
+        return complete(getSearchResult(execution));
+    }
+
+    /**
+     * Same as {@link #search}, but returns without waiting for the response: The returned future completes
+     * when the response is available or the query has timed out, and the response is processed
+     * by the given executor, or by the thread delivering it if the executor rejects it.
+     * An IOException is signalled by completing the future with an UncheckedIOException.
+     */
+    public CompletableFuture<Result> searchAsync(Query query, Execution execution, Executor executor) {
+        CompletableFuture<Void> responseAvailable = new CompletableFuture<>();
+        setMonitor(from -> responseAvailable.complete(null));
+        try {
+            sendSearchRequest(query, null);
+        }
+        catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        responseAvailable.completeOnTimeout(null, Math.max(0, query.getTimeLeft()), TimeUnit.MILLISECONDS)
+                         .thenRun(() -> {
+                             Runnable process = () -> {
+                                 try {
+                                     result.complete(complete(getSearchResult(execution)));
+                                 }
+                                 catch (IOException e) {
+                                     result.completeExceptionally(new UncheckedIOException(e));
+                                 }
+                                 catch (RuntimeException e) {
+                                     result.completeExceptionally(e);
+                                 }
+                             };
+                             try {
+                                 executor.execute(process);
+                             }
+                             catch (RejectedExecutionException e) { // overloaded: process in this thread
+                                 process.run();
+                             }
+                         });
+        return result;
+    }
+
+    /** Sets the final status of this from the given result and returns it */
+    Result complete(InvokerResult result) {
         setFinalStatus(result.getResult().hits().getError() == null);
         result.complete();
         return result.getResult();
@@ -9,6 +9,7 @@ import java.time.Clock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -56,6 +57,17 @@ class FederationResult {
         }
     }
     
+    /**
+     * Returns a future which completes when each target to wait for has either completed or reached its timeout.
+     * This is the same as {@link #waitForAll}, but without blocking the calling thread.
+     * When it completes, results can be accessed from the TargetResults without blocking.
+     */
+    public CompletableFuture<Void> completion(int queryTimeout) {
+        return CompletableFuture.allOf(targetsToWaitFor.stream()
+                                                       .map(target -> target.completion(queryTimeout))
+                                                       .toArray(CompletableFuture[]::new));
+    }
+
     /** Returns an immutable list of the results of this */
     public List<TargetResult> all() { return targetResults; }
 
@@ -98,6 +110,13 @@ class FederationResult {
             return availableResult;
         }
         
+        /** Returns a future which completes when this target completes, or reaches its timeout */
+        CompletableFuture<Void> completion(int queryTimeout) {
+            return futureResult.whenDone().toCompletableFuture()
+                               .<Void>thenApply(done -> null)
+                               .completeOnTimeout(null, timeout(queryTimeout), TimeUnit.MILLISECONDS);
+        }
+
         /** Returns a result without blocking; if the result is not available one with a timeout error is produced */
         public Result getOrTimeoutError() {
             // The else part is to offload creation of the timeout error
@@ -53,7 +53,10 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -181,6 +184,54 @@ public class FederationSearcher extends ForkingSearcher {
                 getTargets(query.getModel().getSources(), query.properties(), execution.context().getIndexFacts());
         warnIfUnresolvedSearchChains(targets.errors(), mergedResults.hits());
 
+        Set<Target> targetHandlers = resolveTargets(query, execution, targets);
+        if (targetHandlers.isEmpty())
+            return mergedResults;
+        else if (targetHandlers.size() > 1)
+            search(query, execution, targetHandlers, mergedResults);
+        else if (shouldExecuteTargetLongerThanThread(query, targetHandlers.iterator().next()))
+            search(query, execution, targetHandlers, mergedResults); // one target, but search in separate thread
+        else
+            search(query, execution, first(targetHandlers), mergedResults); // search in this thread
+        return mergedResults;
+    }
+
+    /**
+     * Federates like {@link #search}, but does not block while waiting for the targets:
+     * The returned stage completes when all the targets to wait for have completed or timed out.
+     */
+    @Override
+    public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+        CompletionStage<Result> mergedResults = execution.searchAsync(query);
+
+        Results<SearchChainInvocationSpec, UnresolvedSearchChainException> targets =
+                getTargets(query.getModel().getSources(), query.properties(), execution.context().getIndexFacts());
+
+        Set<Target> targetHandlers = resolveTargets(query, execution, targets);
+        CompletionStage<Consumer<Result>> federation;
+        if (targetHandlers.isEmpty()) {
+            federation = CompletableFuture.completedFuture(merged -> {});
+        }
+        else if (targetHandlers.size() > 1 || shouldExecuteTargetLongerThanThread(query, first(targetHandlers))) {
+            FederationResult results = search(query, execution, targetHandlers, true);
+            federation = results.completion((int)query.getTimeLeft())
+                                .thenApply(done -> merged -> mergeResults(query, results, merged));
+        }
+        else { // start searching in this thread
+            Target target = first(targetHandlers);
+            federation = searchAsync(query, execution, target)
+                    .thenApply(result -> merged -> mergeResult(query, target, merged,
+                                                               result.orElse(createSearchChainTimedOutResult(query, target))));
+        }
+        return mergedResults.thenCombine(federation, (merged, merger) -> {
+            warnIfUnresolvedSearchChains(targets.errors(), merged.hits());
+            merger.accept(merged);
+            return merged;
+        });
+    }
+
+    private Set<Target> resolveTargets(Query query, Execution execution,
+                                       Results<SearchChainInvocationSpec, UnresolvedSearchChainException> targets) {
         Collection<SearchChainInvocationSpec> prunedTargets =
                 pruneTargetsWithoutDocumentTypes(query.getModel().getRestrict(), targets.data());
 
@@ -191,16 +242,7 @@ public class FederationSearcher extends ForkingSearcher {
         targetHandlers.addAll(getAdditionalTargets(query, execution, targetSelector));
 
         traceTargets(query, targetHandlers);
-
-        if (targetHandlers.isEmpty())
-            return mergedResults;
-        else if (targetHandlers.size() > 1)
-            search(query, execution, targetHandlers, mergedResults);
-        else if (shouldExecuteTargetLongerThanThread(query, targetHandlers.iterator().next()))
-            search(query, execution, targetHandlers, mergedResults); // one target, but search in separate thread
-        else
-            search(query, execution, first(targetHandlers), mergedResults); // search in this thread
-        return mergedResults;
+        return targetHandlers;
     }
 
     private void search(Query query, Execution execution, Target target, Result mergedResults) {
@@ -209,9 +251,12 @@ public class FederationSearcher extends ForkingSearcher {
     }
 
     private void search(Query query, Execution execution, Collection<Target> targets, Result mergedResults) {
-        FederationResult results = search(query, execution, targets);
+        FederationResult results = search(query, execution, targets, false);
         results.waitForAll((int)query.getTimeLeft(), clock);
+        mergeResults(query, results, mergedResults);
+    }
 
+    private void mergeResults(Query query, FederationResult results, Result mergedResults) {
         HitOrderer s = null;
         for (FederationResult.TargetResult targetResult : results.all()) {
             if (s == null)
@@ -225,30 +270,53 @@ public class FederationSearcher extends ForkingSearcher {
         if (timeout <= 0) return Optional.empty();
 
         Execution newExecution = new Execution(target.getChain(), execution.context());
-        Result result;
+        Result result = newExecution.search(createTargetQuery(query, timeout, target));
+        target.modifyTargetResult(result);
+        return Optional.of(result);
+    }
+
+    private CompletionStage<Optional<Result>> searchAsync(Query query, Execution execution, Target target) {
+        long timeout = target.federationOptions().getSearchChainExecutionTimeoutInMilliseconds(query.getTimeLeft());
+        if (timeout <= 0) return CompletableFuture.completedFuture(Optional.empty());
+
+        Execution newExecution = new Execution(target.getChain(), execution.context());
+        return newExecution.searchAsync(createTargetQuery(query, timeout, target)).thenApply(result -> {
+            target.modifyTargetResult(result);
+            return Optional.of(result);
+        });
+    }
+
+    /** Returns the query to send to a target searched in this thread */
+    private Query createTargetQuery(Query query, long timeout, Target target) {
         if (strictSearchchain) {
             query.resetTimeout();
-            result = newExecution.search(createFederationQuery(query, query, Window.from(query), timeout, target));
+            return createFederationQuery(query, query, Window.from(query), timeout, target);
         } else {
-            result = newExecution.search(cloneFederationQuery(query, Window.from(query), timeout, target));
+            return cloneFederationQuery(query, Window.from(query), timeout, target);
         }
-        target.modifyTargetResult(result);
-        return Optional.of(result);
     }
 
-    private FederationResult search(Query query, Execution execution, Collection<Target> targets) {
+    /**
+     * Starts searching the given targets in separate threads.
+     *
+     * @param asyncChains whether the target chains should be invoked by {@link Execution#searchAsync},
+     *                    such that their threads are released while waiting for asynchronous searchers
+     */
+    private FederationResult search(Query query, Execution execution, Collection<Target> targets, boolean asyncChains) {
         FederationResult.Builder result = new FederationResult.Builder();
         for (Target target : targets)
-            result.add(target, searchAsynchronously(query, execution, Window.from(targets, query), target));
+            result.add(target, searchAsynchronously(query, execution, Window.from(targets, query), target, asyncChains));
         return result.build();
     }
 
-    private FutureResult searchAsynchronously(Query query, Execution execution, Window window, Target target) {
+    private FutureResult searchAsynchronously(Query query, Execution execution, Window window, Target target,
+                                              boolean asyncChain) {
         long timeout = target.federationOptions().getSearchChainExecutionTimeoutInMilliseconds(query.getTimeLeft());
         if (timeout <= 0)
             return new FutureResult(() -> new Result(query, ErrorMessage.createTimeout("Timed out before federation")), execution, query);
         Query clonedQuery = cloneFederationQuery(query, window, timeout, target);
-        return new AsyncExecution(target.getChain(), execution).search(clonedQuery);
+        AsyncExecution asyncExecution = new AsyncExecution(target.getChain(), execution);
+        return asyncChain ? asyncExecution.searchAsync(clonedQuery) : asyncExecution.search(clonedQuery);
     }
 
     private Query cloneFederationQuery(Query query, Window window, long timeout, Target target) {
@@ -0,0 +1,32 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.grouping.request;
+
+/**
+ * This class represents a countdistinct-aggregator in a {@link GroupingExpression}. It evaluates to an estimate of the
+ * number of distinct values that the contained expression evaluated to over all the inputs. The estimate is made
+ * using a HyperLogLog sketch, which is merged across content nodes, so this is much cheaper than counting the groups
+ * of the expression when there are many distinct values.
+ *
+ * @author agent
+ */
+public class CountDistinctAggregator extends AggregatorNode {
+
+    /**
+     * Constructs a new instance of this class.
+     *
+     * @param expression the expression to count the distinct values of.
+     */
+    public CountDistinctAggregator(GroupingExpression expression) {
+        this(null, null, expression);
+    }
+
+    private CountDistinctAggregator(String label, Integer level, GroupingExpression expression) {
+        super("countdistinct", label, level, expression);
+    }
+
+    @Override
+    public CountDistinctAggregator copy() {
+        return new CountDistinctAggregator(getLabel(), getLevelOrNull(), getExpression().copy());
+    }
+
+}
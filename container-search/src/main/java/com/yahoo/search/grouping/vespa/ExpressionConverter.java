@@ -13,6 +13,7 @@ import com.yahoo.search.grouping.request.BucketValue;
 import com.yahoo.search.grouping.request.CatFunction;
 import com.yahoo.search.grouping.request.ConstantValue;
 import com.yahoo.search.grouping.request.CountAggregator;
+import com.yahoo.search.grouping.request.CountDistinctAggregator;
 import com.yahoo.search.grouping.request.DateFunction;
 import com.yahoo.search.grouping.request.DayOfMonthFunction;
 import com.yahoo.search.grouping.request.DayOfWeekFunction;
@@ -217,6 +218,10 @@ class ExpressionConverter {
             return new CountAggregationResult()
                     .setExpression(new ConstantNode(new IntegerResultNode(0)));
         }
+        if (exp instanceof CountDistinctAggregator) {
+            return new ExpressionCountAggregationResult()
+                    .setExpression(toExpressionNode(((CountDistinctAggregator)exp).getExpression()));
+        }
         if (exp instanceof MaxAggregator) {
             return new MaxAggregationResult()
                     .setExpression(toExpressionNode(((MaxAggregator)exp).getExpression()));
@@ -50,6 +50,8 @@ public class GroupingExecutor extends Searcher {
     private final static CompoundName PROP_GROUPINGLIST = newCompoundName(GROUPING_LIST);
     private final static Logger log = Logger.getLogger(GroupingExecutor.class.getName());
 
+    private final GroupingMerger merger = new GroupingMerger();
+
     /**
      * Constructs a new instance of this searcher without configuration.
      * This makes the searcher completely useless for searching purposes,
@@ -326,25 +328,23 @@ public class GroupingExecutor extends Searcher {
      * @return A map of merged grouping objects.
      */
     private Map<Integer, Grouping> mergeGroupingResults(Result result) {
-        Map<Integer, Grouping> ret = new HashMap<>();
+        Map<Integer, List<Grouping>> groupingsById = new HashMap<>();
         for (Iterator<Hit> i = result.hits().unorderedIterator(); i.hasNext(); ) {
             Hit hit = i.next();
             if (hit instanceof GroupingListHit) {
                 ContextInjector injector = new ContextInjector(hit);
                 for (Grouping grp : ((GroupingListHit)hit).getGroupingList()) {
                     grp.select(injector, injector);
-                    Grouping old = ret.get(grp.getId());
-                    if (old != null) {
-                        old.merge(grp);
-                    } else {
-                        ret.put(grp.getId(), grp);
-                    }
+                    groupingsById.computeIfAbsent(grp.getId(), __ -> new ArrayList<>()).add(grp);
                 }
                 i.remove();
             }
         }
-        for (Grouping grouping : ret.values()) {
+        Map<Integer, Grouping> ret = new HashMap<>();
+        for (List<Grouping> groupings : groupingsById.values()) {
+            Grouping grouping = merger.merge(groupings);
             grouping.postMerge();
+            ret.put(grouping.getId(), grouping);
         }
         return ret;
     }
@@ -0,0 +1,101 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.grouping.vespa;
+
+import com.yahoo.searchlib.aggregation.Grouping;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merges the results of a grouping request returned from many content nodes.
+ * The results are merged pairwise in a balanced tree, rather than one after the other into the first,
+ * such that each group is merged a logarithmic rather than a linear number of times in the number of nodes.
+ * The subtrees of the merge are merged in parallel when they are large enough for that to pay off,
+ * while small results are merged one after the other.
+ *
+ * @author agent
+ */
+class GroupingMerger {
+
+    /** The default minimum number of top level groups to merge in a tree, and in each parallel task */
+    static final int defaultGroupsPerTask = 20000;
+
+    private final ForkJoinPool pool;
+    private final int groupsPerTask;
+
+    GroupingMerger() {
+        this(ForkJoinPool.commonPool(), defaultGroupsPerTask);
+    }
+
+    /**
+     * Creates a grouping merger
+     *
+     * @param pool the pool to merge in, or null to merge only in the calling thread
+     * @param groupsPerTask the minimum number of top level groups to merge in a tree, and in each parallel task
+     */
+    GroupingMerger(ForkJoinPool pool, int groupsPerTask) {
+        this.pool = pool;
+        this.groupsPerTask = groupsPerTask;
+    }
+
+    /**
+     * Merges the given results of the same grouping request into the first of them and returns it.
+     * {@link Grouping#postMerge()} must be invoked on the returned grouping when this returns.
+     *
+     * @param groupings the nonempty list of results to merge, which are all modified by this
+     * @return the first grouping of the given list, containing the merged result
+     */
+    Grouping merge(List<Grouping> groupings) {
+        Grouping[] results = groupings.toArray(new Grouping[0]);
+        long[] groupCounts = new long[results.length + 1]; // prefix sums of the group counts of the results
+        for (int i = 0; i < results.length; i++)
+            groupCounts[i + 1] = groupCounts[i] + results[i].getRoot().getChildren().size();
+
+        long totalGroupCount = groupCounts[results.length];
+        if (totalGroupCount < groupsPerTask) { // the tree does not pay off for small results
+            for (int i = 1; i < results.length; i++)
+                results[0].merge(results[i]);
+            return results[0];
+        }
+
+        MergeTask task = new MergeTask(results, groupCounts, 0, results.length);
+        if (pool == null || results.length < 4 || totalGroupCount < 2L * groupsPerTask)
+            task.compute();
+        else
+            pool.invoke(task);
+        return results[0];
+    }
+
+    /** Merges a range of the results into the first result in the range */
+    private class MergeTask extends RecursiveAction {
+
+        private final Grouping[] results;
+        private final long[] groupCounts;
+        private final int from, to;
+
+        MergeTask(Grouping[] results, long[] groupCounts, int from, int to) {
+            this.results = results;
+            this.groupCounts = groupCounts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < 2) return;
+            int middle = (from + to) >>> 1;
+            MergeTask left = new MergeTask(results, groupCounts, from, middle);
+            MergeTask right = new MergeTask(results, groupCounts, middle, to);
+            if (pool != null && groupCounts[to] - groupCounts[from] >= 2L * groupsPerTask)
+                invokeAll(left, right);
+            else {
+                left.compute();
+                right.compute();
+            }
+            results[from].merge(results[middle]);
+        }
+
+    }
+
+}
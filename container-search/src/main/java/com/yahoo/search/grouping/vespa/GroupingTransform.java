@@ -23,6 +23,7 @@ class GroupingTransform {
     private final Map<Integer, Integer> offsetByTag = new HashMap<>();
     private final Map<ResultId, Integer> offsetById = new HashMap<>();
     private final Set<ResultId> unstable = new HashSet<>();
+    private final Set<Integer> distinctCounts = new HashSet<>();
     private final int requestId;
 
     public GroupingTransform(int requestId) {
@@ -108,6 +109,20 @@ class GroupingTransform {
         return labels.get(tag);
     }
 
+    /** Marks the aggregation result with the given tag as counting the distinct values of an expression */
+    public GroupingTransform putDistinctCount(int tag) {
+        distinctCounts.add(tag);
+        return this;
+    }
+
+    /**
+     * Returns whether the aggregation result with the given tag counts the distinct values of an expression,
+     * rather than the groups of the list it is attached to.
+     */
+    public boolean isDistinctCount(int tag) {
+        return distinctCounts.contains(tag);
+    }
+
     @Override
     public String toString() {
         StringBuilder ret = new StringBuilder();
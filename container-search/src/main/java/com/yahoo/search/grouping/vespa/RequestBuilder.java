@@ -4,6 +4,7 @@ package com.yahoo.search.grouping.vespa;
 import com.yahoo.search.grouping.Continuation;
 import com.yahoo.search.grouping.GroupingRequest;
 import com.yahoo.search.grouping.request.AllOperation;
+import com.yahoo.search.grouping.request.CountDistinctAggregator;
 import com.yahoo.search.grouping.request.EachOperation;
 import com.yahoo.search.grouping.request.GroupingExpression;
 import com.yahoo.search.grouping.request.GroupingOperation;
@@ -158,6 +159,7 @@ class RequestBuilder {
         // The ExpressionCountAggregationResult uses the group-by expression to simulate aggregation of list of groups.
         group.getAggregationResults().stream()
                 .filter(aggr -> aggr instanceof ExpressionCountAggregationResult)
+                .filter(aggr -> ! transform.isDistinctCount(aggr.getTag()))
                 .forEach(aggr -> aggr.setExpression(frame.state.groupBy.clone()));
     }
 
@@ -295,6 +297,9 @@ class RequestBuilder {
         } else {
             transform.putLabel(group.getTag(), tag, label != null ? label : exp.toString(), "output");
         }
+        if (exp instanceof CountDistinctAggregator) {
+            transform.putDistinctCount(tag);
+        }
         return result;
     }
 
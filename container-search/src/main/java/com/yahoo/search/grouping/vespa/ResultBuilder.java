@@ -49,6 +49,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This class implements the necessary logic to build a {@link RootGroup} from a list of {@link Grouping} objects. It is
@@ -131,6 +132,10 @@ class ResultBuilder {
     /**
      * Constructs the grouping result tree that corresponds to the parameters given to this builder. This method might
      * fail due to unsupported constructs in the results, in which case an exception is thrown.
+     * <p>
+     * Only the root group and its lists are created by this. The groups below add their lists from the grouping
+     * results of the back end when these are first accessed, which is usually when they are rendered. This avoids
+     * building large trees of groups which are rendered and discarded immediately.
      *
      * @throws UnsupportedOperationException Thrown if the grouping result contains unsupported constructs.
      */
@@ -139,7 +144,9 @@ class ResultBuilder {
         if (numChildren != 1) {
             throw new UnsupportedOperationException("Expected 1 group, got " + numChildren + ".");
         }
-        rootBuilder.childGroups.get(0).fill(root);
+        GroupBuilder rootGroup = rootBuilder.childGroups.get(0);
+        rootGroup.paginate();
+        rootGroup.fill(root);
     }
 
     private class GroupBuilder {
@@ -151,6 +158,9 @@ class ResultBuilder {
         final com.yahoo.searchlib.aggregation.Group group;
         final boolean stable;
 
+        /** Whether there are hits in this or any group below it on the selected pages, set by {@link #paginate} */
+        boolean hasHits = false;
+
         GroupBuilder(ResultId resultId, com.yahoo.searchlib.aggregation.Group group, boolean stable) {
             this.resultId = resultId;
             this.group = group;
@@ -158,19 +168,31 @@ class ResultBuilder {
         }
 
         Group build(double relevance) {
-            return fill(new Group(newGroupId(group), new Relevance(relevance)));
+            Group group = new LazyGroup(newGroupId(this.group), new Relevance(relevance), this);
+            addFields(group);
+            return group;
         }
 
         Group fill(Group group) {
+            addFields(group);
+            addLists(group);
+            return group;
+        }
+
+        void addFields(Group group) {
+            for (AggregationResult res : this.group.getAggregationResults()) {
+                if (res instanceof HitsAggregationResult) continue;
+                String label = transform.getLabel(res.getTag());
+                if (label != null) {
+                    group.setField(label, newResult(res, res.getTag()));
+                }
+            }
+        }
+
+        void addLists(Group group) {
             for (AggregationResult res : this.group.getAggregationResults()) {
-                int tag = res.getTag();
                 if (res instanceof HitsAggregationResult) {
-                    group.add(newHitList(group.size(), tag, (HitsAggregationResult)res));
-                } else {
-                    String label = transform.getLabel(res.getTag());
-                    if (label != null) {
-                        group.setField(label, newResult(res, tag));
-                    }
+                    group.add(newHitList(group.size(), res.getTag(), (HitsAggregationResult)res));
                 }
             }
             for (GroupListBuilder child : childLists) {
@@ -178,7 +200,30 @@ class ResultBuilder {
                     group.add(child.build());
                 }
             }
-            return group;
+        }
+
+        /**
+         * Selects the pages of the lists in and below this, adds the offsets of these to the continuation
+         * of the result, and determines whether this has hits.
+         *
+         * @return whether there are hits in this or any group below it on the selected pages
+         */
+        boolean paginate() {
+            int listIdx = 0;
+            for (AggregationResult res : group.getAggregationResults()) {
+                if (res instanceof HitsAggregationResult) {
+                    PageInfo page = new PageInfo(resultId.newChildId(listIdx++), res.getTag(), stable,
+                                                 ((HitsAggregationResult)res).getHits().size());
+                    page.addOffsetContinuation();
+                    hasHits |= page.lastEntry > page.firstEntry;
+                }
+            }
+            for (GroupListBuilder child : childLists) {
+                if (child != null) {
+                    hasHits |= child.paginate();
+                }
+            }
+            return hasHits;
         }
 
         GroupListBuilder getOrCreateChildList(int tag, boolean ranked) {
@@ -246,7 +291,7 @@ class ResultBuilder {
                 return ((CountAggregationResult)execResult).getCount();
             } else if (execResult instanceof ExpressionCountAggregationResult) {
                 long count = ((ExpressionCountAggregationResult)execResult).getEstimatedUniqueCount();
-                return correctExpressionCountEstimate(count, tag);
+                return transform.isDistinctCount(tag) ? count : correctExpressionCountEstimate(count, tag);
             } else if (execResult instanceof MaxAggregationResult) {
                 return ((MaxAggregationResult)execResult).getMax().getValue();
             } else if (execResult instanceof MinAggregationResult) {
@@ -297,6 +342,7 @@ class ResultBuilder {
         final boolean stable;
         final boolean stableChildren;
         final boolean ranked;
+        PageInfo page;
 
         GroupListBuilder(ResultId resultId, int tag, boolean stable, boolean ranked) {
             this.resultId = resultId;
@@ -307,7 +353,6 @@ class ResultBuilder {
         }
 
         GroupList build() {
-            PageInfo page = new PageInfo(resultId, tag, stable, childGroups.size());
             GroupList groupList = new GroupList(transform.getLabel(tag));
             for (int i = page.firstEntry; i < page.lastEntry; ++i) {
                 GroupBuilder child = childGroups.get(i);
@@ -318,6 +363,16 @@ class ResultBuilder {
             return groupList;
         }
 
+        boolean paginate() {
+            page = new PageInfo(resultId, tag, stable, childGroups.size());
+            boolean hasHits = false;
+            for (int i = page.firstEntry; i < page.lastEntry; ++i) {
+                hasHits |= childGroups.get(i).paginate();
+            }
+            page.addOffsetContinuation();
+            return hasHits;
+        }
+
         void addGroup(com.yahoo.searchlib.aggregation.Group execGroup) {
             GroupBuilder groupBuilder = getOrCreateGroup(execGroup);
             if (!execGroup.getChildren().isEmpty()) {
@@ -368,11 +423,16 @@ class ResultBuilder {
             }
         }
 
+        /** Adds the offset of this page to the continuation of the result, which must be done before it is rendered */
+        void addOffsetContinuation() {
+            if (max > 0 && firstEntry > 0) {
+                continuation.add(new OffsetContinuation(resultId, tag, firstEntry, 0));
+            }
+        }
+
         void putContinuations(Map<String, Continuation> out) {
             if (max > 0) {
                 if (firstEntry > 0) {
-                    continuation.add(new OffsetContinuation(resultId, tag, firstEntry, 0));
-
                     int prevPage = Math.max(0, Math.min(firstEntry, lastEntry) - max);
                     out.put(Continuation.PREV_PAGE, new OffsetContinuation(resultId, tag, prevPage,
                                                                            OffsetContinuation.FLAG_UNSTABLE));
@@ -386,6 +446,56 @@ class ResultBuilder {
 
     }
 
+    /**
+     * A group which adds its lists when the hits of it are first accessed. Since the parents of groups with hits
+     * inspect them to determine whether they are filled, this only avoids creating the lists below groups without hits.
+     */
+    class LazyGroup extends Group {
+
+        private GroupBuilder builder;
+
+        LazyGroup(GroupId groupId, Relevance relevance, GroupBuilder builder) {
+            super(groupId, relevance);
+            this.builder = builder;
+        }
+
+        /** Returns whether the lists of this group are added */
+        boolean listsAreAdded() { return builder == null; }
+
+        @Override
+        protected void addLazyHits() {
+            if (builder == null) return;
+            GroupBuilder builder = this.builder;
+            this.builder = null;
+            builder.addLists(this);
+        }
+
+        @Override
+        public Set<String> getFilled() {
+            if (builder != null && ! builder.hasHits) return null; // no need to create the lists to know
+            return super.getFilled();
+        }
+
+        @Override
+        public boolean isFillable() {
+            if (builder != null && ! builder.hasHits) return false;
+            return super.isFillable();
+        }
+
+        @Override
+        public boolean isCached() {
+            if (builder != null && ! builder.hasHits) return true;
+            return super.isCached();
+        }
+
+        @Override
+        public void close() {
+            builder = null;
+            super.close();
+        }
+
+    }
+
     /**
      * Defines a helper interface to convert Vespa style grouping hits into corresponding instances of {@link Hit}.
      * It is an interface to simplify testing.
@@ -9,7 +9,9 @@ import com.yahoo.protect.Validator;
 import com.yahoo.search.Query;
 import com.yahoo.search.query.Properties;
 import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.compiled.DimensionalMap;
 import com.yahoo.search.query.profile.compiled.DimensionalValue;
+import com.yahoo.search.query.profile.compiled.ValueWithSource;
 import com.yahoo.search.query.profile.types.FieldDescription;
 import com.yahoo.search.query.profile.types.QueryProfileFieldType;
 import com.yahoo.search.query.profile.types.QueryProfileType;
@@ -35,6 +37,9 @@ public class QueryProfileProperties extends Properties {
     /** Values which has been overridden at runtime, or null if none */
     private Map<CompoundName, Object> values = null;
 
+    /** Whether the values map may be shared with clones, and must be copied before it is modified */
+    private boolean valuesShared = false;
+
     /**
      * Query profile references which has been overridden at runtime, possibly to the null value to clear values,
      * or null if none (i.e this is lazy).
@@ -42,6 +47,9 @@ public class QueryProfileProperties extends Properties {
      */
     private List<Pair<CompoundName, CompiledQueryProfile>> references = null;
 
+    /** The variant of the profile used for the last lookup, which is reused while the context stays the same */
+    private DimensionalMap.Variant<ValueWithSource> variant = null;
+
     /** Creates an instance from a profile, throws an exception if the given profile is null */
     public QueryProfileProperties(CompiledQueryProfile profile) {
         Validator.ensureNotNull("The profile wrapped by this cannot be null", profile);
@@ -56,8 +64,12 @@ public class QueryProfileProperties extends Properties {
     public Object get(CompoundName name, Map<String, String> context,
                       com.yahoo.processing.request.Properties substitution) {
         name = unalias(name, context);
-        if (values != null && values.containsKey(name))
-            return values.get(name); // Returns this value, even if null
+        if (values != null && values.containsKey(name)) {
+            Object value = values.get(name);
+            if (valuesShared && value instanceof Cloneable) // The caller may modify it, so this needs its own copy
+                value = writableValues().get(name);
+            return value; // Returns this value, even if null
+        }
 
         Pair<CompoundName, CompiledQueryProfile> reference = findReference(name);
         if (reference != null) {
@@ -67,7 +79,9 @@ public class QueryProfileProperties extends Properties {
                 return reference.getSecond().get(name.rest(reference.getFirst().size()), context, substitution); // even if null
         }
 
-        Object value = profile.get(name, context, substitution);
+        if (variant == null || ! variant.matches(context))
+            variant = profile.variant(context);
+        Object value = profile.get(name, variant, context, substitution);
         if (value != null)
             return value;
         return super.get(name, context, substitution);
@@ -144,9 +158,7 @@ public class QueryProfileProperties extends Properties {
                 references.add(0, new Pair<>(name, (CompiledQueryProfile)value)); // references set later has precedence - put first
             }
             else {
-                if (values == null)
-                    values = new HashMap<>();
-                values.put(name, value);
+                writableValues().put(name, value);
             }
         }
         catch (IllegalArgumentException e) {
@@ -160,8 +172,8 @@ public class QueryProfileProperties extends Properties {
             references = new ArrayList<>();
         references.add(new Pair<>(name, null));
 
-        if (values != null)
-            values.keySet().removeIf(key -> key.hasPrefix(name));
+        if (values != null && values.keySet().stream().anyMatch(key -> key.hasPrefix(name)))
+            writableValues().keySet().removeIf(key -> key.hasPrefix(name));
     }
 
     @Override
@@ -205,6 +217,8 @@ public class QueryProfileProperties extends Properties {
         }
 
         if (values != null) {
+            if (valuesShared && values.values().stream().anyMatch(value -> value instanceof Cloneable))
+                writableValues(); // The caller may modify the values, so this needs its own copies
             for (Map.Entry<CompoundName, Object> entry : values.entrySet()) {
                 if (entry.getKey().hasPrefix(path))
                     properties.put(entry.getKey().rest(path.size()).toString(), entry.getValue());
@@ -298,9 +312,21 @@ public class QueryProfileProperties extends Properties {
     @Override
     public QueryProfileProperties clone() {
         QueryProfileProperties clone = (QueryProfileProperties)super.clone();
-        if (this.values != null)
-            clone.values = PropertyMap.cloneMap(this.values);
+        if (this.values != null) { // copied lazily, see writableValues
+            this.valuesShared = true;
+            clone.valuesShared = true;
+        }
         return clone;
     }
 
+    /** Returns the values of this, after creating them if missing, or copying them if they are shared with a clone */
+    private Map<CompoundName, Object> writableValues() {
+        if (values == null)
+            values = new HashMap<>();
+        else if (valuesShared)
+            values = PropertyMap.cloneMap(values);
+        valuesShared = false;
+        return values;
+    }
+
 }
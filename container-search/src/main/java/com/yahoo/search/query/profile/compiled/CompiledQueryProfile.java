@@ -183,6 +183,24 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return substitute(value.value(), context, substitution);
     }
 
+    /**
+     * Returns the values of this resolved for the dimension values of the given context.
+     * Looking up values in the returned variant is cheaper than looking them up by context,
+     * so callers doing many lookups in the same context should keep it for as long as
+     * {@link DimensionalMap.Variant#matches} the context.
+     */
+    public DimensionalMap.Variant<ValueWithSource> variant(Map<String, String> context) {
+        return entries.variant(context);
+    }
+
+    /** Returns a value of this from a variant returned by {@link #variant} for the given context */
+    public final Object get(CompoundName name, DimensionalMap.Variant<ValueWithSource> variant,
+                            Map<String, String> context, Properties substitution) {
+        ValueWithSource value = variant.get(name);
+        if (value == null) return null;
+        return substitute(value.value(), context, substitution);
+    }
+
     private Object substitute(Object value, Map<String, String> context, Properties substitution) {
         if (value == null) return value;
         if (substitution == null) return value;
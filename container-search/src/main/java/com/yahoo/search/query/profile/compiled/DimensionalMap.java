@@ -5,24 +5,76 @@ import com.google.common.collect.ImmutableMap;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.query.profile.DimensionBinding;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * A map which may return different values depending on the values given in a context
  * supplied with the key on all operations.
  * <p>
  * Dimensional maps are immutable and created through a DimensionalMap.Builder
+ * <p>
+ * Each key is assigned a dense slot index when the map is built. Callers doing many lookups in the same context
+ * can resolve the context once into a {@link Variant}, which holds the value of each slot for one combination of
+ * dimension values, such that the variant bindings of a key are only matched the first time the key is looked up
+ * in each distinct context, and subsequent lookups are a slot lookup and an array load. Context values which no
+ * variant binds a dimension to are resolved as no value, such that there is at most one variant for each
+ * combination of the values declared in the variant bindings of this.
  *
  * @author bratseth
  */
 public class DimensionalMap<VALUE> {
 
+    /** The max number of distinct combinations of declared dimension values to keep resolved variants for */
+    static final int maxVariants = 1000;
+
     private final Map<CompoundName, DimensionalValue<VALUE>> values;
 
+    /** The slot index of each key */
+    private final Map<CompoundName, Integer> slots;
+
+    /** The values of each key, by slot index */
+    private final DimensionalValue<VALUE>[] valuesBySlot;
+
+    /** The dimensions any value of this varies over */
+    private final String[] dimensions;
+
+    /** The values any variant binds each dimension to, in the order of the dimensions */
+    private final List<Set<String>> declaredValues;
+
+    /** The variant used when no dimension has a value in the context */
+    private final Variant<VALUE> emptyVariant;
+
+    /** The variants resolved so far, keyed on the declared dimension values of the context they are for */
+    private final Map<DimensionValues, Variant<VALUE>> variants = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
     private DimensionalMap(Map<CompoundName, DimensionalValue<VALUE>> values) {
         this.values = ImmutableMap.copyOf(values);
+        this.valuesBySlot = new DimensionalValue[this.values.size()];
+        Map<CompoundName, Integer> slots = new HashMap<>();
+        Set<String> dimensions = new TreeSet<>();
+        Map<String, Set<String>> declaredValues = new HashMap<>();
+        for (Map.Entry<CompoundName, DimensionalValue<VALUE>> entry : this.values.entrySet()) {
+            valuesBySlot[slots.size()] = entry.getValue();
+            slots.put(entry.getKey(), slots.size());
+            entry.getValue().addDimensionsTo(dimensions);
+            entry.getValue().addDimensionValuesTo(declaredValues);
+        }
+        this.slots = ImmutableMap.copyOf(slots);
+        this.dimensions = dimensions.toArray(new String[0]);
+        this.declaredValues = dimensions.stream()
+                                        .map(dimension -> Set.copyOf(declaredValues.getOrDefault(dimension, Set.of())))
+                                        .collect(Collectors.toUnmodifiableList());
+        this.emptyVariant = new Variant<>(this, new DimensionValues(new String[this.dimensions.length]));
     }
 
     /** Returns the value for this key matching a context, or null if none */
@@ -32,6 +84,37 @@ public class DimensionalMap<VALUE> {
         return variants.get(context);
     }
 
+    /**
+     * Returns the variant of this which holds the values matching the given context.
+     * The variant may be used for any number of lookups for as long as the dimension values of the context stays the same.
+     */
+    public Variant<VALUE> variant(Map<String, String> context) {
+        if (context == null || context.isEmpty() || dimensions.length == 0) return emptyVariant;
+
+        String[] dimensionValues = new String[dimensions.length];
+        boolean hasValues = false;
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensionValues[i] = declaredValue(i, context);
+            hasValues |= dimensionValues[i] != null;
+        }
+        if ( ! hasValues) return emptyVariant;
+
+        DimensionValues key = new DimensionValues(dimensionValues);
+        Variant<VALUE> variant = variants.get(key);
+        if (variant != null) return variant;
+
+        variant = new Variant<>(this, key);
+        if (variants.size() >= maxVariants) return variant; // Resolve without caching; only if very many are declared
+        Variant<VALUE> existing = variants.putIfAbsent(key, variant);
+        return existing != null ? existing : variant;
+    }
+
+    /** Returns the value of the given dimension in the context if some variant binds it to that, and null otherwise */
+    private String declaredValue(int dimension, Map<String, String> context) {
+        String value = context == null ? null : context.get(dimensions[dimension]);
+        return value != null && declaredValues.get(dimension).contains(value) ? value : null;
+    }
+
     /** Returns the set of dimensional entries across all contexts. */
     public Set<Map.Entry<CompoundName, DimensionalValue<VALUE>>> entrySet() {
         return values.entrySet();
@@ -42,6 +125,92 @@ public class DimensionalMap<VALUE> {
         return values.isEmpty();
     }
 
+    /**
+     * The values of a dimensional map for one combination of dimension values.
+     * Values are resolved lazily and remembered, so this is cheap to create.
+     * This is thread safe.
+     */
+    public static class Variant<VALUE> {
+
+        /** Marks slots which are not resolved yet */
+        private static final Object unresolved = new Object();
+
+        /** Marks slots which are resolved to have no value */
+        private static final Object none = new Object();
+
+        private final DimensionalMap<VALUE> map;
+        private final DimensionValues dimensionValues;
+        private final Map<String, String> context;
+        private final Object[] resolved;
+
+        private Variant(DimensionalMap<VALUE> map, DimensionValues dimensionValues) {
+            this.map = map;
+            this.dimensionValues = dimensionValues;
+            this.context = dimensionValues.toContext(map.dimensions);
+            this.resolved = new Object[map.valuesBySlot.length];
+            Arrays.fill(resolved, unresolved);
+        }
+
+        /** Returns whether this is the variant of the map it belongs to for the given context */
+        public boolean matches(Map<String, String> context) {
+            String[] values = dimensionValues.values;
+            for (int i = 0; i < values.length; i++) {
+                if ( ! Objects.equals(values[i], map.declaredValue(i, context))) return false;
+            }
+            return true;
+        }
+
+        /** Returns the value of the given key in this variant, or null if none */
+        public VALUE get(CompoundName key) {
+            Integer slot = map.slots.get(key);
+            if (slot == null) return null;
+            return get(slot);
+        }
+
+        @SuppressWarnings("unchecked")
+        private VALUE get(int slot) {
+            Object value = resolved[slot];
+            if (value == unresolved) { // Racing threads resolve the same value, so writes need no synchronization
+                value = map.valuesBySlot[slot].get(context);
+                resolved[slot] = value == null ? none : value;
+            }
+            return value == none ? null : (VALUE)value;
+        }
+
+    }
+
+    /** The values of the dimensions of a map in some context, in the order of the dimensions of the map */
+    private static class DimensionValues {
+
+        private final String[] values;
+        private final int hashCode;
+
+        DimensionValues(String[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        /** Returns the minimal context having these values for the given dimensions */
+        Map<String, String> toContext(String[] dimensions) {
+            Map<String, String> context = new HashMap<>();
+            for (int i = 0; i < dimensions.length; i++)
+                if (values[i] != null)
+                    context.put(dimensions[i], values[i]);
+            return Collections.unmodifiableMap(context);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) return true;
+            if ( ! (other instanceof DimensionValues)) return false;
+            return Arrays.equals(this.values, ((DimensionValues)other).values);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
     public static class Builder<VALUE> {
 
         private final Map<CompoundName, DimensionalValue.Builder<VALUE>> entries = new HashMap<>();
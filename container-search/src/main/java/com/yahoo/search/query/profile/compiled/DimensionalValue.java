@@ -57,6 +57,21 @@ public class DimensionalValue<VALUE> {
 
     public boolean isEmpty() { return indexedVariants.isEmpty(); }
 
+    /** Adds the dimensions this has values for to the given set */
+    void addDimensionsTo(Set<String> dimensions) {
+        for (BindingSpec spec : bindingSpecs)
+            dimensions.addAll(Arrays.asList(spec.dimensions()));
+    }
+
+    /** Adds the values the variants of this bind each dimension to, to the given map */
+    void addDimensionValuesTo(Map<String, Set<String>> dimensionValues) {
+        for (Binding binding : indexedVariants.keySet()) {
+            for (int i = 0; i < binding.dimensions().length; i++)
+                dimensionValues.computeIfAbsent(binding.dimensions()[i], dimension -> new HashSet<>())
+                               .add(binding.dimensionValues()[i]);
+        }
+    }
+
     @Override
     public String toString() {
         return indexedVariants.toString();
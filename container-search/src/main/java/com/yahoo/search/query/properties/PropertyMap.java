@@ -4,13 +4,14 @@ import com.yahoo.processing.request.*;
 import com.yahoo.search.query.Properties;
 import java.util.Map;
 import java.util.LinkedHashMap;
-import java.util.HashMap;
 
 /**
  * A Map backing of Properties.
  * <p>
  * When this is cloned it will deep copy not only the model object map, but also each
- * clonable member inside the map.
+ * clonable member inside the map. This copy is made lazily: A clone shares the map of the
+ * instance it is cloned from until either of them is modified, or a cloneable value is accessed,
+ * unless the map has been handed out by {@link #propertyMap}, in which case it is copied on clone.
  * <p>
  * Subclassing is supported, a hook can be implemented to provide conditional inclusion in the map.
  * By default - all properties are accepted, so set is never propagated.
@@ -26,12 +27,18 @@ public class PropertyMap extends Properties {
     /** The properties of this */
     private Map<CompoundName, Object> properties = new LinkedHashMap<>();
 
+    /** Whether the properties map may be shared with clones, and must be copied before it is modified */
+    private boolean shared = false;
+
+    /** Whether the properties map has been handed out by {@link #propertyMap}, so it may be modified at any time */
+    private boolean exposed = false;
+
     public void set(CompoundName name, Object value, Map<String, String> context) {
-        if (value == null) // Both clear and forward
-            properties.remove(name);
+        if (value == null && properties.containsKey(name)) // Both clear and forward
+            writableProperties().remove(name);
 
         if (shouldSet(name, value))
-            properties.put(name, value);
+            writableProperties().put(name, value);
         else
             super.set(name, value, context);
     }
@@ -46,26 +53,46 @@ public class PropertyMap extends Properties {
     public Object get(CompoundName name, Map<String,String> context,
                                 com.yahoo.processing.request.Properties substitution) {
         if ( ! properties.containsKey(name)) return super.get(name,context,substitution);
-        return properties.get(name);
+        Object value = properties.get(name);
+        if (shared && value instanceof Cloneable) // The caller may modify it, so this needs its own copy
+            value = writableProperties().get(name);
+        return value;
     }
 
     /**
      * Returns a direct reference to the map containing the properties set in this instance.
      */
     public Map<CompoundName, Object> propertyMap() {
+        Map<CompoundName, Object> properties = writableProperties();
+        exposed = true;
+        return properties;
+    }
+
+    /** Returns the properties of this after making sure they are not shared with any clone */
+    private Map<CompoundName, Object> writableProperties() {
+        if (shared) {
+            Map<CompoundName, Object> copy = new LinkedHashMap<>(properties.size());
+            for (Map.Entry<CompoundName, Object> entry : properties.entrySet()) {
+                Object cloneValue = cloneHelper.clone(entry.getValue());
+                if (cloneValue == null)
+                    cloneValue = entry.getValue(); // Shallow copy objects which does not support cloning
+                copy.put(entry.getKey(), cloneValue);
+            }
+            properties = copy;
+            shared = false;
+        }
         return properties;
     }
 
     @Override
     public PropertyMap clone() {
         PropertyMap clone = (PropertyMap)super.clone();
-        clone.properties = new HashMap<>();
-        for (Map.Entry<CompoundName, Object> entry : this.properties.entrySet()) {
-            Object cloneValue = cloneHelper.clone(entry.getValue());
-            if (cloneValue == null)
-                cloneValue = entry.getValue(); // Shallow copy objects which does not support cloning
-            clone.properties.put(entry.getKey(), cloneValue);
-        }
+        clone.exposed = false;
+        clone.shared = true;
+        if (exposed) // this may be modified through the map handed out, so the clone must have its own copy
+            clone.writableProperties();
+        else
+            this.shared = true;
         return clone;
     }
 
@@ -73,6 +100,8 @@ public class PropertyMap extends Properties {
     public Map<String, Object> listProperties(CompoundName path, Map<String, String> context, com.yahoo.processing.request.Properties substitution) {
         Map<String, Object> map = super.listProperties(path, context, substitution);
 
+        if (shared && properties.values().stream().anyMatch(value -> value instanceof Cloneable))
+            writableProperties(); // The caller may modify the values, so this needs its own copies
         for (Map.Entry<CompoundName, Object> entry : properties.entrySet()) {
             if ( ! entry.getKey().hasPrefix(path)) continue;
             CompoundName propertyName = entry.getKey().rest(path.size());
@@ -20,7 +20,13 @@ import java.util.OptionalDouble;
  */
 public class RankFeatures implements Cloneable {
 
-    private final Map<String, Object> features;
+    private Map<String, Object> features;
+
+    /** Whether the features map may be shared with clones, and must be copied before it is modified */
+    private boolean shared = false;
+
+    /** Whether the features map has been handed out by {@link #asMap}, so it may be modified at any time */
+    private boolean exposed = false;
 
     public RankFeatures() {
         this(new LinkedHashMap<>());
@@ -32,12 +38,12 @@ public class RankFeatures implements Cloneable {
 
     /** Sets a double rank feature */
     public void put(String name, double value) {
-        features.put(name, value);
+        writableFeatures().put(name, value);
     }
 
     /** Sets a tensor rank feature */
     public void put(String name, Tensor value) {
-        features.put(name, value);
+        writableFeatures().put(name, value);
     }
 
     /**
@@ -47,7 +53,7 @@ public class RankFeatures implements Cloneable {
      */
     @Deprecated // TODO: Remove on Vespa 8
     public void put(String name, String value) {
-        features.put(name, value);
+        writableFeatures().put(name, value);
     }
 
     /**
@@ -96,7 +102,20 @@ public class RankFeatures implements Cloneable {
      * Returns the map holding the features of this.
      * This map may be modified to change the rank features of the query.
      */
-    public Map<String, Object> asMap() { return features; }
+    public Map<String, Object> asMap() {
+        Map<String, Object> features = writableFeatures();
+        exposed = true;
+        return features;
+    }
+
+    /** Returns the features of this after making sure they are not shared with any clone */
+    private Map<String, Object> writableFeatures() {
+        if (shared) {
+            features = new LinkedHashMap<>(features);
+            shared = false;
+        }
+        return features;
+    }
 
     public boolean isEmpty() {
         return features.isEmpty();
@@ -125,7 +144,7 @@ public class RankFeatures implements Cloneable {
             }
         }
         for (int i = 0; i < featuresToRemove.size(); ++i) {
-            rankProperties.put(propertiesToInsert.get(i), features.remove(featuresToRemove.get(i)));
+            rankProperties.put(propertiesToInsert.get(i), writableFeatures().remove(featuresToRemove.get(i)));
         }
     }
 
@@ -148,7 +167,15 @@ public class RankFeatures implements Cloneable {
 
     @Override
     public RankFeatures clone() {
-        return new RankFeatures(new LinkedHashMap<>(features));
+        // The values are immutable, so the map is copied only when either this or the clone is modified,
+        // or right away if this may be modified through the map handed out by asMap
+        RankFeatures clone = new RankFeatures(features);
+        clone.shared = true;
+        if (exposed)
+            clone.writableFeatures();
+        else
+            this.shared = true;
+        return clone;
     }
 
     @Override
@@ -22,6 +22,12 @@ public class RankProperties implements Cloneable {
 
     private Map<String, List<Object>> properties;
 
+    /** Whether the properties map may be shared with clones, and must be copied before it is modified */
+    private boolean shared = false;
+
+    /** Whether the properties map has been handed out by {@link #asMap}, so it may be modified at any time */
+    private boolean exposed = false;
+
     public RankProperties() {
         this(new LinkedHashMap<>());
     }
@@ -36,7 +42,7 @@ public class RankProperties implements Cloneable {
 
     /** Adds a property by full name to a value */
     public void put(String name, Object value) {
-        List<Object> list = properties.get(name);
+        List<Object> list = writableProperties().get(name);
         if (list == null) {
             list = new ArrayList<>();
             properties.put(name, list);
@@ -63,7 +69,8 @@ public class RankProperties implements Cloneable {
 
     /** Removes all properties properties for a given name */
     public void remove(String name) {
-        properties.remove(name);
+        if (properties.containsKey(name))
+            writableProperties().remove(name);
     }
 
     public boolean isEmpty() {
@@ -71,7 +78,23 @@ public class RankProperties implements Cloneable {
     }
 
     /** Returns a modifiable map of the properties of this */
-    public Map<String, List<Object>> asMap() { return properties; }
+    public Map<String, List<Object>> asMap() {
+        Map<String, List<Object>> properties = writableProperties();
+        exposed = true;
+        return properties;
+    }
+
+    /** Returns the properties of this after making sure they are not shared with any clone */
+    private Map<String, List<Object>> writableProperties() {
+        if (shared) {
+            Map<String, List<Object>> copy = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Object>> entry : properties.entrySet())
+                copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            properties = copy;
+            shared = false;
+        }
+        return properties;
+    }
 
     /** Encodes this in a binary internal representation and returns the number of property maps encoded (0 or 1) */
     public int encode(ByteBuffer buffer, boolean encodeQueryData) {
@@ -100,10 +123,15 @@ public class RankProperties implements Cloneable {
 
     @Override
     public RankProperties clone() {
-        Map<String, List<Object>> clone = new LinkedHashMap<>();
-        for (Map.Entry<String, List<Object>> entry : properties.entrySet())
-            clone.put(entry.getKey(), new ArrayList<>(entry.getValue()));
-        return new RankProperties(clone);
+        // The map is copied only when either this or the clone is modified,
+        // or right away if this may be modified through the map handed out by asMap
+        RankProperties clone = new RankProperties(properties);
+        clone.shared = true;
+        if (exposed)
+            clone.writableProperties();
+        else
+            this.shared = true;
+        return clone;
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.container.logging.TraceRenderer;
 import com.yahoo.data.JsonProducer;
 import com.yahoo.data.access.Inspectable;
@@ -53,8 +54,11 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.Arrays;
@@ -80,43 +84,44 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final CompoundName JSON_CALLBACK = new CompoundName("jsoncallback");
 
     // if this must be optimized, simply use com.fasterxml.jackson.core.SerializableString
-    private static final String BUCKET_LIMITS = "limits";
-    private static final String BUCKET_TO = "to";
-    private static final String BUCKET_FROM = "from";
-    private static final String CHILDREN = "children";
-    private static final String CONTINUATION = "continuation";
-    private static final String COVERAGE = "coverage";
-    private static final String COVERAGE_COVERAGE = "coverage";
-    private static final String COVERAGE_DOCUMENTS = "documents";
-    private static final String COVERAGE_DEGRADE = "degraded";
-    private static final String COVERAGE_DEGRADE_MATCHPHASE = "match-phase";
-    private static final String COVERAGE_DEGRADE_TIMEOUT = "timeout";
-    private static final String COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT = "adaptive-timeout";
-    private static final String COVERAGE_DEGRADED_NON_IDEAL_STATE = "non-ideal-state";
-    private static final String COVERAGE_FULL = "full";
-    private static final String COVERAGE_NODES = "nodes";
-    private static final String COVERAGE_RESULTS = "results";
-    private static final String COVERAGE_RESULTS_FULL = "resultsFull";
-    private static final String ERRORS = "errors";
-    private static final String ERROR_CODE = "code";
-    private static final String ERROR_MESSAGE = "message";
-    private static final String ERROR_SOURCE = "source";
-    private static final String ERROR_STACK_TRACE = "stackTrace";
-    private static final String ERROR_SUMMARY = "summary";
-    private static final String FIELDS = "fields";
-    private static final String ID = "id";
-    private static final String LABEL = "label";
-    private static final String RELEVANCE = "relevance";
-    private static final String ROOT = "root";
-    private static final String SOURCE = "source";
-    private static final String TOTAL_COUNT = "totalCount";
-    private static final String TIMING = "timing";
-    private static final String QUERY_TIME = "querytime";
-    private static final String SUMMARY_FETCH_TIME = "summaryfetchtime";
-    private static final String SEARCH_TIME = "searchtime";
-    private static final String TYPES = "types";
-    private static final String GROUPING_VALUE = "value";
-    private static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
+    // These are package private as the slime renderer renders the same structure
+    static final String BUCKET_LIMITS = "limits";
+    static final String BUCKET_TO = "to";
+    static final String BUCKET_FROM = "from";
+    static final String CHILDREN = "children";
+    static final String CONTINUATION = "continuation";
+    static final String COVERAGE = "coverage";
+    static final String COVERAGE_COVERAGE = "coverage";
+    static final String COVERAGE_DOCUMENTS = "documents";
+    static final String COVERAGE_DEGRADE = "degraded";
+    static final String COVERAGE_DEGRADE_MATCHPHASE = "match-phase";
+    static final String COVERAGE_DEGRADE_TIMEOUT = "timeout";
+    static final String COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT = "adaptive-timeout";
+    static final String COVERAGE_DEGRADED_NON_IDEAL_STATE = "non-ideal-state";
+    static final String COVERAGE_FULL = "full";
+    static final String COVERAGE_NODES = "nodes";
+    static final String COVERAGE_RESULTS = "results";
+    static final String COVERAGE_RESULTS_FULL = "resultsFull";
+    static final String ERRORS = "errors";
+    static final String ERROR_CODE = "code";
+    static final String ERROR_MESSAGE = "message";
+    static final String ERROR_SOURCE = "source";
+    static final String ERROR_STACK_TRACE = "stackTrace";
+    static final String ERROR_SUMMARY = "summary";
+    static final String FIELDS = "fields";
+    static final String ID = "id";
+    static final String LABEL = "label";
+    static final String RELEVANCE = "relevance";
+    static final String ROOT = "root";
+    static final String SOURCE = "source";
+    static final String TOTAL_COUNT = "totalCount";
+    static final String TIMING = "timing";
+    static final String QUERY_TIME = "querytime";
+    static final String SUMMARY_FETCH_TIME = "summaryfetchtime";
+    static final String SEARCH_TIME = "searchtime";
+    static final String TYPES = "types";
+    static final String GROUPING_VALUE = "value";
+    static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
 
     private final JsonFactory generatorFactory;
 
@@ -167,6 +172,11 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         beginJsonCallback(stream);
         debugRendering = getDebugRendering(getResult().getQuery());
         setGenerator(generatorFactory.createGenerator(stream, JsonEncoding.UTF8), debugRendering);
+        if (stream instanceof ContentChannelOutputStream) {
+            // Flushing the generator is then only done to hand large field values directly to the stream
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            fieldConsumer.setDirectOutput((ContentChannelOutputStream)stream);
+        }
         renderedChildren = new ArrayDeque<>();
         generator.writeStartObject();
         renderTrace(getExecution().trace());
@@ -258,6 +268,11 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     }
 
     protected void renderErrors(Set<ErrorMessage> errors) throws IOException {
+        renderErrors(errors, generator);
+    }
+
+    /** Renders the given errors as an array field of the current object of the given generator */
+    static void renderErrors(Set<ErrorMessage> errors, JsonGenerator generator) throws IOException {
         if (errors.isEmpty()) return;
 
         generator.writeArrayFieldStart(ERRORS);
@@ -527,16 +542,37 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
      */
     public static class FieldConsumer implements Hit.RawUtf8Consumer, TraceRenderer.FieldConsumer {
 
+        /** The min length of UTF-8 string values which are handed to the direct output instead of copied */
+        static final int MIN_DIRECT_OUTPUT_LENGTH = 1024;
+
+        private static final VarHandle longView = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final long ones = 0x0101010101010101L;
+        private static final long highBits = 0x8080808080808080L;
+        private static final long quotes = ones * '"';
+        private static final long backslashes = ones * '\\';
+
         private final JsonGenerator generator;
         private final boolean debugRendering;
 
         private MutableBoolean hasFieldsField;
 
+        /** The stream written to by the generator, if it accepts data without copying, or null */
+        private ContentChannelOutputStream directOutput = null;
+
         public FieldConsumer(JsonGenerator generator, boolean debugRendering) {
             this.generator = generator;
             this.debugRendering = debugRendering;
         }
 
+        /**
+         * Sets the stream written to by the generator of this, to which large UTF-8 string values
+         * which need no escaping are then handed over without copying, or null to always copy values
+         * through the generator. The generator of this must not pass flushes through to this stream.
+         */
+        void setDirectOutput(ContentChannelOutputStream directOutput) {
+            this.directOutput = directOutput;
+        }
+
         /**
          * Call before using this for a hit to track whether we
          * have created the "fields" field of the JSON object
@@ -579,7 +615,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
                 if (shouldRenderUtf8Value(name, length)) {
                     ensureFieldsField();
                     generator.writeFieldName(name);
-                    generator.writeUTF8String(utf8Data, offset, length);
+                    renderUtf8String(utf8Data, offset, length);
                 }
             }
             catch (IOException e) {
@@ -587,6 +623,50 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             }
         }
 
+        private void renderUtf8String(byte[] utf8Data, int offset, int length) throws IOException {
+            if (directOutput != null && length >= MIN_DIRECT_OUTPUT_LENGTH && ! needsEscaping(utf8Data, offset, length)) {
+                // Write the quotes through the generator to keep its state, but the string itself to the stream.
+                // The data is copied, as the hit owns it and may reuse it before the stream is sent
+                generator.writeRawValue("\"");
+                generator.flush();
+                directOutput.write(utf8Data, offset, length);
+                generator.writeRaw('"');
+            }
+            else {
+                generator.writeUTF8String(utf8Data, offset, length);
+            }
+        }
+
+        /**
+         * Returns whether the given UTF-8 string contains any characters which must be escaped in a JSON string:
+         * Control characters, quotes and backslashes. As these are all ASCII, and all the bytes of multi-byte
+         * characters have the high bit set, this can be checked byte by byte, which is done 8 bytes at the time.
+         */
+        static boolean needsEscaping(byte[] utf8Data, int offset, int length) {
+            int i = offset;
+            int end = offset + length;
+            for (; i + Long.BYTES <= end; i += Long.BYTES) {
+                long bytes = (long)longView.get(utf8Data, i);
+                if ((hasByteLessThan(bytes, 0x20) | hasZeroByte(bytes ^ quotes) | hasZeroByte(bytes ^ backslashes)) != 0)
+                    return true;
+            }
+            for (; i < end; i++) {
+                byte b = utf8Data[i];
+                if (b >= 0 && (b < 0x20 || b == '"' || b == '\\')) return true;
+            }
+            return false;
+        }
+
+        /** Returns non-zero if any of the bytes in the given long is zero */
+        private static long hasZeroByte(long bytes) {
+            return (bytes - ones) & ~bytes & highBits;
+        }
+
+        /** Returns non-zero if any of the bytes in the given long is less than n, where n is at most 128 */
+        private static long hasByteLessThan(long bytes, int n) {
+            return (bytes - ones * n) & ~bytes & highBits;
+        }
+
         protected boolean shouldRender(String name, Object value) {
             if (debugRendering) return true;
             if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
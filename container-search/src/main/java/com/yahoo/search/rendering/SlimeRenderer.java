@@ -0,0 +1,453 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.base.Preconditions;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
+import com.yahoo.container.logging.TraceRenderer;
+import com.yahoo.data.access.Inspectable;
+import com.yahoo.data.access.Type;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.processing.Response;
+import com.yahoo.processing.execution.Execution.Trace;
+import com.yahoo.processing.rendering.AsynchronousSectionedRenderer;
+import com.yahoo.processing.response.Data;
+import com.yahoo.processing.response.DataList;
+import com.yahoo.search.Result;
+import com.yahoo.search.grouping.Continuation;
+import com.yahoo.search.grouping.result.AbstractList;
+import com.yahoo.search.grouping.result.BucketGroupId;
+import com.yahoo.search.grouping.result.Group;
+import com.yahoo.search.grouping.result.GroupId;
+import com.yahoo.search.grouping.result.RawBucketId;
+import com.yahoo.search.grouping.result.RawId;
+import com.yahoo.search.grouping.result.RootGroup;
+import com.yahoo.search.grouping.result.ValueGroupId;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.DefaultErrorHit;
+import com.yahoo.search.result.ErrorHit;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.FeatureData;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.result.NanNumber;
+import com.yahoo.slime.ArrayInserter;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Injector;
+import com.yahoo.slime.Inserter;
+import com.yahoo.slime.ObjectInserter;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static com.yahoo.search.rendering.JsonRenderer.*;
+
+/**
+ * Renders a search result in the binary Slime format, for consumers which are services rather than humans.
+ * The rendered structure is the same as that rendered by the {@link JsonRenderer}, except that tensors,
+ * both in fields and in feature data, are rendered as data fields containing the tensor in
+ * {@link TypedBinaryFormat}. Responses can be decoded using {@link BinaryFormat#decode(byte[])}.
+ *
+ * <p>Since the symbol table of a Slime structure precedes its values, the whole response is buffered,
+ * and encoded and written to the output stream when the result is completely rendered. Consumers
+ * of large results which should be streamed must use the {@link JsonRenderer} instead.</p>
+ *
+ * @author agent
+ */
+public class SlimeRenderer extends AsynchronousSectionedRenderer<Result> {
+
+    public static final String DEFAULT_MIMETYPE = "application/x-vespa-slime";
+
+    private static final String TRACE = "trace";
+
+    private final JsonFactory generatorFactory = new JsonFactory();
+
+    private Slime slime;
+    private OutputStream stream;
+
+    /** The objects of the hit groups currently being rendered, innermost first */
+    private Deque<Cursor> groups;
+
+    public SlimeRenderer() {
+        this(null);
+    }
+
+    /**
+     * Creates a slime renderer using a custom executor.
+     * Using a custom executor is useful for tests to avoid creating new threads for each renderer registry.
+     */
+    public SlimeRenderer(Executor executor) {
+        super(executor);
+        generatorFactory.setCodec(JsonRenderer.createJsonCodec());
+    }
+
+    @Override
+    public void init() {
+        super.init();
+        slime = null;
+        stream = null;
+        groups = null;
+    }
+
+    @Override
+    public void beginResponse(OutputStream stream) throws IOException {
+        this.stream = stream;
+        slime = new Slime();
+        groups = new ArrayDeque<>();
+        Cursor response = slime.setObject();
+        renderTrace(getExecution().trace(), response);
+        renderTiming(response);
+    }
+
+    private void renderTiming(Cursor response) {
+        if ( ! getResult().getQuery().getPresentation().getTiming()) return;
+
+        double milli = .001d;
+        long searchTime = System.currentTimeMillis() - getResult().getElapsedTime().first();
+        Cursor timing = response.setObject(TIMING);
+        if (getResult().getElapsedTime().firstFill() != 0L) {
+            timing.setDouble(QUERY_TIME, getResult().getElapsedTime().weightedSearchTime() * milli);
+            timing.setDouble(SUMMARY_FETCH_TIME, getResult().getElapsedTime().weightedFillTime() * milli);
+        }
+        timing.setDouble(SEARCH_TIME, searchTime * milli);
+    }
+
+    /** Renders the trace as the JSON renderer does, as traces are for humans */
+    private void renderTrace(Trace trace, Cursor response) throws IOException {
+        if ( ! trace.traceNode().children().iterator().hasNext()) return;
+        if (getResult().getQuery().getTraceLevel() == 0) return;
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonGenerator generator = generatorFactory.createGenerator(json, JsonEncoding.UTF8)) {
+            long basetime = trace.traceNode().timestamp();
+            if (basetime == 0L)
+                basetime = getResult().getElapsedTime().first();
+            generator.writeStartObject();
+            trace.accept(new TraceRenderer(generator, new JsonRenderer.FieldConsumer(generator, false), basetime));
+            generator.writeEndObject();
+        } catch (TraceRenderer.TraceRenderWrapper e) {
+            throw new IOException(e);
+        }
+        new Injector().inject(SlimeUtils.jsonToSlime(json.toByteArray()).get().field(TRACE),
+                              new ObjectInserter(response, TRACE));
+    }
+
+    @Override
+    public void beginList(DataList<?> list) throws IOException {
+        Preconditions.checkArgument(list instanceof HitGroup,
+                                    "Expected subclass of com.yahoo.search.result.HitGroup, got %s.",
+                                    list.getClass());
+        HitGroup hitGroup = (HitGroup) list;
+        Cursor group = groups.isEmpty() ? slime.get().setObject(ROOT) : children(groups.peek()).addObject();
+        groups.push(group);
+
+        renderHitContents(hitGroup, group);
+        if (getRecursionLevel() == 1)
+            renderCoverage(group);
+
+        ErrorHit errorHit = hitGroup.getErrorHit();
+        if (errorHit != null)
+            renderErrors(errorHit.errors(), group);
+    }
+
+    private Cursor children(Cursor group) {
+        Cursor children = group.field(CHILDREN);
+        return children.valid() ? children : group.setArray(CHILDREN);
+    }
+
+    /** Renders errors as the JSON renderer does, as errors are rare */
+    private void renderErrors(Set<ErrorMessage> errors, Cursor group) throws IOException {
+        if (errors.isEmpty()) return;
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonGenerator generator = generatorFactory.createGenerator(json, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            JsonRenderer.renderErrors(errors, generator);
+            generator.writeEndObject();
+        }
+        new Injector().inject(SlimeUtils.jsonToSlime(json.toByteArray()).get().field(ERRORS),
+                              new ObjectInserter(group, ERRORS));
+    }
+
+    private void renderCoverage(Cursor group) {
+        Coverage c = getResult().getCoverage(false);
+        if (c == null) return;
+
+        Cursor coverage = group.setObject(COVERAGE);
+        coverage.setLong(COVERAGE_COVERAGE, c.getResultPercentage());
+        coverage.setLong(COVERAGE_DOCUMENTS, c.getDocs());
+        if (c.isDegraded()) {
+            Cursor degraded = coverage.setObject(COVERAGE_DEGRADE);
+            degraded.setBool(COVERAGE_DEGRADE_MATCHPHASE, c.isDegradedByMatchPhase());
+            degraded.setBool(COVERAGE_DEGRADE_TIMEOUT, c.isDegradedByTimeout());
+            degraded.setBool(COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT, c.isDegradedByAdapativeTimeout());
+            degraded.setBool(COVERAGE_DEGRADED_NON_IDEAL_STATE, c.isDegradedByNonIdealState());
+        }
+        coverage.setBool(COVERAGE_FULL, c.getFull());
+        coverage.setLong(COVERAGE_NODES, c.getNodes());
+        coverage.setLong(COVERAGE_RESULTS, c.getResultSets());
+        coverage.setLong(COVERAGE_RESULTS_FULL, c.getFullResultSets());
+    }
+
+    @Override
+    public void data(Data data) throws IOException {
+        Preconditions.checkArgument(data instanceof Hit,
+                                    "Expected subclass of com.yahoo.search.result.Hit, got %s.",
+                                    data.getClass());
+        Hit hit = (Hit) data;
+        if (hit instanceof DefaultErrorHit) return;
+        renderHitContents(hit, children(groups.peek()).addObject());
+    }
+
+    private void renderHitContents(Hit hit, Cursor object) {
+        String id = hit.getDisplayId();
+        if (id != null)
+            object.setString(ID, id);
+
+        object.setDouble(RELEVANCE, hit.getRelevance().getScore());
+
+        if (hit.types().size() > 0) {
+            Cursor types = object.setArray(TYPES);
+            for (String type : hit.types())
+                types.addString(type);
+        }
+
+        if (hit.getSource() != null)
+            object.setString(SOURCE, hit.getSource());
+
+        if (hit instanceof AbstractList)
+            renderGroupingListSyntheticFields((AbstractList) hit, object);
+        else if (hit instanceof Group)
+            renderGroupingGroupSyntheticFields((Group) hit, object);
+
+        FieldInserter fields = new FieldInserter(object);
+        if (getRecursionLevel() == 1 && hit instanceof HitGroup)
+            fields.fields().setLong(TOTAL_COUNT, getResult().getTotalHitCount());
+        hit.forEachFieldAsRaw(fields);
+    }
+
+    private void renderGroupingListSyntheticFields(AbstractList list, Cursor object) {
+        object.setString(LABEL, list.getLabel());
+        renderContinuations(list.continuations(), object);
+    }
+
+    private void renderGroupingGroupSyntheticFields(Group group, Cursor object) {
+        renderGroupMetadata(group.getGroupId(), object);
+        if (group instanceof RootGroup)
+            renderContinuations(Map.of(Continuation.THIS_PAGE, ((RootGroup) group).continuation()), object);
+    }
+
+    private void renderContinuations(Map<String, Continuation> continuations, Cursor object) {
+        if (continuations.isEmpty()) return;
+
+        Cursor continuation = object.setObject(CONTINUATION);
+        for (Map.Entry<String, Continuation> e : continuations.entrySet())
+            continuation.setString(e.getKey(), e.getValue().toString());
+    }
+
+    private void renderGroupMetadata(GroupId id, Cursor object) {
+        if (id instanceof ValueGroupId) {
+            ValueGroupId<?> valueId = (ValueGroupId<?>) id;
+            object.setString(GROUPING_VALUE, (id instanceof RawId ? Arrays.toString(((RawId) id).getValue())
+                                                                  : valueId.getValue()).toString());
+        }
+        else if (id instanceof BucketGroupId) {
+            BucketGroupId<?> bucketId = (BucketGroupId<?>) id;
+            Cursor limits = object.setObject(BUCKET_LIMITS);
+            limits.setString(BUCKET_FROM, (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getFrom())
+                                                                     : bucketId.getFrom()).toString());
+            limits.setString(BUCKET_TO, (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getTo())
+                                                                   : bucketId.getTo()).toString());
+        }
+    }
+
+    @Override
+    public void endList(DataList<?> list) {
+        groups.pop();
+    }
+
+    @Override
+    public void endResponse() throws IOException {
+        byte[] encoded = BinaryFormat.encode(slime);
+        slime = null; // release the rendered tree before writing
+        if (stream instanceof ContentChannelOutputStream)
+            ((ContentChannelOutputStream) stream).nonCopyingWrite(encoded); // the array is not used after this
+        else
+            stream.write(encoded);
+    }
+
+    @Override
+    public String getEncoding() {
+        return null;
+    }
+
+    @Override
+    public String getMimeType() {
+        return DEFAULT_MIMETYPE;
+    }
+
+    private Result getResult() {
+        Response r = getResponse();
+        Preconditions.checkArgument(r instanceof Result,
+                                    "SlimeRenderer can only render instances of com.yahoo.search.Result, got instance of %s.",
+                                    r.getClass());
+        return (Result) r;
+    }
+
+    /** Inserts the fields of a hit into the "fields" object of the hit, which is created when needed */
+    private class FieldInserter implements Hit.RawUtf8Consumer {
+
+        private final Cursor hit;
+        private Cursor fields = null;
+
+        FieldInserter(Cursor hit) {
+            this.hit = hit;
+        }
+
+        Cursor fields() {
+            if (fields == null)
+                fields = hit.setObject(FIELDS);
+            return fields;
+        }
+
+        @Override
+        public void accept(String name, Object value) {
+            if ( ! shouldRender(name, value)) return;
+            if (value instanceof Inspectable && ! (value instanceof FeatureData))
+                insertWrappingMaps(((Inspectable) value).inspect(), new ObjectInserter(fields(), name));
+            else
+                insert(value, new ObjectInserter(fields(), name));
+        }
+
+        @Override
+        public void accept(String name, byte[] utf8Data, int offset, int length) {
+            if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return;
+            if (length == 0) return;
+            // Copied, as the array may be reused by the producer before the response is encoded
+            fields().setString(name, Arrays.copyOfRange(utf8Data, offset, offset + length));
+        }
+
+        private boolean shouldRender(String name, Object value) {
+            if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
+            if (value instanceof CharSequence && ((CharSequence) value).length() == 0) return false;
+            if (value instanceof StringFieldValue && ((StringFieldValue) value).getString().isEmpty()) return false;
+            if (value instanceof NanNumber) return false;
+            return true;
+        }
+
+    }
+
+    /** Inserts a field value using the native Slime types where one exists */
+    private void insert(Object value, Inserter inserter) {
+        if (value == null) {
+            inserter.insertNIX();
+        } else if (value instanceof CharSequence) {
+            inserter.insertSTRING(value.toString());
+        } else if (value instanceof Boolean) {
+            inserter.insertBOOL((Boolean) value);
+        } else if (value instanceof Number) {
+            insertNumber((Number) value, inserter);
+        } else if (value instanceof Tensor) {
+            inserter.insertDATA(TypedBinaryFormat.encode((Tensor) value));
+        } else if (value instanceof Inspectable) {
+            insert(((Inspectable) value).inspect(), inserter);
+        } else if (value instanceof StringFieldValue) {
+            inserter.insertSTRING(((StringFieldValue) value).getString());
+        } else if (value instanceof TensorFieldValue) {
+            Optional<Tensor> tensor = ((TensorFieldValue) value).getTensor();
+            if (tensor.isPresent())
+                inserter.insertDATA(TypedBinaryFormat.encode(tensor.get()));
+            else
+                inserter.insertNIX();
+        } else {
+            insertAsJson(value, inserter);
+        }
+    }
+
+    private void insertNumber(Number value, Inserter inserter) {
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal)
+            inserter.insertDOUBLE(value.doubleValue());
+        else if (value instanceof BigInteger && ((BigInteger) value).bitLength() > 63)
+            inserter.insertDOUBLE(value.doubleValue());
+        else
+            inserter.insertLONG(value.longValue());
+    }
+
+    /** Inserts the given value, as an object if it is an array of key and value objects, like the JSON renderer */
+    private void insertWrappingMaps(com.yahoo.data.access.Inspector value, Inserter inserter) {
+        if ( ! isMap(value)) {
+            insert(value, inserter);
+            return;
+        }
+        Cursor map = inserter.insertOBJECT();
+        for (com.yahoo.data.access.Inspector entry : value.entries())
+            insert(entry.field("value"), new ObjectInserter(map, entry.field("key").asString()));
+    }
+
+    private static boolean isMap(com.yahoo.data.access.Inspector value) {
+        if (value.type() != Type.ARRAY) return false;
+        if (value.entryCount() == 0) return false;
+        for (com.yahoo.data.access.Inspector entry : value.entries()) {
+            if (entry.type() != Type.OBJECT) return false;
+            if (entry.fieldCount() != 2) return false;
+            if (entry.field("key").type() != Type.STRING) return false;
+            if ( ! entry.field("value").valid()) return false;
+        }
+        return true;
+    }
+
+    private void insert(com.yahoo.data.access.Inspector value, Inserter inserter) {
+        switch (value.type()) {
+            case EMPTY: inserter.insertNIX(); break;
+            case BOOL: inserter.insertBOOL(value.asBool()); break;
+            case LONG: inserter.insertLONG(value.asLong()); break;
+            case DOUBLE: inserter.insertDOUBLE(value.asDouble()); break;
+            case STRING: inserter.insertSTRING(value.asUtf8()); break;
+            case DATA: inserter.insertDATA(value.asData()); break;
+            case ARRAY:
+                Cursor array = inserter.insertARRAY();
+                for (com.yahoo.data.access.Inspector entry : value.entries())
+                    insert(entry, new ArrayInserter(array));
+                break;
+            case OBJECT:
+                Cursor object = inserter.insertOBJECT();
+                for (Map.Entry<String, com.yahoo.data.access.Inspector> field : value.fields())
+                    insert(field.getValue(), new ObjectInserter(object, field.getKey()));
+                break;
+        }
+    }
+
+    /** Inserts a value with no Slime counterpart, such as documents and JSON trees, as the JSON renderer renders it */
+    private void insertAsJson(Object value, Inserter inserter) {
+        try {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            try (JsonGenerator generator = generatorFactory.createGenerator(json, JsonEncoding.UTF8)) {
+                new JsonRenderer.FieldConsumer(generator, false).accept(value);
+            }
+            new Injector().inject(SlimeUtils.jsonToSlime(json.toByteArray()).get(), inserter);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -188,6 +188,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * (counting a subgroup as one hit).
      */
     public int size() {
+        addLazyHits();
         return hits.size();
     }
 
@@ -201,6 +202,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * requested hits count if the query has that many matches.</p>
      */
     public int getConcreteSize() {
+        addLazyHits();
         if (subgroupCount<1) return concreteHitCount;
         int recursiveConcreteCount=concreteHitCount;
         for (Hit hit : hits) {
@@ -214,12 +216,18 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * <p>Returns the number of concrete hits contained in <i>this</i> group,
      * without counting hits in subgroups.
      */
-    public int getConcreteSizeShallow() { return concreteHitCount; }
+    public int getConcreteSizeShallow() {
+        addLazyHits();
+        return concreteHitCount;
+    }
 
     /**
      * Returns the number of HitGroups present immediately in this list of hits.
      */
-    public int getSubgroupCount() { return subgroupCount; }
+    public int getSubgroupCount() {
+        addLazyHits();
+        return subgroupCount;
+    }
 
     /**
      * Adds a hit to this group.
@@ -232,6 +240,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      */
     @Override
     public Hit add(Hit hit) {
+        addLazyHits();
         if (hit.isMeta() && hit instanceof DefaultErrorHit) {
             if (errorHit != null) {
                 errorHit.addErrors((DefaultErrorHit)hit);
@@ -330,6 +339,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * <b>Note:</b> If the group was sorted, it will still be considered sorted after this call.
      */
     public void add(int index, Hit hit) {
+        addLazyHits();
         if (hit instanceof ErrorHit) { // Merge instead
             add(hit);
             return;
@@ -358,6 +368,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * @return the hit removed, or null if not found.
      */
     public Hit remove(URI uri) {
+        addLazyHits();
         for (Iterator<Hit> it = hits.iterator(); it.hasNext(); ) {
             Hit hit = it.next();
             if (uri.equals(hit.getId())) {
@@ -453,6 +464,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * Consumes errors from the query if there is one set for this group
      */
     private void updateHits() {
+        addLazyHits();
         DefaultErrorHit queryErrors = consumeAnyQueryErrors();
         if (queryErrors != null)
             add(queryErrors);
@@ -582,6 +594,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      * the hits have changed their internal state in a way that should change ordering
      */
     public void sort() {
+        addLazyHits();
         if (hitOrderer == null) {
             Collections.sort(hits);
             hitsSorted = true;
@@ -654,6 +667,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
      */
     @Override
     public boolean isCached() {
+        addLazyHits();
         if (notCachedCount<1) return true;
         if (subgroupCount<1) return false; // No need to check below
 
@@ -691,6 +705,13 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
 
     // -------------- State bookkeeping
 
+    /**
+     * Called before the hits of this, or anything derived from them, are accessed.
+     * Subclasses which create their hits lazily override this to add them on the first invocation.
+     * Implementations must do nothing on later invocations, including those made while adding the hits.
+     */
+    protected void addLazyHits() {}
+
     /** Ensures result invariants. Must be called when a hit is added to this result. */
     @SuppressWarnings("deprecation")
     private void handleNewHit(Hit hit) {
@@ -837,6 +858,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
     }
 
     public HitGroup clone() {
+        addLazyHits();
         HitGroup hitGroupClone = (HitGroup) super.clone();
         hitGroupClone.hits = new ListenableArrayList<>(this.hits.size());
         hitGroupClone.unmodifiableHits = Collections.unmodifiableList(hitGroupClone.hits);
@@ -886,6 +908,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
         }
         return filled;
         */
+        addLazyHits();
         Iterator<Hit> iterator = hits.iterator();
         Set<String> firstSummaryNames = getSummaryNamesNextFilledHit(iterator);
         if (firstSummaryNames == null || firstSummaryNames.isEmpty())
@@ -936,6 +959,7 @@ public class HitGroup extends Hit implements DataList<Hit>, Cloneable, Iterable<
     }
 
     private Iterable<Hit> fillableHits() {
+        addLazyHits();
         Predicate<Hit> isFillable = hit -> hit.isFillable();
 
         return Iterables.filter(hits, isFillable);
@@ -121,6 +121,29 @@ public class AsyncExecution {
         return getFutureResult(() -> execution.search(query), query);
     }
 
+    /**
+     * Same as {@link #search}, but the chain is invoked by {@link Execution#searchAsync}.
+     * The thread from the search thread pool is then released when the searchers of the chain return,
+     * such that no thread is held while waiting for searchers which complete their result asynchronously.
+     */
+    public FutureResult searchAsync(Query query) {
+        FutureResult future = new FutureResult(execution, query);
+        getExecutor().execute(() -> {
+            try {
+                execution.searchAsync(query).whenComplete((result, exception) -> {
+                    if (exception != null)
+                        future.completeExceptionally(exception instanceof CompletionException ? exception.getCause() : exception);
+                    else
+                        future.complete(result);
+                });
+            }
+            catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
     public FutureResult searchAndFill(Query query) {
         return getFutureResult(() -> {
             Result result = execution.search(query);
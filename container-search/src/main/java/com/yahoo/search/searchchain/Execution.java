@@ -17,6 +17,8 @@ import com.yahoo.search.cluster.PingableSearcher;
 import com.yahoo.search.rendering.RendererRegistry;
 import com.yahoo.search.statistics.TimeTracker;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Logger;
 
 /**
@@ -495,6 +497,42 @@ public class Execution extends com.yahoo.processing.execution.Execution {
         return (Result)super.process(query);
     }
 
+    /**
+     * Calls searchAsync on the next searcher in this chain. If there is no next, a completed stage
+     * holding an empty result is returned. The next searcher is invoked in the calling thread,
+     * and it is up to each searcher whether any of its work completes the returned stage later, in another thread.
+     */
+    public CompletionStage<Result> searchAsync(Query query) {
+        timer.sampleSearch(nextIndex(), context.getDetailedDiagnostics());
+
+        query.getModel().setExecution(this);
+        trace().setTraceLevel(query.getTraceLevel());
+
+        Searcher next = (Searcher)next();
+        if (next == null)
+            return CompletableFuture.completedFuture((Result)defaultResponse(query));
+
+        CompletionStage<Result> result = null;
+        try {
+            nextProcessor();
+            onInvoking(query, next);
+            result = next.searchAsync(query, this);
+            if (result == null)
+                throw new NullPointerException(next + " returned null, not a completion stage");
+            return result;
+        }
+        finally {
+            previousProcessor();
+            onReturning(query, next, completedResultOrNull(result));
+        }
+    }
+
+    private static Result completedResultOrNull(CompletionStage<Result> stage) {
+        if ( ! (stage instanceof CompletableFuture)) return null;
+        CompletableFuture<Result> future = (CompletableFuture<Result>)stage;
+        return future.isDone() && ! future.isCompletedExceptionally() ? future.join() : null;
+    }
+
     @Override
     protected void onInvoking(Request request, Processor processor) {
         super.onInvoking(request,processor);
@@ -8,6 +8,8 @@ import com.yahoo.yolean.Exceptions;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +29,9 @@ public class FutureResult extends FutureTask<Result> {
     /** Only used for generating messages */
     private final Execution execution;
 
+    /** Completes with this when this is done */
+    private final CompletableFuture<FutureResult> completion = new CompletableFuture<>();
+
     private final static Logger log = Logger.getLogger(FutureResult.class.getName());
 
     public FutureResult(Callable<Result> callable, Execution execution, Query query) {
@@ -35,6 +40,32 @@ public class FutureResult extends FutureTask<Result> {
         this.execution = execution;
     }
 
+    /** Creates a future result which is completed by calling complete or completeExceptionally rather than by running it */
+    FutureResult(Execution execution, Query query) {
+        this(() -> { throw new IllegalStateException("This future result is completed asynchronously"); }, execution, query);
+    }
+
+    void complete(Result result) {
+        set(result);
+    }
+
+    void completeExceptionally(Throwable exception) {
+        setException(exception);
+    }
+
+    @Override
+    protected void done() {
+        completion.complete(this);
+    }
+
+    /**
+     * Returns a stage which completes with this when this is done, such that the result can be accessed
+     * by get without blocking. This allows waiting for any number of future results without holding a thread.
+     */
+    public CompletionStage<FutureResult> whenDone() {
+        return completion;
+    }
+
     /** 
      * Returns a Result containing the hits returned from this source, or an error otherwise.
      * This will block for however long it takes to get the result: Using this is a bad idea.
@@ -3,6 +3,7 @@ package com.yahoo.search.yql;
 
 import com.google.common.annotations.Beta;
 import com.google.inject.Inject;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.processing.IllegalInputException;
@@ -44,12 +45,22 @@ public class MinimalQueryInserter extends Searcher {
     private static final CompoundName MAX_OFFSET = new CompoundName("maxOffset");
     private static final Logger log = Logger.getLogger(MinimalQueryInserter.class.getName());
 
+    /** The max number of distinct YQL programs to keep parsed */
+    static final int PROGRAM_CACHE_SIZE = 1000;
+
+    private final YqlProgramCache programCache;
+
     @Inject
-    public MinimalQueryInserter(Linguistics linguistics) {
+    public MinimalQueryInserter(Linguistics linguistics, Metric metric) {
+        this.programCache = new YqlProgramCache(PROGRAM_CACHE_SIZE, metric);
         // Warmup is needed to avoid a large 400ms init cost during first execution of yql code.
         warmup(linguistics);
     }
 
+    public MinimalQueryInserter(Linguistics linguistics) {
+        this(linguistics, null);
+    }
+
     public MinimalQueryInserter() {
         this(new SimpleLinguistics());
     }
@@ -60,7 +71,7 @@ public class MinimalQueryInserter extends Searcher {
 
     private static boolean warmup(Linguistics linguistics) {
         Query query = new Query("search/?yql=select%20*%20from%20sources%20where%20title%20contains%20'xyz';");
-        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics));
+        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics), null);
         if (result != null) {
             log.warning("Warmup code trigger an error. Error = " + result.toString());
             return false;
@@ -76,7 +87,7 @@ public class MinimalQueryInserter extends Searcher {
     public Result search(Query query, Execution execution) {
         try {
             if (query.properties().get(YQL) == null) return execution.search(query);
-            Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()));
+            Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()), programCache);
             return (result == null) ? execution.search(query) : result;
         }
         catch (IllegalArgumentException e) {
@@ -84,10 +95,14 @@ public class MinimalQueryInserter extends Searcher {
         }
     }
 
-    private static Result insertQuery(Query query, ParserEnvironment env) {
+    /** Returns the cache of parsed YQL programs used by this */
+    YqlProgramCache programCache() { return programCache; }
+
+    private static Result insertQuery(Query query, ParserEnvironment env, YqlProgramCache programCache) {
         YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
         parser.setQueryParser(false);
         parser.setUserQuery(query);
+        parser.setProgramCache(programCache);
         QueryTree newTree;
         try {
             Parsable parsable = Parsable.fromQueryModel(query.getModel()).setQuery(query.properties().getString(YQL));
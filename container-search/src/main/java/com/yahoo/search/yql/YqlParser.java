@@ -204,6 +204,7 @@ public class YqlParser implements Parser {
     private Integer timeout;
     private Query userQuery;
     private Parsable currentlyParsing;
+    private YqlProgramCache programCache = null;
     private IndexFacts.Session indexFactsSession;
     private IndexNameExpander indexNameExpander = new IndexNameExpander();
     private Set<String> docTypes;
@@ -781,7 +782,8 @@ public class YqlParser implements Parser {
     private OperatorNode<?> parseYqlProgram() {
         OperatorNode<?> ast;
         try {
-            ast = new ProgramParser().parse("query", currentlyParsing.getQuery());
+            ast = programCache != null ? programCache.get(currentlyParsing.getQuery())
+                                       : new ProgramParser().parse("query", currentlyParsing.getQuery());
         } catch (Exception e) {
             throw new IllegalInputException(e);
         }
@@ -1566,6 +1568,10 @@ public class YqlParser implements Parser {
     @Beta
     public void setUserQuery(Query userQuery) { this.userQuery = userQuery; }
 
+    /** Sets a cache of parsed YQL programs to use, or null (default) to parse each program */
+    @Beta
+    public void setProgramCache(YqlProgramCache programCache) { this.programCache = programCache; }
+
     @Beta
     public Set<String> getYqlSummaryFields() { return yqlSummaryFields; }
 
@@ -0,0 +1,111 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.jdisc.Metric;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, least recently used cache of parsed YQL programs, keyed on the YQL text.
+ *
+ * <p>The program syntax tree produced by {@link ProgramParser} depends only on the YQL text, and is not
+ * modified by {@link YqlParser}, so one instance can be shared between any number of queries using the same
+ * YQL string. Each query still builds its own mutable query tree from the shared program, as the resulting items
+ * depend on parameters, the user query and index settings of the individual query.</p>
+ *
+ * <p>This is thread safe.</p>
+ *
+ * @author agent
+ */
+public class YqlProgramCache {
+
+    public static final String HITS_METRIC = "yql_parse_cache_hits";
+    public static final String MISSES_METRIC = "yql_parse_cache_misses";
+    public static final String PARSE_TIME_SAVED_METRIC = "yql_parse_time_saved";
+
+    private final Map<String, Entry> programs;
+    private final Metric metric;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong parseTimeSavedNanos = new AtomicLong();
+
+    /**
+     * Creates a program cache
+     *
+     * @param maxSize the max number of programs to keep
+     * @param metric the metric to report hits, misses and parse time saved to, or null to not report metrics
+     */
+    public YqlProgramCache(int maxSize, Metric metric) {
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be positive, got " + maxSize);
+        this.programs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.metric = metric;
+    }
+
+    /**
+     * Returns the parsed program of the given YQL string, parsing and caching it if it is not already present.
+     * Programs which fail to parse are not cached.
+     */
+    OperatorNode<StatementOperator> get(String yql) throws Exception {
+        Entry entry;
+        synchronized (programs) {
+            entry = programs.get(yql);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            parseTimeSavedNanos.addAndGet(entry.parseNanos);
+            if (metric != null) {
+                metric.add(HITS_METRIC, 1, null);
+                metric.add(PARSE_TIME_SAVED_METRIC, entry.parseNanos / 1_000_000.0, null);
+            }
+            return entry.program;
+        }
+
+        misses.incrementAndGet();
+        if (metric != null)
+            metric.add(MISSES_METRIC, 1, null);
+        long startNanos = System.nanoTime();
+        OperatorNode<StatementOperator> program = new ProgramParser().parse("query", yql);
+        entry = new Entry(program, System.nanoTime() - startNanos);
+        synchronized (programs) {
+            programs.put(yql, entry);
+        }
+        return program;
+    }
+
+    /** Returns the number of programs currently cached */
+    public int size() {
+        synchronized (programs) {
+            return programs.size();
+        }
+    }
+
+    /** Returns the number of lookups which found a cached program */
+    public long hitCount() { return hits.get(); }
+
+    /** Returns the number of lookups which had to parse the program */
+    public long missCount() { return misses.get(); }
+
+    /** Returns the accumulated time spent parsing the programs which were instead found in this cache */
+    public long parseTimeSavedNanos() { return parseTimeSavedNanos.get(); }
+
+    private static class Entry {
+
+        final OperatorNode<StatementOperator> program;
+        final long parseNanos;
+
+        Entry(OperatorNode<StatementOperator> program, long parseNanos) {
+            this.program = program;
+            this.parseNanos = parseNanos;
+        }
+
+    }
+
+}
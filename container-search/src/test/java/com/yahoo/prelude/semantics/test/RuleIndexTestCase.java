@@ -0,0 +1,99 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.prelude.semantics.test;
+
+import com.yahoo.prelude.semantics.RuleBase;
+import com.yahoo.prelude.semantics.RuleImporter;
+import com.yahoo.search.Query;
+import com.yahoo.search.test.QueryTestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that evaluating only the rules indexed on the terms of a query gives the same result
+ * as evaluating all the rules
+ *
+ * @author agent
+ */
+public class RuleIndexTestCase {
+
+    private static final String root = "src/test/java/com/yahoo/prelude/semantics/test/rulebases/";
+
+    @Test
+    public void testIndexedEvaluationIsEquivalentToEvaluatingAllRules() throws Exception {
+        String[] ruleBases = { "alibaba.sr", "anchor.sr", "blending.sr", "cjk.sr", "comparison.sr", "comparisons.sr",
+                               "ellipsis.sr", "ellipsis2.sr", "exactmatch.sr", "exactmatchtrick.sr", "labelmatching.sr",
+                               "matchall.sr", "match-only-if-not-only-term.sr", "nostemming.sr", "not.sr", "numbers.sr",
+                               "numericterms.sr", "orphrase.sr", "parameter.sr", "parameter2.sr", "rules.sr",
+                               "stemming.sr", "stopwords.sr", "substitution.sr", "url.sr", "weighting.sr" };
+        for (String ruleBase : ruleBases)
+            assertEquivalent(ruleBase, null);
+        for (String ruleBase : new String[] { "automatanot.sr", "automatarules.sr", "phrasematch.sr" })
+            assertEquivalent(ruleBase, "semantics.fsa");
+    }
+
+    @Test
+    public void testRulesAddedAfterInitializationAreEvaluated() throws Exception {
+        RuleBase ruleBase = new RuleImporter().importString("foo -> bar;", null);
+        assertEquals("bar", analyze(ruleBase, "foo"));
+        assertEquals("baz", analyze(ruleBase, "baz"));
+
+        RuleBase extended = new RuleImporter().importString("baz -> qux;", null);
+        for (var rule : extended.rules())
+            ruleBase.addRule(rule);
+        assertEquals("qux", analyze(ruleBase, "baz"));
+        ruleBase.initialize();
+        assertEquals("qux", analyze(ruleBase, "baz"));
+        assertEquals("bar", analyze(ruleBase, "foos"));
+    }
+
+    private void assertEquivalent(String ruleBaseName, String automataName) throws Exception {
+        String automata = automataName == null ? null : root + automataName;
+        RuleBase indexed = RuleBase.createFromFile(root + ruleBaseName, automata);
+        RuleBase linear = RuleBase.createFromFile(root + ruleBaseName, automata);
+        linear.setIndexing(false);
+        for (String queryString : queriesFrom(root + ruleBaseName))
+            assertEquals("Rewriting '" + queryString + "' by " + ruleBaseName,
+                         analyze(linear, queryString), analyze(indexed, queryString));
+    }
+
+    /** Returns queries made from the terms of a rule base file, and stemmed variants of them */
+    private List<String> queriesFrom(String ruleBaseFile) throws Exception {
+        List<String> terms = new ArrayList<>();
+        Matcher matcher = Pattern.compile("[\\p{L}\\p{N}]+").matcher(Files.readString(Paths.get(ruleBaseFile)));
+        while (matcher.find())
+            terms.add(matcher.group().toLowerCase());
+
+        Set<String> queries = new LinkedHashSet<>();
+        for (int i = 0; i < terms.size(); i++) {
+            queries.add(terms.get(i));
+            queries.add(terms.get(i) + "s");
+            if (i + 1 < terms.size())
+                queries.add(terms.get(i) + " " + terms.get(i + 1));
+            if (i + 2 < terms.size())
+                queries.add(terms.get(i) + " " + terms.get(i + 1) + "s " + terms.get(i + 2));
+        }
+        return new ArrayList<>(queries);
+    }
+
+    private String analyze(RuleBase ruleBase, String queryString) {
+        Query query = new Query("?query=" + QueryTestCase.httpEncode(queryString) + "&language=und");
+        try {
+            String error = ruleBase.analyze(query, 0);
+            return error != null ? "Error: " + error : query.getModel().getQueryTree().getRoot().toString();
+        }
+        catch (RuntimeException e) {
+            return "Exception: " + e.getMessage();
+        }
+    }
+
+}
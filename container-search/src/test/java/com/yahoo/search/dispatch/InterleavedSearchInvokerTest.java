@@ -25,7 +25,9 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
 
@@ -297,6 +299,70 @@ public class InterleavedSearchInvokerTest {
         assertEquals(3, result.getQuery().getHits());
     }
 
+    @Test
+    public void requireThatAsyncSearchCompletesWhenAllResponsesAreMerged() throws Exception {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 2);
+        invokers.add(createInvoker(A5, 0));
+        invokers.add(createInvoker(B5, 1));
+        InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(invokers, cluster, Collections.emptySet());
+        query.setHits(12);
+
+        CompletableFuture<Result> future = invoker.searchAsync(query, null, Runnable::run);
+        assertFalse(future.isDone());
+        invoker.responseAvailable(invokers.get(1));
+        assertFalse(future.isDone());
+        invoker.responseAvailable(invokers.get(0));
+        assertTrue(future.isDone());
+
+        Result result = future.get();
+        assertEquals(10, result.hits().size());
+        assertEquals(11.0, result.hits().get(0).getRelevance().getScore(), DELTA);
+        assertEquals(1.0, result.hits().get(9).getRelevance().getScore(), DELTA);
+        assertThat(result.getCoverage(true).getFull(), is(true));
+    }
+
+    @Test
+    public void requireThatAsyncSearchCompletesAtTimeout() throws Exception {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 2);
+        invokers.add(createInvoker(A5, 0));
+        invokers.add(createInvoker(B5, 1));
+        InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(invokers, cluster, Collections.emptySet());
+        Query query = new Query();
+        query.setTimeout(50);
+        query.setTraceLevel(5);
+
+        CompletableFuture<Result> future = invoker.searchAsync(query, null, Runnable::run);
+        invoker.responseAvailable(invokers.get(0));
+        Result result = future.get(10, TimeUnit.SECONDS);
+
+        assertEquals(5, result.hits().size());
+        assertNull("Result is not marked as an error", result.hits().getErrorHit());
+        assertTrue("Timeout is reported in a trace message", findTrace(result, "Backend communication timeout").isPresent());
+        assertTrue(result.getCoverage(false).isDegradedByTimeout());
+    }
+
+    @Test
+    public void requireThatAsyncSearchIsProcessedInTheCallingThreadWhenTheExecutorRejectsProcessing() {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 2);
+        invokers.add(createInvoker(A5, 0));
+        invokers.add(createInvoker(B5, 1));
+        InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(invokers, cluster, Collections.emptySet());
+
+        query.setHits(12);
+
+        CompletableFuture<Result> future = invoker.searchAsync(query, null, task -> {
+            throw new RejectedExecutionException("Overloaded");
+        });
+        invoker.responseAvailable(invokers.get(1));
+        assertFalse(future.isDone());
+        invoker.responseAvailable(invokers.get(0));
+        assertTrue(future.isDone());
+
+        Result result = future.join();
+        assertNull(result.hits().getError());
+        assertEquals(10, result.hits().size());
+    }
+
     private static InterleavedSearchInvoker createInterLeavedTestInvoker(List<Double> a, List<Double> b) {
         SearchCluster cluster = new MockSearchCluster("!", 1, 2);
         List<SearchInvoker> invokers = new ArrayList<>();
@@ -0,0 +1,80 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.federation.test;
+
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.jdisc.http.HttpRequest.Method;
+import com.yahoo.search.Query;
+import com.yahoo.search.federation.FederationSearcher;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.tensor.Tensor;
+
+/**
+ * Measures the cost of fanning out a query with many properties and rank features to a number of
+ * federation targets, each of which receives a clone which it modifies slightly, as {@link FederationSearcher} does.
+ *
+ * @author agent
+ */
+public class FederationCloneMicroBenchmark {
+
+    private final String description;
+    private final int targets;
+    private final int propertyCount;
+
+    public FederationCloneMicroBenchmark(String description, int targets, int propertyCount) {
+        this.description = description;
+        this.targets = targets;
+        this.propertyCount = propertyCount;
+    }
+
+    public void benchmark(int queries) {
+        Query query = createQuery();
+        fanOut(query, 10000); // warm-up
+        System.out.println(description);
+        long startTime = System.nanoTime();
+        fanOut(query, queries);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println("Done in " + totalTime / 1000000 + " ms (" + totalTime / queries / targets + " ns per target query)");
+    }
+
+    private void fanOut(Query query, int queries) {
+        for (int i = 0; i < queries; i++) {
+            for (int target = 0; target < targets; target++) {
+                Query targetQuery = Query.createNewQuery(query);
+                targetQuery.properties().set("sourceName", "source" + target);
+                targetQuery.properties().set("providerName", "provider" + target);
+                targetQuery.setTimeout(500);
+                if (targetQuery.getRanking().getFeatures().getTensor("query(embedding)").isEmpty())
+                    throw new IllegalStateException("Missing rank feature");
+            }
+        }
+    }
+
+    private Query createQuery() {
+        QueryProfile profile = new QueryProfile("default");
+        profile.set("hits", "10", (QueryProfileRegistry)null);
+        profile.freeze();
+        Query query = new Query(HttpRequest.createTestRequest("?query=test", Method.GET), profile.compile(null));
+        for (int i = 0; i < propertyCount; i++)
+            query.properties().set("property" + i, "value" + i);
+        StringBuilder embedding = new StringBuilder("tensor(x[256]):[");
+        for (int i = 0; i < 256; i++)
+            embedding.append(i > 0 ? "," : "").append(i / 256.0);
+        query.getRanking().getFeatures().put("query(embedding)", Tensor.from(embedding.append("]").toString()));
+        for (int i = 0; i < 20; i++)
+            query.getRanking().getProperties().put("property" + i, "value" + i);
+        query.getModel().getQueryTree(); // parse once, as done by FederationSearcher before cloning
+        return query;
+    }
+
+    public static void main(String[] args) {
+        int count = 100000;
+        new FederationCloneMicroBenchmark("Fan out to 2 targets, 10 properties   ",  2,  10).benchmark(count);
+        System.out.println("");
+        new FederationCloneMicroBenchmark("Fan out to 2 targets, 100 properties  ",  2, 100).benchmark(count);
+        System.out.println("");
+        new FederationCloneMicroBenchmark("Fan out to 10 targets, 100 properties ", 10, 100).benchmark(count / 5);
+        System.out.println("");
+    }
+
+}
@@ -33,6 +33,9 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
@@ -168,6 +171,58 @@ public class FederationSearcherTest {
         assertEquals("Timed out", error.getMessage());
     }
 
+    @Test
+    public void require_that_asynchronous_federation_merges_all_targets() {
+        FederationTester tester = new FederationTester();
+        tester.addSearchChain("chain1", new AddHitSearcher());
+        tester.addSearchChain("chain2", new AddHitSearcher());
+
+        Query query = new Query();
+        query.setTimeout(20000);
+        Result result = tester.searchAsync(query).join();
+        assertEquals(2, result.hits().size());
+        tester.fill(result);
+        for (Iterator<Hit> i = result.hits().deepIterator(); i.hasNext();)
+            assertFilled(i.next());
+    }
+
+    @Test
+    public void require_that_asynchronous_federation_completes_when_targets_complete() throws Exception {
+        AsyncSourceSearcher asyncSource = new AsyncSourceSearcher();
+        FederationTester tester = new FederationTester();
+        tester.addSearchChain("chain1", new AddHitSearcher());
+        tester.addSearchChain("chain2", asyncSource);
+
+        Query query = new Query();
+        query.setTimeout(20000);
+        CompletableFuture<Result> future = tester.searchAsync(query);
+        Query targetQuery = asyncSource.invoked.get(10, TimeUnit.SECONDS);
+        assertFalse(future.isDone());
+
+        Result targetResult = new Result(targetQuery);
+        targetResult.hits().add(new Hit("async"));
+        asyncSource.result.complete(targetResult);
+        Result result = future.get(10, TimeUnit.SECONDS);
+        assertEquals(2, result.hits().size());
+        assertEquals("async", ((HitGroup)result.hits().get("source:chain2")).get(0).getId().toString());
+    }
+
+    @Test
+    public void require_that_optional_search_chains_does_not_delay_asynchronous_federation() {
+        FederationTester tester = new FederationTester();
+        tester.addSearchChain("chain1", new AddHitSearcher());
+        tester.addOptionalSearchChain("chain2", new AsyncSourceSearcher());
+
+        Query query = new Query();
+        query.setTimeout(60 * 1000);
+        Result result = tester.searchAsync(query).join();
+        assertEquals(2, result.getHitCount());
+        HitGroup chain2Result = (HitGroup)result.hits().get(1);
+        ErrorMessage error = chain2Result.getErrorHit().errors().iterator().next();
+        assertEquals("chain2", error.getSource());
+        assertEquals(ErrorMessage.timeoutCode, error.getCode());
+    }
+
     @Test
     public void custom_federation_target() {
         ComponentId targetSelectorId = ComponentId.fromString("TargetSelector");
@@ -279,6 +334,25 @@ public class FederationSearcherTest {
 
     }
 
+    /** A source which returns the result completed by the test */
+    private static class AsyncSourceSearcher extends Searcher {
+
+        final CompletableFuture<Query> invoked = new CompletableFuture<>();
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            return searchAsync(query, execution).toCompletableFuture().join();
+        }
+
+        @Override
+        public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+            invoked.complete(query);
+            return result;
+        }
+
+    }
+
     private static class TimeoutInFillSearcher extends Searcher {
 
         private Hit createHit(String id) {
@@ -84,6 +84,7 @@ public class GroupingParserTestCase {
                                             "cos",
                                             "cosh",
                                             "count",
+                                            "countdistinct",
                                             "debugwait",
                                             "div",
                                             "docidnsspecific",
@@ -579,6 +580,8 @@ public class GroupingParserTestCase {
         assertIllegalArgument("all(group(debugwait(artist, 3.3, lol)))",
                               "Encountered \" <IDENTIFIER> \"lol\"\" at line 1, column 34");
         assertParse("all(group(artist) each(output(stddev(simple))))");
+        assertParse("all(group(artist) each(output(countdistinct(album))))");
+        assertParse("all(output(countdistinct(md5(cat(artist, album), 64))))");
     }
 
     @Test
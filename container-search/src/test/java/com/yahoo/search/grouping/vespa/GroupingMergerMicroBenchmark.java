@@ -0,0 +1,80 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.grouping.vespa;
+
+import com.yahoo.searchlib.aggregation.Grouping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Measures merging of high cardinality grouping results from many content nodes,
+ * one after the other as before, and in a tree in one and in many threads.
+ *
+ * @author agent
+ */
+public class GroupingMergerMicroBenchmark {
+
+    private final int nodes;
+    private final int groups;
+    private final double density;
+
+    public GroupingMergerMicroBenchmark(int nodes, int groups, double density) {
+        this.nodes = nodes;
+        this.groups = groups;
+        this.density = density;
+    }
+
+    public void benchmark(int merges) {
+        System.out.println(nodes + " nodes each having " + density + " of " + groups + " groups");
+        benchmark("sequential   ", GroupingMergerMicroBenchmark::mergeSequentially, merges);
+        benchmark("tree         ", new GroupingMerger(null, GroupingMerger.defaultGroupsPerTask)::merge, merges);
+        benchmark("parallel tree", new GroupingMerger()::merge, merges);
+    }
+
+    private void benchmark(String description, Function<List<Grouping>, Grouping> merger, int merges) {
+        List<Grouping> results = GroupingMergerTestCase.createResults(nodes, groups, density, 17);
+        merge(merger, results, Math.max(1, merges / 5)); // warm-up
+        for (int round = 0; round < 3; round++) {
+            long totalTime = merge(merger, results, merges);
+            System.out.println("  " + description + " merged in " + totalTime / 1000000 + " ms (" +
+                               totalTime / merges / 1000 + " us per merge)");
+        }
+    }
+
+    private long merge(Function<List<Grouping>, Grouping> merger, List<Grouping> results, int merges) {
+        long totalTime = 0;
+        for (int i = 0; i < merges; i++) {
+            List<Grouping> copy = new ArrayList<>(results.size());
+            for (Grouping result : results)
+                copy.add(result.clone());
+            long startTime = System.nanoTime();
+            merger.apply(copy).postMerge();
+            totalTime += System.nanoTime() - startTime;
+        }
+        return totalTime;
+    }
+
+    private static Grouping mergeSequentially(List<Grouping> results) {
+        Grouping merged = results.get(0);
+        for (int i = 1; i < results.size(); i++)
+            merged.merge(results.get(i));
+        return merged;
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Parallelism: " + ForkJoinPool.commonPool().getParallelism());
+        new GroupingMergerMicroBenchmark(128, 100000, 1.0 / 128).benchmark(10);
+        System.out.println("");
+        new GroupingMergerMicroBenchmark(128, 20000, 1.0 / 8).benchmark(10);
+        System.out.println("");
+        new GroupingMergerMicroBenchmark(16, 10000, 0.5).benchmark(10);
+        System.out.println("");
+        new GroupingMergerMicroBenchmark(128, 200, 0.5).benchmark(100);
+        System.out.println("");
+        new GroupingMergerMicroBenchmark(8, 100, 0.5).benchmark(1000);
+        System.out.println("");
+    }
+
+}
@@ -0,0 +1,110 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.grouping.vespa;
+
+import com.yahoo.searchlib.aggregation.CountAggregationResult;
+import com.yahoo.searchlib.aggregation.Group;
+import com.yahoo.searchlib.aggregation.Grouping;
+import com.yahoo.searchlib.aggregation.GroupingLevel;
+import com.yahoo.searchlib.aggregation.SumAggregationResult;
+import com.yahoo.searchlib.expression.IntegerResultNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author agent
+ */
+public class GroupingMergerTestCase {
+
+    @Test
+    public void requireThatTreeMergeEqualsSequentialMerge() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int nodes : new int[] { 1, 2, 3, 7, 16, 33 }) {
+                List<Grouping> results = createResults(nodes, 100, 0.5, 17);
+                Grouping expected = mergeSequentially(copy(results));
+                assertMerge(expected, new GroupingMerger(null, 1), copy(results));
+                assertMerge(expected, new GroupingMerger(pool, 1), copy(results));
+                assertMerge(expected, new GroupingMerger(pool, 1000), copy(results));
+                assertMerge(expected, new GroupingMerger(), copy(results));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void requireThatGroupsArePrunedAfterMerge() {
+        List<Grouping> results = createResults(8, 100, 0.5, 5);
+        Grouping merged = new GroupingMerger(null, 1).merge(results);
+        merged.postMerge();
+        assertEquals(10, merged.getRoot().getChildren().size());
+        for (int i = 1; i < merged.getRoot().getChildren().size(); i++)
+            assertEquals(-1, merged.getRoot().getChildren().get(i - 1).getId()
+                               .compareTo(merged.getRoot().getChildren().get(i).getId()));
+    }
+
+    private static void assertMerge(Grouping expected, GroupingMerger merger, List<Grouping> results) {
+        Grouping merged = merger.merge(results);
+        assertSame(results.get(0), merged);
+        merged.postMerge();
+        assertEquals(expected, merged);
+    }
+
+    private static Grouping mergeSequentially(List<Grouping> results) {
+        Grouping merged = results.get(0);
+        for (int i = 1; i < results.size(); i++)
+            merged.merge(results.get(i));
+        merged.postMerge();
+        return merged;
+    }
+
+    private static List<Grouping> copy(List<Grouping> results) {
+        List<Grouping> copy = new ArrayList<>();
+        for (Grouping result : results)
+            copy.add(result.clone());
+        return copy;
+    }
+
+    /**
+     * Returns grouping results from the given number of nodes, each having a random subset of the given groups,
+     * where each group is present on a node with the given probability
+     */
+    static List<Grouping> createResults(int nodes, int groups, double density, long seed) {
+        Random random = new Random(seed);
+        List<Grouping> results = new ArrayList<>();
+        for (int node = 0; node < nodes; node++) {
+            Grouping grouping = new Grouping(7).setFirstLevel(0).setLastLevel(2)
+                                               .addLevel(new GroupingLevel().setMaxGroups(10))
+                                               .addLevel(new GroupingLevel().setMaxGroups(-1));
+            grouping.getRoot().addAggregationResult(new CountAggregationResult(random.nextInt(1000)));
+            for (int id = 0; id < groups; id++) {
+                if (random.nextDouble() >= density) continue;
+                Group group = createGroup(id, random);
+                for (int childId = 0; childId < 5; childId++) {
+                    if (random.nextBoolean())
+                        group.addChild(createGroup(childId, random));
+                }
+                grouping.getRoot().addChild(group);
+            }
+            results.add(grouping);
+        }
+        return results;
+    }
+
+    private static Group createGroup(int id, Random random) {
+        long count = 1 + random.nextInt(100);
+        return new Group().setId(new IntegerResultNode(id))
+                          .setRank(count)
+                          .addAggregationResult(new CountAggregationResult(count))
+                          .addAggregationResult(new SumAggregationResult(new IntegerResultNode(random.nextInt(1000))));
+    }
+
+}
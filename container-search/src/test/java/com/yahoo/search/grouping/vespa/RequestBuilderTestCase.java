@@ -10,6 +10,7 @@ import org.junit.Test;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -28,6 +29,7 @@ public class RequestBuilderTestCase {
        assertLayout("all(group(a) each(each(output(summary()))))", "[[{ Attribute, result = [Hits] }]]");
        assertLayout("all(group(a) each(output(xor(b))))", "[[{ Attribute, result = [Xor] }]]");
        assertLayout("all(group(a) each(output(stddev(b))))", "[[{ Attribute, result = [StandardDeviation] }]]");
+       assertLayout("all(group(a) each(output(countdistinct(b))))", "[[{ Attribute, result = [ExpressionCount] }]]");
     }
 
     @Test
@@ -40,6 +42,24 @@ public class RequestBuilderTestCase {
         assertEquals(new AttributeNode("foo"), aggr.getExpression());
     }
 
+    @Test
+    public void requireThatCountDistinctAggregatesItsOwnExpression() {
+        RequestBuilder builder = new RequestBuilder(0);
+        builder.setRootOperation(GroupingOperation.fromString("all(group(foo) output(count()) each(output(countdistinct(bar))))"));
+        builder.build();
+        Grouping grouping = builder.getRequestList().get(0);
+        AggregationResult count = grouping.getRoot().getAggregationResults().get(0);
+        assertEquals(new AttributeNode("foo"), count.getExpression());
+        assertFalse(builder.getTransform().isDistinctCount(count.getTag()));
+        AggregationResult distinctCount = grouping.getLevels().get(0).getGroupPrototype().getAggregationResults().get(0);
+        assertTrue(distinctCount instanceof ExpressionCountAggregationResult);
+        assertEquals(new AttributeNode("bar"), distinctCount.getExpression());
+        assertTrue(builder.getTransform().isDistinctCount(distinctCount.getTag()));
+
+        assertBuildFail("all(group(foo) output(countdistinct(bar)))",
+                        "Expression 'bar' not applicable for single group.");
+    }
+
     private List<Grouping> getRequestList(String selection) {
         RequestBuilder builder = new RequestBuilder(0);
         builder.setRootOperation(GroupingOperation.fromString(selection));
@@ -18,6 +18,8 @@ import org.junit.Test;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -142,6 +144,43 @@ public class ResultBuilderTestCase {
                         newGroup(7, new CountAggregationResult(0)))));
     }
 
+    @Test
+    public void requireThatListsBelowTheRootAreCreatedWhenAccessed() {
+        ResultBuilder builder = newResultBuilder("all(group(artist) each(output(count() as(baz)) all(group(album) " +
+                                                 "each(output(count() as(cox))) as(group_album))) as(group_artist))",
+                                                 newArtistGrouping());
+        ResultBuilder.LazyGroup artist = (ResultBuilder.LazyGroup)builder.getRoot().getGroupList("group_artist").get(0);
+        assertEquals(10L, artist.getField("baz"));
+        assertTrue("Groups without hits are filled", builder.getRoot().isFilled("default"));
+        assertFalse(artist.listsAreAdded());
+
+        ResultBuilder.LazyGroup album = (ResultBuilder.LazyGroup)artist.getGroupList("group_album").get(0);
+        assertTrue(artist.listsAreAdded());
+        assertEquals(15L, album.getField("cox"));
+        assertFalse(album.listsAreAdded());
+    }
+
+    @Test
+    public void requireThatListsAreCreatedBeforeHitsAreAddedOrRemoved() {
+        String request = "all(group(artist) each(output(count() as(baz)) all(group(album) " +
+                         "each(output(count() as(cox))) as(group_album))) as(group_artist))";
+        ResultBuilder.LazyGroup artist = (ResultBuilder.LazyGroup)newResultBuilder(request, newArtistGrouping())
+                                                 .getRoot().getGroupList("group_artist").get(0);
+        artist.add(1, new com.yahoo.search.result.Hit("extra"));
+        assertTrue(artist.listsAreAdded());
+        assertEquals(2, artist.size());
+        assertEquals("extra", artist.get(1).getId().toString());
+
+        ResultBuilder.LazyGroup materialized = (ResultBuilder.LazyGroup)newResultBuilder(request, newArtistGrouping())
+                                                       .getRoot().getGroupList("group_artist").get(0);
+        com.yahoo.search.result.Hit albums = materialized.getGroupList("group_album");
+        artist = (ResultBuilder.LazyGroup)newResultBuilder(request, newArtistGrouping())
+                         .getRoot().getGroupList("group_artist").get(0);
+        assertEquals(albums.getId(), artist.remove(albums.getId()).getId());
+        assertTrue(artist.listsAreAdded());
+        assertEquals(0, artist.size());
+    }
+
     @Test
     public void requireThatEmptyBranchesArePruned() {
         assertBuildFail("all()", Collections.<Grouping>emptyList(), "Expected 1 group, got 0.");
@@ -259,6 +298,21 @@ public class ResultBuilderTestCase {
     }
 
 
+    @Test
+    public void requireThatCountDistinctUsesTheEstimate() {
+        Group root = newGroup(1, new ExpressionCountAggregationResult(new SparseSketch(), sketch -> 42).setTag(2));
+        for (int i = 0; i < 3; ++i) {
+            root.addChild(new Group().setTag(3)
+                                     .setId(new StringResultNode("foo" + i))
+                                     .addAggregationResult(new CountAggregationResult(i).setTag(4)));
+        }
+        assertLayout("all(output(countdistinct(artist)) all(group(artist) each(output(count()))))",
+                     new Grouping().setRoot(root),
+                     "RootGroup{id=group:root, countdistinct(artist)=42}" +
+                     "[GroupList{label=artist}[Group{id=group:foo0, count()=0}[], " +
+                     "Group{id=group:foo1, count()=1}[], Group{id=group:foo2, count()=2}[]]]");
+    }
+
     @Test
     public void requireThatResultContinuationContainsCurrentPages() {
         String request = "all(group(a) max(2) each(output(count())))";
@@ -1019,9 +1073,17 @@ public class ResultBuilderTestCase {
             return toString(builder.getRoot());
         }
 
+        /** Returns the public class of a hit, as groups are created as subclasses which add their lists lazily */
+        Class<?> publicType(com.yahoo.search.result.Hit hit) {
+            Class<?> type = hit.getClass();
+            while (type.getEnclosingClass() == ResultBuilder.class)
+                type = type.getSuperclass();
+            return type;
+        }
+
         String toString(com.yahoo.search.result.Hit hit) {
             StringBuilder ret = new StringBuilder();
-            ret.append(hit.getClass().getSimpleName());
+            ret.append(publicType(hit).getSimpleName());
 
             Map<String, String> members = new LinkedHashMap<>();
             if (hit instanceof GroupList) {
@@ -1047,6 +1109,30 @@ public class ResultBuilderTestCase {
         }
     }
 
+    private static Grouping newArtistGrouping() {
+        return newGrouping(new Group().setTag(2)
+                                      .setId(new StringResultNode("foo"))
+                                      .addAggregationResult(new CountAggregationResult(10).setTag(3))
+                                      .addChild(new Group().setTag(4)
+                                                           .setId(new StringResultNode("foo_a"))
+                                                           .addAggregationResult(new CountAggregationResult(15).setTag(5))));
+    }
+
+    private static ResultBuilder newResultBuilder(String request, Grouping result) {
+        RequestBuilder reqBuilder = new RequestBuilder(REQUEST_ID);
+        reqBuilder.setRootOperation(GroupingOperation.fromString(request));
+        reqBuilder.build();
+
+        ResultBuilder resBuilder = new ResultBuilder();
+        resBuilder.setHitConverter(new MyHitConverter());
+        resBuilder.setTransform(reqBuilder.getTransform());
+        resBuilder.setRequestId(REQUEST_ID);
+        result.setId(0);
+        resBuilder.addGroupingResult(result);
+        resBuilder.build();
+        return resBuilder;
+    }
+
     private static class MyHitConverter implements ResultBuilder.HitConverter {
 
         @Override
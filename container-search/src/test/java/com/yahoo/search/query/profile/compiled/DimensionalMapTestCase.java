@@ -0,0 +1,110 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.DimensionBinding;
+import com.yahoo.search.query.profile.DimensionValues;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class DimensionalMapTestCase {
+
+    private static final List<String> dimensions = List.of("x", "y");
+
+    private static DimensionBinding binding(String ... values) {
+        return DimensionBinding.createFrom(dimensions, DimensionValues.createFrom(values));
+    }
+
+    private static Map<String, String> context(String x, String y) {
+        Map<String, String> context = new HashMap<>();
+        if (x != null) context.put("x", x);
+        if (y != null) context.put("y", y);
+        context.put("other", "value");
+        return context;
+    }
+
+    private static DimensionalMap<String> createMap() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(new CompoundName("a"), binding(), "a");
+        builder.put(new CompoundName("a"), binding("x1"), "a-x1");
+        builder.put(new CompoundName("a"), binding("x1", "y1"), "a-x1-y1");
+        builder.put(new CompoundName("a"), binding(null, "y2"), "a-y2");
+        builder.put(new CompoundName("b"), binding("x2"), "b-x2");
+        builder.put(new CompoundName("c"), binding(), "c");
+        return builder.build();
+    }
+
+    @Test
+    public void testVariantsResolveLikeContextLookups() {
+        DimensionalMap<String> map = createMap();
+        String[] values = { null, "x1", "x2", "y1", "y2", "unknown" };
+        for (String x : values) {
+            for (String y : values) {
+                Map<String, String> context = context(x, y);
+                DimensionalMap.Variant<String> variant = map.variant(context);
+                assertTrue(variant.matches(context));
+                for (String key : List.of("a", "b", "c", "d")) {
+                    CompoundName name = new CompoundName(key);
+                    assertEquals("Value of " + key + " in " + context, map.get(name, context), variant.get(name));
+                    assertEquals("Resolved values are remembered", map.get(name, context), variant.get(name));
+                }
+            }
+        }
+        assertEquals("a-x1-y1", map.variant(context("x1", "y1")).get(new CompoundName("a")));
+        assertEquals("a-y2", map.variant(context("x3", "y2")).get(new CompoundName("a")));
+        assertNull(map.variant(context("x1", null)).get(new CompoundName("b")));
+    }
+
+    @Test
+    public void testVariantsAreSharedBetweenContextsWithTheSameDimensionValues() {
+        DimensionalMap<String> map = createMap();
+        DimensionalMap.Variant<String> variant = map.variant(context("x1", "y1"));
+        Map<String, String> other = context("x1", "y1");
+        other.put("unrelated", "value");
+        assertSame(variant, map.variant(other));
+        assertTrue(variant.matches(other));
+        assertFalse(variant.matches(context("x1", "y2")));
+        assertFalse(variant.matches(context("x1", null)));
+        assertSame(map.variant(null), map.variant(context(null, null)));
+        assertTrue(map.variant(null).matches(null));
+    }
+
+    @Test
+    public void testUndeclaredDimensionValuesDoNotCreateVariants() {
+        DimensionalMap<String> map = createMap();
+        DimensionalMap.Variant<String> variant = map.variant(context("x1", "y1"));
+        for (int i = 0; i < DimensionalMap.maxVariants * 2; i++) {
+            assertSame(map.variant(null), map.variant(context("garbage" + i, null)));
+            assertSame(map.variant(context(null, "y2")), map.variant(context("garbage" + i, "y2")));
+        }
+        assertSame(variant, map.variant(context("x1", "y1")));
+        assertTrue(map.variant(context(null, "y2")).matches(context("garbage", "y2")));
+        assertFalse(map.variant(context(null, "y2")).matches(context("x1", "y2")));
+    }
+
+    @Test
+    public void testTheNumberOfCachedVariantsIsBounded() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        for (int i = 0; i <= DimensionalMap.maxVariants; i++)
+            builder.put(new CompoundName("a"), binding("x" + i), "a-x" + i);
+        DimensionalMap<String> map = builder.build();
+        for (int i = 0; i < DimensionalMap.maxVariants; i++)
+            map.variant(context("x" + i, null));
+        DimensionalMap.Variant<String> uncached = map.variant(context("x" + DimensionalMap.maxVariants, null));
+        assertEquals("a-x" + DimensionalMap.maxVariants, uncached.get(new CompoundName("a")));
+        assertTrue(uncached != map.variant(context("x" + DimensionalMap.maxVariants, null)));
+    }
+
+}
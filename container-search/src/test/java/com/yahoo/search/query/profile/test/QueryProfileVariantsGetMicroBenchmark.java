@@ -0,0 +1,120 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.test;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.processing.request.Properties;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileProperties;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures lookups in a compiled query profile which has hundreds of variants over a few dimensions.
+ *
+ * @author agent
+ */
+public class QueryProfileVariantsGetMicroBenchmark {
+
+    private static final int propertyCount = 50;
+
+    private final String description;
+    private final int variantsPerDimension;
+
+    public QueryProfileVariantsGetMicroBenchmark(String description, int variantsPerDimension) {
+        this.description = description;
+        this.variantsPerDimension = variantsPerDimension;
+    }
+
+    public void benchmark(int count) {
+        CompiledQueryProfile profile = createProfile();
+        getValues(count / 10, profile, false); // warm-up
+        getValues(count / 10, profile, true);
+        System.out.println(description);
+        for (boolean perRequest : new boolean[] { false, true }) {
+            long startTime = System.nanoTime();
+            getValues(count, profile, perRequest);
+            long totalTime = System.nanoTime() - startTime;
+            System.out.println((perRequest ? "  Through request properties: " : "  From compiled profile:      ") +
+                               totalTime / 1000000 + " ms (" + totalTime / (count * 3) + " ns per get)");
+        }
+    }
+
+    private CompiledQueryProfile createProfile() {
+        QueryProfile profile = new QueryProfile("main");
+        profile.setDimensions(new String[] { "x", "y", "z" });
+        for (int i = 0; i < propertyCount; i++)
+            profile.set("property" + i, "default" + i, (QueryProfileRegistry)null);
+        for (int x = 0; x < variantsPerDimension; x++) {
+            for (int y = 0; y < variantsPerDimension; y++) {
+                for (int i = 1; i < propertyCount; i += 2) {
+                    profile.set("property" + i, "x" + x, new String[] { "x" + x }, null);
+                    profile.set("property" + i, "y" + y, new String[] { null, "y" + y }, null);
+                    profile.set("property" + i, "z" + y, new String[] { null, null, "z" + y }, null);
+                    profile.set("property" + i, "x" + x + "z" + y, new String[] { "x" + x, null, "z" + y }, null);
+                    if ((x + y) % 3 == 0)
+                        profile.set("property" + i, "x" + x + "y" + y, new String[] { "x" + x, "y" + y }, null);
+                }
+            }
+        }
+        profile.freeze();
+        return profile.compile(null);
+    }
+
+    private List<Map<String, String>> createContexts() {
+        List<Map<String, String>> contexts = new ArrayList<>();
+        for (int x = 0; x < variantsPerDimension; x++) {
+            for (int y = 0; y < variantsPerDimension; y++) {
+                Map<String, String> context = new HashMap<>();
+                context.put("x", "x" + x);
+                context.put("y", "y" + y);
+                context.put("z", "unknown");
+                context.put("query", "test");
+                contexts.add(context);
+            }
+        }
+        return contexts;
+    }
+
+    /**
+     * Gets values in a number of contexts, either directly from the compiled profile
+     * or through query profile properties created per context, as done for each query.
+     */
+    private void getValues(int count, CompiledQueryProfile profile, boolean perRequest) {
+        CompoundName variantValue = new CompoundName("property1");
+        CompoundName defaultValue = new CompoundName("property2");
+        CompoundName notFound = new CompoundName("nonExisting");
+        List<Map<String, String>> contexts = createContexts();
+        for (int i = 0; i < count; i += 10) {
+            Map<String, String> context = contexts.get(i / 10 % contexts.size());
+            Properties properties = perRequest ? new QueryProfileProperties(profile) : null;
+            for (int request = 0; request < 10; request++) { // A few gets per request context
+                if (get(variantValue, context, profile, properties) == null)
+                    throw new RuntimeException("Expected value");
+                if (get(defaultValue, context, profile, properties) == null)
+                    throw new RuntimeException("Expected value");
+                if (get(notFound, context, profile, properties) != null)
+                    throw new RuntimeException("Expected no value");
+            }
+        }
+    }
+
+    private Object get(CompoundName name, Map<String, String> context, CompiledQueryProfile profile, Properties properties) {
+        if (properties != null)
+            return properties.get(name, context, null);
+        return profile.get(name, context, null);
+    }
+
+    public static void main(String[] args) {
+        int count = 10000000;
+        new QueryProfileVariantsGetMicroBenchmark("Getting values with about 160 variants", 10).benchmark(count);
+        System.out.println("");
+        new QueryProfileVariantsGetMicroBenchmark("Getting values with about 600 variants", 20).benchmark(count);
+        System.out.println("");
+    }
+
+}
@@ -1,13 +1,17 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.query.properties.test;
 
+import com.yahoo.processing.request.CompoundName;
 import com.yahoo.processing.request.properties.PropertyMap;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -36,6 +40,43 @@ public class PropertyMapTestCase {
         assertTrue(first(map.get("nonclonableArray")) == first(mapClone.get("nonclonableArray")));
     }
 
+    @Test
+    public void testCloningIsCopyOnWrite() {
+        com.yahoo.search.query.properties.PropertyMap map = new com.yahoo.search.query.properties.PropertyMap();
+        map.set("string", "value");
+        map.set("clonable", new ClonableObject());
+        map.set("nonclonable", new NonClonableObject());
+
+        com.yahoo.search.query.properties.PropertyMap mapClone = map.clone();
+        assertTrue(map.get("nonclonable") == mapClone.get("nonclonable"));
+        assertTrue(map.get("clonable") != mapClone.get("clonable"));
+        assertTrue(map.listProperties().get("clonable") != mapClone.listProperties().get("clonable"));
+
+        mapClone.set("string", "changed");
+        map.set("other", "value");
+        assertEquals("value", map.get("string"));
+        assertEquals("changed", mapClone.get("string"));
+        assertNull(mapClone.get("other"));
+        assertEquals("value", map.get("other"));
+
+        com.yahoo.search.query.properties.PropertyMap cloneOfClone = mapClone.clone();
+        cloneOfClone.propertyMap().remove(new CompoundName("string"));
+        assertNull(cloneOfClone.get("string"));
+        assertEquals("changed", mapClone.get("string"));
+    }
+
+    @Test
+    public void testCloneIsIndependentOfPropertyMapHandedOutBeforeCloning() {
+        com.yahoo.search.query.properties.PropertyMap map = new com.yahoo.search.query.properties.PropertyMap();
+        map.set("string", "value");
+        Map<CompoundName, Object> properties = map.propertyMap();
+
+        com.yahoo.search.query.properties.PropertyMap mapClone = map.clone();
+        properties.put(new CompoundName("string"), "changed");
+        assertEquals("changed", map.get("string"));
+        assertEquals("value", mapClone.get("string"));
+    }
+
     private Object first(Object object) {
         if (object instanceof Object[])
             return ((Object[])object)[0];
@@ -11,6 +11,7 @@ import com.yahoo.text.Utf8;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -18,6 +19,8 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author geirst
@@ -108,6 +111,50 @@ public class RankFeaturesTestCase {
         return properties;
     }
 
+    @Test
+    public void requireThatClonesAreIndependent() {
+        RankFeatures features = new RankFeatures();
+        features.put("query(a)", 1.0);
+        RankProperties properties = new RankProperties();
+        properties.put("a", "1");
+
+        RankFeatures featuresClone = features.clone();
+        RankProperties propertiesClone = properties.clone();
+        assertEquals(features, featuresClone);
+        assertEquals(properties, propertiesClone);
+
+        featuresClone.put("query(b)", 2.0);
+        features.asMap().remove("query(a)");
+        propertiesClone.put("a", "2");
+        properties.put("b", "3");
+
+        assertEquals(2.0, featuresClone.getDouble("query(b)").getAsDouble(), 0.0);
+        assertEquals(1.0, featuresClone.getDouble("query(a)").getAsDouble(), 0.0);
+        assertTrue(features.isEmpty());
+        assertEquals(List.of("1", "2"), propertiesClone.get("a"));
+        assertNull(propertiesClone.get("b"));
+        assertEquals(List.of("1"), properties.get("a"));
+        assertEquals(List.of("3"), properties.get("b"));
+    }
+
+    @Test
+    public void requireThatClonesAreIndependentOfMapsHandedOutBeforeCloning() {
+        RankFeatures features = new RankFeatures();
+        Map<String, Object> featureMap = features.asMap();
+        RankProperties properties = new RankProperties();
+        Map<String, List<Object>> propertyMap = properties.asMap();
+
+        RankFeatures featuresClone = features.clone();
+        RankProperties propertiesClone = properties.clone();
+        featureMap.put("query(a)", 1.0);
+        propertyMap.put("a", new ArrayList<>(List.of("1")));
+
+        assertEquals(1.0, features.getDouble("query(a)").getAsDouble(), 0.0);
+        assertTrue(featuresClone.isEmpty());
+        assertEquals(List.of("1"), properties.get("a"));
+        assertTrue(propertiesClone.isEmpty());
+    }
+
     private static byte[] encode(RankProperties properties) {
         ByteBuffer buffer = ByteBuffer.allocate(512);
         properties.encode(buffer, true);
@@ -0,0 +1,162 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.processing.rendering.AsynchronousSectionedRenderer;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.text.Utf8;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Measures rendering of results with many hits having large string fields available as raw UTF-8,
+ * as hits containing document summaries have, to the kind of stream used for responses,
+ * and compares rendering and decoding of the same results in the binary Slime format.
+ *
+ * @author agent
+ */
+public class JsonRendererMicroBenchmark {
+
+    private final String description;
+    private final int hits;
+    private final byte[] largeField;
+
+    public JsonRendererMicroBenchmark(String description, int hits, int largeFieldLength) {
+        this.description = description;
+        this.hits = hits;
+        this.largeField = Utf8.toBytes("lorem ipsum dolor sit amet, consectetur adipiscing elit, blåbær ".repeat(largeFieldLength / 64));
+    }
+
+    public void benchmark(int results) throws Exception {
+        System.out.println(description);
+        benchmark("JSON ", new JsonRenderer(), results, SlimeUtils::jsonToSlime);
+        benchmark("Slime", new SlimeRenderer(), results, BinaryFormat::decode);
+    }
+
+    private void benchmark(String format, AsynchronousSectionedRenderer<Result> prototype, int results,
+                           Function<byte[], Slime> decoder) throws Exception {
+        Execution execution = new Execution(Execution.Context.createContextStub());
+        render(prototype, execution, results / 10); // warm-up
+        for (int round = 0; round < 3; round++) {
+            long startTime = System.nanoTime();
+            long bytes = render(prototype, execution, results);
+            long totalTime = System.nanoTime() - startTime;
+            System.out.println("  " + format + " rendered in " + totalTime / 1000000 + " ms (" +
+                               totalTime / results / 1000 + " us per result of " + bytes / results / 1024 + " kb)");
+        }
+
+        ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+        if ( ! renderer(prototype).render(rendered, createResult(), execution, null).get())
+            throw new IllegalStateException("Rendering failed");
+        byte[] response = rendered.toByteArray();
+        decode(response, decoder, results / 10); // warm-up
+        long startTime = System.nanoTime();
+        decode(response, decoder, results);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println("  " + format + " decoded in  " + totalTime / 1000000 + " ms (" +
+                           totalTime / results / 1000 + " us per result)");
+        prototype.deconstruct();
+    }
+
+    private void decode(byte[] response, Function<byte[], Slime> decoder, int results) {
+        for (int i = 0; i < results; i++) {
+            if (decoder.apply(response).get().field("root").field("children").entries() != hits)
+                throw new IllegalStateException("Decoding failed");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AsynchronousSectionedRenderer<Result> renderer(AsynchronousSectionedRenderer<Result> prototype) {
+        AsynchronousSectionedRenderer<Result> renderer = (AsynchronousSectionedRenderer<Result>)prototype.clone();
+        renderer.init();
+        return renderer;
+    }
+
+    private long render(AsynchronousSectionedRenderer<Result> prototype, Execution execution, int results) throws Exception {
+        DiscardingContentChannel channel = new DiscardingContentChannel();
+        for (int i = 0; i < results; i++) {
+            AsynchronousSectionedRenderer<Result> renderer = renderer(prototype);
+            if ( ! renderer.render(new ContentChannelOutputStream(channel), createResult(), execution, null).get())
+                throw new IllegalStateException("Rendering failed");
+        }
+        synchronized (channel) {
+            return channel.bytes;
+        }
+    }
+
+    private Result createResult() {
+        Result result = new Result(new Query("?query=test"));
+        for (int i = 0; i < hits; i++) {
+            RawUtf8Hit hit = new RawUtf8Hit("hit:" + i, 1.0 - i / (double)hits);
+            hit.setField("price", i * 10);
+            hit.setRawField("title", Utf8.toBytes("Title of document " + i));
+            hit.setRawField("snippet", Utf8.toBytes("A snippet with \"quotes\" in document " + i));
+            hit.setRawField("body", largeField);
+            result.hits().add(hit);
+        }
+        result.setTotalHitCount(hits);
+        return result;
+    }
+
+    private static class RawUtf8Hit extends Hit {
+
+        private final Map<String, byte[]> rawFields = new LinkedHashMap<>();
+
+        RawUtf8Hit(String id, double relevance) {
+            super(id, relevance);
+        }
+
+        void setRawField(String name, byte[] value) {
+            rawFields.put(name, value);
+        }
+
+        @Override
+        public void forEachFieldAsRaw(RawUtf8Consumer consumer) {
+            super.forEachField(consumer);
+            rawFields.forEach((name, value) -> consumer.accept(name, value, 0, value.length));
+        }
+
+    }
+
+    private static class DiscardingContentChannel implements ContentChannel {
+
+        long bytes = 0;
+
+        @Override
+        public synchronized void write(ByteBuffer buffer, CompletionHandler handler) {
+            bytes += buffer.remaining();
+            if (handler != null)
+                handler.completed();
+        }
+
+        @Override
+        public synchronized void close(CompletionHandler handler) {
+            if (handler != null)
+                handler.completed();
+        }
+
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = 500;
+        new JsonRendererMicroBenchmark("400 hits with 8 kb fields ", 400, 8 * 1024).benchmark(count);
+        System.out.println("");
+        new JsonRendererMicroBenchmark("400 hits with 64 kb fields", 400, 64 * 1024).benchmark(count / 8);
+        System.out.println("");
+        new JsonRendererMicroBenchmark("400 hits with 512 b fields", 400, 512).benchmark(count * 4);
+        System.out.println("");
+    }
+
+}
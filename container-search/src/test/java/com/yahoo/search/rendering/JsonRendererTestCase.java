@@ -8,6 +8,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.yahoo.component.ComponentId;
 import com.yahoo.component.chain.Chain;
 import com.yahoo.container.QrSearchersConfig;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.document.DataType;
@@ -18,6 +19,8 @@ import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.Struct;
 import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.predicate.Predicate;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
 import com.yahoo.prelude.Index;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.IndexModel;
@@ -66,13 +69,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -317,6 +324,94 @@ public class JsonRendererTestCase {
         assertEqualJson(expected, summary);
     }
 
+    @Test
+    public void testRawUtf8FieldsAreRenderedIdenticallyToAnyStream() throws IOException, InterruptedException, ExecutionException {
+        String large = "large value \u00e6\u00f8\u00e5 ".repeat(JsonRenderer.FieldConsumer.MIN_DIRECT_OUTPUT_LENGTH / 10);
+        String expected = "{"
+                + "    \"root\": {"
+                + "        \"children\": ["
+                + "            {"
+                + "                \"fields\": {"
+                + "                    \"regular\": \"regular value\","
+                + "                    \"small\": \"small value\","
+                + "                    \"escaped\": \"a \\\"quoted\\\" \\\\ value\\n\","
+                + "                    \"nonAscii\": \"bl\u00e5b\u00e6r \u4e2d\u6587\","
+                + "                    \"large\": \"" + large + "\","
+                + "                    \"largeEscaped\": \"" + large + "\\\"" + large + "\""
+                + "                },"
+                + "                \"id\": \"raw\","
+                + "                \"relevance\": 1.0"
+                + "            }"
+                + "        ],"
+                + "        \"fields\": {"
+                + "            \"totalCount\": 1"
+                + "        },"
+                + "        \"id\": \"toplevel\","
+                + "        \"relevance\": 1.0"
+                + "    }"
+                + "}";
+        String rendered = render(createRawUtf8Result(large));
+        assertEqualJson(expected, rendered);
+
+        List<ByteBuffer> written = new ArrayList<>();
+        ContentChannelOutputStream stream = new ContentChannelOutputStream(new ContentChannel() {
+            @Override
+            public void write(ByteBuffer buffer, CompletionHandler handler) {
+                written.add(buffer); // keep the buffer as is, to detect whether the renderer holds on to hit data
+                if (handler != null) handler.completed();
+            }
+            @Override
+            public void close(CompletionHandler handler) { }
+        });
+        renderer = (JsonRenderer) originalRenderer.clone();
+        renderer.init();
+        Result result = createRawUtf8Result(large);
+        RawUtf8Hit hit = (RawUtf8Hit)result.hits().get(0); // the hits are closed when rendered
+        assertTrue(renderer.render(stream, result, new Execution(Execution.Context.createContextStub()), null).get());
+        hit.overwriteRawFields();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : written) {
+            byte[] content = new byte[buffer.remaining()];
+            buffer.get(content);
+            bytes.write(content, 0, content.length);
+        }
+        assertEquals(rendered, Utf8.toString(bytes.toByteArray()));
+    }
+
+    private Result createRawUtf8Result(String large) {
+        RawUtf8Hit hit = new RawUtf8Hit("raw");
+        hit.setRawField("small", "small value");
+        hit.setRawField("escaped", "a \"quoted\" \\ value\n");
+        hit.setRawField("nonAscii", "bl\u00e5b\u00e6r \u4e2d\u6587");
+        hit.setRawField("large", large);
+        hit.setRawField("largeEscaped", large + "\"" + large);
+        hit.setRawField("empty", "");
+        hit.setField("regular", "regular value");
+        Result r = newEmptyResult();
+        r.hits().add(hit);
+        r.setTotalHitCount(1L);
+        return r;
+    }
+
+    @Test
+    public void testEscapingIsDetectedInUtf8() {
+        assertTrue(JsonRenderer.FieldConsumer.needsEscaping(Utf8.toBytes("a\tb"), 0, 3));
+        assertTrue(JsonRenderer.FieldConsumer.needsEscaping(Utf8.toBytes("a\\b"), 0, 3));
+        assertTrue(JsonRenderer.FieldConsumer.needsEscaping(Utf8.toBytes("\""), 0, 1));
+        assertFalse(JsonRenderer.FieldConsumer.needsEscaping(Utf8.toBytes("\"abc\""), 1, 3));
+        byte[] nonAscii = Utf8.toBytes("bl\u00e5b\u00e6r / \u4e2d\u6587");
+        assertFalse(JsonRenderer.FieldConsumer.needsEscaping(nonAscii, 0, nonAscii.length));
+        for (char special : new char[] { '\u0000', '\u001f', '"', '\\' }) {
+            for (int position = 0; position < 20; position++) {
+                StringBuilder value = new StringBuilder("\u00e6 ~abcdefgh\u00f8ijklmnopqrs".substring(0, 20));
+                value.setCharAt(position, special);
+                byte[] utf8 = Utf8.toBytes(value.toString());
+                assertTrue(value.toString(), JsonRenderer.FieldConsumer.needsEscaping(utf8, 0, utf8.length));
+                assertFalse(JsonRenderer.FieldConsumer.needsEscaping(utf8, 0, Utf8.toBytes(value.substring(0, position)).length));
+            }
+        }
+    }
+
     @Test
     public void testEmptyTracing() throws IOException, InterruptedException, ExecutionException {
         String expected = "{"
@@ -1323,6 +1418,32 @@ public class JsonRendererTestCase {
         }
     }
 
+    /** A hit which provides some fields as raw UTF-8, as hits containing document summaries do */
+    private static final class RawUtf8Hit extends Hit {
+
+        private final Map<String, byte[]> rawFields = new LinkedHashMap<>();
+
+        RawUtf8Hit(String id) {
+            super(id);
+        }
+
+        void setRawField(String name, String value) {
+            rawFields.put(name, Utf8.toBytes(value));
+        }
+
+        @Override
+        public void forEachFieldAsRaw(RawUtf8Consumer consumer) {
+            super.forEachField(consumer);
+            rawFields.forEach((name, value) -> consumer.accept(name, value, 0, value.length));
+        }
+
+        /** Reuses the arrays holding the raw fields, as a hit owning its data may do */
+        void overwriteRawFields() {
+            rawFields.values().forEach(value -> Arrays.fill(value, (byte)'x'));
+        }
+
+    }
+
     private static final class Thingie {
         @Override
         public String toString() {
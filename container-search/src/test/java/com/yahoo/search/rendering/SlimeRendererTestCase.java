@@ -0,0 +1,209 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.yahoo.component.ComponentSpecification;
+import com.yahoo.data.access.simple.Value;
+import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.prelude.hitfield.JSONString;
+import com.yahoo.processing.rendering.AsynchronousSectionedRenderer;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.grouping.Continuation;
+import com.yahoo.search.grouping.result.DoubleBucketId;
+import com.yahoo.search.grouping.result.Group;
+import com.yahoo.search.grouping.result.GroupList;
+import com.yahoo.search.grouping.result.RootGroup;
+import com.yahoo.search.grouping.result.StringId;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.FeatureData;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.result.Relevance;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class SlimeRendererTestCase {
+
+    private final JsonRenderer jsonRenderer = new JsonRenderer();
+    private final SlimeRenderer slimeRenderer = new SlimeRenderer();
+
+    @Test
+    public void testRenderingHasTheSameStructureAsJsonRendering() throws Exception {
+        Slime rendered = renderSlime(createResult());
+        Slime expected = SlimeUtils.jsonToSlime(renderJson(createResult()));
+        assertTrue("Slime rendering:\n" + rendered + "\nJSON rendering:\n" + expected, expected.equalTo(rendered));
+        assertEquals(2, rendered.get().field("root").field("fields").field("totalCount").asLong());
+    }
+
+    private Result createResult() {
+        Hit hit = new Hit("hit:1", 0.5);
+        hit.setSource("source");
+        hit.setField("string", "stuff");
+        hit.setField("stringFieldValue", new StringFieldValue("more stuff"));
+        hit.setField("empty", "");
+        hit.setField("$hidden", "hidden");
+        hit.setField("integer", 1);
+        hit.setField("long", 4398046511104L);
+        hit.setField("double", 0.25);
+        hit.setField("bool", true);
+        hit.setField("json", new JSONString("{\"a\":[1,2,{\"b\":\"c\"}]}"));
+        hit.setField("map", new Value.ArrayValue().add(new Value.ObjectValue().put("key", "k1").put("value", 1L))
+                                                  .add(new Value.ObjectValue().put("key", "k2").put("value", "v2")));
+        hit.types().add("summary");
+
+        Result result = new Result(new Query("?query=test"));
+        result.hits().add(hit);
+        result.hits().add(createGroupingResult());
+        result.hits().addError(ErrorMessage.createBackendCommunicationError("boom"));
+        result.setCoverage(new Coverage(500, 600).setDegradedReason(5));
+        result.setTotalHitCount(2);
+        return result;
+    }
+
+    @Test
+    public void testTensorsAreRenderedInBinaryFormat() throws Exception {
+        Tensor tensor1 = Tensor.from("{ {x:a, y:0}: 2.0, {x:a, y:1}: -1 }");
+        Tensor tensor2 = Tensor.from("tensor(x[3]):[1.5, 2, 2.5]");
+        Slime features = new Slime();
+        features.setObject().setData("tensor", TypedBinaryFormat.encode(tensor2));
+        features.get().setDouble("scalar", 1.5);
+
+        Hit hit = new Hit("tensors");
+        hit.setField("tensor", tensor1);
+        hit.setField("tensorFieldValue", new TensorFieldValue(tensor2));
+        hit.setField("summaryfeatures", new FeatureData(new SlimeAdapter(features.get())));
+        Result result = new Result(new Query("?query=test"));
+        result.hits().add(hit);
+
+        Inspector fields = renderSlime(result).get().field("root").field("children").entry(0).field("fields");
+        assertEquals(tensor1, decodeTensor(fields.field("tensor")));
+        assertEquals(tensor2, decodeTensor(fields.field("tensorFieldValue")));
+        assertEquals(tensor2, decodeTensor(fields.field("summaryfeatures").field("tensor")));
+        assertEquals(1.5, fields.field("summaryfeatures").field("scalar").asDouble(), 0);
+    }
+
+    @Test
+    public void testRawUtf8FieldsAreRenderedAsStrings() throws Exception {
+        byte[] utf8 = "xblåbær".getBytes(StandardCharsets.UTF_8);
+        Hit hit = new Hit("raw") {
+            @Override
+            public void forEachFieldAsRaw(RawUtf8Consumer consumer) {
+                consumer.accept("whole", utf8, 0, utf8.length);
+                consumer.accept("part", utf8, 1, utf8.length - 1);
+                consumer.accept("empty", utf8, 0, 0);
+            }
+        };
+        Result result = new Result(new Query("?query=test"));
+        result.hits().add(hit);
+
+        Inspector fields = renderSlime(result).get().field("root").field("children").entry(0).field("fields");
+        assertEquals("xblåbær", fields.field("whole").asString());
+        assertEquals("blåbær", fields.field("part").asString());
+        assertTrue( ! fields.field("empty").valid());
+    }
+
+    @Test
+    public void testRawUtf8FieldsAreCopied() throws Exception {
+        Hit hit = new Hit("raw") {
+            @Override
+            public void forEachFieldAsRaw(RawUtf8Consumer consumer) {
+                byte[] buffer = "first".getBytes(StandardCharsets.UTF_8);
+                consumer.accept("first", buffer, 0, buffer.length);
+                Arrays.fill(buffer, (byte)'x'); // reused by the producer
+                consumer.accept("second", buffer, 0, buffer.length);
+            }
+        };
+        Result result = new Result(new Query("?query=test"));
+        result.hits().add(hit);
+
+        Inspector fields = renderSlime(result).get().field("root").field("children").entry(0).field("fields");
+        assertEquals("first", fields.field("first").asString());
+        assertEquals("xxxxx", fields.field("second").asString());
+    }
+
+    @Test
+    public void testSlimeRendererIsRegistered() {
+        RendererRegistry registry = new RendererRegistry();
+        try {
+            assertTrue(registry.getRenderer(ComponentSpecification.fromString("slime")) instanceof SlimeRenderer);
+            assertTrue(registry.getRenderer(RendererRegistry.slimeRendererId.toSpecification()) instanceof SlimeRenderer);
+            assertEquals(SlimeRenderer.DEFAULT_MIMETYPE, slimeRenderer.getMimeType());
+            assertNull(slimeRenderer.getEncoding());
+        }
+        finally {
+            registry.deconstruct();
+        }
+    }
+
+    private Tensor decodeTensor(Inspector data) {
+        return TypedBinaryFormat.decode(Optional.empty(), GrowableByteBuffer.wrap(data.asData()));
+    }
+
+    private HitGroup createGroupingResult() {
+        RootGroup root = new RootGroup(0, new TestContinuation("AAAA"));
+        GroupList list = new GroupList("customer");
+        list.continuations().put("next", new TestContinuation("BBBB"));
+        Group group = new Group(new StringId("Jones"), new Relevance(1.0));
+        group.setField("count()", 7L);
+        list.add(group);
+        Group bucket = new Group(new DoubleBucketId(1.0, 2.0), new Relevance(0.5));
+        bucket.setField("sum(price)", 3.5);
+        list.add(bucket);
+        root.add(list);
+        return root;
+    }
+
+    private Slime renderSlime(Result result) throws Exception {
+        return BinaryFormat.decode(render(slimeRenderer, result));
+    }
+
+    private byte[] renderJson(Result result) throws Exception {
+        return render(jsonRenderer, result);
+    }
+
+    private byte[] render(AsynchronousSectionedRenderer<Result> prototype, Result result) throws Exception {
+        @SuppressWarnings("unchecked")
+        AsynchronousSectionedRenderer<Result> renderer = (AsynchronousSectionedRenderer<Result>) prototype.clone();
+        renderer.init();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        assertTrue(renderer.render(stream, result, new Execution(Execution.Context.createContextStub()), null).get());
+        return stream.toByteArray();
+    }
+
+    private static class TestContinuation extends Continuation {
+
+        private final String value;
+
+        TestContinuation(String value) { this.value = value; }
+
+        @Override
+        public Continuation copy() { return this; }
+
+        @Override
+        public String toString() { return value; }
+
+    }
+
+}
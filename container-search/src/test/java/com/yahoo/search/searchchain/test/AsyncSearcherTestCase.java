@@ -0,0 +1,160 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchchain.test;
+
+import com.yahoo.component.ComponentId;
+import com.yahoo.component.chain.Chain;
+import com.yahoo.container.protect.Error;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.AsyncExecution;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.searchchain.FutureResult;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests asynchronous searchers and execution
+ *
+ * @author agent
+ */
+public class AsyncSearcherTestCase {
+
+    @Test
+    public void testSynchronousSearchersAreInvokedAsynchronously() {
+        Chain<Searcher> chain = new Chain<>(new AddHitSearcher("first"), new AddHitSearcher("second"));
+        Result result = new Execution(chain, Execution.Context.createContextStub()).searchAsync(new Query())
+                                                                                     .toCompletableFuture().join();
+        assertEquals(2, result.hits().size());
+        assertNotNull(result.hits().get("second"));
+    }
+
+    @Test
+    public void testAsynchronousSearchersCompleteLater() {
+        AsyncSourceSearcher source = new AsyncSourceSearcher();
+        Chain<Searcher> chain = new Chain<>(new AsyncAddHitSearcher("processed"), new AsyncAddHitSearcher("other"), source);
+        CompletableFuture<Result> future = new Execution(chain, Execution.Context.createContextStub()).searchAsync(new Query())
+                                                                                                     .toCompletableFuture();
+        assertFalse(future.isDone());
+
+        source.complete(hit -> hit.setField("source", "async"));
+        Result result = future.join();
+        assertEquals(3, result.hits().size());
+        assertEquals("async", result.hits().get("source").getField("source"));
+        assertNotNull(result.hits().get("other"));
+        assertNotNull(result.hits().get("processed"));
+    }
+
+    @Test
+    public void testAsyncExecutionIsCompletedByAsynchronousSearcher() throws Exception {
+        AsyncSourceSearcher source = new AsyncSourceSearcher();
+        Chain<Searcher> chain = new Chain<>(new ComponentId("chain"), new AsyncAddHitSearcher("processed"), source);
+        FutureResult future = new AsyncExecution(chain, Execution.Context.createContextStub()).searchAsync(new Query());
+        CompletableFuture<FutureResult> done = future.whenDone().toCompletableFuture();
+        source.awaitInvocation();
+        assertFalse(future.isDone());
+        assertFalse(done.isDone());
+
+        source.complete(hit -> {});
+        assertSame(future, done.get(10, TimeUnit.SECONDS));
+        Result result = future.get(0, TimeUnit.MILLISECONDS);
+        assertEquals(2, result.hits().size());
+    }
+
+    @Test
+    public void testExceptionalCompletionGivesErrorResult() throws Exception {
+        AsyncSourceSearcher source = new AsyncSourceSearcher();
+        Chain<Searcher> chain = new Chain<>(new ComponentId("chain"), source);
+        FutureResult future = new AsyncExecution(chain, Execution.Context.createContextStub()).searchAsync(new Query());
+        source.awaitInvocation();
+        source.completeExceptionally(new IllegalStateException("Backend failed"));
+
+        future.whenDone().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        Result result = future.get();
+        assertNotNull(result.hits().getError());
+        assertEquals(Error.ERROR_IN_PLUGIN.code, result.hits().getError().getCode());
+        assertTrue(result.hits().getError().getDetailedMessage().contains("Backend failed"));
+    }
+
+    private static class AddHitSearcher extends Searcher {
+
+        private final String hitId;
+
+        AddHitSearcher(String hitId) {
+            super(new ComponentId(hitId));
+            this.hitId = hitId;
+        }
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            Result result = execution.search(query);
+            result.hits().add(new Hit(hitId));
+            return result;
+        }
+
+    }
+
+    private static class AsyncAddHitSearcher extends AddHitSearcher {
+
+        AsyncAddHitSearcher(String hitId) {
+            super(hitId);
+        }
+
+        @Override
+        public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+            return execution.searchAsync(query).thenApply(result -> {
+                result.hits().add(new Hit(getId().getName()));
+                return result;
+            });
+        }
+
+    }
+
+    /** A source which returns a result when told to by the test */
+    private static class AsyncSourceSearcher extends Searcher {
+
+        private final CompletableFuture<Query> invoked = new CompletableFuture<>();
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            return searchAsync(query, execution).toCompletableFuture().join();
+        }
+
+        @Override
+        public CompletionStage<Result> searchAsync(Query query, Execution execution) {
+            invoked.complete(query);
+            return result;
+        }
+
+        void awaitInvocation() throws Exception {
+            invoked.get(10, TimeUnit.SECONDS);
+        }
+
+        void complete(Consumer<Hit> hitModifier) {
+            Query query = invoked.join();
+            Result sourceResult = new Result(query);
+            Hit hit = new Hit("source");
+            hitModifier.accept(hit);
+            sourceResult.hits().add(hit);
+            result.complete(sourceResult);
+        }
+
+        void completeExceptionally(Throwable exception) {
+            result.completeExceptionally(exception);
+        }
+
+    }
+
+}
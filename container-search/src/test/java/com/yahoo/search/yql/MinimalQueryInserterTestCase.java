@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -349,6 +350,51 @@ public class MinimalQueryInserterTestCase {
                      query.yqlRepresentation());
     }
 
+    @Test
+    public void testParsedProgramsAreReusedAcrossParameters() {
+        MinimalQueryInserter inserter = new MinimalQueryInserter();
+        Execution execution = new Execution(new Chain<>(inserter), context);
+        String yql = encode("select * from sources * where title contains \"madonna\" and userInput(@animal);");
+
+        Query first = new Query("search/?animal=cat&yql=" + yql);
+        execution.search(first);
+        Query second = new Query("search/?animal=dog&yql=" + yql);
+        new Execution(new Chain<>(inserter), context).search(second);
+        Query other = new Query("search/?yql=" + encode("select * from sources * where title contains \"madonna\";"));
+        new Execution(new Chain<>(inserter), context).search(other);
+
+        assertEquals("AND title:madonna default:cat", first.getModel().getQueryTree().toString());
+        assertEquals("AND title:madonna default:dog", second.getModel().getQueryTree().toString());
+        assertEquals("title:madonna", other.getModel().getQueryTree().toString());
+        assertEquals(1, inserter.programCache().hitCount());
+        assertEquals(2, inserter.programCache().missCount());
+        assertEquals(2, inserter.programCache().size());
+        assertTrue(inserter.programCache().parseTimeSavedNanos() > 0);
+    }
+
+    @Test
+    public void testInvalidProgramsAreNotCached() {
+        MinimalQueryInserter inserter = new MinimalQueryInserter();
+        Query query = new Query("search/?yql=" + encode("select * from sources * where title contains;"));
+        Result result = new Execution(new Chain<>(inserter), context).search(query);
+        assertNotNull(result.hits().getError());
+        assertEquals(0, inserter.programCache().size());
+    }
+
+    @Test
+    public void testProgramCacheIsBounded() throws Exception {
+        YqlProgramCache cache = new YqlProgramCache(2, null);
+        cache.get("select * from sources * where a contains \"1\";");
+        cache.get("select * from sources * where a contains \"2\";");
+        cache.get("select * from sources * where a contains \"1\";");
+        cache.get("select * from sources * where a contains \"3\";");
+        assertEquals(2, cache.size());
+        cache.get("select * from sources * where a contains \"1\";");
+        assertEquals("Most recently used program is retained", 2, cache.hitCount());
+        cache.get("select * from sources * where a contains \"2\";");
+        assertEquals("Least recently used program is evicted", 4, cache.missCount());
+    }
+
     @Test
     public void verifyThatWarmupIsSane() {
         assertTrue(MinimalQueryInserter.warmup());
@@ -15,6 +15,7 @@ import com.yahoo.document.serialization.SerializationException;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.io.GrowableByteBufferPool;
 import com.yahoo.vespa.objects.Ids;
 import com.yahoo.vespa.objects.Serializer;
 
@@ -24,6 +25,7 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A document is an identifiable
@@ -86,6 +88,17 @@ public class Document extends StructuredFieldValue {
         reader.read(this);
     }
 
+    /**
+     * Creates a document which only contains the values of the given top level fields
+     *
+     * @param reader the deserializer to use for creating this document
+     * @param fieldNames the names of the fields to deserialize, or null to deserialize all fields
+     */
+    public Document(DocumentReader reader, Set<String> fieldNames) {
+        super(null);
+        reader.read(this, fieldNames);
+    }
+
     public DocumentId getId() { return docId; }
     public void setId(DocumentId id) { internalSetId(id, getDataType()); }
     private void internalSetId(DocumentId id, DocumentType docType) {
@@ -131,9 +144,14 @@ public class Document extends StructuredFieldValue {
     }
 
     public int getSerializedSize() throws SerializationException {
-        DocumentSerializer data = DocumentSerializerFactory.create6(new GrowableByteBuffer(64 * 1024, 2.0f));
-        data.write(this);
-        return data.getBuf().position();
+        GrowableByteBufferPool pool = GrowableByteBufferPool.shared();
+        DocumentSerializer data = DocumentSerializerFactory.create6(pool, 64 * 1024);
+        try {
+            data.write(this);
+            return data.getBuf().position();
+        } finally {
+            DocumentSerializerFactory.release(pool, data);
+        }
     }
 
     /**
@@ -143,25 +161,28 @@ public class Document extends StructuredFieldValue {
     public final int getApproxSize() { return 4096; }
 
     public void serialize(OutputStream out) throws SerializationException {
-        DocumentSerializer writer = DocumentSerializerFactory.create6(new GrowableByteBuffer(64 * 1024, 2.0f));
-        writer.write(this);
-        GrowableByteBuffer data = writer.getBuf();
-        byte[] array;
-        if (data.hasArray()) {
-            //just get the array
-            array = data.array();
-        } else {
-            //copy the bytebuffer into the array
-            array = new byte[data.position()];
-            int endPos = data.position();
-            data.position(0);
-            data.get(array);
-            data.position(endPos);
-        }
+        GrowableByteBufferPool pool = GrowableByteBufferPool.shared();
+        DocumentSerializer writer = DocumentSerializerFactory.create6(pool, 64 * 1024);
         try {
+            writer.write(this);
+            GrowableByteBuffer data = writer.getBuf();
+            byte[] array;
+            if (data.hasArray()) {
+                //just get the array
+                array = data.array();
+            } else {
+                //copy the bytebuffer into the array
+                array = new byte[data.position()];
+                int endPos = data.position();
+                data.position(0);
+                data.get(array);
+                data.position(endPos);
+            }
             out.write(array, 0, data.position());
         } catch (IOException ioe) {
             throw new SerializationException(ioe);
+        } finally {
+            DocumentSerializerFactory.release(pool, writer);
         }
     }
 
@@ -1,18 +1,27 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.document.select;
 
+import com.yahoo.document.Document;
 import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.document.select.parser.SelectInput;
 import com.yahoo.document.select.parser.SelectParser;
 import com.yahoo.document.select.parser.TokenMgrException;
+import com.yahoo.document.select.rule.CompiledExpression;
 import com.yahoo.document.select.rule.ExpressionNode;
+import com.yahoo.document.serialization.DocumentReader;
+
+import java.util.Set;
 
 /**
  * <p>A document selector is a filter which accepts or rejects documents
  * based on their type and content. A document selector has a textual
  * representation which is called the <i>Document Selection Language</i></p>
  *
+ * <p>The parsed expression is compiled to a form which is cheap to evaluate repeatedly,
+ * see {@link CompiledExpression}.</p>
+ *
  * <p>Document selectors are multithread safe.</p>
  *
  * @author bratseth
@@ -20,6 +29,10 @@ import com.yahoo.document.select.rule.ExpressionNode;
 public class DocumentSelector {
 
     private ExpressionNode expression;
+    private final CompiledExpression compiled;
+
+    /** The top level fields referenced by this, or null if it may reference any field */
+    private final Set<String> referencedFields;
 
     /**
      * Creates a document selector from a Document Selection Language string
@@ -40,6 +53,10 @@ public class DocumentSelector {
             throw (ParseException)t.initCause(e instanceof ParseException ?
                                               new ParseException(input.formatException(e.getMessage())) : e);
         }
+        compiled = CompiledExpression.compile(expression);
+        ReferencedFieldsVisitor fieldsVisitor = new ReferencedFieldsVisitor();
+        expression.accept(fieldsVisitor);
+        referencedFields = fieldsVisitor.fields().orElse(null);
     }
 
     /**
@@ -61,7 +78,20 @@ public class DocumentSelector {
      * @throws RuntimeException if the evaluation enters an illegal state
      */
     public Result accepts(Context context) {
-        return Result.toResult(expression.evaluate(context));
+        return compiled.evaluate(context);
+    }
+
+    /**
+     * Returns true if the serialized document which is read next by the given reader is accepted by this selector.
+     * Only the fields referenced by this selector are deserialized, which makes this cheaper than
+     * deserializing the full document when the selector references few fields.
+     *
+     * @param reader the reader of a serialized document
+     * @return true if the document is accepted
+     * @throws RuntimeException if the evaluation enters an illegal state
+     */
+    public Result accepts(DocumentReader reader) {
+        return accepts(new DocumentPut(new Document(reader, referencedFields)));
     }
 
     /**
@@ -0,0 +1,100 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select;
+
+import com.yahoo.document.select.rule.ArithmeticNode;
+import com.yahoo.document.select.rule.AttributeNode;
+import com.yahoo.document.select.rule.ComparisonNode;
+import com.yahoo.document.select.rule.DocumentNode;
+import com.yahoo.document.select.rule.EmbracedNode;
+import com.yahoo.document.select.rule.IdNode;
+import com.yahoo.document.select.rule.LiteralNode;
+import com.yahoo.document.select.rule.LogicNode;
+import com.yahoo.document.select.rule.NegationNode;
+import com.yahoo.document.select.rule.NowNode;
+import com.yahoo.document.select.rule.VariableNode;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Collects the names of the top level document fields referenced in an expression tree.
+ *
+ * @author agent
+ */
+class ReferencedFieldsVisitor implements Visitor {
+
+    private final Set<String> fields = new HashSet<>();
+    private boolean anyField = false;
+
+    /** Returns the names of the referenced fields, or empty if the expression may reference any field */
+    Optional<Set<String>> fields() {
+        return anyField ? Optional.empty() : Optional.of(Collections.unmodifiableSet(fields));
+    }
+
+    public void visit(ArithmeticNode node) {
+        for (ArithmeticNode.NodeItem item : node.getItems()) {
+            item.getNode().accept(this);
+        }
+    }
+
+    public void visit(AttributeNode node) {
+        node.getValue().accept(this);
+        if (node.getItems().isEmpty() || node.getItems().get(0).getType() == AttributeNode.Item.FUNCTION) return;
+
+        if (node.getValue() instanceof DocumentNode) {
+            fields.add(topLevelFieldName(node.getItems().get(0).getName()));
+        } else if ( ! (node.getValue() instanceof LiteralNode)) {
+            anyField = true;
+        }
+    }
+
+    public void visit(ComparisonNode node) {
+        node.getLHS().accept(this);
+        node.getRHS().accept(this);
+    }
+
+    public void visit(DocumentNode node) {
+    }
+
+    public void visit(EmbracedNode node) {
+        node.getNode().accept(this);
+    }
+
+    public void visit(IdNode node) {
+    }
+
+    public void visit(LiteralNode node) {
+    }
+
+    public void visit(LogicNode node) {
+        for (LogicNode.NodeItem item : node.getItems()) {
+            item.getNode().accept(this);
+        }
+    }
+
+    public void visit(NegationNode node) {
+        node.getNode().accept(this);
+    }
+
+    public void visit(NowNode node) {
+    }
+
+    public void visit(VariableNode node) {
+    }
+
+    /** Returns the name of the top level field of a field path */
+    private static String topLevelFieldName(String fieldPath) {
+        for (int i = 0; i < fieldPath.length(); i++) {
+            switch (fieldPath.charAt(i)) {
+                case '.':
+                case '{':
+                case '[':
+                    return fieldPath.substring(0, i);
+            }
+        }
+        return fieldPath;
+    }
+
+}
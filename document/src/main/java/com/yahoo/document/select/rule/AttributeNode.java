@@ -144,14 +144,24 @@ public class AttributeNode implements ExpressionNode {
         return false;
     }
 
-    private static boolean isSimpleImportedField(String path, DocumentType documentType) {
+    static boolean isSimpleImportedField(String path, DocumentType documentType) {
         if (looksLikeComplexFieldPath(path)) {
             return false;
         }
         return documentType.hasImportedField(path);
     }
 
-    private static Object evaluateFieldPath(String fieldPathStr, Object value) {
+    /** Returns the values of the given field path in the given document, or null if it has none */
+    static Object evaluateFieldPath(FieldPath fieldPath, Document doc) {
+        IteratorHandler handler = new IteratorHandler();
+        doc.iterateNested(fieldPath, 0, handler);
+        if (handler.values.isEmpty()) {
+            return null;
+        }
+        return handler.values;
+    }
+
+    static Object evaluateFieldPath(String fieldPathStr, Object value) {
         if (value instanceof DocumentPut) {
             final Document doc = ((DocumentPut) value).getDocument();
             if (isSimpleImportedField(fieldPathStr, doc.getDataType())) {
@@ -162,13 +172,7 @@ public class AttributeNode implements ExpressionNode {
                 // augment the FieldPath code with knowledge of imported fields.
                 return null;
             }
-            FieldPath fieldPath = doc.getDataType().buildFieldPath(fieldPathStr);
-            IteratorHandler handler = new IteratorHandler();
-            doc.iterateNested(fieldPath, 0, handler);
-            if (handler.values.isEmpty()) {
-                return null;
-            }
-            return handler.values;
+            return evaluateFieldPath(doc.getDataType().buildFieldPath(fieldPathStr), doc);
         } else if (value instanceof DocumentUpdate) {
             return Result.INVALID;
         } else if (value instanceof DocumentRemove) {
@@ -179,7 +183,7 @@ public class AttributeNode implements ExpressionNode {
         return Result.FALSE;
     }
 
-    private static Object evaluateFunction(String function, Object value) {
+    static Object evaluateFunction(String function, Object value) {
         if (value instanceof VariableValueList) {
             VariableValueList retVal = new VariableValueList();
 
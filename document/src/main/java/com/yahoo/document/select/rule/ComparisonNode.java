@@ -158,7 +158,7 @@ public class ComparisonNode implements ExpressionNode {
      *
      * Precondition: lhs AND/OR rhs is null.
      */
-    private ResultList evaluateWithAtLeastOneNullSide(Object lhs, Object rhs) {
+    ResultList evaluateWithAtLeastOneNullSide(Object lhs, Object rhs) {
         if (operator.equals("==") || operator.equals("=")) { // Glob (=) operator falls back to equality for non-strings
             return ResultList.fromBoolean(lhs == rhs);
         } else if (operator.equals("!=")) {
@@ -168,7 +168,7 @@ public class ComparisonNode implements ExpressionNode {
         }
     }
 
-    private ResultList evaluateListsTrue(AttributeNode.VariableValueList lhs, AttributeNode.VariableValueList rhs) {
+    ResultList evaluateListsTrue(AttributeNode.VariableValueList lhs, AttributeNode.VariableValueList rhs) {
         if (lhs.size() != rhs.size()) {
             return new ResultList(Result.FALSE);
         }
@@ -186,7 +186,7 @@ public class ComparisonNode implements ExpressionNode {
         return new ResultList(Result.TRUE);
     }
 
-    private ResultList evaluateListsFalse(AttributeNode.VariableValueList lhs, AttributeNode.VariableValueList rhs) {
+    ResultList evaluateListsFalse(AttributeNode.VariableValueList lhs, AttributeNode.VariableValueList rhs) {
         ResultList lst = evaluateListsTrue(lhs, rhs);
         if (lst.toResult() == Result.TRUE) {
             return new ResultList(Result.FALSE);
@@ -240,7 +240,7 @@ public class ComparisonNode implements ExpressionNode {
      * @param rhs Right hand side of operation.
      * @return The evaluation result.
      */
-    private Result evaluateBool(Object lhs, Object rhs) {
+    Result evaluateBool(Object lhs, Object rhs) {
         if (operator.equals("==")) {
             return evaluateEquals(lhs, rhs);
         } else if (operator.equals("!=")) {
@@ -331,7 +331,7 @@ public class ComparisonNode implements ExpressionNode {
      * @param glob The glob pattern.
      * @return The regex string.
      */
-    private String globToRegex(String glob) {
+    String globToRegex(String glob) {
         StringBuilder ret = new StringBuilder();
         ret.append("^");
         for (int i = 0; i < glob.length(); i++) {
@@ -0,0 +1,509 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select.rule;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.FieldPath;
+import com.yahoo.document.select.Context;
+import com.yahoo.document.select.Result;
+import com.yahoo.document.select.ResultList;
+import com.yahoo.document.select.Visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An expression tree compiled to a form which is cheaper to evaluate repeatedly than interpreting the tree
+ * through {@link ExpressionNode#evaluate}:
+ * <ul>
+ *     <li>Field paths are resolved once per document type instead of being parsed for each document.
+ *     <li>Regular expressions and globs with literal patterns are compiled once.
+ *     <li>Subexpressions which do not depend on the document are folded to constants.
+ *     <li>Boolean logic short-circuits and combines results without building intermediate {@link ResultList}s.
+ * </ul>
+ *
+ * The result of a node is represented as a bit mask of the distinct {@link Result} values its result list would
+ * contain, which is all that is needed to produce the same final result as the interpreter as long as no
+ * variable bindings are involved. Expressions which use variables are therefore evaluated by the interpreter.
+ *
+ * This is multithread safe.
+ *
+ * @author agent
+ */
+public final class CompiledExpression {
+
+    private static final int TRUE = 1, FALSE = 2, INVALID = 4;
+
+    /** The masks resulting from combining every pair of results from two masks */
+    private static final int[][] andTable = combinationTable(LogicNode.AND);
+    private static final int[][] orTable = combinationTable(LogicNode.OR);
+
+    private final ExpressionNode expression;
+
+    /** The compiled root, or null if this must be evaluated by the interpreter */
+    private final BooleanNode root;
+
+    private CompiledExpression(ExpressionNode expression, BooleanNode root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /** Returns the result of evaluating this in the given context, which is the same as the interpreted result */
+    public Result evaluate(Context context) {
+        if (root == null) return Result.toResult(expression.evaluate(context));
+        return toResult(root.evaluate(context));
+    }
+
+    /** Returns whether this is compiled, as opposed to falling back to interpreting the expression */
+    public boolean isCompiled() { return root != null; }
+
+    @Override
+    public String toString() { return expression.toString(); }
+
+    /** Compiles the given expression, or returns an instance which interprets it if it cannot be compiled */
+    public static CompiledExpression compile(ExpressionNode expression) {
+        if (usesVariables(expression)) return new CompiledExpression(expression, null);
+        try {
+            return new CompiledExpression(expression, compileBoolean(expression));
+        }
+        catch (RuntimeException e) { // Let the interpreter surface any problem with this at evaluation time
+            return new CompiledExpression(expression, null);
+        }
+    }
+
+    private static BooleanNode compileBoolean(ExpressionNode node) {
+        if (node instanceof EmbracedNode)
+            return compileBoolean(((EmbracedNode)node).getNode());
+        Constant constant = fold(node);
+        if (constant != null) {
+            int mask = toMask(constant.value);
+            return context -> mask;
+        }
+        if (node instanceof LogicNode)
+            return compileLogic((LogicNode)node);
+        if (node instanceof NegationNode) {
+            BooleanNode operand = compileBoolean(((NegationNode)node).getNode());
+            return context -> toMask(Result.invert(toResult(operand.evaluate(context))));
+        }
+        if (node instanceof ComparisonNode)
+            return new Comparison((ComparisonNode)node);
+        ValueNode value = compileValue(node);
+        return context -> toMask(value.evaluate(context));
+    }
+
+    /** Builds the same tree of combinations as the operator precedence stack of {@link LogicNode#evaluate} */
+    private static BooleanNode compileLogic(LogicNode node) {
+        Deque<LogicItem> stack = new ArrayDeque<>();
+        for (LogicNode.NodeItem item : node.getItems()) {
+            if (stack.size() > 1) {
+                while (stack.peek().operator >= item.getOperator())
+                    combine(stack);
+            }
+            stack.push(new LogicItem(item.getOperator(), compileBoolean(item.getNode())));
+        }
+        while (stack.size() > 1)
+            combine(stack);
+        return stack.pop().node;
+    }
+
+    private static void combine(Deque<LogicItem> stack) {
+        LogicItem rhs = stack.pop();
+        LogicItem lhs = stack.pop();
+        BooleanNode left = lhs.node, right = rhs.node;
+        switch (rhs.operator) {
+            case LogicNode.AND:
+                stack.push(new LogicItem(lhs.operator, context -> {
+                    int leftMask = left.evaluate(context);
+                    if (toResult(leftMask) == Result.FALSE) return FALSE;
+                    return andTable[leftMask][right.evaluate(context)];
+                }));
+                break;
+            case LogicNode.OR:
+                stack.push(new LogicItem(lhs.operator, context -> {
+                    int leftMask = left.evaluate(context);
+                    if (toResult(leftMask) == Result.TRUE) return TRUE;
+                    return orTable[leftMask][right.evaluate(context)];
+                }));
+                break;
+            default:
+                throw new IllegalStateException("Logical operator " + rhs.operator + " not supported.");
+        }
+    }
+
+    private static ValueNode compileValue(ExpressionNode node) {
+        if (node instanceof EmbracedNode)
+            return compileValue(((EmbracedNode)node).getNode());
+        Constant constant = fold(node);
+        if (constant != null)
+            return constant;
+        if (node instanceof AttributeNode)
+            return new Attribute((AttributeNode)node);
+        return node::evaluate;
+    }
+
+    /** Returns the value of the given node if it does not depend on the evaluation context, or null otherwise */
+    private static Constant fold(ExpressionNode node) {
+        if ( ! isConstant(node)) return null;
+        try {
+            return new Constant(node.evaluate(new Context(null)));
+        }
+        catch (RuntimeException e) { // Keep failing at evaluation time rather than compile time
+            return null;
+        }
+    }
+
+    private static boolean isConstant(ExpressionNode node) {
+        if (node instanceof LiteralNode) return true;
+        if (node instanceof EmbracedNode) return isConstant(((EmbracedNode)node).getNode());
+        if (node instanceof NegationNode) return isConstant(((NegationNode)node).getNode());
+        if (node instanceof ComparisonNode)
+            return isConstant(((ComparisonNode)node).getLHS()) && isConstant(((ComparisonNode)node).getRHS());
+        if (node instanceof LogicNode)
+            return ((LogicNode)node).getItems().stream().allMatch(item -> isConstant(item.getNode()));
+        if (node instanceof ArithmeticNode)
+            return ((ArithmeticNode)node).getItems().stream().allMatch(item -> isConstant(item.getNode()));
+        return false;
+    }
+
+    private static boolean usesVariables(ExpressionNode expression) {
+        VariableFinder finder = new VariableFinder();
+        expression.accept(finder);
+        return finder.found;
+    }
+
+    /** Returns the mask of the results the interpreter would produce for the given value in a logical expression */
+    private static int toMask(Object value) {
+        if (value instanceof ResultList) {
+            int mask = 0;
+            for (ResultList.ResultPair pair : ((ResultList)value).getResults())
+                mask |= toMask(pair.getResult());
+            return mask;
+        }
+        if (value instanceof AttributeNode.VariableValueList)
+            return ((AttributeNode.VariableValueList)value).isEmpty() ? 0 : TRUE;
+        return toMask(Result.toResult(value));
+    }
+
+    private static int toMask(Result result) {
+        switch (result) {
+            case TRUE: return TRUE;
+            case FALSE: return FALSE;
+            default: return INVALID;
+        }
+    }
+
+    /** Returns the same result as {@link ResultList#toResult} for a result list containing the given results */
+    private static Result toResult(int mask) {
+        if ((mask & TRUE) != 0) return Result.TRUE;
+        if ((mask & FALSE) != 0 || mask == 0) return Result.FALSE;
+        return Result.INVALID;
+    }
+
+    private static int[][] combinationTable(int operator) {
+        Result[] results = Result.values();
+        int[][] table = new int[8][8];
+        for (int left = 0; left < 8; left++) {
+            for (int right = 0; right < 8; right++) {
+                for (Result a : results) {
+                    if ((left & toMask(a)) == 0) continue;
+                    for (Result b : results) {
+                        if ((right & toMask(b)) == 0) continue;
+                        table[left][right] |= toMask(operator == LogicNode.AND ? and(a, b) : or(a, b));
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    private static Result and(Result a, Result b) {
+        if (a == Result.TRUE && b == Result.TRUE) return Result.TRUE;
+        if (a == Result.FALSE || b == Result.FALSE) return Result.FALSE;
+        return Result.INVALID;
+    }
+
+    private static Result or(Result a, Result b) {
+        if (a == Result.TRUE || b == Result.TRUE) return Result.TRUE;
+        if (a == Result.FALSE && b == Result.FALSE) return Result.FALSE;
+        return Result.INVALID;
+    }
+
+    /** A node producing the mask of the results of the corresponding expression node */
+    private interface BooleanNode {
+        int evaluate(Context context);
+    }
+
+    /** A node producing the same value as the corresponding expression node */
+    private interface ValueNode {
+        Object evaluate(Context context);
+    }
+
+    private static final class Constant implements ValueNode {
+
+        private final Object value;
+
+        Constant(Object value) { this.value = value; }
+
+        @Override
+        public Object evaluate(Context context) { return value; }
+
+    }
+
+    private static final class LogicItem {
+
+        final int operator;
+        final BooleanNode node;
+
+        LogicItem(int operator, BooleanNode node) {
+            this.operator = operator;
+            this.node = node;
+        }
+
+    }
+
+    /** A comparison with the same semantics as {@link ComparisonNode#evaluate} */
+    private static final class Comparison implements BooleanNode {
+
+        private final ComparisonNode node;
+        private final ValueNode lhs, rhs;
+        private final boolean equality, inequality;
+
+        /** The compiled pattern of a regex or glob match against a constant, or null */
+        private final Pattern pattern;
+
+        Comparison(ComparisonNode node) {
+            this.node = node;
+            this.lhs = compileValue(node.getLHS());
+            this.rhs = compileValue(node.getRHS());
+            this.equality = node.getOperator().equals("==");
+            this.inequality = node.getOperator().equals("!=");
+            this.pattern = compilePattern(node, rhs);
+        }
+
+        private static Pattern compilePattern(ComparisonNode node, ValueNode rhs) {
+            if ( ! (rhs instanceof Constant)) return null;
+            Object value = ((Constant)rhs).value;
+            if (value == null || value == Result.INVALID || value instanceof AttributeNode.VariableValueList) return null;
+            try {
+                if (node.getOperator().equals("=~"))
+                    return Pattern.compile("" + value);
+                if (node.getOperator().equals("="))
+                    return Pattern.compile(node.globToRegex("" + value));
+                return null;
+            }
+            catch (PatternSyntaxException e) { // Fail at evaluation time as the interpreter
+                return null;
+            }
+        }
+
+        @Override
+        public int evaluate(Context context) {
+            Object left = lhs.evaluate(context);
+            Object right = rhs.evaluate(context);
+            if (left == null || right == null)
+                return toMask(node.evaluateWithAtLeastOneNullSide(left, right));
+            if (left == Result.INVALID || right == Result.INVALID)
+                return INVALID;
+            if (left instanceof AttributeNode.VariableValueList && right instanceof AttributeNode.VariableValueList) {
+                AttributeNode.VariableValueList leftList = (AttributeNode.VariableValueList)left;
+                AttributeNode.VariableValueList rightList = (AttributeNode.VariableValueList)right;
+                if (equality)
+                    return toMask(node.evaluateListsTrue(leftList, rightList));
+                if (inequality)
+                    return toMask(node.evaluateListsFalse(leftList, rightList));
+                return INVALID;
+            }
+            if (left instanceof AttributeNode.VariableValueList) {
+                int mask = 0;
+                for (ResultList.VariableValue value : (AttributeNode.VariableValueList)left)
+                    mask |= toMask(compare(value.getValue(), right));
+                return mask;
+            }
+            if (right instanceof AttributeNode.VariableValueList) {
+                int mask = 0;
+                for (ResultList.VariableValue value : (AttributeNode.VariableValueList)right)
+                    mask |= toMask(compare(left, value.getValue()));
+                return mask;
+            }
+            return toMask(compare(left, right));
+        }
+
+        private Result compare(Object left, Object right) {
+            if (pattern != null)
+                return Result.toResult(pattern.matcher("" + left).find());
+            return node.evaluateBool(left, right);
+        }
+
+    }
+
+    /** An attribute lookup with the same semantics as {@link AttributeNode#evaluate} */
+    private static final class Attribute implements ValueNode {
+
+        private final ValueNode value;
+        private final List<Step> steps = new ArrayList<>();
+
+        Attribute(AttributeNode node) {
+            value = compileValue(node.getValue());
+            StringBuilder position = new StringBuilder(node.getValue().toString());
+            StringBuilder fieldPath = new StringBuilder();
+            for (AttributeNode.Item item : node.getItems()) {
+                steps.add(new NullCheck("Can not invoke '" + item + "' on '" + position + "' because that term " +
+                                        "evaluated to null."));
+                if (item.getType() != AttributeNode.Item.FUNCTION) {
+                    if (fieldPath.length() > 0)
+                        fieldPath.append(".");
+                    fieldPath.append(item.getName());
+                } else {
+                    if (fieldPath.length() > 0) {
+                        steps.add(new FieldPathLookup(fieldPath.toString()));
+                        fieldPath = new StringBuilder();
+                    }
+                    steps.add(new Function(item.getName()));
+                }
+                position.append(".").append(item);
+            }
+            if (fieldPath.length() > 0)
+                steps.add(new FieldPathLookup(fieldPath.toString()));
+        }
+
+        @Override
+        public Object evaluate(Context context) {
+            Object result = value.evaluate(context);
+            for (Step step : steps)
+                result = step.apply(result);
+            return result;
+        }
+
+    }
+
+    private interface Step {
+        Object apply(Object value);
+    }
+
+    private static final class NullCheck implements Step {
+
+        private final String message;
+
+        NullCheck(String message) { this.message = message; }
+
+        @Override
+        public Object apply(Object value) {
+            if (value == null) throw new IllegalStateException(message);
+            return value;
+        }
+
+    }
+
+    private static final class Function implements Step {
+
+        private final String name;
+
+        Function(String name) { this.name = name; }
+
+        @Override
+        public Object apply(Object value) { return AttributeNode.evaluateFunction(name, value); }
+
+    }
+
+    /** Looks up a field path in documents, resolving the path once for each document type encountered */
+    private static final class FieldPathLookup implements Step {
+
+        private final String path;
+        private volatile ResolvedPath resolved = null;
+
+        FieldPathLookup(String path) { this.path = path; }
+
+        @Override
+        public Object apply(Object value) {
+            if ( ! (value instanceof DocumentPut)) return AttributeNode.evaluateFieldPath(path, value);
+
+            Document document = ((DocumentPut)value).getDocument();
+            ResolvedPath resolved = this.resolved;
+            if (resolved == null || resolved.type != document.getDataType()) {
+                resolved = new ResolvedPath(document.getDataType(), path);
+                this.resolved = resolved;
+            }
+            if (resolved.fieldPath == null) return null; // an imported field, see AttributeNode
+            return AttributeNode.evaluateFieldPath(resolved.fieldPath, document);
+        }
+
+    }
+
+    private static final class ResolvedPath {
+
+        final DocumentType type;
+
+        /** The resolved path, or null if this is a path to an imported field */
+        final FieldPath fieldPath;
+
+        ResolvedPath(DocumentType type, String path) {
+            this.type = type;
+            this.fieldPath = AttributeNode.isSimpleImportedField(path, type) ? null : type.buildFieldPath(path);
+        }
+
+    }
+
+    private static final class VariableFinder implements Visitor {
+
+        boolean found = false;
+
+        @Override
+        public void visit(ArithmeticNode node) {
+            for (ArithmeticNode.NodeItem item : node.getItems())
+                item.getNode().accept(this);
+        }
+
+        @Override
+        public void visit(AttributeNode node) {
+            for (AttributeNode.Item item : node.getItems())
+                if (item.getName().contains("$")) found = true;
+            node.getValue().accept(this);
+        }
+
+        @Override
+        public void visit(ComparisonNode node) {
+            node.getLHS().accept(this);
+            node.getRHS().accept(this);
+        }
+
+        @Override
+        public void visit(DocumentNode node) { }
+
+        @Override
+        public void visit(EmbracedNode node) {
+            node.getNode().accept(this);
+        }
+
+        @Override
+        public void visit(IdNode node) { }
+
+        @Override
+        public void visit(LiteralNode node) { }
+
+        @Override
+        public void visit(LogicNode node) {
+            for (LogicNode.NodeItem item : node.getItems())
+                item.getNode().accept(this);
+        }
+
+        @Override
+        public void visit(NegationNode node) {
+            node.getNode().accept(this);
+        }
+
+        @Override
+        public void visit(NowNode node) { }
+
+        @Override
+        public void visit(VariableNode node) {
+            found = true;
+        }
+
+    }
+
+}
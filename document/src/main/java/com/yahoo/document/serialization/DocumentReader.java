@@ -6,6 +6,8 @@ import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.DocumentTypeManager;
 
+import java.util.Set;
+
 /**
  * This interface is used to implement custom deserialization of document updates.
  *
@@ -21,6 +23,17 @@ public interface DocumentReader {
 	 */
 	void read(Document document);
 
+    /**
+     * Reads a document, but only deserializes the values of the given top level fields.
+     * Readers which are not able to skip fields read all of them.
+     *
+     * @param document the document to be read
+     * @param fieldNames the names of the top level fields to read, or null to read all fields
+     */
+    default void read(Document document, Set<String> fieldNames) {
+        read(document);
+    }
+
     DocumentId readDocumentId();
     DocumentType readDocumentType();
 
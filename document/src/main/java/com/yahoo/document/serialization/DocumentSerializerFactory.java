@@ -2,6 +2,7 @@
 package com.yahoo.document.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.io.GrowableByteBufferPool;
 
 /**
  * Factory for creating document serializers tied to a document format.
@@ -34,4 +35,28 @@ public class DocumentSerializerFactory {
         return new VespaDocumentSerializer6(new GrowableByteBuffer());
     }
 
+    /**
+     * Creates a serializer for the current head document format, writing to a buffer acquired from the given pool.
+     * The caller must return the buffer by calling {@link #release} once the serialized data has been consumed.
+     */
+    public static DocumentSerializer createHead(GrowableByteBufferPool pool, int initialCapacity) {
+        return new VespaDocumentSerializerHead(pool.acquire(initialCapacity));
+    }
+
+    /**
+     * Creates a serializer for the 6.x document format, writing to a buffer acquired from the given pool.
+     * The caller must return the buffer by calling {@link #release} once the serialized data has been consumed.
+     */
+    public static DocumentSerializer create6(GrowableByteBufferPool pool, int initialCapacity) {
+        return new VespaDocumentSerializer6(pool.acquire(initialCapacity));
+    }
+
+    /**
+     * Returns the buffer of a serializer created from a pool by this to the pool.
+     * Neither the serializer nor its buffer can be used after this is called.
+     */
+    public static void release(GrowableByteBufferPool pool, DocumentSerializer serializer) {
+        pool.release(serializer.getBuf());
+    }
+
 }
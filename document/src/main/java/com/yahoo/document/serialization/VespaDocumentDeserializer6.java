@@ -71,6 +71,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.yahoo.text.Utf8.calculateStringPositions;
 
@@ -88,6 +89,9 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
     private List<Annotation> annotations;
     private int[] stringPositions;
 
+    /** The top level fields to deserialize in the next document read, or null to read all */
+    private Set<String> fieldNames = null;
+
     VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf) {
         super(buf);
         this.manager = manager;
@@ -100,8 +104,18 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
          read(null, document);
     }
 
+    @Override
+    public void read(Document document, Set<String> fieldNames) {
+        this.fieldNames = fieldNames;
+        read(null, document);
+    }
+
     @SuppressWarnings("deprecation")
     public void read(FieldBase field, Document doc) {
+        // Only applies to this document, not to any documents nested in it
+        Set<String> fieldNames = this.fieldNames;
+        this.fieldNames = null;
+
         // Verify that we have correct version
         version = getShort(null);
         if (version < 8 || version > Document.SERIALIZED_VERSION) {
@@ -120,10 +134,10 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
         Struct h = doc.getHeader();
         h.clear();
         if ((content & 0x2) != 0) {
-            readHeaderBody(h);
+            readHeaderBody(h, fieldNames);
         }
         if ((content & 0x4) != 0) {
-            readHeaderBody(h);
+            readHeaderBody(h, fieldNames);
         }
 
         if (dataLength != (position() - dataPos)) {
@@ -324,7 +338,7 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
         buf = bigBuf;
     }
 
-    private void readHeaderBody(Struct primary) {
+    private void readHeaderBody(Struct primary, Set<String> fieldNames) {
         primary.setVersion(version);
 
         if (version < 8) {
@@ -373,7 +387,7 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
             int posBefore = position();
             Integer f_id = fieldIdsAndLengths.get(i).first;
             Field structField = priType.getField(f_id);
-            if (structField != null) {
+            if (structField != null && (fieldNames == null || fieldNames.contains(structField.getName()))) {
               FieldValue value = structField.getDataType().createFieldValue();
               value.deserialize(structField, this);
               primary.setFieldValue(structField, value);
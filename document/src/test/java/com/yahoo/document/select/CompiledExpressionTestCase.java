@@ -0,0 +1,104 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.select.parser.ParseException;
+import com.yahoo.document.select.parser.SelectInput;
+import com.yahoo.document.select.parser.SelectParser;
+import com.yahoo.document.select.rule.CompiledExpression;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that compiled selections produce the same results as interpreted ones.
+ * Most of the coverage is through {@link DocumentSelectorTestCase}, which compares the two for all its cases.
+ *
+ * @author agent
+ */
+public class CompiledExpressionTestCase {
+
+    private final DocumentType type = createType();
+
+    @Test
+    public void expressions_with_variables_are_interpreted() throws ParseException {
+        assertTrue(compile("test.ints > 10 and test.name =~ \"^a\"").isCompiled());
+        assertFalse(compile("test.ints[$x] > 10").isCompiled());
+        assertFalse(compile("$x == 10").isCompiled());
+    }
+
+    @Test
+    public void multi_valued_fields_combine_like_result_lists() throws ParseException {
+        DocumentPut put = createPut(new int[] { 5, 15 }, "abc");
+        assertResult(Result.TRUE, "test.ints > 10 and test.ints < 10", put);
+        assertResult(Result.FALSE, "test.ints > 10 and test.ints < 3", put);
+        assertResult(Result.TRUE, "test.ints > 10 or test.ints < 3", put);
+        assertResult(Result.FALSE, "test.ints > 10 and test.ints < \"x\"", put);
+        assertResult(Result.INVALID, "test.ints < \"x\" or test.ints < \"y\"", put);
+        assertResult(Result.FALSE, "not test.ints > 10", put);
+        assertResult(Result.TRUE, "test.ints", put);
+        assertResult(Result.FALSE, "test.ints", createPut(new int[0], "abc"));
+        assertResult(Result.FALSE, "test.ints > 10 and test.name", createPut(new int[] { 20 }, null));
+    }
+
+    @Test
+    public void constant_and_pattern_comparisons() throws ParseException {
+        DocumentPut put = createPut(new int[] { 1 }, "abc");
+        assertResult(Result.TRUE, "test.name = \"a*\" and 1 + 2 == 3", put);
+        assertResult(Result.FALSE, "test.name =~ \"^b\" or (\"a\" == \"b\")", put);
+        assertResult(Result.TRUE, "test.name.uppercase() = \"A?C\"", put);
+        assertResult(Result.INVALID, "test.name =~ test.name", put);
+    }
+
+    @Test
+    public void field_paths_are_resolved_per_document_type() throws ParseException {
+        DocumentType other = new DocumentType("test");
+        other.addField("name", DataType.INT);
+        CompiledExpression expression = compile("test.name == 3");
+        Document document = new Document(other, new DocumentId("id:ns:test::other"));
+        document.setFieldValue("name", new IntegerFieldValue(3));
+        assertEquals(Result.FALSE, expression.evaluate(new Context(createPut(new int[0], "x"))));
+        assertEquals(Result.TRUE, expression.evaluate(new Context(new DocumentPut(document))));
+        assertEquals(Result.FALSE, expression.evaluate(new Context(createPut(new int[0], "x"))));
+    }
+
+    private void assertResult(Result expected, String selection, DocumentPut put) throws ParseException {
+        CompiledExpression expression = compile(selection);
+        assertTrue(expression.isCompiled());
+        assertEquals(selection, expected, expression.evaluate(new Context(put)));
+        assertEquals(selection, expected, new DocumentSelector(selection).getMatchingResultList(put).toResult());
+    }
+
+    private static CompiledExpression compile(String selection) throws ParseException {
+        return CompiledExpression.compile(new SelectParser(new SelectInput(selection)).expression());
+    }
+
+    private DocumentPut createPut(int[] ints, String name) {
+        Document document = new Document(type, new DocumentId("id:ns:test::1"));
+        Array<IntegerFieldValue> array = new Array<>(type.getField("ints").getDataType());
+        for (int value : ints)
+            array.add(new IntegerFieldValue(value));
+        document.setFieldValue("ints", array);
+        if (name != null)
+            document.setFieldValue("name", new StringFieldValue(name));
+        return new DocumentPut(document);
+    }
+
+    private static DocumentType createType() {
+        DocumentType type = new DocumentType("test");
+        type.addField("ints", new ArrayDataType(DataType.INT));
+        type.addField("name", DataType.STRING);
+        return type;
+    }
+
+}
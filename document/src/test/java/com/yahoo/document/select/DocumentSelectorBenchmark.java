@@ -0,0 +1,97 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.select.parser.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the speed of compiled and interpreted evaluation of some typical document selections.
+ *
+ * @author agent
+ */
+public class DocumentSelectorBenchmark {
+
+    private static final String[] selections = {
+            "music",
+            "music.year > 1990 and music.year < 2000",
+            "music and music.genre == \"rock\" and not (music.artist = \"The *\")",
+            "music.title =~ \"^[a-m]\" or music.tags == \"live\"",
+            "music.year > 1990 and (music.genre == \"jazz\" or music.genre == \"blues\") and music.timestamp > 1000 + 100"
+    };
+
+    public void run() throws ParseException {
+        List<DocumentPut> documents = createDocuments(1000);
+        for (String selection : selections) {
+            DocumentSelector selector = new DocumentSelector(selection);
+            out("Selection: " + selection);
+            benchmark(selector, documents, false, 200); // warmup
+            benchmark(selector, documents, true, 200);
+            long interpreted = benchmark(selector, documents, false, 1000);
+            long compiled = benchmark(selector, documents, true, 1000);
+            out(String.format("  interpreted: %6d ms, compiled: %6d ms (%.1fx)",
+                              interpreted, compiled, (double)interpreted / Math.max(compiled, 1)));
+        }
+    }
+
+    private long benchmark(DocumentSelector selector, List<DocumentPut> documents, boolean compiled, int iterations) {
+        long startTime = System.currentTimeMillis();
+        int matches = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (DocumentPut document : documents) {
+                Result result = compiled ? selector.accepts(document)
+                                         : selector.getMatchingResultList(document).toResult();
+                if (result == Result.TRUE) matches++;
+            }
+        }
+        if (matches < 0) out("Ignore this: " + matches); // Make sure we are not fooled by optimization
+        return System.currentTimeMillis() - startTime;
+    }
+
+    private List<DocumentPut> createDocuments(int count) {
+        DocumentType type = new DocumentType("music");
+        type.addField("title", DataType.STRING);
+        type.addField("artist", DataType.STRING);
+        type.addField("genre", DataType.STRING);
+        type.addField("year", DataType.INT);
+        type.addField("timestamp", DataType.LONG);
+        type.addField("tags", new ArrayDataType(DataType.STRING));
+        String[] genres = { "rock", "pop", "jazz", "blues", "metal" };
+
+        List<DocumentPut> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Document document = new Document(type, new DocumentId("id:music:music::" + i));
+            document.setFieldValue("title", new StringFieldValue((char)('a' + i % 26) + "title" + i));
+            document.setFieldValue("artist", new StringFieldValue((i % 3 == 0 ? "The " : "") + "artist" + i % 100));
+            document.setFieldValue("genre", new StringFieldValue(genres[i % genres.length]));
+            document.setFieldValue("year", new IntegerFieldValue(1950 + i % 70));
+            document.setFieldValue("timestamp", new LongFieldValue(i * 10L));
+            Array<StringFieldValue> tags = new Array<>(type.getField("tags").getDataType());
+            tags.add(new StringFieldValue(i % 7 == 0 ? "live" : "studio"));
+            tags.add(new StringFieldValue("tag" + i % 10));
+            document.setFieldValue("tags", tags);
+            documents.add(new DocumentPut(document));
+        }
+        return documents;
+    }
+
+    private static void out(String string) {
+        System.out.println(string);
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new DocumentSelectorBenchmark().run();
+    }
+
+}
@@ -26,6 +26,9 @@ import com.yahoo.document.datatypes.WeightedSet;
 import com.yahoo.document.select.convert.SelectionExpressionConverter;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.document.select.parser.TokenMgrException;
+import com.yahoo.document.serialization.DocumentDeserializerFactory;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.yolean.Exceptions;
 import org.junit.Before;
 import org.junit.Rule;
@@ -449,6 +452,24 @@ public class DocumentSelectorTestCase {
         return documents;
     }
 
+    @Test
+    public void testSerializedDocuments() throws ParseException {
+        List<String> selections = List.of("test", "test.hint > 14", "test.hint > 14 and test.hstring == \"bar\"",
+                                          "test.structarray.key == 15", "test.mymap{3} == \"a\"",
+                                          "test.content.lowercase() = \"b*\"", "id.namespace == \"myspace\"",
+                                          "test.my_imported_field == null", "test.hstring or test.hint");
+        for (DocumentPut put : createDocs()) {
+            GrowableByteBuffer buffer = new GrowableByteBuffer();
+            DocumentSerializerFactory.createHead(buffer).write(put.getDocument());
+            for (String selection : selections) {
+                buffer.flip();
+                DocumentSelector selector = new DocumentSelector(selection);
+                assertEquals(selection + " on " + put.getId(), selector.accepts(put),
+                             selector.accepts(DocumentDeserializerFactory.createHead(manager, buffer)));
+            }
+        }
+    }
+
     @Test
     public void testOperators() throws ParseException {
         List<DocumentPut> documents = createDocs();
@@ -900,7 +921,11 @@ public class DocumentSelectorTestCase {
     }
 
     private static Result evaluate(String expressionString, DocumentOperation op) throws ParseException {
-        return new DocumentSelector(expressionString).accepts(op);
+        DocumentSelector selector = new DocumentSelector(expressionString);
+        Result result = selector.accepts(op);
+        assertEquals("Compiled and interpreted result of '" + expressionString + "'",
+                     selector.getMatchingResultList(op).toResult(), result);
+        return result;
     }
 
     private static void assertError(String expressionString, DocumentOperation op, String expectedError) {
@@ -20,7 +20,10 @@ import com.yahoo.io.GrowableByteBuffer;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -57,6 +60,30 @@ public class VespaDocumentSerializerTestCase {
         Mockito.verify(predicate, Mockito.times(1)).serialize(Mockito.same(field), Mockito.any(FieldWriter.class));
     }
 
+    @Test
+    public void only_requested_fields_are_deserialized() {
+        DocumentType docType = new DocumentType("my_type");
+        docType.addField("my_str", DataType.STRING);
+        docType.addField("my_int", DataType.INT);
+        DocumentTypeManager manager = new DocumentTypeManager();
+        manager.registerDocumentType(docType);
+        Document doc = new Document(docType, "id:ns:my_type::");
+        doc.setFieldValue("my_str", new StringFieldValue("foo"));
+        doc.setFieldValue("my_int", new IntegerFieldValue(69));
+
+        GrowableByteBuffer buf = new GrowableByteBuffer();
+        doc.serialize(buf);
+        buf.putInt(42);
+        buf.flip();
+        DocumentDeserializer deserializer = DocumentDeserializerFactory.createHead(manager, buf);
+        Document partial = new Document(deserializer, Set.of("my_int"));
+        assertEquals(doc.getId(), partial.getId());
+        assertEquals(docType, partial.getDataType());
+        assertEquals(new IntegerFieldValue(69), partial.getFieldValue("my_int"));
+        assertNull(partial.getFieldValue("my_str"));
+        assertEquals("Skipped fields are consumed", 42, deserializer.getInt(null));
+    }
+
     static class CompressionFixture {
 
         static final String COMPRESSABLE_STRING = "zippy zip mc zippington the 3rd zippy zip";
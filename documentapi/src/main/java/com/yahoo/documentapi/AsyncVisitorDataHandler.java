@@ -0,0 +1,118 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi;
+
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.Reply;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A visitor data handler which hands each received message to another data handler in a task
+ * run by an executor, so that messages are decoded and processed by a pool of worker threads
+ * rather than by the message bus network thread.
+ * <p>
+ * At most <code>maxPendingMessages</code> messages are handed to the executor and not yet processed at any time.
+ * When this limit is reached, the message bus thread blocks until a worker finishes a message,
+ * which bounds the memory used by received messages and slows down the visitors on the content nodes
+ * as they wait for acks. Messages are processed in no particular order.
+ * <p>
+ * If processing a message fails, the message is acked with a fatal error, which fails the visitor
+ * which sent it. The executor is not owned by this and is never shut down by it.
+ *
+ * @author agent
+ */
+public class AsyncVisitorDataHandler extends VisitorDataHandler {
+
+    private static final Logger log = Logger.getLogger(AsyncVisitorDataHandler.class.getName());
+
+    private final VisitorDataHandler delegate;
+    private final Executor executor;
+    private final int maxPendingMessages;
+    private final Semaphore pending;
+
+    /**
+     * Creates an asynchronous data handler
+     *
+     * @param delegate the handler to invoke for each message, which must be thread safe
+     * @param executor the executor processing messages
+     * @param maxPendingMessages the max number of messages not yet processed at any time
+     */
+    public AsyncVisitorDataHandler(VisitorDataHandler delegate, Executor executor, int maxPendingMessages) {
+        if (maxPendingMessages < 1)
+            throw new IllegalArgumentException("Must allow at least one pending message, got " + maxPendingMessages);
+        this.delegate = delegate;
+        this.executor = executor;
+        this.maxPendingMessages = maxPendingMessages;
+        this.pending = new Semaphore(maxPendingMessages);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        delegate.reset();
+    }
+
+    @Override
+    public void setSession(VisitorControlSession session) {
+        super.setSession(session);
+        delegate.setSession(session);
+    }
+
+    @Override
+    public VisitorResponse getNext() {
+        return delegate.getNext();
+    }
+
+    @Override
+    public VisitorResponse getNext(int timeoutMilliseconds) throws InterruptedException {
+        return delegate.getNext(timeoutMilliseconds);
+    }
+
+    @Override
+    public void onMessage(Message m, AckToken token) {
+        pending.acquireUninterruptibly();
+        try {
+            executor.execute(() -> process(m, token));
+        }
+        catch (RejectedExecutionException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    private void process(Message m, AckToken token) {
+        try {
+            delegate.onMessage(m, token);
+        }
+        catch (Exception e) {
+            log.log(Level.SEVERE, "Failed processing visitor data message " + m, e);
+            if (token.ackObject instanceof Reply)
+                ((Reply)token.ackObject).addError(new Error(ErrorCode.APP_FATAL_ERROR,
+                                                            "Failed processing visitor data: " + e.getMessage()));
+            ack(token);
+        }
+        finally {
+            pending.release();
+        }
+    }
+
+    /** Waits for all messages received so far to be processed, and then notifies the wrapped handler */
+    @Override
+    public void onDone() {
+        pending.acquireUninterruptibly(maxPendingMessages);
+        pending.release(maxPendingMessages);
+        delegate.onDone();
+    }
+
+    /** Returns the number of messages received but not yet processed */
+    public int pendingMessages() {
+        return maxPendingMessages - pending.availablePermits();
+    }
+
+}
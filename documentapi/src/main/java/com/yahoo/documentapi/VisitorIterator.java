@@ -79,14 +79,40 @@ public class VisitorIterator {
      * through a given value of distribution bits
      */
     protected static class DistributionRangeBucketSource implements BucketSource {
+
+        /** The distribution bit count of the buckets which are assigned to slices, when there are as many bits */
+        static final int SLICE_DISTRIBUTION_BITS = 8;
+
         private boolean flushActive = false;
         private int distributionBitCount;
+        private final int slices;
+        private final int sliceId;
         // Wouldn't need this if this were a non-static class, but do it for
         // the sake of keeping things identical in Java and C++
         private ProgressToken progressToken;
 
         public DistributionRangeBucketSource(int distributionBitCount,
                                              ProgressToken progress) {
+            this(distributionBitCount, progress, 1, 0);
+        }
+
+        /**
+         * Creates a bucket source which only hands out the buckets of the given slice of the bucket space.
+         * A bucket belongs to slice <i>i</i> of <i>n</i> if the index, in the bucket space of
+         * {@link #SLICE_DISTRIBUTION_BITS} bits, of the bucket containing it is <i>i</i> modulo <i>n</i>,
+         * or, with fewer distribution bits, if its own index is. Buckets outside the slice are counted as finished.
+         * As the buckets of a slice at one distribution bit count are split into buckets of the same slice
+         * at a higher count, the slices still cover the bucket space exactly once when the distribution bit
+         * count changes, as long as it is at least {@link #SLICE_DISTRIBUTION_BITS}.
+         */
+        public DistributionRangeBucketSource(int distributionBitCount,
+                                             ProgressToken progress,
+                                             int slices,
+                                             int sliceId) {
+            if (slices < 1 || sliceId < 0 || sliceId >= slices)
+                throw new IllegalArgumentException("Slice id must be in [0, " + slices + "), was " + sliceId);
+            this.slices = slices;
+            this.sliceId = sliceId;
             progressToken = progress;
 
             // New progress token (could also be empty, in which this is a
@@ -148,6 +174,25 @@ public class VisitorIterator {
             }
             // Should be all fixed up and good to go
             progressToken.setInconsistentState(false);
+            skipToSlice();
+        }
+
+        /**
+         * Moves the bucket cursor forward to the next bucket belonging to this source's slice, if it is
+         * not already at one, counting the buckets skipped past as finished. With a single distribution
+         * bit we are merely waiting for the real distribution bit count, so nothing is skipped then.
+         */
+        private void skipToSlice() {
+            if (slices == 1 || distributionBitCount == 1) return;
+            long cursor = progressToken.getBucketCursor();
+            // Buckets are ordered such that those within the same bucket of fewer bits are consecutive
+            int sliceShift = Math.max(0, distributionBitCount - SLICE_DISTRIBUTION_BITS);
+            long sliceBucket = cursor >>> sliceShift;
+            long next = Math.min((sliceBucket + Math.floorMod(sliceId - sliceBucket, (long)slices)) << sliceShift,
+                                 getTotalBucketCount());
+            if (next <= cursor) return;
+            progressToken.setBucketCursor(next);
+            progressToken.setFinishedBucketCount(progressToken.getFinishedBucketCount() + (next - cursor));
         }
 
         protected boolean isLosslessResetPossible() {
@@ -315,6 +360,7 @@ public class VisitorIterator {
             long key = ProgressToken.makeNthBucketKey(currentPosition, distributionBitCount);
             ++currentPosition;
             progressToken.setBucketCursor(currentPosition);
+            skipToSlice();
             return new BucketProgress(
                     new BucketId(ProgressToken.keyToBucketId(key)),
                     new BucketId());
@@ -374,6 +420,7 @@ public class VisitorIterator {
 
                 correctTruncatedBucketCursor();
                 progressToken.setInconsistentState(false);
+                skipToSlice();
             }
         }
 
@@ -754,6 +801,28 @@ public class VisitorIterator {
             BucketIdFactory idFactory,
             int distributionBitCount,
             ProgressToken progress) throws ParseException {
+        return createFromDocumentSelection(documentSelection, idFactory, distributionBitCount, progress, 1, 0);
+    }
+
+    /**
+     * Create a new <code>VisitorIterator</code> instance based on the given document
+     * selection string, which only iterates over a single slice of the buckets
+     * to visit. Running one iterator for each of the <code>slices</code> slice ids,
+     * each with its own progress token, covers all the buckets exactly once.
+     * This holds also when the distribution bit count changes while iterating, as long as it is at least 8.
+     * Slicing has no effect for selections which yield an explicit bucket set.
+     *
+     * @param slices the number of slices to divide the bucket space into
+     * @param sliceId the slice this iterator should cover, in the range [0, <code>slices</code>)
+     * @see #createFromDocumentSelection(String, BucketIdFactory, int, ProgressToken)
+     */
+    public static VisitorIterator createFromDocumentSelection(
+            String documentSelection,
+            BucketIdFactory idFactory,
+            int distributionBitCount,
+            ProgressToken progress,
+            int slices,
+            int sliceId) throws ParseException {
         BucketSelector bucketSel = new BucketSelector(idFactory);
         Set<BucketId> rawBuckets = bucketSel.getBucketList(documentSelection);
         BucketSource src;
@@ -763,7 +832,7 @@ public class VisitorIterator {
         // bit-based range source
         if (rawBuckets == null) {
             // Range source
-            src = new DistributionRangeBucketSource(distributionBitCount, progress);
+            src = new DistributionRangeBucketSource(distributionBitCount, progress, slices, sliceId);
         } else {
             // Explicit source
             src = new ExplicitBucketSource(rawBuckets, distributionBitCount, progress);
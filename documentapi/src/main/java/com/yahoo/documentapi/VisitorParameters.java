@@ -50,6 +50,8 @@ public class VisitorParameters extends Parameters {
     private int traceLevel = 0;
     private ThrottlePolicy throttlePolicy = null;
     private boolean skipBucketsOnFatalErrors = false;
+    private int slices = 1;
+    private int sliceId = 0;
 
     // Advanced parameter, only for internal use.
     Set<BucketId> bucketsToVisit = null;
@@ -101,6 +103,7 @@ public class VisitorParameters extends Parameters {
                 params.getDynamicMaxBucketsIncreaseFactor());
         setTraceLevel(params.getTraceLevel());
         skipBucketsOnFatalErrors(params.skipBucketsOnFatalErrors());
+        slice(params.getSlices(), params.getSliceId());
     }
 
     // Get functions
@@ -331,6 +334,30 @@ public class VisitorParameters extends Parameters {
 
     public void skipBucketsOnFatalErrors(boolean skipBucketsOnFatalErrors) { this.skipBucketsOnFatalErrors = skipBucketsOnFatalErrors; }
 
+    /**
+     * Sets the slice of the bucket space to visit. Visiting with the same parameters once for each slice id,
+     * e.g. in parallel, visits all the documents exactly once, also if the distribution bit count of the cluster
+     * changes while visiting. Each slice keeps its own progress, so resuming a sliced visit requires the progress
+     * token of each slice, used with the same slicing.
+     *
+     * @param slices the number of slices to divide the bucket space into, at least 1
+     * @param sliceId the slice to visit, in the range [0, slices)
+     */
+    public void slice(int slices, int sliceId) {
+        if (slices < 1)
+            throw new IllegalArgumentException("Number of slices must be positive, was " + slices);
+        if (sliceId < 0 || sliceId >= slices)
+            throw new IllegalArgumentException("Slice id must be in [0, " + slices + "), was " + sliceId);
+        this.slices = slices;
+        this.sliceId = sliceId;
+    }
+
+    /** Returns the number of slices the bucket space is divided into when visiting, 1 by default */
+    public int getSlices() { return slices; }
+
+    /** Returns the slice of the bucket space to visit, 0 by default */
+    public int getSliceId() { return sliceId; }
+
     /**
      * Set whether or not max buckets per visitor value should be dynamically
      * increased when using orderdoc and visitors do not return at least half
@@ -379,6 +406,9 @@ public class VisitorParameters extends Parameters {
         sb.append("  Max total hits:     ").append(maxTotalHits).append('\n');
         sb.append("  Max buckets:        ").append(maxBucketsPerVisitor).append('\n');
         sb.append("  Priority:           ").append(getPriority().toString()).append('\n');
+        if (slices > 1) {
+            sb.append("  Slice:              ").append(sliceId).append(" of ").append(slices).append('\n');
+        }
         if (dynamicallyIncreaseMaxBucketsPerVisitor) {
             sb.append("  Dynamically increasing max buckets per visitor\n");
             sb.append("  Increase factor:    ")
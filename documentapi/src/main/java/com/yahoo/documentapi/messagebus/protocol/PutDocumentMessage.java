@@ -3,6 +3,8 @@ package com.yahoo.documentapi.messagebus.protocol;
 
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.TestAndSetCondition;
+import com.yahoo.document.select.DocumentSelector;
+import com.yahoo.document.select.Result;
 import com.yahoo.document.serialization.DocumentDeserializer;
 
 import java.nio.ByteBuffer;
@@ -66,6 +68,21 @@ public class PutDocumentMessage extends TestAndSetMessage {
         return put;
     }
 
+    /**
+     * Returns the result of the given selector on the document of this. If this is not yet deserialized, only the
+     * fields referenced by the selector are read from the serialized buffer, and this is left in its serialized state.
+     */
+    Result accepts(DocumentSelector selector) {
+        if (decoder == null || buffer == null) return selector.accepts(getDocumentPut());
+
+        int position = buffer.getBuf().position();
+        try {
+            return selector.accepts(buffer);
+        } finally {
+            buffer.getBuf().position(position);
+        }
+    }
+
     /** Sets the document to put */
     public void setDocumentPut(DocumentPut put) {
         buffer = null;
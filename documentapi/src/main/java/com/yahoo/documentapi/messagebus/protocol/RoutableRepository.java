@@ -11,6 +11,7 @@ import com.yahoo.document.serialization.DocumentSerializer;
 import com.yahoo.document.serialization.DocumentSerializerFactory;
 import com.yahoo.documentapi.messagebus.loadtypes.LoadTypeSet;
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.io.GrowableByteBufferPool;
 import java.util.logging.Level;
 import com.yahoo.messagebus.Routable;
 
@@ -33,10 +34,16 @@ final class RoutableRepository {
     private static final Logger log = Logger.getLogger(RoutableRepository.class.getName());
     private final CopyOnWriteHashMap<Integer, VersionMap> factoryTypes = new CopyOnWriteHashMap<>();
     private final CopyOnWriteHashMap<CacheKey, RoutableFactory> cache = new CopyOnWriteHashMap<>();
+    private final GrowableByteBufferPool bufferPool;
     private LoadTypeSet loadTypes;
 
     public RoutableRepository(LoadTypeSet set) {
-        loadTypes = set;
+        this(set, GrowableByteBufferPool.shared());
+    }
+
+    RoutableRepository(LoadTypeSet set, GrowableByteBufferPool bufferPool) {
+        this.loadTypes = set;
+        this.bufferPool = bufferPool;
     }
 
     /**
@@ -97,18 +104,21 @@ final class RoutableRepository {
             log.log(Level.SEVERE,"Can not encode routable type " + type + " (version " + version + "). Only major version 5 and up supported.");
             return new byte[0];
         }
-        DocumentSerializer out= DocumentSerializerFactory.createHead(new GrowableByteBuffer(8192));
-
-        out.putInt(null, type);
-        if (!factory.encode(obj, out)) {
-            log.log(Level.SEVERE, "Routable factory " + factory.getClass().getName() + " failed to serialize " +
-                                    "routable of type " + type + " (version " + version + ").");
-            return new byte[0];
+        DocumentSerializer out = DocumentSerializerFactory.createHead(bufferPool, 8192);
+        try {
+            out.putInt(null, type);
+            if (!factory.encode(obj, out)) {
+                log.log(Level.SEVERE, "Routable factory " + factory.getClass().getName() + " failed to serialize " +
+                                        "routable of type " + type + " (version " + version + ").");
+                return new byte[0];
+            }
+            byte[] ret = new byte[out.getBuf().position()];
+            out.getBuf().rewind();
+            out.getBuf().get(ret);
+            return ret;
+        } finally {
+            DocumentSerializerFactory.release(bufferPool, out);
         }
-        byte[] ret = new byte[out.getBuf().position()];
-        out.getBuf().rewind();
-        out.getBuf().get(ret);
-        return ret;
     }
 
     /**
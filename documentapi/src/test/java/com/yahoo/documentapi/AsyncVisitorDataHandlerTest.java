@@ -0,0 +1,146 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi;
+
+import com.yahoo.document.DocumentId;
+import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.Reply;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class AsyncVisitorDataHandlerTest {
+
+    private static RemoveDocumentMessage createRemoveMessage(String docId) {
+        return new RemoveDocumentMessage(new DocumentId(docId));
+    }
+
+    @Test
+    public void messages_are_processed_by_executor_and_available_for_polling() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AsyncVisitorDataHandler handler = new AsyncVisitorDataHandler(new VisitorDataQueue(), executor, 8);
+            for (int i = 0; i < 100; i++)
+                handler.onMessage(createRemoveMessage("id:foo:testdoc::" + i), new AckToken(new Object()));
+            handler.onDone();
+            assertEquals(0, handler.pendingMessages());
+
+            List<VisitorResponse> responses = new ArrayList<>();
+            for (VisitorResponse response = handler.getNext(); response != null; response = handler.getNext())
+                responses.add(response);
+            assertEquals(100, responses.size());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void pending_messages_are_bounded() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch proceed = new CountDownLatch(1);
+        VisitorDataHandler blocking = new VisitorDataHandler() {
+            @Override public void onMessage(Message m, AckToken token) {
+                try {
+                    proceed.await();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        try {
+            AsyncVisitorDataHandler handler = new AsyncVisitorDataHandler(blocking, executor, 2);
+            handler.onMessage(createRemoveMessage("id:foo:testdoc::1"), new AckToken(new Object()));
+            handler.onMessage(createRemoveMessage("id:foo:testdoc::2"), new AckToken(new Object()));
+            assertEquals(2, handler.pendingMessages());
+
+            Thread receiver = new Thread(() -> handler.onMessage(createRemoveMessage("id:foo:testdoc::3"),
+                                                                 new AckToken(new Object())));
+            receiver.start();
+            receiver.join(100);
+            assertTrue("Third message blocks until a pending one is processed", receiver.isAlive());
+
+            proceed.countDown();
+            receiver.join();
+            handler.onDone();
+            assertEquals(0, handler.pendingMessages());
+        }
+        finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failing_message_is_acked_with_fatal_error() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<AckToken> acked = new ArrayList<>();
+        VisitorDataHandler failing = new VisitorDataHandler() {
+            @Override public void onMessage(Message m, AckToken token) { throw new IllegalStateException("oops"); }
+        };
+        try {
+            AsyncVisitorDataHandler handler = new AsyncVisitorDataHandler(failing, executor, 1);
+            handler.setSession(new VisitorControlSession() {
+                @Override public synchronized void ack(AckToken token) { acked.add(token); }
+                @Override public void abort() { }
+                @Override public VisitorResponse getNext() { return null; }
+                @Override public VisitorResponse getNext(int timeoutMilliseconds) { return null; }
+                @Override public void destroy() { }
+            });
+            RemoveDocumentMessage message = createRemoveMessage("id:foo:testdoc::1");
+            Reply reply = message.createReply();
+            AckToken token = new AckToken(reply);
+            handler.onMessage(message, token);
+            handler.onDone();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(1, acked.size());
+            assertSame(token, acked.get(0));
+            assertTrue(reply.hasErrors());
+            assertEquals(ErrorCode.APP_FATAL_ERROR, reply.getError(0).getCode());
+            assertNotNull(reply.getError(0).getMessage());
+            assertFalse(reply.getError(0).getMessage().isEmpty());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void session_is_propagated_to_delegate() {
+        VisitorDataQueue queue = new VisitorDataQueue();
+        AsyncVisitorDataHandler handler = new AsyncVisitorDataHandler(queue, Runnable::run, 1);
+        VisitorControlSession session = new VisitorControlHandlerSession();
+        handler.setSession(session);
+        assertSame(session, queue.session);
+        handler.reset();
+        assertNull(queue.session);
+    }
+
+    private static class VisitorControlHandlerSession implements VisitorControlSession {
+        @Override public void ack(AckToken token) { }
+        @Override public void abort() { }
+        @Override public VisitorResponse getNext() { return null; }
+        @Override public VisitorResponse getNext(int timeoutMilliseconds) { return null; }
+        @Override public void destroy() { }
+    }
+
+}
@@ -15,6 +15,7 @@ import java.util.Vector;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Tests for VisitorIterator and ProgressToken (kept in one test case because their
@@ -1573,4 +1574,108 @@ public class VisitorIteratorTestCase {
         assertEquals(input, p2.toString());
     }
 
+    @Test
+    public void testSlicedRangeIterationCoversBucketSpaceOnce() throws ParseException {
+        BucketIdFactory idFactory = new BucketIdFactory();
+        int slices = 3;
+        Set<BucketId> visited = new TreeSet<>();
+        for (int sliceId = 0; sliceId < slices; sliceId++) {
+            ProgressToken progress = new ProgressToken();
+            // Start at one bit, as the visitor session does, and get the real bit count later
+            VisitorIterator iter = VisitorIterator.createFromDocumentSelection("id.group != \"foo\"", idFactory, 1,
+                                                                               progress, slices, sliceId);
+            assertEquals(2, progress.getTotalBucketCount());
+            VisitorIterator.BucketProgress first = iter.getNext();
+            iter.update(first.getSuperbucket(), new BucketId());
+            iter.setDistributionBitCount(4);
+            assertEquals(16, progress.getTotalBucketCount());
+
+            int visitedInSlice = 0;
+            while ( ! iter.isDone()) {
+                VisitorIterator.BucketProgress bucket = iter.getNext();
+                assertTrue("Bucket " + bucket.getSuperbucket() + " is visited once", visited.add(bucket.getSuperbucket()));
+                iter.update(bucket.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+                visitedInSlice++;
+            }
+            assertEquals(sliceId == 0 ? 6 : 5, visitedInSlice);
+            assertTrue(progress.isFinished());
+            assertEquals(16, progress.getFinishedBucketCount());
+        }
+        assertEquals(16, visited.size());
+    }
+
+    @Test
+    public void testSlicedRangeIterationCanBeResumed() throws ParseException {
+        BucketIdFactory idFactory = new BucketIdFactory();
+        ProgressToken progress = new ProgressToken();
+        VisitorIterator iter = VisitorIterator.createFromDocumentSelection("id.group != \"foo\"", idFactory, 4,
+                                                                           progress, 4, 1);
+        Set<BucketId> visited = new TreeSet<>();
+        for (int i = 0; i < 2; i++) {
+            VisitorIterator.BucketProgress bucket = iter.getNext();
+            visited.add(bucket.getSuperbucket());
+            iter.update(bucket.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+        }
+        VisitorIterator.BucketProgress unfinished = iter.getNext();
+        ProgressToken resumed = new ProgressToken(progress.serialize());
+        assertEquals(12, resumed.getFinishedBucketCount());
+
+        iter = VisitorIterator.createFromDocumentSelection("id.group != \"foo\"", idFactory, 4, resumed, 4, 1);
+        assertEquals(unfinished.getSuperbucket(), iter.getNext().getSuperbucket());
+        visited.add(unfinished.getSuperbucket());
+        iter.update(unfinished.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+        while ( ! iter.isDone()) {
+            VisitorIterator.BucketProgress bucket = iter.getNext();
+            assertTrue(visited.add(bucket.getSuperbucket()));
+            iter.update(bucket.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+        }
+        assertEquals(4, visited.size());
+        for (BucketId bucket : visited)
+            assertEquals(1, ProgressToken.bucketToKey(bucket.getId()) >>> 60 & 3);
+        assertTrue(resumed.isFinished());
+    }
+
+    @Test
+    public void testSlicedRangeIterationCoversBucketSpaceOnceWhenDistributionBitCountChanges() throws ParseException {
+        BucketIdFactory idFactory = new BucketIdFactory();
+        int slices = 3;
+        Set<BucketId> visited = new TreeSet<>();
+        for (int sliceId = 0; sliceId < slices; sliceId++) {
+            ProgressToken progress = new ProgressToken();
+            VisitorIterator iter = VisitorIterator.createFromDocumentSelection("id.group != \"foo\"", idFactory, 8,
+                                                                               progress, slices, sliceId);
+            // Each slice sees the new bit count at a different point, with a bucket still active
+            for (int i = 0; i < 20 * sliceId; i++) {
+                VisitorIterator.BucketProgress bucket = iter.getNext();
+                addVisited(bucket.getSuperbucket(), 10, visited);
+                iter.update(bucket.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+            }
+            VisitorIterator.BucketProgress active = iter.getNext();
+            iter.setDistributionBitCount(10);
+            assertFalse(iter.hasNext());
+            addVisited(active.getSuperbucket(), 10, visited);
+            iter.update(active.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+            assertEquals(1024, progress.getTotalBucketCount());
+
+            while ( ! iter.isDone()) {
+                VisitorIterator.BucketProgress bucket = iter.getNext();
+                assertEquals(10, bucket.getSuperbucket().getUsedBits());
+                addVisited(bucket.getSuperbucket(), 10, visited);
+                iter.update(bucket.getSuperbucket(), ProgressToken.FINISHED_BUCKET);
+            }
+            assertTrue(progress.isFinished());
+            assertEquals(1024, progress.getFinishedBucketCount());
+        }
+        assertEquals(1024, visited.size());
+    }
+
+    /** Adds the buckets with the given number of used bits contained in the given bucket, failing if any is already visited */
+    private static void addVisited(BucketId bucket, int usedBits, Set<BucketId> visited) {
+        int splits = usedBits - bucket.getUsedBits();
+        for (long i = 0; i < 1L << splits; i++) {
+            BucketId contained = new BucketId(usedBits, bucket.getId() | (i << bucket.getUsedBits()));
+            assertTrue("Bucket " + contained + " is visited once", visited.add(contained));
+        }
+    }
+
 }
@@ -0,0 +1,37 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus.protocol;
+
+import com.yahoo.component.Version;
+import com.yahoo.component.VersionSpecification;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.documentapi.messagebus.loadtypes.LoadTypeSet;
+import com.yahoo.io.GrowableByteBufferPool;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class RoutableRepositoryTestCase {
+
+    @Test
+    public void encoding_returns_buffers_to_pool() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool(4, true);
+        RoutableRepository repository = new RoutableRepository(new LoadTypeSet(), pool);
+        repository.putFactory(new VersionSpecification(6, 221), DocumentProtocol.MESSAGE_REMOVEDOCUMENT,
+                              new RoutableFactories60.RemoveDocumentMessageFactory());
+        Version version = new Version(6, 221);
+
+        for (int i = 0; i < 3; i++) {
+            byte[] data = repository.encode(version, new RemoveDocumentMessage(new DocumentId("id:ns:type::" + i)));
+            pool.assertNoLeaks();
+            assertEquals(1, pool.idleCount());
+
+            RemoveDocumentMessage decoded = (RemoveDocumentMessage)repository.decode(new DocumentTypeManager(), version, data);
+            assertEquals("id:ns:type::" + i, decoded.getDocumentId().toString());
+        }
+    }
+
+}
@@ -338,6 +338,14 @@ public class Flags {
             "Takes effect on next internal redeployment",
             APPLICATION_ID);
 
+    public static final UnboundBooleanFlag OPTIMIZE_RANK_PROFILE_FUNCTIONS = defineFeatureFlag(
+            "optimize-rank-profile-functions",
+            false,
+            "Whether to fold constants, inline small functions and extract common subexpressions " +
+            "across the functions of rank profiles",
+            "Takes effect at redeployment",
+            APPLICATION_ID);
+
     /** WARNING: public for testing: All flags should be defined in {@link Flags}. */
     public static UnboundBooleanFlag defineFeatureFlag(String flagId, boolean defaultValue, String description,
                                                        String modificationEffect, FetchVector.Dimension... dimensions) {
@@ -4,9 +4,16 @@ package ai.vespa.models.evaluation;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTBatchForest;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -20,6 +27,7 @@ public class FunctionEvaluator {
 
     private final ExpressionFunction function;
     private final LazyArrayContext context;
+    private final Map<String, double[]> batchValues = new LinkedHashMap<>();
     private boolean evaluated = false;
 
     FunctionEvaluator(ExpressionFunction function, LazyArrayContext context) {
@@ -37,12 +45,7 @@ public class FunctionEvaluator {
     public FunctionEvaluator bind(String name, Tensor value) {
         if (evaluated)
             throw new IllegalStateException("Cannot bind a new value in a used evaluator");
-        TensorType requiredType = function.argumentTypes().get(name);
-        if (requiredType == null)
-            throw new IllegalArgumentException("'" + name + "' is not a valid argument in " + function +
-                                               ". Expected arguments: " + function.argumentTypes().entrySet().stream()
-                                                                                  .map(e -> e.getKey() + ": " + e.getValue())
-                                                                                  .collect(Collectors.joining(", ")));
+        TensorType requiredType = requireArgumentType(name);
         if ( ! value.type().isAssignableTo(requiredType))
             throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " + value.type());
         context.put(name, new TensorValue(value));
@@ -61,6 +64,28 @@ public class FunctionEvaluator {
         return bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build());
     }
 
+    /**
+     * Binds the given variable referred in this expression to a batch of values, one for each row
+     * evaluated by {@link #evaluateBatch}. All variables bound by this must have the same number of values.
+     * Variables bound by the other bind methods have the same value in all rows.
+     *
+     * @param name the variable to bind
+     * @param values the values this becomes bound to, one for each row
+     * @return this for chaining
+     */
+    public FunctionEvaluator bindBatch(String name, double[] values) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot bind a new value in a used evaluator");
+        TensorType requiredType = requireArgumentType(name);
+        if ( ! TensorType.empty.isAssignableTo(requiredType))
+            throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not a batch of doubles");
+        if ( ! batchValues.isEmpty() && batchValues.values().iterator().next().length != values.length)
+            throw new IllegalArgumentException("'" + name + "' is bound to " + values.length + " values, but other " +
+                                               "variables are bound to " + batchValues.values().iterator().next().length);
+        batchValues.put(name, values);
+        return this;
+    }
+
     /**
      * Binds the given variable referred in this expression to the given value.
      * String values are not yet supported in tensors.
@@ -99,8 +124,118 @@ public class FunctionEvaluator {
         return setMissingValue(Tensor.Builder.of(TensorType.empty).cell(value).build());
     }
 
+    /**
+     * Sets the parallelism to use when evaluating large dense tensor operations in this function.
+     * Such operations are then split into tasks run in the given pool, which reduces the latency of
+     * evaluating large models when there are idle cores. By default all evaluation happens in the calling thread.
+     *
+     * @param parallelism the parallelism to use
+     * @return this for chaining
+     */
+    public FunctionEvaluator setParallelism(EvaluationParallelism parallelism) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot change the parallelism of a used evaluator");
+        context.setParallelism(parallelism);
+        return this;
+    }
+
     public Tensor evaluate() {
+        checkArguments();
+        evaluated = true;
+        return function.getBody().evaluate(context).asTensor();
+    }
+
+    /**
+     * Evaluates a function returning a scalar once for each row of values bound by {@link #bindBatch}.
+     * Forests of decision trees are evaluated for all the rows together, which is much faster
+     * than evaluating them for one row at the time.
+     *
+     * @return the value of the function for each row
+     */
+    public double[] evaluateBatch() {
+        if (batchValues.isEmpty())
+            throw new IllegalStateException("No batch values are bound in " + function);
+        if (function.returnType().isPresent() && function.returnType().get().rank() > 0)
+            throw new IllegalStateException("Batch evaluation requires a function returning a scalar, but " +
+                                            function + " returns " + function.returnType().get());
+        checkArguments();
+        evaluated = true;
+
+        int rows = batchValues.values().iterator().next().length;
+        if (function.getBody().getRoot() instanceof GBDTForestNode) {
+            GBDTBatchForest forest = ((GBDTForestNode)function.getBody().getRoot()).batchForest();
+            if (featuresAreIndependentOfBatch(forest))
+                return evaluate(forest, rows);
+        }
+        return evaluateEachRow(rows);
+    }
+
+    /**
+     * Returns whether each feature read by this forest is either bound in the batch or does not depend on it,
+     * such that features not bound in the batch can be computed once for all the rows.
+     */
+    private boolean featuresAreIndependentOfBatch(GBDTBatchForest forest) {
+        for (int feature : forest.features()) {
+            Value value = context.get(feature);
+            if (value instanceof LazyValue && ((LazyValue)value).references(batchValues.keySet()))
+                return false;
+        }
+        return true;
+    }
+
+    private double[] evaluate(GBDTBatchForest forest, int rows) {
+        Map<Integer, double[]> batchValuesByIndex = new HashMap<>();
+        for (Map.Entry<String, double[]> values : batchValues.entrySet())
+            batchValuesByIndex.put(context.getIndex(values.getKey()), values.getValue());
+
+        int[] features = forest.features();
+        double[] columns = new double[features.length * rows];
+        for (int column = 0; column < features.length; column++) {
+            double[] values = batchValuesByIndex.get(features[column]);
+            if (values != null)
+                System.arraycopy(values, 0, columns, column * rows, rows);
+            else
+                Arrays.fill(columns, column * rows, (column + 1) * rows, context.getDouble(features[column]));
+        }
+        return forest.evaluate(columns, rows);
+    }
+
+    private double[] evaluateEachRow(int rows) {
+        int[] indexes = new int[batchValues.size()];
+        double[][] columns = new double[batchValues.size()][];
+        int column = 0;
+        for (Map.Entry<String, double[]> values : batchValues.entrySet()) {
+            indexes[column] = context.getIndex(values.getKey());
+            columns[column++] = values.getValue();
+        }
+
+        // Function values are cached in the context, so it can only be reused between rows without them
+        boolean reuseContext = ! context.hasFunctionValues();
+        LazyArrayContext rowContext = context.copy();
+        double[] result = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            if (row > 0 && ! reuseContext)
+                rowContext = context.copy();
+            for (int i = 0; i < indexes.length; i++)
+                rowContext.put(indexes[i], columns[i][row]);
+            result[row] = function.getBody().evaluateDouble(rowContext);
+        }
+        return result;
+    }
+
+    private TensorType requireArgumentType(String name) {
+        TensorType requiredType = function.argumentTypes().get(name);
+        if (requiredType == null)
+            throw new IllegalArgumentException("'" + name + "' is not a valid argument in " + function +
+                                               ". Expected arguments: " + function.argumentTypes().entrySet().stream()
+                                                                                  .map(e -> e.getKey() + ": " + e.getValue())
+                                                                                  .collect(Collectors.joining(", ")));
+        return requiredType;
+    }
+
+    private void checkArguments() {
         for (Map.Entry<String, TensorType> argument : function.argumentTypes().entrySet()) {
+            if (batchValues.containsKey(argument.getKey())) continue;
             if (context.isMissing(argument.getKey()))
                 throw new IllegalStateException("Missing argument '" + argument.getKey() +
                                                 "': Must be bound to a value of type " + argument.getValue());
@@ -109,8 +244,6 @@ public class FunctionEvaluator {
                                                 "' must be bound to a value of type " + argument.getValue());
 
         }
-        evaluated = true;
-        return function.getBody().evaluate(context).asTensor();
     }
 
     /** Returns the function evaluated by this */
@@ -15,6 +15,7 @@ import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
 
 import java.util.Arrays;
 import java.util.LinkedHashSet;
@@ -31,10 +32,12 @@ public final class LazyArrayContext extends Context implements ContextIndex {
 
     private final ExpressionFunction function;
     private final IndexedBindings indexedBindings;
+    private EvaluationParallelism parallelism = EvaluationParallelism.none;
 
-    private LazyArrayContext(ExpressionFunction function, IndexedBindings indexedBindings) {
+    private LazyArrayContext(ExpressionFunction function, IndexedBindings indexedBindings, EvaluationParallelism parallelism) {
         this.function = function;
         this.indexedBindings = indexedBindings.copy(this);
+        this.parallelism = parallelism;
     }
 
     /** Create a fast lookup, lazy context for a function */
@@ -54,6 +57,14 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         indexedBindings.setMissingValue(value);
     }
 
+    /** Sets the parallelism to use when evaluating tensor operations in this. Default: none */
+    public void setParallelism(EvaluationParallelism parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public EvaluationParallelism parallelism() { return parallelism; }
+
     /**
      * Puts a value by name.
      * The value will be frozen if it isn't already.
@@ -106,6 +117,11 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return requireIndexOf(name);
     }
 
+    @Override
+    public boolean hasIndex(String name) {
+        return indexedBindings.indexOf(name) != null;
+    }
+
     @Override
     public int size() {
         return indexedBindings.names().size();
@@ -128,6 +144,11 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return indexedBindings.indexOf(name) == null;
     }
 
+    /** Returns whether this holds values of referenced functions, which are cached once computed */
+    boolean hasFunctionValues() {
+        return indexedBindings.hasLazyValues();
+    }
+
     /** Returns the value which should be used when no value is set */
     public Value defaultValue() {
         return indexedBindings.missingValue;
@@ -138,7 +159,7 @@ public final class LazyArrayContext extends Context implements ContextIndex {
      * in a different thread or for re-binding free variables.
      */
     LazyArrayContext copy() {
-        return new LazyArrayContext(function, indexedBindings);
+        return new LazyArrayContext(function, indexedBindings, parallelism);
     }
 
     private static class IndexedBindings {
@@ -262,11 +283,17 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         Set<String> arguments() { return arguments; }
         Integer indexOf(String name) { return nameToIndex.get(name); }
 
+        boolean hasLazyValues() {
+            return Arrays.stream(values).anyMatch(value -> value instanceof LazyValue);
+        }
+
         IndexedBindings copy(Context context) {
             Value[] valueCopy = new Value[values.length];
             for (int i = 0; i < values.length; i++)
                 valueCopy[i] = values[i] instanceof LazyValue ? ((LazyValue) values[i]).copyFor(context) : values[i];
-            return new IndexedBindings(nameToIndex, valueCopy, arguments);
+            IndexedBindings copy = new IndexedBindings(nameToIndex, valueCopy, arguments);
+            copy.missingValue = missingValue;
+            return copy;
         }
 
     }
@@ -4,11 +4,19 @@ package ai.vespa.models.evaluation;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.evaluation.Context;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.NameNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
 import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.Optional;
+import java.util.Set;
+
 /**
  * A Value which is computed from an expression when first requested.
  * This is not multithread safe.
@@ -151,4 +159,29 @@ class LazyValue extends Value {
         return new LazyValue(this.function, context, model);
     }
 
+    /**
+     * Returns whether the function computing this value references any of the given names,
+     * directly or through other referenced functions. Nodes which cannot be inspected are assumed to reference them.
+     */
+    boolean references(Set<String> names) {
+        return references(model.requireReferencedFunction(function).getBody().getRoot(), names);
+    }
+
+    private boolean references(ExpressionNode node, Set<String> names) {
+        if (node instanceof ReferenceNode) {
+            if (names.contains(node.toString())) return true;
+            Optional<FunctionReference> reference = FunctionReference.fromSerial(node.toString());
+            return reference.isPresent() &&
+                   references(model.requireReferencedFunction(reference.get()).getBody().getRoot(), names);
+        }
+        else if (node instanceof CompositeNode) {
+            for (ExpressionNode child : ((CompositeNode)node).children())
+                if (references(child, names)) return true;
+            return false;
+        }
+        else {
+            return ! (node instanceof ConstantNode || node instanceof NameNode);
+        }
+    }
+
 }
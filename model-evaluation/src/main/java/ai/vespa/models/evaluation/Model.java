@@ -5,10 +5,12 @@ import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization.ScalarOptimizer;
 import com.yahoo.tensor.TensorType;
 
 import java.util.Arrays;
@@ -37,6 +39,9 @@ public class Model {
     /** The subset of the free functions which are public (additional non-public methods are generated during import) */
     private final ImmutableList<ExpressionFunction> publicFunctions;
 
+    /** Optimized copies of the free functions, by name, which are evaluated in place of them */
+    private final ImmutableMap<String, ExpressionFunction> optimizedFunctions;
+
     /** Instances of each usage of the above function, where variables (if any) are replaced by their bindings */
     private final ImmutableMap<FunctionReference, ExpressionFunction> referencedFunctions;
 
@@ -93,6 +98,9 @@ public class Model {
                                                                       .collect(Collectors.toList()));
 
         // Optimize functions
+        // Referenced functions are evaluated in the context of the invoking function, so scalars cannot be compiled
+        // to index lookups in the context of the referenced function itself
+        expressionOptimizer.getOptimizer(ScalarOptimizer.class).setEnabled(false);
         ImmutableMap.Builder<FunctionReference, ExpressionFunction> functionsBuilder = new ImmutableMap.Builder<>();
         for (Map.Entry<FunctionReference, ExpressionFunction> function : referencedFunctions.entrySet()) {
             ExpressionFunction optimizedFunction = optimize(function.getValue(),
@@ -100,6 +108,16 @@ public class Model {
             functionsBuilder.put(function.getKey(), optimizedFunction);
         }
         this.referencedFunctions = functionsBuilder.build();
+
+        expressionOptimizer.getOptimizer(ScalarOptimizer.class).setEnabled(true);
+        ImmutableMap.Builder<String, ExpressionFunction> optimizedFunctionsBuilder = new ImmutableMap.Builder<>();
+        for (ExpressionFunction function : this.functions) {
+            // Optimize a copy as the free functions are exposed
+            ExpressionFunction copy = function.withBody(new RankingExpression(function.getBody().getName(),
+                                                                              function.getBody().getRoot()));
+            optimizedFunctionsBuilder.put(function.getName(), optimize(copy, contextPrototypes.get(function.getName())));
+        }
+        this.optimizedFunctions = optimizedFunctionsBuilder.build();
     }
 
     /** Returns an optimized version of the given function */
@@ -215,7 +233,8 @@ public class Model {
 
     /** Returns a single-use evaluator of a function */
     private FunctionEvaluator evaluatorOf(ExpressionFunction function) {
-        return new FunctionEvaluator(function, requireContextPrototype(function.getName()).copy());
+        return new FunctionEvaluator(optimizedFunctions.get(function.getName()),
+                                     requireContextPrototype(function.getName()).copy());
     }
 
     private void throwUndeterminedFunction(String message) {
@@ -4,8 +4,6 @@ package ai.vespa.models.evaluation;
 import com.yahoo.collections.Pair;
 import com.yahoo.config.FileReference;
 import com.yahoo.filedistribution.fileacquirer.FileAcquirer;
-import com.yahoo.io.GrowableByteBuffer;
-import com.yahoo.io.IOUtils;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.parser.ParseException;
@@ -18,6 +16,8 @@ import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -50,9 +50,10 @@ public class RankProfilesConfigImporter {
      */
     public Map<String, Model> importFrom(RankProfilesConfig config, RankingConstantsConfig constantsConfig) {
         try {
+            List<Constant> largeConstants = readLargeConstants(constantsConfig); // shared by all profiles
             Map<String, Model> models = new HashMap<>();
             for (RankProfilesConfig.Rankprofile profile : config.rankprofile()) {
-                Model model = importProfile(profile, constantsConfig);
+                Model model = importProfile(profile, largeConstants);
                 models.put(model.name(), model);
             }
             return models;
@@ -62,10 +63,10 @@ public class RankProfilesConfigImporter {
         }
     }
 
-    private Model importProfile(RankProfilesConfig.Rankprofile profile, RankingConstantsConfig constantsConfig)
+    private Model importProfile(RankProfilesConfig.Rankprofile profile, List<Constant> largeConstants)
             throws ParseException {
 
-        List<Constant> constants = readLargeConstants(constantsConfig);
+        List<Constant> constants = new ArrayList<>(largeConstants);
 
         Map<FunctionReference, ExpressionFunction> functions = new LinkedHashMap<>();
         Map<FunctionReference, ExpressionFunction> referencedFunctions = new LinkedHashMap<>();
@@ -148,12 +149,16 @@ public class RankProfilesConfigImporter {
         return constants;
     }
 
+    /**
+     * Reads the value of a constant from its file.
+     * Dense tensors in .tbf files are memory mapped rather than read into the heap, such that their cells are
+     * only read by the operating system when first used, and can be paged out again under memory pressure.
+     */
     protected Tensor readTensorFromFile(String name, TensorType type, FileReference fileReference) {
         try {
             File file = fileAcquirer.waitFor(fileReference, 7, TimeUnit.DAYS);
             if (file.getName().endsWith(".tbf"))
-                return TypedBinaryFormat.decode(Optional.of(type),
-                                                GrowableByteBuffer.wrap(IOUtils.readFileBytes(file)));
+                return decode(type, file);
             else
                 throw new IllegalArgumentException("Constant files on other formats than .tbf are not supported, got " +
                                                    file + " for constant " + name);
@@ -167,6 +172,12 @@ public class RankProfilesConfigImporter {
         }
     }
 
+    private static Tensor decode(TensorType type, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return TypedBinaryFormat.decodeWithoutCopying(Optional.of(type), channel);
+        }
+    }
+
     /** Collected information about small constants */
     private static class SmallConstantsInfo {
 
@@ -20,6 +20,7 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -32,6 +33,7 @@ public class ModelsEvaluationHandler extends ThreadedHttpRequestHandler {
     public static final String API_ROOT = "model-evaluation";
     public static final String VERSION_V1 = "v1";
     public static final String EVALUATE = "eval";
+    public static final String EVALUATE_BATCH = "eval-batch";
 
     private final ModelsEvaluator modelsEvaluator;
 
@@ -57,6 +59,10 @@ public class ModelsEvaluationHandler extends ThreadedHttpRequestHandler {
 
             Model model = modelsEvaluator.requireModel(modelName.get());
 
+            Optional<Integer> batchEvalSegment = path.lastIndexOf(EVALUATE_BATCH);
+            if (batchEvalSegment.isPresent()) {
+                return evaluateModelBatch(request, model, path.range(3, batchEvalSegment));
+            }
             Optional<Integer> evalSegment = path.lastIndexOf(EVALUATE);
             String[] function = path.range(3, evalSegment);
             if (evalSegment.isPresent()) {
@@ -90,6 +96,59 @@ public class ModelsEvaluationHandler extends ThreadedHttpRequestHandler {
         return new Response(200, JsonFormat.encode(result));
     }
 
+    /**
+     * Evaluates a function returning a scalar for a batch of rows. Scalar arguments are given as
+     * comma-separated lists of numbers, one for each row. Arguments given a single value, and
+     * tensor and string arguments, have the same value in all rows.
+     */
+    private HttpResponse evaluateModelBatch(HttpRequest request, Model model, String[] function)  {
+        FunctionEvaluator evaluator = model.evaluatorOf(function);
+
+        property(request, missingValueKey).ifPresent(missingValue -> evaluator.setMissingValue(Tensor.from(missingValue)));
+
+        Map<String, double[]> batchValues = new LinkedHashMap<>();
+        for (Map.Entry<String, TensorType> argument : evaluator.function().argumentTypes().entrySet()) {
+            Optional<String> value = property(request, argument.getKey());
+            if (value.isEmpty()) continue;
+            if (argument.getValue().rank() > 0)
+                evaluator.bind(argument.getKey(), Tensor.from(argument.getValue(), value.get()));
+            else if (isNumbers(value.get()))
+                batchValues.put(argument.getKey(), toNumbers(value.get()));
+            else if ( ! value.get().contains(","))
+                evaluator.bind(argument.getKey(), value.get());  // since we don't yet support tensors with string values
+            else
+                throw new IllegalArgumentException("'" + argument.getKey() + "' must be a comma-separated list of numbers, " +
+                                                   "not '" + value.get() + "'");
+        }
+        int rows = batchValues.values().stream().mapToInt(values -> values.length).max().orElse(0);
+        for (Map.Entry<String, double[]> values : batchValues.entrySet()) {
+            if (values.getValue().length == 1 && rows > 1)
+                evaluator.bind(values.getKey(), values.getValue()[0]);
+            else
+                evaluator.bindBatch(values.getKey(), values.getValue());
+        }
+
+        Slime slime = new Slime();
+        Cursor result = slime.setObject().setArray("values");
+        for (double value : evaluator.evaluateBatch())
+            result.addDouble(value);
+        return new Response(200, com.yahoo.slime.JsonFormat.toJsonBytes(slime));
+    }
+
+    private boolean isNumbers(String values) {
+        try {
+            toNumbers(values);
+            return true;
+        }
+        catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private double[] toNumbers(String values) {
+        return Arrays.stream(values.split(",")).mapToDouble(value -> Double.parseDouble(value.trim())).toArray();
+    }
+
     private HttpResponse listAllModels(HttpRequest request) {
         Slime slime = new Slime();
         Cursor root = slime.setObject();
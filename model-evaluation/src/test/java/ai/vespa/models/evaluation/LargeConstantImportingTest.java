@@ -0,0 +1,57 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.config.subscription.ConfigGetter;
+import com.yahoo.config.subscription.FileSource;
+import com.yahoo.filedistribution.fileacquirer.MockFileAcquirer;
+import com.yahoo.io.IOUtils;
+import com.yahoo.path.Path;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import com.yahoo.vespa.config.search.RankProfilesConfig;
+import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author agent
+ */
+public class LargeConstantImportingTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testImportingLargeConstantSharedByProfiles() throws IOException {
+        Tensor constant = Tensor.from("tensor(x[2],y[3]):[[1.0, 2.0, 3.0], [4.0, 5.0, 6.0]]");
+        File file = temporaryFolder.newFile("my_tensor.tbf");
+        IOUtils.writeFile(file, TypedBinaryFormat.encode(constant));
+
+        Path configDir = Path.fromString("src/test/resources/config/largeconstant/");
+        RankProfilesConfig config = new ConfigGetter<>(new FileSource(configDir.append("rank-profiles.cfg").toFile()),
+                                                       RankProfilesConfig.class).getConfig("");
+        RankingConstantsConfig constantsConfig = new ConfigGetter<>(new FileSource(configDir.append("ranking-constants.cfg").toFile()),
+                                                                    RankingConstantsConfig.class).getConfig("");
+        Map<String, Model> models = new RankProfilesConfigImporter(MockFileAcquirer.returnFile(file))
+                                            .importFrom(config, constantsConfig);
+
+        Model model1 = models.get("profile1");
+        Model model2 = models.get("profile2");
+        assertEquals(21.0, model1.evaluatorOf().evaluate().asDouble(), 0);
+        assertEquals(6.0, model2.evaluatorOf().evaluate().asDouble(), 0);
+
+        Tensor value1 = model1.evaluatorOf().context().get("constant(my_tensor)").asTensor();
+        Tensor value2 = model2.evaluatorOf().context().get("constant(my_tensor)").asTensor();
+        assertEquals(constant, value1);
+        assertSame("The constant is read once and shared by the profiles", value1, value2);
+    }
+
+}
@@ -2,15 +2,20 @@
 package ai.vespa.models.evaluation;
 
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests instantiating models from rank-profiles configs.
@@ -136,6 +141,54 @@ public class MlModelsImportingTest {
         }
     }
 
+    @Test
+    public void testParallelEvaluation() {
+        ModelTester tester = new ModelTester("src/test/resources/config/models/");
+        Model tfMnist = tester.models().get("mnist_saved");
+        Tensor expected = tfMnist.evaluatorOf("serving_default").bind("input", inputTensor()).evaluate();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FunctionEvaluator evaluator = tfMnist.evaluatorOf("serving_default");
+            evaluator.bind("input", inputTensor()).setParallelism(new EvaluationParallelism(pool, 10));
+            assertEquals(expected, evaluator.evaluate());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchEvaluatingForests() {
+        ModelTester tester = new ModelTester("src/test/resources/config/models/");
+        assertBatchEvaluatedAsEachRow(tester.models().get("xgboost_2_2"), "f109", "f29", "f56", "f60");
+        assertBatchEvaluatedAsEachRow(tester.models().get("lightgbm_regression"),
+                                      "categorical_1", "categorical_2", "numerical_1", "numerical_2");
+    }
+
+    private void assertBatchEvaluatedAsEachRow(Model model, String ... arguments) {
+        Random random = new Random(7);
+        double[][] batch = new double[arguments.length - 1][50];
+        for (double[] values : batch)
+            for (int row = 0; row < values.length; row++)
+                values[row] = random.nextInt(10) == 0 ? Double.NaN : random.nextDouble() * 2;
+
+        FunctionEvaluator batchEvaluator = model.evaluatorOf();
+        assertTrue(batchEvaluator.function().getBody().getRoot() instanceof GBDTForestNode);
+        for (int i = 0; i < batch.length; i++)
+            batchEvaluator.bindBatch(arguments[i], batch[i]);
+        batchEvaluator.bind(arguments[arguments.length - 1], 0.5); // the same in all rows
+        double[] result = batchEvaluator.evaluateBatch();
+
+        for (int row = 0; row < result.length; row++) {
+            FunctionEvaluator evaluator = model.evaluatorOf();
+            for (int i = 0; i < batch.length; i++)
+                evaluator.bind(arguments[i], batch[i][row]);
+            evaluator.bind(arguments[arguments.length - 1], 0.5);
+            assertEquals(evaluator.evaluate().asDouble(), result[row], 0);
+        }
+    }
+
     private Tensor inputTensor() {
         Tensor.Builder b = Tensor.Builder.of(TensorType.fromSpec("tensor(d0[],d1[784])"));
         for (int i = 0; i < 784; i++)
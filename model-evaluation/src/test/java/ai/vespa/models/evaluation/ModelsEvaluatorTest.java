@@ -7,6 +7,7 @@ import com.yahoo.filedistribution.fileacquirer.MockFileAcquirer;
 import com.yahoo.path.Path;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.vespa.config.search.RankProfilesConfig;
@@ -15,10 +16,14 @@ import com.yahoo.yolean.Exceptions;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author bratseth
@@ -122,6 +127,69 @@ public class ModelsEvaluatorTest {
 
     }
 
+    @Test
+    public void testBatchEvaluation() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+
+        {
+            FunctionEvaluator function = models.evaluatorOf("macros", "secondphase");
+            function.bindBatch("match", new double[] { 3, 0, -1 });
+            function.bind("rankBoost", 5);
+            assertArrayEquals(new double[] { 32.0, 20.0, 16.0 }, function.evaluateBatch(), delta);
+        }
+
+        {
+            FunctionEvaluator function = models.evaluatorOf("macros", "secondphase");
+            function.setMissingValue(5);
+            function.bindBatch("match", new double[] { 3, 0 });
+            assertArrayEquals(new double[] { 32.0, 20.0 }, function.evaluateBatch(), delta);
+        }
+
+        try {
+            FunctionEvaluator function = models.evaluatorOf("macros", "secondphase");
+            function.bindBatch("match", new double[] { 3, 0 });
+            function.bindBatch("rankBoost", new double[] { 5 });
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("'rankBoost' is bound to 1 values, but other variables are bound to 2",
+                         Exceptions.toMessageString(e));
+        }
+
+        try {
+            FunctionEvaluator function = models.evaluatorOf("macros", "secondphase");
+            function.bind("match", 3);
+            function.evaluateBatch();
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("No batch values are bound in function 'secondphase'", Exceptions.toMessageString(e));
+        }
+    }
+
+    @Test
+    public void testBatchEvaluatingForestReadingFunctionOfBatchArgument() {
+        ExpressionFunction forest = new ExpressionFunction("forest",
+                                                           RankingExpression.from("if (rankingExpression(doubled) < 1.5, 1, 2) + " +
+                                                                                  "if (x < 0.5, 10, 20) + " +
+                                                                                  "if (rankingExpression(constantValue) < 1.5, 100, 200)"));
+        ExpressionFunction doubled = new ExpressionFunction("doubled", RankingExpression.from("x * 2"));
+        ExpressionFunction constantValue = new ExpressionFunction("constantValue", RankingExpression.from("y + 1"));
+        Map<FunctionReference, ExpressionFunction> functions = new HashMap<>();
+        Map<FunctionReference, ExpressionFunction> referencedFunctions = new HashMap<>();
+        for (ExpressionFunction function : List.of(forest, doubled, constantValue)) {
+            functions.put(FunctionReference.fromName(function.getName()), function);
+            referencedFunctions.put(FunctionReference.fromName(function.getName()), function);
+        }
+        Model model = new Model("test", functions, referencedFunctions, List.of());
+
+        FunctionEvaluator function = model.evaluatorOf("forest");
+        assertTrue(function.function().getBody().getRoot() instanceof GBDTForestNode);
+        function.bindBatch("x", new double[] { 0, 0.6, 1 });
+        function.bind("y", 0);
+        assertArrayEquals(new double[] { 111.0, 121.0, 122.0 }, function.evaluateBatch(), delta);
+    }
+
     // TODO: Test argument-less function
     // TODO: Test with nested functions
 
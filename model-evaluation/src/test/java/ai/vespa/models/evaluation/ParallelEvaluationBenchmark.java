@@ -0,0 +1,89 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the latency of evaluating a model consisting of large dense matrix products,
+ * with tensor operations evaluated in parallel using 1 to 16 threads.
+ *
+ * @author agent
+ */
+public class ParallelEvaluationBenchmark {
+
+    private static final Random random = new Random(7);
+
+    // A feed-forward layer of a transformer: Reduced dimensions are innermost such that products are reduce-joins
+    private static final String feedForward =
+            "reduce(join(map(reduce(join(input, w1, f(a,b)(a * b)), sum, x) + b1, f(a)(max(a, 0))), w2, f(a,b)(a * b)), sum, h)";
+
+    private final Model model;
+    private final Tensor input, w1, b1, w2;
+
+    public ParallelEvaluationBenchmark(int batch, int width, int hiddenWidth) {
+        input = tensor(TensorType.fromSpec("tensor(b[" + batch + "],x[" + width + "])"));
+        w1 = tensor(TensorType.fromSpec("tensor(h[" + hiddenWidth + "],x[" + width + "])"));
+        b1 = tensor(TensorType.fromSpec("tensor(h[" + hiddenWidth + "])"));
+        w2 = tensor(TensorType.fromSpec("tensor(d[" + width + "],h[" + hiddenWidth + "])"));
+        ExpressionFunction function = new ExpressionFunction("feedForward", RankingExpression.from(feedForward))
+                                              .withArgument("input", input.type())
+                                              .withArgument("w1", w1.type())
+                                              .withArgument("b1", b1.type())
+                                              .withArgument("w2", w2.type());
+        model = new Model("benchmark", List.of(function));
+    }
+
+    public void benchmark(int iterations) {
+        Tensor expected = evaluate(EvaluationParallelism.none);
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                EvaluationParallelism parallelism = new EvaluationParallelism(pool, 10000);
+                if ( ! expected.equals(evaluate(parallelism)))
+                    throw new IllegalStateException("Parallel evaluation with " + threads + " threads gave a different result");
+                for (int i = 0; i < iterations / 5; i++) // warm-up
+                    evaluate(parallelism);
+                long startTime = System.nanoTime();
+                for (int i = 0; i < iterations; i++)
+                    evaluate(parallelism);
+                long totalTime = System.nanoTime() - startTime;
+                System.out.printf("%2d threads: %8.2f ms per evaluation\n", threads, totalTime / 1000000.0 / iterations);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private Tensor evaluate(EvaluationParallelism parallelism) {
+        return model.evaluatorOf()
+                    .bind("input", input).bind("w1", w1).bind("b1", b1).bind("w2", w2)
+                    .setParallelism(parallelism)
+                    .evaluate();
+    }
+
+    private static Tensor tensor(TensorType type) {
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(type);
+        long size = type.dimensions().stream().mapToLong(d -> d.size().get()).reduce(1, (a, b) -> a * b);
+        for (long i = 0; i < size; i++)
+            builder.cellByDirectIndex(i, random.nextDouble() - 0.5);
+        return builder.build();
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Batch of 1, width 768, hidden width 3072:");
+        new ParallelEvaluationBenchmark(1, 768, 3072).benchmark(200);
+        System.out.println("Batch of 8, width 768, hidden width 3072:");
+        new ParallelEvaluationBenchmark(8, 768, 3072).benchmark(50);
+    }
+
+}
@@ -93,6 +93,47 @@ public class ModelsEvaluationHandlerTest {
         assertResponse(url, properties, 200, expected);
     }
 
+    @Test
+    public void testXgBoostBatchEvaluation() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("f29", "-1.0, 0.5");
+        properties.put("f56", "0.2,0.2");
+        properties.put("f60", "0.3");
+        properties.put("f109", "0.4,0.4");
+        properties.put("non-existing-binding", "-1");
+        String url = "http://localhost/model-evaluation/v1/xgboost_2_2/eval-batch";
+        String expected = "{\"values\":[-7.936679999999999,-8.17695]}";
+        assertResponse(url, properties, 200, expected);
+    }
+
+    @Test
+    public void testXgBoostBatchEvaluationWithDifferentNumberOfValues() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("f29", "-1.0,0.5");
+        properties.put("f56", "0.2,0.2,0.2");
+        String url = "http://localhost/model-evaluation/v1/xgboost_2_2/eval-batch";
+        assertResponse(url, properties, 404, null);
+    }
+
+    @Test
+    public void testXgBoostBatchEvaluationWithoutBindings() {
+        String url = "http://localhost/model-evaluation/v1/xgboost_2_2/eval-batch";
+        String expected = "{\"error\":\"No batch values are bound in function 'xgboost_2_2'\"}";
+        assertResponse(url, 400, expected);
+    }
+
+    @Test
+    public void testLightGBMBatchEvaluation() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("numerical_1", "0.1,0.1");
+        properties.put("numerical_2", "0.2,0.2");
+        properties.put("categorical_1", "a");
+        properties.put("categorical_2", "i");
+        String url = "http://localhost/model-evaluation/v1/lightgbm_regression/eval-batch";
+        String expected = "{\"values\":[2.054697758469921,2.054697758469921]}";
+        assertResponse(url, properties, 200, expected);
+    }
+
     @Test
     public void testLightGBMEvaluationWithoutBindings() {
         String url = "http://localhost/model-evaluation/v1/lightgbm_regression/eval";
@@ -37,7 +37,7 @@ class AttributeConverter implements IntermediateOperation.AttributeMap {
                 switch (attr.getType()) {
                     case INT: return Optional.of(DoubleValue.frozen(attr.getI()));
                     case FLOAT: return Optional.of(DoubleValue.frozen(attr.getF()));
-                    case STRING: return Optional.of(StringValue.frozen(attr.getS().toString()));
+                    case STRING: return Optional.of(StringValue.frozen(attr.getS().toStringUtf8()));
                     case TENSOR: return Optional.of(new TensorValue(TensorConverter.toVespaTensor(attr.getT(), TypeConverter.typeFrom(attr.getT()))));
                     default:
                         return Optional.empty();
@@ -59,7 +59,7 @@ class AttributeConverter implements IntermediateOperation.AttributeMap {
                 switch (attr.getType()) {
                     case INTS: return Optional.of(attr.getIntsList().stream().map(DoubleValue::new).collect(Collectors.toList()));
                     case FLOATS: return Optional.of(attr.getFloatsList().stream().map(DoubleValue::new).collect(Collectors.toList()));
-                    case STRINGS: return Optional.of(attr.getStringsList().stream().map((s) -> StringValue.frozen(s.toString())).collect(Collectors.toList()));
+                    case STRINGS: return Optional.of(attr.getStringsList().stream().map((s) -> StringValue.frozen(s.toStringUtf8())).collect(Collectors.toList()));
                     default:
                         return Optional.empty();
                 }
@@ -8,6 +8,7 @@ import ai.vespa.rankingexpression.importer.operations.Gather;
 import ai.vespa.rankingexpression.importer.operations.OnnxConstant;
 import ai.vespa.rankingexpression.importer.operations.OnnxCast;
 import ai.vespa.rankingexpression.importer.operations.Gemm;
+import ai.vespa.rankingexpression.importer.operations.LayerNormalization;
 import ai.vespa.rankingexpression.importer.operations.ConcatReduce;
 import ai.vespa.rankingexpression.importer.operations.OnnxConcat;
 import ai.vespa.rankingexpression.importer.operations.Range;
@@ -21,6 +22,7 @@ import ai.vespa.rankingexpression.importer.operations.Tile;
 import ai.vespa.rankingexpression.importer.operations.Transpose;
 import ai.vespa.rankingexpression.importer.operations.Unsqueeze;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import ai.vespa.rankingexpression.importer.IntermediateGraph;
 import ai.vespa.rankingexpression.importer.OrderedTensorType;
@@ -44,6 +46,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.DoubleUnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -89,6 +92,7 @@ class GraphImporter {
             case "constantofshape": return new ConstantOfShape(modelName, nodeName, inputs, attributes);
             case "cos":         return new Map(modelName, nodeName, inputs, ScalarFunctions.cos());
             case "div":         return new Join(modelName, nodeName, inputs, ScalarFunctions.divide());
+            case "dropout":     return new Identity(modelName, nodeName, inputs.subList(0, 1)); // no-op at inference
             case "elu":         return new Map(modelName, nodeName, inputs, ScalarFunctions.elu(attributes.get("alpha").orElse(eluAlpha).asDouble()));
             case "erf":         return new Map(modelName, nodeName, inputs, ScalarFunctions.erf());
             case "equal":       return new Join(modelName, nodeName, inputs, ScalarFunctions.equal());
@@ -96,9 +100,11 @@ class GraphImporter {
             case "expand":      return new Expand(modelName, nodeName, inputs);
             case "floor":       return new Map(modelName, nodeName, inputs, ScalarFunctions.floor());
             case "gather":      return new Gather(modelName, nodeName, inputs, attributes);
+            case "gelu":        return new Map(modelName, nodeName, inputs, geluFunction(attributes));
             case "gemm":        return new Gemm(modelName, nodeName, inputs, attributes);
             case "greater":     return new Join(modelName, nodeName, inputs, ScalarFunctions.greater());
             case "identity":    return new Identity(modelName, nodeName, inputs);
+            case "layernormalization": return new LayerNormalization(modelName, nodeName, inputs, attributes);
             case "less":        return new Join(modelName, nodeName, inputs, ScalarFunctions.less());
             case "log":         return new Map(modelName, nodeName, inputs, ScalarFunctions.log());
             case "matmul":      return new MatMul(modelName, nodeName, inputs);
@@ -147,6 +153,15 @@ class GraphImporter {
         return op;
     }
 
+    private static DoubleUnaryOperator geluFunction(AttributeConverter attributes) {
+        String approximation = attributes.get("approximate").map(value -> ((StringValue)value).asString()).orElse("none");
+        switch (approximation) {
+            case "none": return ScalarFunctions.gelu();
+            case "tanh": return ScalarFunctions.geluTanh();
+            default: throw new IllegalArgumentException("Unknown Gelu approximation '" + approximation + "'");
+        }
+    }
+
     static IntermediateGraph importGraph(String modelName, Onnx.ModelProto model) {
         Onnx.GraphProto onnxGraph = model.getGraph();
 
@@ -0,0 +1,176 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.operations;
+
+import ai.vespa.rankingexpression.importer.DimensionRenamer;
+import ai.vespa.rankingexpression.importer.OrderedTensorType;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Map;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Converts an imported 'LayerNormalization' operation to
+ * (x - mean(x)) / sqrt(mean((x - mean(x))^2) + epsilon) * scale + bias,
+ * where the means are over the dimensions from the given axis.
+ * The centered input is computed by a partial operation exported as a function, such that it is
+ * computed once instead of being recomputed where it is used.
+ *
+ * @author agent
+ */
+public class LayerNormalization extends IntermediateOperation {
+
+    private final static DoubleValue defaultAxis = DoubleValue.frozen(-1);
+    private final static DoubleValue defaultEpsilon = DoubleValue.frozen(1e-05);
+
+    private final AttributeMap attributeMap;
+    private final int axis;
+    private final double epsilon;
+
+    public LayerNormalization(String modelName, String nodeName, List<IntermediateOperation> inputs, AttributeMap attributeMap) {
+        super(modelName, nodeName, inputs);
+        this.attributeMap = attributeMap;
+        this.axis = (int) attributeMap.get("axis").orElse(defaultAxis).asDouble();
+        this.epsilon = attributeMap.get("epsilon").orElse(defaultEpsilon).asDouble();
+        if (inputs.size() > 0)
+            insert(new CenteringPartialOperation(modelName, nodeName, null), 0); // inputs are fixed in insert
+    }
+
+    @Override
+    protected OrderedTensorType lazyGetType() {
+        if ( ! check2or3InputsPresent()) return null;
+
+        OrderedTensorType inputType = inputs.get(0).type().get();
+        for (int i = 1; i < inputs.size(); i++) {
+            OrderedTensorType type = inputs.get(i).type().get();
+            if (type.rank() > inputType.rank() - normalizedFrom(inputType))
+                throw new IllegalArgumentException("LayerNormalization: input " + i + " of type " + type +
+                                                   " is not broadcastable to the normalized dimensions of " + inputType);
+        }
+        OrderedTensorType.Builder builder = new OrderedTensorType.Builder(resultValueType());
+        inputType.dimensions().forEach(builder::add);
+        return builder.build();
+    }
+
+    @Override
+    protected TensorFunction lazyGetFunction() {
+        if ( ! check2or3InputsPresent()) return null;
+        if ( ! allInputFunctionsPresent(inputs.size())) return null;
+
+        List<String> normalizedDimensions = normalizedDimensions(inputs.get(0).type().get());
+        TensorFunction centered = inputs.get(0).function().get();
+        TensorFunction variance = new Reduce(new Map(centered, ScalarFunctions.square()), Reduce.Aggregator.avg, normalizedDimensions);
+        TensorFunction normalizer = new Map(variance, new ReciprocalSqrt(epsilon));
+        TensorFunction result = new Join(centered, normalizer, ScalarFunctions.multiply());
+        result = new Join(result, inputs.get(1).function().get(), ScalarFunctions.multiply());
+        if (inputs.size() == 3)
+            result = new Join(result, inputs.get(2).function().get(), ScalarFunctions.add());
+        return result;
+    }
+
+    @Override
+    public void addDimensionNameConstraints(DimensionRenamer renamer) {
+        if ( ! check2or3InputsPresent()) return;
+
+        // The scale and bias are unidirectionally broadcastable to the input
+        OrderedTensorType inputType = inputs.get(0).type().get();
+        for (int i = 1; i < inputs.size(); i++) {
+            OrderedTensorType type = inputs.get(i).type().get();
+            int sizeDifference = inputType.rank() - type.rank();
+            for (int j = 0; j < type.rank(); j++)
+                renamer.addConstraint(inputType.dimensions().get(j + sizeDifference).name(),
+                                      type.dimensions().get(j).name(),
+                                      DimensionRenamer.Constraint.equal(false), this);
+        }
+    }
+
+    private boolean check2or3InputsPresent() {
+        if (inputs.size() != 2 && inputs.size() != 3) {
+            throw new IllegalArgumentException("Expected 2 or 3 inputs for '" + name + "', got " + inputs.size());
+        }
+        return allInputTypesPresent(inputs.size());
+    }
+
+    /** Returns the index of the first dimension to normalize over */
+    private int normalizedFrom(OrderedTensorType inputType) {
+        int normalizedFrom = axis < 0 ? inputType.rank() + axis : axis;
+        if (normalizedFrom < 0 || normalizedFrom >= inputType.rank())
+            throw new IllegalArgumentException("LayerNormalization: axis " + axis + " is out of bounds for " + inputType);
+        return normalizedFrom;
+    }
+
+    private List<String> normalizedDimensions(OrderedTensorType inputType) {
+        return inputType.dimensionNames().subList(normalizedFrom(inputType), inputType.rank());
+    }
+
+    @Override
+    public LayerNormalization withInputs(List<IntermediateOperation> inputs) {
+        return new LayerNormalization(modelName(), name(), inputs, attributeMap);
+    }
+
+    @Override
+    public String operationName() { return "LayerNormalization"; }
+
+    /** 1 / sqrt(a + epsilon) */
+    private static class ReciprocalSqrt implements DoubleUnaryOperator {
+
+        private final double epsilon;
+
+        ReciprocalSqrt(double epsilon) {
+            this.epsilon = epsilon;
+        }
+
+        @Override
+        public double applyAsDouble(double operand) { return 1 / Math.sqrt(operand + epsilon); }
+
+        @Override
+        public String toString() { return "f(a)(1 / sqrt(a + " + epsilon + "))"; }
+
+    }
+
+    /*
+     * Operation to insert between the input and this computing x - mean(x), as the result is used twice
+     */
+    private class CenteringPartialOperation extends IntermediateOperation {
+
+        private CenteringPartialOperation(String modelName, String nodeName, List<IntermediateOperation> inputs) {
+            super(modelName, nodeName + "_centered", inputs != null ? inputs : Collections.emptyList());
+        }
+
+        @Override
+        protected OrderedTensorType lazyGetType() {
+            if ( ! allInputTypesPresent(1)) return null;
+
+            // the input is referenced twice, so make sure it is exported as a ranking function
+            inputs.get(0).exportAsRankingFunction = true;
+
+            // this should also be its own function since it is used twice
+            exportAsRankingFunction = true;
+
+            return inputs.get(0).type().get();
+        }
+
+        @Override
+        protected TensorFunction lazyGetFunction() {
+            if ( ! allInputFunctionsPresent(1)) return null;
+            TensorFunction input = inputs.get(0).function().get();
+            TensorFunction mean = new Reduce(input, Reduce.Aggregator.avg, normalizedDimensions(inputs.get(0).type().get()));
+            return new Join(input, mean, ScalarFunctions.subtract());
+        }
+
+        @Override
+        public CenteringPartialOperation withInputs(List<IntermediateOperation> inputs) {
+            return new CenteringPartialOperation(modelName(), name(), inputs);
+        }
+
+        @Override
+        public String operationName() { return "LayerNormalizationCentering"; }
+
+    }
+
+}
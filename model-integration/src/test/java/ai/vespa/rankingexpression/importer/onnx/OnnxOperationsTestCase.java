@@ -5,6 +5,7 @@ import ai.vespa.rankingexpression.importer.IntermediateGraph;
 import ai.vespa.rankingexpression.importer.OrderedTensorType;
 import ai.vespa.rankingexpression.importer.operations.Constant;
 import ai.vespa.rankingexpression.importer.operations.IntermediateOperation;
+import com.google.protobuf.ByteString;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.evaluation.Context;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
@@ -28,6 +29,7 @@ import static ai.vespa.rankingexpression.importer.onnx.GraphImporter.*;
 import static onnx.Onnx.AttributeProto.AttributeType.FLOAT;
 import static onnx.Onnx.AttributeProto.AttributeType.INT;
 import static onnx.Onnx.AttributeProto.AttributeType.INTS;
+import static onnx.Onnx.AttributeProto.AttributeType.STRING;
 import static onnx.Onnx.AttributeProto.AttributeType.TENSOR;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -579,6 +581,44 @@ public class OnnxOperationsTestCase {
         assertEval("expand", input, shape, evaluate("tensor(d0[2],d1[3],d2[4]):[1,1,1,1,2,2,2,2,3,3,3,3,1,1,1,1,2,2,2,2,3,3,3,3]"));
     }
 
+    @Test
+    public void testDropout1() throws ParseException {
+        Tensor x = evaluate("random(d0[2],d1[3],d2[4])");
+        assertEval("dropout", x, x);
+        assertEval("dropout", x, evaluate("tensor():[0.5]"), x); // ratio is ignored at inference
+    }
+
+    @Test
+    public void testGelu20() throws ParseException {
+        Tensor x = evaluate("tensor(d0[7]):[-3.0, -1.0, -0.1, 0.0, 0.1, 1.0, 3.0]");
+        assertEval("gelu", x, evaluate("0.5 * x * (1 + erf(x * 0.7071067811865476))", x));
+        assertEval("gelu", x, evaluate("0.5 * x * (1 + erf(x * 0.7071067811865476))", x), createAttribute("approximate", "none"));
+        assertEval("gelu", x, evaluate("0.5 * x * (1 + tanh(0.7978845608028654 * (x + 0.044715 * x * x * x)))", x), createAttribute("approximate", "tanh"));
+    }
+
+    @Test
+    public void testLayerNormalization17() throws ParseException {
+        Tensor x = evaluate("tensor(d0[2],d1[3]):[1, 2, 3, 4, 6, 11]");
+        Tensor scale = evaluate("tensor(d0[3]):[1, 2, 0.5]");
+        Tensor bias = evaluate("tensor(d0[3]):[0, 1, -1]");
+        String centered = "(x - avg(x, d1))";
+        String normalized = centered + " / sqrt(avg(" + centered + " * " + centered + ", d1) + 1.0E-5)";
+        assertEval("layernormalization", x, scale, evaluate(normalized + " * rename(y, d0, d1)", x, scale));
+        assertEval("layernormalization", x, scale, bias, evaluate(normalized + " * rename(y, d0, d1) + rename(z, d0, d1)", x, scale, bias));
+        assertEval("layernormalization", x, scale, bias, evaluate(normalized + " * rename(y, d0, d1) + rename(z, d0, d1)", x, scale, bias),
+                   createAttribute("axis", 1));
+        assertEval("layernormalization", x, scale, bias,
+                   evaluate(normalized.replace("1.0E-5", "0.5") + " * rename(y, d0, d1) + rename(z, d0, d1)", x, scale, bias),
+                   createAttribute("epsilon", 0.5f));
+
+        x = evaluate("random(d0[2],d1[3],d2[4])");
+        scale = evaluate("random(d0[3],d1[4])");
+        centered = "(x - avg(x, d1, d2))";
+        normalized = centered + " / sqrt(avg(" + centered + " * " + centered + ", d1, d2) + 1.0E-5)";
+        assertEval("layernormalization", x, scale, evaluate(normalized + " * rename(y, (d0, d1), (d1, d2))", x, scale),
+                   createAttribute("axis", -2));
+    }
+
     @Test
     public void testJoinWithSameInput() throws ParseException {
         Tensor x = evaluate("tensor(d0[2],d1[3]):[1,2,3,4,5,6]");
@@ -731,6 +771,10 @@ public class OnnxOperationsTestCase {
         return new Attributes().attr(name, val).build();
     }
 
+    static AttributeConverter createAttribute(String name, String val) {
+        return new Attributes().attr(name, val).build();
+    }
+
     static AttributeConverter createAttribute(String name, int [] vals) {
         return new Attributes().attr(name, vals).build();
     }
@@ -761,6 +805,11 @@ public class OnnxOperationsTestCase {
             return this;
         }
 
+        Attributes attr(String name, String val) {
+            nodeBuilder.addAttribute(Onnx.AttributeProto.newBuilder().setName(name).setType(STRING).setS(ByteString.copyFromUtf8(val)).build());
+            return this;
+        }
+
         Attributes attr(String name, int [] vals) {
             Onnx.AttributeProto.Builder builder = Onnx.AttributeProto.newBuilder();
             for (int val : vals) {
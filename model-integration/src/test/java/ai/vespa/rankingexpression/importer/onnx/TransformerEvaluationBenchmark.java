@@ -0,0 +1,36 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.onnx;
+
+import ai.vespa.rankingexpression.importer.ImportedModel;
+
+import java.util.Random;
+
+/**
+ * Measures the time spent evaluating a transformer encoder layer imported with the LayerNormalization and
+ * Gelu operators, compared to the same layer where these are expressed by elementwise operators.
+ *
+ * @author agent
+ */
+public class TransformerEvaluationBenchmark {
+
+    private static void benchmark(String description, String file, int iterations) {
+        ImportedModel model = TransformerImportTestCase.importModel(file);
+        double[] input = TransformerImportTestCase.input(new Random(7));
+        for (int i = 0; i < iterations / 5; i++) // warm-up
+            TransformerImportTestCase.evaluate(model, input);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            TransformerImportTestCase.evaluate(model, input);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println(description + ": " + totalTime / iterations / 1000 + " us per evaluation, " +
+                           model.functions().size() + " functions");
+    }
+
+    public static void main(String[] args) {
+        for (int i = 0; i < 2; i++) {
+            benchmark("Fused     ", "encoder_layer.onnx", 1000);
+            benchmark("Decomposed", "encoder_layer_decomposed.onnx", 1000);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.onnx;
+
+import ai.vespa.rankingexpression.importer.ImportedModel;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests importing and evaluating a BERT-style transformer encoder layer, both when it uses the
+ * LayerNormalization and Gelu operators and when these are expressed by elementwise operators.
+ *
+ * @author agent
+ */
+public class TransformerImportTestCase {
+
+    @Test
+    public void testFusedEncoderLayer() {
+        assertEvaluatesLikeReference("encoder_layer.onnx");
+    }
+
+    @Test
+    public void testDecomposedEncoderLayer() {
+        assertEvaluatesLikeReference("encoder_layer_decomposed.onnx");
+    }
+
+    @Test
+    public void testFusedOperatorsAreImportedAsFunctions() {
+        ImportedModel model = importModel("encoder_layer.onnx");
+        assertTrue(model.functions().containsKey("imported_ml_function_transformer_attention_normalized_centered"));
+        assertTrue(model.functions().containsKey("imported_ml_function_transformer_output_centered"));
+        assertTrue(model.functions().get("imported_ml_function_transformer_feed_forward_residual").contains("erf(a * 0.7071067811865476)"));
+    }
+
+    private void assertEvaluatesLikeReference(String file) {
+        TransformerModel reference = new TransformerModel();
+        ImportedModel model = importModel(file);
+        double[] input = input(new Random(7));
+        Tensor result = evaluate(model, input);
+
+        double[] expected = reference.evaluate(input);
+        assertEquals(expected.length, result.size());
+        for (int i = 0; i < expected.length; i++)
+            assertEquals("Cell " + i + " of " + file, expected[i], ((IndexedTensor)result).get(i), 1e-4);
+    }
+
+    static ImportedModel importModel(String file) {
+        return new OnnxImporter().importModel("transformer", TransformerModel.modelDirectory + file);
+    }
+
+    static double[] input(Random random) {
+        double[] input = new double[TransformerModel.sequenceLength * TransformerModel.hiddenSize];
+        for (int i = 0; i < input.length; i++)
+            input[i] = (float)random.nextGaussian();
+        return input;
+    }
+
+    /** Evaluates the output of the given model for the given input, evaluating each function once */
+    static Tensor evaluate(ImportedModel model, double[] input) {
+        Context context = TestableModel.contextFrom(model);
+        TensorType inputType = model.inputs().get("input");
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(inputType);
+        for (int i = 0; i < input.length; i++)
+            builder.cellByDirectIndex(i, input[i]);
+        context.put("input", new TensorValue(builder.build()));
+        model.functions().forEach((name, expression) -> evaluateFunction(context, model, name));
+        return model.expressions().get("output").evaluate(context).asTensor();
+    }
+
+    private static void evaluateFunction(Context context, ImportedModel model, String functionName) {
+        if ( ! context.names().contains(functionName)) {
+            RankingExpression e = RankingExpression.from(model.functions().get(functionName));
+            evaluateFunctionDependencies(context, model, e.getRoot());
+            context.put(functionName, new TensorValue(e.evaluate(context).asTensor()));
+        }
+    }
+
+    private static void evaluateFunctionDependencies(Context context, ImportedModel model, ExpressionNode node) {
+        if (node instanceof ReferenceNode) {
+            String name = node.toString();
+            if (model.functions().containsKey(name))
+                evaluateFunction(context, model, name);
+        }
+        else if (node instanceof CompositeNode) {
+            for (ExpressionNode child : ((CompositeNode)node).children())
+                evaluateFunctionDependencies(context, model, child);
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.onnx;
+
+import com.google.protobuf.ByteString;
+import onnx.Onnx;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Creates small BERT-style ONNX models consisting of a single transformer encoder layer:
+ * Multi-head self attention followed by a feed forward network with gelu activation,
+ * each with a residual connection and layer normalization.
+ * The models are written to src/test/models/onnx/transformer by running main. The "fused" model uses the
+ * LayerNormalization and Gelu operators, while the "decomposed" model expresses them by elementwise operators
+ * and reductions, as older exporters do.
+ *
+ * This also contains a reference implementation of the layer used to verify the imported models.
+ *
+ * @author agent
+ */
+public class TransformerModel {
+
+    static final String modelDirectory = "src/test/models/onnx/transformer/";
+
+    static final int sequenceLength = 8;
+    static final int hiddenSize = 16;
+    static final int heads = 2;
+    static final int headSize = hiddenSize / heads;
+    static final int feedForwardSize = 32;
+    static final float epsilon = 1e-5f;
+
+    private final Random random = new Random(42);
+    final float[] queryWeights = weights(hiddenSize * hiddenSize), queryBias = weights(hiddenSize);
+    final float[] keyWeights = weights(hiddenSize * hiddenSize), keyBias = weights(hiddenSize);
+    final float[] valueWeights = weights(hiddenSize * hiddenSize), valueBias = weights(hiddenSize);
+    final float[] outputWeights = weights(hiddenSize * hiddenSize), outputBias = weights(hiddenSize);
+    final float[] attentionScale = scales(hiddenSize), attentionShift = weights(hiddenSize);
+    final float[] intermediateWeights = weights(hiddenSize * feedForwardSize), intermediateBias = weights(feedForwardSize);
+    final float[] feedForwardWeights = weights(feedForwardSize * hiddenSize), feedForwardBias = weights(hiddenSize);
+    final float[] feedForwardScale = scales(hiddenSize), feedForwardShift = weights(hiddenSize);
+
+    private float[] weights(int size) {
+        float[] weights = new float[size];
+        for (int i = 0; i < size; i++)
+            weights[i] = (float)(random.nextGaussian() * 0.3);
+        return weights;
+    }
+
+    private float[] scales(int size) {
+        float[] scales = new float[size];
+        for (int i = 0; i < size; i++)
+            scales[i] = 1 + (float)(random.nextGaussian() * 0.1);
+        return scales;
+    }
+
+    /** Returns a model of this layer, with fused LayerNormalization and Gelu operators or decomposed */
+    Onnx.ModelProto model(boolean fused) {
+        GraphBuilder graph = new GraphBuilder(fused);
+        graph.input("input", 1, sequenceLength, hiddenSize);
+        graph.output("output", 1, sequenceLength, hiddenSize);
+
+        graph.constant("query_weights", queryWeights, hiddenSize, hiddenSize);
+        graph.constant("query_bias", queryBias, hiddenSize);
+        graph.constant("key_weights", keyWeights, hiddenSize, hiddenSize);
+        graph.constant("key_bias", keyBias, hiddenSize);
+        graph.constant("value_weights", valueWeights, hiddenSize, hiddenSize);
+        graph.constant("value_bias", valueBias, hiddenSize);
+        graph.constant("output_weights", outputWeights, hiddenSize, hiddenSize);
+        graph.constant("output_bias", outputBias, hiddenSize);
+        graph.constant("attention_scale", attentionScale, hiddenSize);
+        graph.constant("attention_shift", attentionShift, hiddenSize);
+        graph.constant("intermediate_weights", intermediateWeights, hiddenSize, feedForwardSize);
+        graph.constant("intermediate_bias", intermediateBias, feedForwardSize);
+        graph.constant("feed_forward_weights", feedForwardWeights, feedForwardSize, hiddenSize);
+        graph.constant("feed_forward_bias", feedForwardBias, hiddenSize);
+        graph.constant("feed_forward_scale", feedForwardScale, hiddenSize);
+        graph.constant("feed_forward_shift", feedForwardShift, hiddenSize);
+        graph.constant("heads_shape", new long[] { 1, sequenceLength, heads, headSize });
+        graph.constant("hidden_shape", new long[] { 1, sequenceLength, hiddenSize });
+        graph.constant("attention_divisor", new float[] { (float)Math.sqrt(headSize) });
+
+        // Self attention
+        graph.dense("query", "input", "query_weights", "query_bias");
+        graph.dense("key", "input", "key_weights", "key_bias");
+        graph.dense("value", "input", "value_weights", "value_bias");
+        graph.node("Reshape", "query_heads", "query", "heads_shape");
+        graph.node("Reshape", "key_heads", "key", "heads_shape");
+        graph.node("Reshape", "value_heads", "value", "heads_shape");
+        graph.node("Transpose", "query_transposed", "query_heads").ints("perm", 0, 2, 1, 3);
+        graph.node("Transpose", "key_transposed", "key_heads").ints("perm", 0, 2, 3, 1);
+        graph.node("Transpose", "value_transposed", "value_heads").ints("perm", 0, 2, 1, 3);
+        graph.node("MatMul", "attention_scores", "query_transposed", "key_transposed");
+        graph.node("Div", "attention_scaled", "attention_scores", "attention_divisor");
+        graph.node("Softmax", "attention_probabilities", "attention_scaled").ints("axis", -1);
+        graph.node("MatMul", "context", "attention_probabilities", "value_transposed");
+        graph.node("Transpose", "context_transposed", "context").ints("perm", 0, 2, 1, 3);
+        graph.node("Reshape", "context_hidden", "context_transposed", "hidden_shape");
+        graph.dense("attention_output", "context_hidden", "output_weights", "output_bias");
+        graph.node("Dropout", "attention_dropout", "attention_output");
+        graph.node("Add", "attention_residual", "input", "attention_dropout");
+        graph.layerNormalization("attention_normalized", "attention_residual", "attention_scale", "attention_shift");
+
+        // Feed forward
+        graph.dense("intermediate", "attention_normalized", "intermediate_weights", "intermediate_bias");
+        graph.gelu("intermediate_activated", "intermediate");
+        graph.dense("feed_forward", "intermediate_activated", "feed_forward_weights", "feed_forward_bias");
+        graph.node("Add", "feed_forward_residual", "attention_normalized", "feed_forward");
+        graph.layerNormalization("output", "feed_forward_residual", "feed_forward_scale", "feed_forward_shift");
+
+        return Onnx.ModelProto.newBuilder()
+                              .setIrVersion(7)
+                              .setProducerName("vespa")
+                              .addOpsetImport(Onnx.OperatorSetIdProto.newBuilder().setVersion(fused ? 20 : 12))
+                              .setGraph(graph.build())
+                              .build();
+    }
+
+    /** Evaluates this layer for the given input of size sequenceLength * hiddenSize */
+    double[] evaluate(double[] input) {
+        double[] query = dense(input, sequenceLength, hiddenSize, queryWeights, queryBias, hiddenSize);
+        double[] key = dense(input, sequenceLength, hiddenSize, keyWeights, keyBias, hiddenSize);
+        double[] value = dense(input, sequenceLength, hiddenSize, valueWeights, valueBias, hiddenSize);
+
+        double[] context = new double[sequenceLength * hiddenSize];
+        for (int head = 0; head < heads; head++) {
+            for (int i = 0; i < sequenceLength; i++) {
+                double[] scores = new double[sequenceLength];
+                double max = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < sequenceLength; j++) {
+                    for (int k = 0; k < headSize; k++)
+                        scores[j] += query[i * hiddenSize + head * headSize + k] * key[j * hiddenSize + head * headSize + k];
+                    scores[j] /= (float)Math.sqrt(headSize);
+                    max = Math.max(max, scores[j]);
+                }
+                double sum = 0;
+                for (int j = 0; j < sequenceLength; j++)
+                    sum += scores[j] = Math.exp(scores[j] - max);
+                for (int j = 0; j < sequenceLength; j++)
+                    for (int k = 0; k < headSize; k++)
+                        context[i * hiddenSize + head * headSize + k] += scores[j] / sum * value[j * hiddenSize + head * headSize + k];
+            }
+        }
+
+        double[] attention = dense(context, sequenceLength, hiddenSize, outputWeights, outputBias, hiddenSize);
+        for (int i = 0; i < attention.length; i++)
+            attention[i] += input[i];
+        attention = layerNormalization(attention, attentionScale, attentionShift);
+
+        double[] intermediate = dense(attention, sequenceLength, hiddenSize, intermediateWeights, intermediateBias, feedForwardSize);
+        for (int i = 0; i < intermediate.length; i++)
+            intermediate[i] = 0.5 * intermediate[i] * (1 + erf(intermediate[i] / Math.sqrt(2)));
+        double[] output = dense(intermediate, sequenceLength, feedForwardSize, feedForwardWeights, feedForwardBias, hiddenSize);
+        for (int i = 0; i < output.length; i++)
+            output[i] += attention[i];
+        return layerNormalization(output, feedForwardScale, feedForwardShift);
+    }
+
+    private static double[] dense(double[] input, int rows, int inputSize, float[] weights, float[] bias, int outputSize) {
+        double[] output = new double[rows * outputSize];
+        for (int row = 0; row < rows; row++) {
+            for (int j = 0; j < outputSize; j++) {
+                double sum = bias[j];
+                for (int i = 0; i < inputSize; i++)
+                    sum += input[row * inputSize + i] * weights[i * outputSize + j];
+                output[row * outputSize + j] = sum;
+            }
+        }
+        return output;
+    }
+
+    private static double[] layerNormalization(double[] input, float[] scale, float[] shift) {
+        double[] output = new double[input.length];
+        for (int row = 0; row < sequenceLength; row++) {
+            double mean = 0;
+            for (int i = 0; i < hiddenSize; i++)
+                mean += input[row * hiddenSize + i] / hiddenSize;
+            double variance = 0;
+            for (int i = 0; i < hiddenSize; i++)
+                variance += Math.pow(input[row * hiddenSize + i] - mean, 2) / hiddenSize;
+            for (int i = 0; i < hiddenSize; i++)
+                output[row * hiddenSize + i] = (input[row * hiddenSize + i] - mean) / Math.sqrt(variance + epsilon) * scale[i] + shift[i];
+        }
+        return output;
+    }
+
+    /** The error function, computed accurately by its Taylor series for the small arguments used here */
+    private static double erf(double x) {
+        if (Math.abs(x) > 4) return Math.signum(x);
+        double sum = 0, term = x;
+        for (int n = 0; n < 100; n++) {
+            sum += term / (2 * n + 1);
+            term *= -x * x / (n + 1);
+        }
+        return 2 / Math.sqrt(Math.PI) * sum;
+    }
+
+    private static class GraphBuilder {
+
+        private final Onnx.GraphProto.Builder graph = Onnx.GraphProto.newBuilder().setName("transformer");
+        private final boolean fused;
+
+        GraphBuilder(boolean fused) {
+            this.fused = fused;
+        }
+
+        void input(String name, long ... shape) {
+            graph.addInput(valueInfo(name, shape));
+        }
+
+        void output(String name, long ... shape) {
+            graph.addOutput(valueInfo(name, shape));
+        }
+
+        private Onnx.ValueInfoProto valueInfo(String name, long ... shape) {
+            Onnx.TensorShapeProto.Builder shapeBuilder = Onnx.TensorShapeProto.newBuilder();
+            for (long size : shape)
+                shapeBuilder.addDim(Onnx.TensorShapeProto.Dimension.newBuilder().setDimValue(size));
+            Onnx.TypeProto.Tensor.Builder type = Onnx.TypeProto.Tensor.newBuilder()
+                                                                  .setElemType(Onnx.TensorProto.DataType.FLOAT)
+                                                                  .setShape(shapeBuilder);
+            return Onnx.ValueInfoProto.newBuilder().setName(name).setType(Onnx.TypeProto.newBuilder().setTensorType(type)).build();
+        }
+
+        void constant(String name, float[] values, long ... shape) {
+            Onnx.TensorProto.Builder tensor = Onnx.TensorProto.newBuilder().setName(name).setDataType(Onnx.TensorProto.DataType.FLOAT);
+            for (long size : shape)
+                tensor.addDims(size);
+            for (float value : values)
+                tensor.addFloatData(value);
+            graph.addInitializer(tensor);
+        }
+
+        void constant(String name, long[] values) {
+            Onnx.TensorProto.Builder tensor = Onnx.TensorProto.newBuilder().setName(name).setDataType(Onnx.TensorProto.DataType.INT64);
+            tensor.addDims(values.length);
+            for (long value : values)
+                tensor.addInt64Data(value);
+            graph.addInitializer(tensor);
+        }
+
+        /** Adds a node and returns a builder of its attributes */
+        NodeBuilder node(String type, String output, String ... inputs) {
+            return new NodeBuilder(type, output, inputs);
+        }
+
+        /** Adds input * weights + bias */
+        void dense(String output, String input, String weights, String bias) {
+            node("MatMul", output + "_product", input, weights);
+            node("Add", output, output + "_product", bias);
+        }
+
+        void layerNormalization(String output, String input, String scale, String shift) {
+            if (fused) {
+                node("LayerNormalization", output, input, scale, shift).ints("axis", -1).floats("epsilon", epsilon);
+                return;
+            }
+            constant(output + "_epsilon", new float[] { epsilon });
+            constant(output + "_two", new float[] { 2 });
+            node("ReduceMean", output + "_mean", input).ints("axes", -1);
+            node("Sub", output + "_centered", input, output + "_mean");
+            node("Pow", output + "_squared", output + "_centered", output + "_two");
+            node("ReduceMean", output + "_variance", output + "_squared").ints("axes", -1);
+            node("Add", output + "_variance_epsilon", output + "_variance", output + "_epsilon");
+            node("Sqrt", output + "_deviation", output + "_variance_epsilon");
+            node("Div", output + "_normalized", output + "_centered", output + "_deviation");
+            node("Mul", output + "_scaled", output + "_normalized", scale);
+            node("Add", output, output + "_scaled", shift);
+        }
+
+        void gelu(String output, String input) {
+            if (fused) {
+                node("Gelu", output, input);
+                return;
+            }
+            constant(output + "_sqrt_two", new float[] { (float)Math.sqrt(2) });
+            constant(output + "_one", new float[] { 1 });
+            constant(output + "_half", new float[] { 0.5f });
+            node("Div", output + "_scaled", input, output + "_sqrt_two");
+            node("Erf", output + "_erf", output + "_scaled");
+            node("Add", output + "_erf_plus_one", output + "_erf", output + "_one");
+            node("Mul", output + "_product", input, output + "_erf_plus_one");
+            node("Mul", output, output + "_product", output + "_half");
+        }
+
+        Onnx.GraphProto build() { return graph.build(); }
+
+        class NodeBuilder {
+
+            private final int index;
+
+            NodeBuilder(String type, String output, String ... inputs) {
+                Onnx.NodeProto.Builder node = Onnx.NodeProto.newBuilder().setOpType(type).setName(output).addOutput(output);
+                for (String input : inputs)
+                    node.addInput(input);
+                index = graph.getNodeCount();
+                graph.addNode(node);
+            }
+
+            NodeBuilder ints(String name, long ... values) {
+                Onnx.AttributeProto.Builder attribute = Onnx.AttributeProto.newBuilder().setName(name);
+                if (values.length == 1 && ! name.equals("axes"))
+                    attribute.setType(Onnx.AttributeProto.AttributeType.INT).setI(values[0]);
+                else
+                    attribute.setType(Onnx.AttributeProto.AttributeType.INTS).addAllInts(java.util.Arrays.stream(values).boxed()::iterator);
+                graph.getNodeBuilder(index).addAttribute(attribute);
+                return this;
+            }
+
+            NodeBuilder floats(String name, float value) {
+                graph.getNodeBuilder(index).addAttribute(Onnx.AttributeProto.newBuilder().setName(name)
+                                                                 .setType(Onnx.AttributeProto.AttributeType.FLOAT)
+                                                                 .setF(value));
+                return this;
+            }
+
+        }
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        TransformerModel model = new TransformerModel();
+        try (FileOutputStream out = new FileOutputStream(modelDirectory + "encoder_layer.onnx")) {
+            model.model(true).writeTo(out);
+        }
+        try (FileOutputStream out = new FileOutputStream(modelDirectory + "encoder_layer_decomposed.onnx")) {
+            model.model(false).writeTo(out);
+        }
+    }
+
+}
@@ -49,7 +49,12 @@ public class Group extends Identifiable {
             }
         }
 
-        ArrayList<Group> merged = new ArrayList<>();
+        if (rhs.children.isEmpty()) return;
+        if (children.isEmpty()) {
+            children = new ArrayList<>(rhs.children);
+            return;
+        }
+        ArrayList<Group> merged = new ArrayList<>(Math.max(children.size(), rhs.children.size()));
         Iterator<Group> lhsChild = children.iterator(), rhsChild = rhs.children.iterator();
         if (lhsChild.hasNext() && rhsChild.hasNext()) {
             Group lhsGroup = lhsChild.next();
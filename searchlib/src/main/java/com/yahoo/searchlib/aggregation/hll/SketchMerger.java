@@ -44,9 +44,7 @@ public class SketchMerger {
     }
 
     private NormalSketch mergeNormalWithSparse(NormalSketch dest, SparseSketch other) {
-        NormalSketch newSketch = new NormalSketch();
-        newSketch.aggregate(other.data());
-        dest.merge(newSketch);
+        dest.aggregate(other.data());
         return dest;
     }
 
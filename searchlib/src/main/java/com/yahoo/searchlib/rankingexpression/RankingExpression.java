@@ -294,6 +294,16 @@ public class RankingExpression implements Serializable {
         return root.evaluate(context);
     }
 
+    /**
+     * Returns the value of evaluating this expression over the given context as a double,
+     * without creating a value per node where the expression is scalar.
+     *
+     * @throws UnsupportedOperationException if the value of this cannot be represented as a double
+     */
+    public double evaluateDouble(Context context) {
+        return root.evaluateDouble(context);
+    }
+
     /**
      * Creates a ranking expression from a string
      *
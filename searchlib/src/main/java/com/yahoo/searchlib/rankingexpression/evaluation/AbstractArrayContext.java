@@ -73,6 +73,9 @@ public abstract class AbstractArrayContext extends Context implements Cloneable,
     @Override
     public final int getIndex(String name) { return indexedBindings.nameToIndex.get(name); }
 
+    @Override
+    public final boolean hasIndex(String name) { return indexedBindings.nameToIndex.containsKey(name); }
+
     /** Returns the max number of variables which may be set in this */
     @Override
     public int size() { return indexedBindings.size(); }
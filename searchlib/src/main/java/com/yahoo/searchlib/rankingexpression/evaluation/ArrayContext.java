@@ -105,6 +105,14 @@ public class ArrayContext extends AbstractArrayContext implements Cloneable {
         return values[index];
     }
 
+    /** Perform a slow lookup by name directly of the value as a double */
+    @Override
+    public double getDouble(String name) {
+        Integer index = nameToIndex().get(name);
+        if (index == null) return missingValue.asDouble();
+        return getDouble(index);
+    }
+
     /** Perform a fast lookup by index */
     @Override
     public final Value get(int index) {
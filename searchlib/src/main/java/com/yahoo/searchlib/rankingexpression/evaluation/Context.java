@@ -32,6 +32,19 @@ public abstract class Context implements EvaluationContext<Reference> {
      */
     public abstract Value get(String name);
 
+    /**
+     * Returns the value of a simple variable name as a double.
+     * This default implementation returns get(name).asDouble(), subclasses which store doubles
+     * override this to avoid creating a value.
+     *
+     * @param name the name of the variable whose value to return.
+     * @return the value of the named variable.
+     * @throws UnsupportedOperationException if the value cannot be represented as a double
+     */
+    public double getDouble(String name) {
+        return get(name).asDouble();
+    }
+
     @Override
     public TensorType getType(String reference) {
         throw new UnsupportedOperationException("Not able to parse general references from string form");
@@ -20,6 +20,9 @@ public interface ContextIndex {
      */
     int getIndex(String name);
 
+    /** Returns whether the given name is bound by index in this context, such that getIndex may be called with it */
+    default boolean hasIndex(String name) { return false; }
+
     Value get(int index);
 
     double getDouble(int index);
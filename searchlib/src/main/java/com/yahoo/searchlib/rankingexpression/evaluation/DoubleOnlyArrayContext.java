@@ -87,6 +87,14 @@ public class DoubleOnlyArrayContext extends AbstractArrayContext {
         return new DoubleValue(getDouble(index));
     }
 
+    /** Perform a slow lookup by name without creating a value */
+    @Override
+    public double getDouble(String name) {
+        Integer index = nameToIndex().get(name);
+        if (index == null) return missingValue.asDouble();
+        return getDouble(index);
+    }
+
     /** Perform a faster lookup by index */
     @Override
     public final Value get(int index) {
@@ -0,0 +1,317 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A forest of decision trees laid out for evaluating many rows of features at once.
+ * The trees of a {@link GBDTForestNode} are decoded into arrays holding one entry per tree node,
+ * and features are read from a column-major array holding the value of each feature for all the rows.
+ * <p>
+ * If all the trees are small and only have threshold comparison conditions, they are evaluated by bitvectors
+ * as in QuickScorer (Lucchese et al., SIGIR 2015): The thresholds of all the trees are sorted by feature,
+ * and each row scans the thresholds of each feature its value makes false, clearing the leaves that can no
+ * longer be reached. The leftmost remaining leaf of each tree is the leaf the tree would have been traversed to.
+ * Otherwise the trees are traversed one after the other for all the rows.
+ * <p>
+ * The trees are summed in the same order as in {@link GBDTForestNode} such that the results are identical.
+ * This is immutable and thread safe.
+ *
+ * @author agent
+ */
+public final class GBDTBatchForest {
+
+    /** The max number of leaves of trees which are evaluated by bitvectors */
+    public static final int maxBitvectorLeaves = 64;
+
+    private static final byte LEAF = 0, LESS = 1, EQUAL = 2, IN = 3, NOT_LARGER_OR_EQUAL = 4;
+
+    /** The context indexes of the features read by this, where the index of each is its position in the feature columns */
+    private final int[] features;
+
+    // The tree nodes of all trees. The true child of a condition is the node following it
+    private final byte[] operators;
+    private final int[] featureColumns;
+    private final double[] values; // compare constant of conditions, value of leaves
+    private final int[] falseChildren;
+    private final int[] setStarts; // the start of the set in setValues of IN conditions
+    private final int[] setSizes;
+    private final double[] setValues;
+
+    /** The root node of each tree, in forest order */
+    private final int[] roots;
+
+    /** Whether the trees are evaluated by bitvectors, rather than by traversal */
+    private final boolean useBitvectors;
+
+    // The false node entries of the trees when using bitvectors, grouped by operator and feature and sorted by threshold
+    private final int[] lessStarts; // the entries of feature i are from lessStarts[i] to lessStarts[i+1]
+    private final int[] notLargerOrEqualStarts;
+    private final double[] thresholds;
+    private final int[] thresholdTrees; // the tree of each entry
+    private final long[] masks; // each entry's mask clearing the leaves of its true branch
+
+    // The leaves of the trees when using bitvectors, from left to right, starting at leafStarts[tree]
+    private final int[] leafStarts;
+    private final double[] leafValues;
+
+    public GBDTBatchForest(GBDTForestNode forest) {
+        this(forest, maxBitvectorLeaves);
+    }
+
+    /** Creates a batch forest evaluating by bitvectors if no tree has more than the given number of leaves */
+    GBDTBatchForest(GBDTForestNode forest, int maxBitvectorLeaves) {
+        if (maxBitvectorLeaves > GBDTBatchForest.maxBitvectorLeaves)
+            throw new IllegalArgumentException("At most " + GBDTBatchForest.maxBitvectorLeaves + " leaves can be represented in a bitvector");
+        Decoder decoder = new Decoder(forest.values());
+        features = decoder.features.keySet().stream().mapToInt(Integer::intValue).toArray();
+        operators = new byte[decoder.nodes.size()];
+        featureColumns = new int[decoder.nodes.size()];
+        values = new double[decoder.nodes.size()];
+        falseChildren = new int[decoder.nodes.size()];
+        setStarts = new int[decoder.nodes.size()];
+        setSizes = new int[decoder.nodes.size()];
+        for (int i = 0; i < decoder.nodes.size(); i++) {
+            Node node = decoder.nodes.get(i);
+            operators[i] = node.operator;
+            featureColumns[i] = node.featureColumn;
+            values[i] = node.value;
+            falseChildren[i] = node.falseChild;
+            setStarts[i] = node.setStart;
+            setSizes[i] = node.setSize;
+        }
+        setValues = decoder.setValues.stream().mapToDouble(Double::doubleValue).toArray();
+        roots = decoder.roots.stream().mapToInt(Integer::intValue).toArray();
+
+        // Collect the false node entries and leaves of the trees if they can be evaluated by bitvectors.
+        // Mixing with traversal of some trees for each row is slower than traversing all trees
+        useBitvectors = Arrays.stream(roots).allMatch(root -> canUseBitvector(root, maxBitvectorLeaves));
+        List<Entry> entries = new ArrayList<>();
+        List<Integer> leafStartList = new ArrayList<>();
+        List<Double> leafValueList = new ArrayList<>();
+        for (int tree = 0; useBitvectors && tree < roots.length; tree++) {
+            leafStartList.add(leafValueList.size());
+            collect(roots[tree], tree, leafValueList.size(), entries, leafValueList);
+        }
+        entries.sort(Comparator.comparingInt((Entry e) -> e.operator)
+                               .thenComparingInt(e -> e.featureColumn)
+                               .thenComparingDouble(e -> e.threshold));
+        lessStarts = starts(entries, LESS);
+        notLargerOrEqualStarts = starts(entries, NOT_LARGER_OR_EQUAL);
+        thresholds = entries.stream().mapToDouble(e -> e.threshold).toArray();
+        thresholdTrees = entries.stream().mapToInt(e -> e.tree).toArray();
+        masks = entries.stream().mapToLong(e -> e.mask).toArray();
+        leafStarts = leafStartList.stream().mapToInt(Integer::intValue).toArray();
+        leafValues = leafValueList.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Returns the context indexes of the features read by this.
+     * The values of the feature at position i of this array is read from column i of the features given to evaluate.
+     * The returned array must not be modified.
+     */
+    public int[] features() { return features; }
+
+    /** Returns the number of trees in this */
+    public int treeCount() { return roots.length; }
+
+    /** Returns whether the trees of this are evaluated by bitvectors, rather than by traversal */
+    public boolean usesBitvectors() { return useBitvectors; }
+
+    /**
+     * Evaluates this forest for a number of rows.
+     *
+     * @param features the features of all the rows in column-major order: The value of the feature at position f
+     *                 in {@link #features} for row r is at features[f * rows + r]
+     * @param rows the number of rows to evaluate
+     * @return the value of the forest for each row
+     */
+    public double[] evaluate(double[] features, int rows) {
+        if (features.length != this.features.length * rows)
+            throw new IllegalArgumentException("Expected " + this.features.length * rows + " feature values for " +
+                                               rows + " rows, but got " + features.length);
+        double[] result = new double[rows];
+        if (useBitvectors)
+            evaluateByBitvectors(features, rows, result);
+        else
+            traverseAll(features, rows, result);
+        return result;
+    }
+
+    /** Traverses all the trees tree by tree, such that each tree stays in cache while traversed for all the rows */
+    private void traverseAll(double[] features, int rows, double[] result) {
+        for (int root : roots) {
+            for (int row = 0; row < rows; row++)
+                result[row] += traverse(root, features, rows, row);
+        }
+    }
+
+    private void evaluateByBitvectors(double[] features, int rows, double[] result) {
+        long[] bitvectors = new long[roots.length];
+        for (int row = 0; row < rows; row++) {
+            Arrays.fill(bitvectors, -1L);
+            for (int column = 0; column < this.features.length; column++) {
+                double x = features[column * rows + row];
+                for (int i = lessStarts[column], end = lessStarts[column + 1]; i < end && ! (x < thresholds[i]); i++)
+                    bitvectors[thresholdTrees[i]] &= masks[i];
+                for (int i = notLargerOrEqualStarts[column], end = notLargerOrEqualStarts[column + 1]; i < end && x >= thresholds[i]; i++)
+                    bitvectors[thresholdTrees[i]] &= masks[i];
+            }
+
+            double sum = 0;
+            for (int tree = 0; tree < roots.length; tree++)
+                sum += leafValues[leafStarts[tree] + Long.numberOfTrailingZeros(bitvectors[tree])];
+            result[row] = sum;
+        }
+    }
+
+    private double traverse(int node, double[] features, int rows, int row) {
+        while (true) {
+            byte operator = operators[node];
+            if (operator == LEAF) return values[node];
+
+            double x = features[featureColumns[node] * rows + row];
+            boolean isTrue;
+            switch (operator) {
+                case LESS: isTrue = x < values[node]; break;
+                case EQUAL: isTrue = x == values[node]; break;
+                case NOT_LARGER_OR_EQUAL: isTrue = ! (x >= values[node]); break;
+                default: isTrue = contains(node, x);
+            }
+            node = isTrue ? node + 1 : falseChildren[node];
+        }
+    }
+
+    private boolean contains(int node, double x) {
+        for (int i = setStarts[node], end = setStarts[node] + setSizes[node]; i < end; i++)
+            if (x == setValues[i]) return true;
+        return false;
+    }
+
+    private boolean canUseBitvector(int root, int maxLeaves) {
+        int leaves = 0;
+        for (int node = root, end = subtreeEnd(root); node < end; node++) {
+            if (operators[node] == LEAF)
+                leaves++;
+            else if (operators[node] != LESS && operators[node] != NOT_LARGER_OR_EQUAL || Double.isNaN(values[node]))
+                return false;
+        }
+        return leaves <= maxLeaves;
+    }
+
+    /** Returns the node following the subtree of the given node. Subtrees are consecutive, with the false branch last */
+    private int subtreeEnd(int node) {
+        while (operators[node] != LEAF)
+            node = falseChildren[node];
+        return node + 1;
+    }
+
+    /** Adds the false node entries and leaves of the subtree at the given node, returns the number of leaves added */
+    private int collect(int node, int tree, int leafStart, List<Entry> entries, List<Double> leafValues) {
+        if (operators[node] == LEAF) {
+            leafValues.add(values[node]);
+            return 1;
+        }
+        int firstLeaf = leafValues.size() - leafStart;
+        int trueLeaves = collect(node + 1, tree, leafStart, entries, leafValues);
+        long trueLeafBits = ((1L << trueLeaves) - 1) << firstLeaf; // a tree of at most 64 leaves has less than 64 true leaves
+        entries.add(new Entry(operators[node], featureColumns[node], values[node], tree, ~trueLeafBits));
+        return trueLeaves + collect(falseChildren[node], tree, leafStart, entries, leafValues);
+    }
+
+    private int[] starts(List<Entry> entries, byte operator) {
+        int[] starts = new int[features.length + 1];
+        int i = 0;
+        while (i < entries.size() && entries.get(i).operator < operator) i++;
+        for (int column = 0; column <= features.length; column++) {
+            while (i < entries.size() && entries.get(i).operator == operator && entries.get(i).featureColumn < column) i++;
+            starts[column] = i;
+        }
+        return starts;
+    }
+
+    /** A false node entry of a bitvector tree */
+    private static class Entry {
+
+        final byte operator;
+        final int featureColumn;
+        final double threshold;
+        final int tree;
+        final long mask;
+
+        Entry(byte operator, int featureColumn, double threshold, int tree, long mask) {
+            this.operator = operator;
+            this.featureColumn = featureColumn;
+            this.threshold = threshold;
+            this.tree = tree;
+            this.mask = mask;
+        }
+
+    }
+
+    private static class Node {
+
+        byte operator = LEAF;
+        int featureColumn;
+        double value;
+        int falseChild;
+        int setStart;
+        int setSize;
+
+    }
+
+    /** Decodes the trees of a forest encoded as in {@link GBDTNode} into nodes */
+    private static class Decoder {
+
+        final Map<Integer, Integer> features = new LinkedHashMap<>(); // context index to feature column
+        final List<Node> nodes = new ArrayList<>();
+        final List<Double> setValues = new ArrayList<>();
+        final List<Integer> roots = new ArrayList<>();
+
+        Decoder(double[] forest) {
+            int pc = 0;
+            while (pc < forest.length) {
+                int treeSize = (int)forest[pc++];
+                roots.add(decode(forest, pc));
+                pc += treeSize;
+            }
+        }
+
+        /** Decodes the subtree starting at the given position and returns the index of its root node */
+        private int decode(double[] forest, int pc) {
+            Node node = new Node();
+            int index = nodes.size();
+            nodes.add(node);
+
+            double value = forest[pc++];
+            if (value < GBDTNode.MAX_LEAF_VALUE) {
+                node.value = value;
+                return index;
+            }
+
+            int offset = (int)value - GBDTNode.MAX_LEAF_VALUE;
+            node.operator = (byte)(LESS + offset / GBDTNode.MAX_VARIABLES);
+            node.featureColumn = features.computeIfAbsent(offset % GBDTNode.MAX_VARIABLES, __ -> features.size());
+            if (node.operator == IN) {
+                node.setSize = (int)forest[pc++];
+                node.setStart = setValues.size();
+                for (int i = 0; i < node.setSize; i++)
+                    setValues.add(forest[pc++]);
+            }
+            else {
+                node.value = forest[pc++];
+            }
+            int falseBranch = pc + (int)forest[pc];
+            decode(forest, pc + 1);
+            node.falseChild = decode(forest, falseBranch);
+            return index;
+        }
+
+    }
+
+}
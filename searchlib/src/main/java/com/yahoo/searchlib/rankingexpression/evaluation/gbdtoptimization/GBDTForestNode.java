@@ -22,15 +22,34 @@ public class GBDTForestNode extends ExpressionNode {
 
     private final double[] values;
 
+    /** This laid out for evaluating many rows at once, created when first requested */
+    private transient volatile GBDTBatchForest batchForest = null;
+
     public GBDTForestNode(double[] values) {
         this.values=values;
     }
 
+    /** Returns a direct reference to the values of this. The returned array must not be modified. */
+    public final double[] values() { return values; }
+
+    /** Returns this forest laid out for evaluating many rows at once */
+    public GBDTBatchForest batchForest() {
+        GBDTBatchForest batchForest = this.batchForest;
+        if (batchForest == null)
+            this.batchForest = batchForest = new GBDTBatchForest(this);
+        return batchForest;
+    }
+
     @Override
     public final TensorType type(TypeContext<Reference> context) { return TensorType.empty; }
 
     @Override
     public final Value evaluate(Context context) {
+        return new DoubleValue(evaluateDouble(context));
+    }
+
+    @Override
+    public final double evaluateDouble(Context context) {
         int pc = 0;
         double treeSum = 0;
         while (pc < values.length) {
@@ -38,7 +57,7 @@ public class GBDTForestNode extends ExpressionNode {
             treeSum += GBDTNode.evaluate(values, pc, context);
             pc += nextTree;
         }
-        return new DoubleValue(treeSum);
+        return treeSum;
     }
 
     /** Returns (optimized sum of condition trees) */
@@ -60,6 +60,11 @@ public final class GBDTNode extends ExpressionNode {
         return new DoubleValue(evaluate(values,0,context));
     }
 
+    @Override
+    public final double evaluateDouble(Context context) {
+        return evaluate(values,0,context);
+    }
+
     public static double evaluate(double[] values, int startOffset, Context context) {
         int pc = startOffset;
         while (true) {
@@ -0,0 +1,23 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+
+import java.io.Serializable;
+
+/**
+ * A scalar expression compiled to operate on primitive doubles looked up by index in a context.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+interface CompiledScalar extends Serializable {
+
+    /**
+     * Returns the value of this in the given context
+     *
+     * @throws UnsupportedOperationException if a value in the context cannot be used as a double
+     */
+    double evaluate(Context context);
+
+}
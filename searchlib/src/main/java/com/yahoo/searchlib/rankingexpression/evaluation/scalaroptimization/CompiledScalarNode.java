@@ -0,0 +1,80 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.Deque;
+
+/**
+ * A scalar subexpression compiled to operate on primitive doubles, which evaluates to the same value as the
+ * subexpression it replaces without creating a value per node. If some value in the context cannot be used
+ * as a double (e.g if it is a tensor with dimensions) the original subexpression is evaluated instead,
+ * in that and all subsequent evaluations.
+ *
+ * @author agent
+ */
+public final class CompiledScalarNode extends ExpressionNode {
+
+    private final CompiledScalar compiled;
+    private final boolean isBoolean;
+    private final ExpressionNode original;
+
+    /** Set to false the first time the compiled expression fails. Races are benign as this only goes from true to false */
+    private boolean useCompiled = true;
+
+    CompiledScalarNode(CompiledScalar compiled, boolean isBoolean, ExpressionNode original) {
+        this.compiled = compiled;
+        this.isBoolean = isBoolean;
+        this.original = original;
+    }
+
+    /** Returns the subexpression this was compiled from */
+    public ExpressionNode original() { return original; }
+
+    @Override
+    public TensorType type(TypeContext<Reference> context) { return original.type(context); }
+
+    @Override
+    public Value evaluate(Context context) {
+        if ( ! useCompiled) return original.evaluate(context);
+
+        double value;
+        try {
+            value = compiled.evaluate(context);
+        }
+        catch (UnsupportedOperationException e) {
+            useCompiled = false;
+            return original.evaluate(context);
+        }
+        return isBoolean ? new BooleanValue(value != 0) : new DoubleValue(value);
+    }
+
+    @Override
+    public double evaluateDouble(Context context) {
+        if ( ! useCompiled) return original.evaluateDouble(context);
+
+        try {
+            return compiled.evaluate(context);
+        }
+        catch (UnsupportedOperationException e) {
+            useCompiled = false;
+            return original.evaluateDouble(context);
+        }
+    }
+
+    /** Returns the subexpression this was compiled from, such that serialization is unaffected by compilation */
+    @Override
+    public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
+        return original.toString(string, context, path, parent);
+    }
+
+}
@@ -0,0 +1,260 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleCompatibleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compiles the largest scalar subexpressions of an expression into trees of primitive double operations,
+ * where values are looked up by index in the context, such that evaluating them creates no values
+ * except for the result.
+ * Subexpressions containing nodes which may produce tensors (tensor functions, lambdas etc.), or references
+ * which are not known to the context are left to the interpreter.
+ * As in the other optimizers, strings are encoded as their hash code.
+ *
+ * @author agent
+ */
+public class ScalarOptimizer extends Optimizer {
+
+    /**
+     * Replaces the largest scalar subexpressions of the given expression by compiled nodes
+     *
+     * @param expression the expression to destructively optimize
+     * @param context    a fast lookup context created from the given expression, which must be used when evaluating it
+     * @param report     the optimization report to which actions of this is logged
+     */
+    @Override
+    public void optimize(RankingExpression expression, ContextIndex context, OptimizationReport report) {
+        if ( ! isEnabled()) return;
+
+        expression.setRoot(findAndOptimize(expression.getRoot(), context, report));
+        report.note("Scalar compilation done");
+    }
+
+    /**
+     * Recursively descend and compile scalar subexpressions.
+     *
+     * @return the resulting node, which may be the input node if nothing could be compiled
+     */
+    private ExpressionNode findAndOptimize(ExpressionNode node, ContextIndex context, OptimizationReport report) {
+        if ( ! isScalarOperation(node)) return node; // we don't know the semantics of the children of other nodes
+
+        Compiled compiled = compile(node, context);
+        if (compiled != null) {
+            report.incMetric("Compiled scalar expressions", 1);
+            return new CompiledScalarNode(compiled.scalar, compiled.isBoolean, node);
+        }
+
+        CompositeNode composite = (CompositeNode)node;
+        List<ExpressionNode> newChildren = new ArrayList<>();
+        for (ExpressionNode child : composite.children())
+            newChildren.add(findAndOptimize(child, context, report));
+        return composite.setChildren(newChildren);
+    }
+
+    private boolean isScalarOperation(ExpressionNode node) {
+        return node instanceof ArithmeticNode || node instanceof ComparisonNode || node instanceof NotNode ||
+               node instanceof NegativeNode || node instanceof EmbracedNode || node instanceof IfNode ||
+               node instanceof FunctionNode;
+    }
+
+    /** Returns the given node compiled, or null if it cannot be compiled */
+    private Compiled compile(ExpressionNode node, ContextIndex context) {
+        if (node instanceof ConstantNode)
+            return compileConstant(((ConstantNode)node).getValue());
+        if (node instanceof ReferenceNode)
+            return compileReference((ReferenceNode)node, context);
+        if (node instanceof GBDTNode || node instanceof GBDTForestNode)
+            return new Compiled(c -> node.evaluate(c).asDouble(), false);
+        if (node instanceof EmbracedNode)
+            return compile(((EmbracedNode)node).getValue(), context);
+        if (node instanceof NegativeNode)
+            return compileNegative((NegativeNode)node, context);
+        if (node instanceof NotNode)
+            return compileNot((NotNode)node, context);
+        if (node instanceof ComparisonNode)
+            return compileComparison((ComparisonNode)node, context);
+        if (node instanceof IfNode)
+            return compileIf((IfNode)node, context);
+        if (node instanceof FunctionNode)
+            return compileFunction((FunctionNode)node, context);
+        if (node instanceof ArithmeticNode)
+            return compileArithmetic((ArithmeticNode)node, context);
+        return null;
+    }
+
+    private Compiled compileConstant(Value value) {
+        if ( ! (value instanceof DoubleCompatibleValue || value instanceof StringValue)) return null;
+        double constant = value.asDouble();
+        return new Compiled(c -> constant, value instanceof BooleanValue);
+    }
+
+    private Compiled compileReference(ReferenceNode node, ContextIndex context) {
+        if (context == null) return null;
+        String name = node.toString();
+        if ( ! context.hasIndex(name)) return null;
+        int index = context.getIndex(name);
+        return new Compiled(c -> c.getDouble(index), false);
+    }
+
+    private Compiled compileNegative(NegativeNode node, ContextIndex context) {
+        Compiled value = compile(node.getValue(), context);
+        if (value == null) return null;
+        CompiledScalar scalar = value.scalar;
+        return new Compiled(c -> - scalar.evaluate(c), false);
+    }
+
+    private Compiled compileNot(NotNode node, ContextIndex context) {
+        Compiled value = compile(node.getValue(), context);
+        if (value == null) return null;
+        CompiledScalar scalar = value.scalar;
+        return new Compiled(c -> scalar.evaluate(c) == 0 ? 1 : 0, true);
+    }
+
+    private Compiled compileComparison(ComparisonNode node, ContextIndex context) {
+        Compiled left = compile(node.getLeftCondition(), context);
+        Compiled right = compile(node.getRightCondition(), context);
+        if (left == null || right == null) return null;
+        CompiledScalar x = left.scalar;
+        CompiledScalar y = right.scalar;
+        TruthOperator operator = node.getOperator();
+        switch (operator) {
+            case SMALLER: return new Compiled(c -> x.evaluate(c) < y.evaluate(c) ? 1 : 0, true);
+            case SMALLEREQUAL: return new Compiled(c -> x.evaluate(c) <= y.evaluate(c) ? 1 : 0, true);
+            case EQUAL: return new Compiled(c -> x.evaluate(c) == y.evaluate(c) ? 1 : 0, true);
+            case LARGER: return new Compiled(c -> x.evaluate(c) > y.evaluate(c) ? 1 : 0, true);
+            case LARGEREQUAL: return new Compiled(c -> x.evaluate(c) >= y.evaluate(c) ? 1 : 0, true);
+            case NOTEQUAL: return new Compiled(c -> x.evaluate(c) != y.evaluate(c) ? 1 : 0, true);
+            default: return new Compiled(c -> operator.evaluate(x.evaluate(c), y.evaluate(c)) ? 1 : 0, true);
+        }
+    }
+
+    private Compiled compileIf(IfNode node, ContextIndex context) {
+        Compiled condition = compile(node.getCondition(), context);
+        Compiled trueValue = compile(node.getTrueExpression(), context);
+        Compiled falseValue = compile(node.getFalseExpression(), context);
+        if (condition == null || trueValue == null || falseValue == null) return null;
+        CompiledScalar test = condition.scalar;
+        CompiledScalar ifTrue = trueValue.scalar;
+        CompiledScalar ifFalse = falseValue.scalar;
+        return new Compiled(c -> test.evaluate(c) != 0 ? ifTrue.evaluate(c) : ifFalse.evaluate(c),
+                            trueValue.isBoolean && falseValue.isBoolean);
+    }
+
+    private Compiled compileFunction(FunctionNode node, ContextIndex context) {
+        Function function = node.getFunction();
+        List<ExpressionNode> arguments = node.children();
+        if (arguments.size() == 0)
+            return new Compiled(c -> function.evaluate(0, 0), false);
+
+        Compiled argument1 = compile(arguments.get(0), context);
+        if (argument1 == null) return null;
+        CompiledScalar x = argument1.scalar;
+        if (arguments.size() == 1)
+            return new Compiled(c -> function.evaluate(x.evaluate(c), 0), false);
+
+        Compiled argument2 = compile(arguments.get(1), context);
+        if (argument2 == null) return null;
+        CompiledScalar y = argument2.scalar;
+        return new Compiled(c -> function.evaluate(x.evaluate(c), y.evaluate(c)), false);
+    }
+
+    /** Compiles an arithmetic node into a tree of binary operations, applying operators in precedence order */
+    private Compiled compileArithmetic(ArithmeticNode node, ContextIndex context) {
+        List<Compiled> operands = new ArrayList<>();
+        for (ExpressionNode child : node.children()) {
+            Compiled operand = compile(child, context);
+            if (operand == null) return null;
+            operands.add(operand);
+        }
+
+        // Resolve precedence at compile time in the same way as ArithmeticNode does when evaluating
+        Iterator<Compiled> operand = operands.iterator();
+        Deque<StackItem> stack = new ArrayDeque<>();
+        stack.push(new StackItem(ArithmeticOperator.OR, operand.next()));
+        for (Iterator<ArithmeticOperator> it = node.operators().iterator(); it.hasNext() && operand.hasNext();) {
+            ArithmeticOperator op = it.next();
+            while (stack.peek().op.hasPrecedenceOver(op))
+                popStack(stack);
+            stack.push(new StackItem(op, operand.next()));
+        }
+        while (stack.size() > 1)
+            popStack(stack);
+        return stack.getFirst().value;
+    }
+
+    private void popStack(Deque<StackItem> stack) {
+        StackItem rhs = stack.pop();
+        StackItem lhs = stack.peek();
+        lhs.value = combine(lhs.value.scalar, rhs.op, rhs.value.scalar);
+    }
+
+    private Compiled combine(CompiledScalar x, ArithmeticOperator op, CompiledScalar y) {
+        switch (op) {
+            // Both sides are always evaluated, as in the interpreter
+            case OR: return new Compiled(c -> (x.evaluate(c) != 0) | (y.evaluate(c) != 0) ? 1 : 0, true);
+            case AND: return new Compiled(c -> (x.evaluate(c) != 0) & (y.evaluate(c) != 0) ? 1 : 0, true);
+            case PLUS: return new Compiled(c -> x.evaluate(c) + y.evaluate(c), false);
+            case MINUS: return new Compiled(c -> x.evaluate(c) - y.evaluate(c), false);
+            case MULTIPLY: return new Compiled(c -> x.evaluate(c) * y.evaluate(c), false);
+            case DIVIDE: return new Compiled(c -> x.evaluate(c) / y.evaluate(c), false);
+            case MODULO: return new Compiled(c -> x.evaluate(c) % y.evaluate(c), false);
+            case POWER: return new Compiled(c -> Function.pow.evaluate(x.evaluate(c), y.evaluate(c)), false);
+            default: throw new IllegalArgumentException("Unknown operator " + op);
+        }
+    }
+
+    /** A compiled scalar, and whether the interpreter would return a boolean from the expression it was compiled from */
+    private static class Compiled {
+
+        final CompiledScalar scalar;
+        final boolean isBoolean;
+
+        Compiled(CompiledScalar scalar, boolean isBoolean) {
+            this.scalar = scalar;
+            this.isBoolean = isBoolean;
+        }
+
+    }
+
+    private static class StackItem {
+
+        final ArithmeticOperator op;
+        Compiled value;
+
+        StackItem(ArithmeticOperator op, Compiled value) {
+            this.op = op;
+            this.value = value;
+        }
+
+    }
+
+}
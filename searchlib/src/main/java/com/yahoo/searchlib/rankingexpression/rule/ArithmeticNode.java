@@ -10,6 +10,7 @@ import com.yahoo.tensor.evaluation.TypeContext;
 import com.yahoo.tensor.functions.Join;
 
 import java.util.ArrayDeque;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
@@ -25,14 +26,19 @@ public final class ArithmeticNode extends CompositeNode {
     private final ImmutableList<ExpressionNode> children;
     private final ImmutableList<ArithmeticOperator> operators;
 
+    /** The children of this as a tree of binary operations, resolved from operator precedence when this is created */
+    private final Operand operations;
+
     public ArithmeticNode(List<ExpressionNode> children, List<ArithmeticOperator> operators) {
         this.children = ImmutableList.copyOf(children);
         this.operators = ImmutableList.copyOf(operators);
+        this.operations = resolveOperations(this.children, this.operators);
     }
 
     public ArithmeticNode(ExpressionNode leftExpression, ArithmeticOperator operator, ExpressionNode rightExpression) {
         this.children = ImmutableList.of(leftExpression, rightExpression);
         this.operators = ImmutableList.of(operator);
+        this.operations = resolveOperations(this.children, this.operators);
     }
 
     public List<ArithmeticOperator> operators() { return operators; }
@@ -90,11 +96,25 @@ public final class ArithmeticNode extends CompositeNode {
 
     @Override
     public Value evaluate(Context context) {
+        return operations.evaluate(context);
+    }
+
+    @Override
+    public double evaluateDouble(Context context) {
+        return operations.evaluateDouble(context);
+    }
+
+    /**
+     * Returns the given children combined by the given operators into a tree of binary operations,
+     * such that evaluating the tree applies the operators in precedence order and evaluates the children
+     * from left to right.
+     */
+    private static Operand resolveOperations(List<ExpressionNode> children, List<ArithmeticOperator> operators) {
         Iterator<ExpressionNode> child = children.iterator();
 
         // Apply in precedence order:
-        Deque<ValueItem> stack = new ArrayDeque<>();
-        stack.push(new ValueItem(ArithmeticOperator.OR, child.next().evaluate(context)));
+        Deque<OperandItem> stack = new ArrayDeque<>();
+        stack.push(new OperandItem(ArithmeticOperator.OR, new ChildOperand(child.next())));
         for (Iterator<ArithmeticOperator> it = operators.iterator(); it.hasNext() && child.hasNext();) {
             ArithmeticOperator op = it.next();
             if ( ! stack.isEmpty()) {
@@ -102,18 +122,18 @@ public final class ArithmeticNode extends CompositeNode {
                     popStack(stack);
                 }
             }
-            stack.push(new ValueItem(op, child.next().evaluate(context)));
+            stack.push(new OperandItem(op, new ChildOperand(child.next())));
         }
         while (stack.size() > 1) {
             popStack(stack);
         }
-        return stack.getFirst().value;
+        return stack.getFirst().operand;
     }
 
-    private void popStack(Deque<ValueItem> stack) {
-        ValueItem rhs = stack.pop();
-        ValueItem lhs = stack.peek();
-        lhs.value = rhs.op.evaluate(lhs.value, rhs.value);
+    private static void popStack(Deque<OperandItem> stack) {
+        OperandItem rhs = stack.pop();
+        OperandItem lhs = stack.peek();
+        lhs.operand = new Operation(lhs.operand, rhs.op, rhs.operand);
     }
 
     public static ArithmeticNode resolve(ExpressionNode left, ArithmeticOperator op, ExpressionNode right) {
@@ -130,15 +150,66 @@ public final class ArithmeticNode extends CompositeNode {
         return new ArithmeticNode(newChildren, newOperators);
     }
 
-    private static class ValueItem {
+    private static class OperandItem {
 
         final ArithmeticOperator op;
-        Value value;
+        Operand operand;
+
+        public OperandItem(ArithmeticOperator op, Operand operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+    }
+
+    /** A node in the tree of operations of an arithmetic node */
+    private interface Operand extends Serializable {
+
+        Value evaluate(Context context);
+
+        double evaluateDouble(Context context);
+
+    }
+
+    private static class ChildOperand implements Operand {
+
+        private final ExpressionNode child;
+
+        ChildOperand(ExpressionNode child) {
+            this.child = child;
+        }
+
+        @Override
+        public Value evaluate(Context context) { return child.evaluate(context); }
+
+        @Override
+        public double evaluateDouble(Context context) { return child.evaluateDouble(context); }
+
+    }
+
+    private static class Operation implements Operand {
 
-        public ValueItem(ArithmeticOperator op, Value value) {
+        private final Operand left;
+        private final ArithmeticOperator op;
+        private final Operand right;
+
+        Operation(Operand left, ArithmeticOperator op, Operand right) {
+            this.left = left;
             this.op = op;
-            this.value = value;
+            this.right = right;
+        }
+
+        @Override
+        public Value evaluate(Context context) {
+            Value leftValue = left.evaluate(context);
+            return op.evaluate(leftValue, right.evaluate(context));
+        }
+
+        @Override
+        public double evaluateDouble(Context context) {
+            double leftValue = left.evaluateDouble(context);
+            return op.evaluate(leftValue, right.evaluateDouble(context));
         }
+
     }
 
     @Override
@@ -14,30 +14,38 @@ import java.util.List;
  */
 public enum ArithmeticOperator {
 
-    OR(0, "||") { public Value evaluate(Value x, Value y) {
-        return x.or(y);
-    }},
-    AND(1, "&&") { public Value evaluate(Value x, Value y) {
-        return x.and(y);
-    }},
-    PLUS(2, "+") { public Value evaluate(Value x, Value y) {
-        return x.add(y);
-    }},
-    MINUS(3, "-") { public Value evaluate(Value x, Value y) {
-        return x.subtract(y);
-    }},
-    MULTIPLY(4, "*") { public Value evaluate(Value x, Value y) {
-        return x.multiply(y);
-    }},
-    DIVIDE(5, "/") { public Value evaluate(Value x, Value y) {
-        return x.divide(y);
-    }},
-    MODULO(6, "%") { public Value evaluate(Value x, Value y) {
-        return x.modulo(y);
-    }},
-    POWER(7, "^") { public Value evaluate(Value x, Value y) {
-        return x.power(y);
-    }};
+    OR(0, "||") {
+        public Value evaluate(Value x, Value y) { return x.or(y); }
+        public double evaluate(double x, double y) { return (x != 0) | (y != 0) ? 1 : 0; }
+    },
+    AND(1, "&&") {
+        public Value evaluate(Value x, Value y) { return x.and(y); }
+        public double evaluate(double x, double y) { return (x != 0) & (y != 0) ? 1 : 0; }
+    },
+    PLUS(2, "+") {
+        public Value evaluate(Value x, Value y) { return x.add(y); }
+        public double evaluate(double x, double y) { return x + y; }
+    },
+    MINUS(3, "-") {
+        public Value evaluate(Value x, Value y) { return x.subtract(y); }
+        public double evaluate(double x, double y) { return x - y; }
+    },
+    MULTIPLY(4, "*") {
+        public Value evaluate(Value x, Value y) { return x.multiply(y); }
+        public double evaluate(double x, double y) { return x * y; }
+    },
+    DIVIDE(5, "/") {
+        public Value evaluate(Value x, Value y) { return x.divide(y); }
+        public double evaluate(double x, double y) { return x / y; }
+    },
+    MODULO(6, "%") {
+        public Value evaluate(Value x, Value y) { return x.modulo(y); }
+        public double evaluate(double x, double y) { return x % y; }
+    },
+    POWER(7, "^") {
+        public Value evaluate(Value x, Value y) { return x.power(y); }
+        public double evaluate(double x, double y) { return Function.pow.evaluate(x, y); }
+    };
 
     /** A list of all the operators in this in order of decreasing precedence */
     public static final List<ArithmeticOperator> operatorsByPrecedence = operatorsByPrecedence();
@@ -57,6 +65,9 @@ public enum ArithmeticOperator {
 
     public abstract Value evaluate(Value x, Value y);
 
+    /** Returns the result of this operation on doubles, where booleans are represented as 1 and 0 */
+    public abstract double evaluate(double x, double y);
+
     @Override
     public String toString() {
         return image;
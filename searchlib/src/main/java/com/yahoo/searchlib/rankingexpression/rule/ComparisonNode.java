@@ -61,6 +61,13 @@ public class ComparisonNode extends BooleanNode {
         return leftValue.compare(operator,rightValue);
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        double leftValue = leftCondition.evaluateDouble(context);
+        double rightValue = rightCondition.evaluateDouble(context);
+        return operator.evaluate(leftValue, rightValue) ? 1 : 0;
+    }
+
     @Override
     public ComparisonNode setChildren(List<ExpressionNode> children) {
         if (children.size() != 2) throw new IllegalArgumentException("A comparison test must have 2 children");
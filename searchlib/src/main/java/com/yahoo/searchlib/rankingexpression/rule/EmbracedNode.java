@@ -48,6 +48,11 @@ public final class EmbracedNode extends CompositeNode {
         return value.evaluate(context);
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        return value.evaluateDouble(context);
+    }
+
     @Override
     public TensorType type(TypeContext<Reference> context) {
         return value.type(context);
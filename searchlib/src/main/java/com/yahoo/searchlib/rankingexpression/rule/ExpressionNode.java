@@ -60,4 +60,18 @@ public abstract class ExpressionNode implements Serializable {
      */
     public abstract Value evaluate(Context context);
 
+    /**
+     * Returns the value of evaluating this expression over the given context as a double.
+     * This is the same as evaluate(context).asDouble(), but nodes which produce scalars override this
+     * to evaluate without creating a value per node. As in the expression optimizers, strings are
+     * represented by their hash code.
+     *
+     * @param context the variable bindings to use for this evaluation
+     * @throws IllegalArgumentException if there are variables which are not bound in the given map
+     * @throws UnsupportedOperationException if the value of this cannot be represented as a double
+     */
+    public double evaluateDouble(Context context) {
+        return evaluate(context).asDouble();
+    }
+
 }
@@ -97,6 +97,18 @@ public final class FunctionNode extends CompositeNode {
         return argument1.function(function, argument2);
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        if (arguments.expressions().size() == 0)
+            return function.evaluate(0, 0);
+
+        double argument1 = arguments.expressions().get(0).evaluateDouble(context);
+        if (arguments.expressions().size() == 1)
+            return function.evaluate(argument1, 0);
+
+        return function.evaluate(argument1, arguments.expressions().get(1).evaluateDouble(context));
+    }
+
     /** Returns a new function node with the children replaced by the given children */
     @Override
     public FunctionNode setChildren(List<ExpressionNode> children) {
@@ -99,6 +99,14 @@ public final class IfNode extends CompositeNode {
             return falseExpression.evaluate(context);
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        if (condition.evaluateDouble(context) != 0)
+            return trueExpression.evaluateDouble(context);
+        else
+            return falseExpression.evaluateDouble(context);
+    }
+
     @Override
     public IfNode setChildren(List<ExpressionNode> children) {
         if (children.size() != 3) throw new IllegalArgumentException("Expected 3 children but got " + children.size());
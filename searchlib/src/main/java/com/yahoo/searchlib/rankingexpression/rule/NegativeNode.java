@@ -48,6 +48,11 @@ public class NegativeNode extends CompositeNode {
         return value.evaluate(context).negate();
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        return - value.evaluateDouble(context);
+    }
+
     @Override
     public NegativeNode setChildren(List<ExpressionNode> children) {
         if (children.size() != 1) throw new IllegalArgumentException("Expected 1 children but got " + children.size());
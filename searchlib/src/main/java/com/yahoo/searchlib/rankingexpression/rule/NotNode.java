@@ -49,6 +49,11 @@ public class NotNode extends BooleanNode {
         return value.evaluate(context).not();
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        return value.evaluateDouble(context) == 0 ? 1 : 0;
+    }
+
     @Override
     public NotNode setChildren(List<ExpressionNode> children) {
         if (children.size() != 1) throw new IllegalArgumentException("Expected 1 children but got " + children.size());
@@ -132,6 +132,14 @@ public final class ReferenceNode extends CompositeNode {
             return context.get(getName(), getArguments(), getOutput());
     }
 
+    @Override
+    public double evaluateDouble(Context context) {
+        if (reference.isIdentifier())
+            return context.getDouble(reference.name());
+        else
+            return context.get(getName(), getArguments(), getOutput()).asDouble();
+    }
+
     @Override
     public CompositeNode setChildren(List<ExpressionNode> newChildren) {
         return setArguments(newChildren);
@@ -0,0 +1,521 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.transform;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.GeneratorLambdaFunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.LambdaFunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.tensor.functions.Argmax;
+import com.yahoo.tensor.functions.Argmin;
+import com.yahoo.tensor.functions.Concat;
+import com.yahoo.tensor.functions.Generate;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.L1Normalize;
+import com.yahoo.tensor.functions.L2Normalize;
+import com.yahoo.tensor.functions.Matmul;
+import com.yahoo.tensor.functions.Merge;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.Rename;
+import com.yahoo.tensor.functions.Softmax;
+import com.yahoo.tensor.functions.TensorFunction;
+import com.yahoo.tensor.functions.XwPlusB;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Optimizes a set of functions together with the expressions using them, such as the functions and ranking phase
+ * expressions of a rank profile, by
+ * <ul>
+ *     <li>folding subexpressions of constants, including constant tensors, into constant values, unless
+ *         the resulting tensor would be large,
+ *     <li>inlining references to functions without arguments whose body is so small that it is cheaper to compute it
+ *         where it is used than to reference it, and
+ *     <li>extracting subexpressions which occur multiple times, in one or more functions and expressions,
+ *         to new functions, such that they are computed once.
+ * </ul>
+ * Subexpressions in the branches of conditionals and in lambdas are not extracted, as they may not be
+ * computed otherwise, or depend on lambda arguments. Functions are never removed, as they may be
+ * referenced from elsewhere.
+ *
+ * The scope of an instance of this is a single optimization of a set of functions.
+ *
+ * @author agent
+ */
+public class FunctionSetOptimizer {
+
+    /** The prefix of the names of functions extracted from common subexpressions */
+    public static final String extractedFunctionPrefix = "common_subexpression_";
+
+    public static final int DEFAULT_MAX_INLINE_SIZE = 4;
+    public static final int DEFAULT_MIN_EXTRACTED_SIZE = 5;
+    public static final int DEFAULT_MAX_FOLDED_TENSOR_SIZE = 100;
+
+    private final int maxInlineSize;
+    private final int minExtractedSize;
+    private final int maxFoldedTensorSize;
+
+    private final Map<String, ExpressionFunction> functions = new LinkedHashMap<>();
+    private final List<RankingExpression> expressions = new ArrayList<>();
+    private final Set<String> reservedNames = new HashSet<>();
+    private TransformContext context;
+    private OptimizationReport report;
+
+    public FunctionSetOptimizer() {
+        this(DEFAULT_MAX_INLINE_SIZE, DEFAULT_MIN_EXTRACTED_SIZE, DEFAULT_MAX_FOLDED_TENSOR_SIZE);
+    }
+
+    /**
+     * Creates an optimizer with the given limits, where sizes are measured in expression nodes.
+     *
+     * @param maxInlineSize the max size of function bodies to inline, or 0 to never inline
+     * @param minExtractedSize the min size of subexpressions to extract to functions, which must be larger than
+     *                         maxInlineSize, as extracted functions would otherwise be inlined again
+     * @param maxFoldedTensorSize the max number of cells in tensors produced by constant folding
+     */
+    public FunctionSetOptimizer(int maxInlineSize, int minExtractedSize, int maxFoldedTensorSize) {
+        if (minExtractedSize <= maxInlineSize)
+            throw new IllegalArgumentException("The min size of extracted subexpressions, " + minExtractedSize +
+                                               ", must be larger than the max size of inlined functions, " + maxInlineSize);
+        this.maxInlineSize = maxInlineSize;
+        this.minExtractedSize = minExtractedSize;
+        this.maxFoldedTensorSize = maxFoldedTensorSize;
+    }
+
+    /**
+     * Optimizes the given functions and expressions together.
+     *
+     * @param functions the functions to optimize, by name
+     * @param expressions expressions which may reference the functions but which cannot be referenced themselves
+     * @param context the context of this optimization, providing the constant values which may be folded
+     * @param report the report to add what was done to
+     * @return the optimized functions and expressions
+     */
+    public Result optimize(Map<String, ExpressionFunction> functions, List<RankingExpression> expressions,
+                           TransformContext context, OptimizationReport report) {
+        return optimize(functions, expressions, Set.of(), context, report);
+    }
+
+    /**
+     * Optimizes the given functions and expressions together.
+     *
+     * @param functions the functions to optimize, by name
+     * @param expressions expressions which may reference the functions but which cannot be referenced themselves
+     * @param reservedNames names in use by other functions, which must not be given to extracted functions
+     * @param context the context of this optimization, providing the constant values which may be folded
+     * @param report the report to add what was done to
+     * @return the optimized functions and expressions
+     */
+    public Result optimize(Map<String, ExpressionFunction> functions, List<RankingExpression> expressions,
+                           Set<String> reservedNames, TransformContext context, OptimizationReport report) {
+        this.functions.clear();
+        this.functions.putAll(functions);
+        this.expressions.clear();
+        this.expressions.addAll(expressions);
+        this.reservedNames.clear();
+        this.reservedNames.addAll(reservedNames);
+        this.context = context;
+        this.report = report;
+
+        transformAll((node, scope) -> fold(node, scope));
+        if (maxInlineSize > 0)
+            transformAll((node, scope) -> inline(node, scope, new ArrayDeque<>()));
+        boolean extracted;
+        do {
+            extracted = extractCommonSubexpression();
+        } while (extracted);
+        return new Result(new LinkedHashMap<>(this.functions), new ArrayList<>(this.expressions));
+    }
+
+    private void transformAll(ScopedTransform transform) {
+        for (var entry : functions.entrySet()) {
+            ExpressionFunction function = entry.getValue();
+            ExpressionNode root = transform.apply(function.getBody().getRoot(), Scope.of(function.arguments()));
+            entry.setValue(function.withBody(new RankingExpression(function.getBody().getName(), root)));
+        }
+        for (int i = 0; i < expressions.size(); i++) {
+            RankingExpression expression = expressions.get(i);
+            expressions.set(i, new RankingExpression(expression.getName(),
+                                                     transform.apply(expression.getRoot(), Scope.empty)));
+        }
+    }
+
+    // ------------------ Constant folding
+
+    private ExpressionNode fold(ExpressionNode node, Scope scope) {
+        if ( ! (node instanceof CompositeNode)) return node;
+
+        Scope childScope = scope.enter(node);
+        List<ExpressionNode> children = ((CompositeNode)node).children();
+        List<ExpressionNode> foldedChildren = new ArrayList<>(children.size());
+        boolean changed = false;
+        boolean allConstant = ! children.isEmpty();
+        for (ExpressionNode child : children) {
+            ExpressionNode folded = fold(child, childScope);
+            changed |= folded != child;
+            allConstant &= constantValue(folded, childScope).isPresent();
+            foldedChildren.add(folded);
+        }
+        if (changed)
+            node = ((CompositeNode)node).setChildren(foldedChildren);
+
+        if ( ! allConstant && node instanceof ArithmeticNode)
+            return foldArithmetic((ArithmeticNode)node, childScope);
+        if ( ! allConstant || ! isFoldable(node)) return node;
+        return evaluateConstant((CompositeNode)node, childScope).orElse(node);
+    }
+
+    /** Folds the constant operations in an arithmetic expression which also has non-constant operands */
+    private ExpressionNode foldArithmetic(ArithmeticNode node, Scope scope) {
+        List<ExpressionNode> children = new ArrayList<>(node.children());
+        List<ArithmeticOperator> operators = new ArrayList<>(node.operators());
+        boolean changed = false;
+        for (ArithmeticOperator operator : ArithmeticOperator.operatorsByPrecedence) {
+            for (int i = 0; i < operators.size(); ) {
+                if (operators.get(i) == operator && hasPrecedence(operators, i) &&
+                    constantValue(children.get(i), scope).isPresent() && constantValue(children.get(i + 1), scope).isPresent()) {
+                    var folded = evaluateConstant(new ArithmeticNode(children.get(i), operator, children.get(i + 1)), scope);
+                    if (folded.isPresent()) {
+                        children.set(i, folded.get());
+                        children.remove(i + 1);
+                        operators.remove(i);
+                        changed = true;
+                        continue;
+                    }
+                }
+                i++;
+            }
+        }
+        if ( ! changed) return node;
+        if (children.size() == 1) return children.get(0);
+        return new ArithmeticNode(children, operators);
+    }
+
+    /** Returns true if the operator at i binds at least as strongly as its neighbours */
+    private boolean hasPrecedence(List<ArithmeticOperator> operators, int i) {
+        if (i > 0 && operators.get(i - 1).hasPrecedenceOver(operators.get(i))) return false;
+        if (i < operators.size() - 1 && operators.get(i + 1).hasPrecedenceOver(operators.get(i))) return false;
+        return true;
+    }
+
+    /** Returns whether the given node computes a value solely from its children */
+    private boolean isFoldable(ExpressionNode node) {
+        if (node instanceof ReferenceNode) return false; // features and functions
+        if (node instanceof LambdaFunctionNode || node instanceof GeneratorLambdaFunctionNode) return false;
+        if (node instanceof TensorFunctionNode) {
+            TensorFunction<?> function = ((TensorFunctionNode)node).function();
+            return function instanceof Argmax || function instanceof Argmin || function instanceof Concat ||
+                   function instanceof Join || function instanceof L1Normalize || function instanceof L2Normalize ||
+                   function instanceof com.yahoo.tensor.functions.Map || function instanceof Matmul || function instanceof Merge ||
+                   function instanceof Reduce || function instanceof Rename || function instanceof Softmax ||
+                   function instanceof XwPlusB;
+        }
+        return true;
+    }
+
+    private Optional<ExpressionNode> evaluateConstant(CompositeNode node, Scope childScope) {
+        List<ExpressionNode> constantChildren = new ArrayList<>();
+        for (ExpressionNode child : node.children())
+            constantChildren.add(new ConstantNode(constantValue(child, childScope).get()));
+        try {
+            Value value = node.setChildren(constantChildren).evaluate(new MapContext());
+            if (value.type().rank() > 0 && value.asTensor().size() > maxFoldedTensorSize) return Optional.empty();
+            if ( ! isFinite(value)) return Optional.empty(); // NaN and infinities cannot be written as constants
+            if (value.type().rank() == 0 && ! (value instanceof DoubleValue))
+                value = new DoubleValue(value.asDouble());
+            report.incMetric("Folded constant subexpressions", 1);
+            return Optional.of(new ConstantNode(value.freeze()));
+        }
+        catch (RuntimeException e) { // leave it to fail where it is evaluated
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isFinite(Value value) {
+        if (value.type().rank() == 0) return Double.isFinite(value.asDouble());
+        for (Iterator<Double> i = value.asTensor().valueIterator(); i.hasNext(); )
+            if ( ! Double.isFinite(i.next())) return false;
+        return true;
+    }
+
+    /** Returns the value of the given node if it is a constant or references a constant */
+    private Optional<Value> constantValue(ExpressionNode node, Scope scope) {
+        if (node instanceof ConstantNode)
+            return Optional.of(((ConstantNode)node).getValue());
+        if ( ! (node instanceof ReferenceNode)) return Optional.empty();
+
+        Reference reference = ((ReferenceNode)node).reference();
+        if (reference.isIdentifier() && ! scope.isBound(reference.name()))
+            return Optional.ofNullable(context.constants().get(reference.name()));
+        if (reference.name().equals("constant") && reference.simpleArgument().isPresent()) {
+            Value value = context.constants().get(reference.simpleArgument().get());
+            if (value == null)
+                value = context.constants().get(reference.toString());
+            return Optional.ofNullable(value);
+        }
+        return Optional.empty();
+    }
+
+    // ------------------ Inlining
+
+    private ExpressionNode inline(ExpressionNode node, Scope scope, Deque<String> inlining) {
+        if (node instanceof ReferenceNode) {
+            Optional<ExpressionNode> inlined = inlineFunction((ReferenceNode)node, scope, inlining);
+            if (inlined.isPresent()) return inlined.get();
+        }
+        if ( ! (node instanceof CompositeNode)) return node;
+
+        Scope childScope = scope.enter(node);
+        List<ExpressionNode> children = ((CompositeNode)node).children();
+        List<ExpressionNode> inlinedChildren = new ArrayList<>(children.size());
+        boolean changed = false;
+        for (ExpressionNode child : children) {
+            ExpressionNode inlined = inline(child, childScope, inlining);
+            changed |= inlined != child;
+            inlinedChildren.add(inlined);
+        }
+        return changed ? ((CompositeNode)node).setChildren(inlinedChildren) : node;
+    }
+
+    private Optional<ExpressionNode> inlineFunction(ReferenceNode node, Scope scope, Deque<String> inlining) {
+        Reference reference = node.reference();
+        if ( ! reference.isIdentifier() || scope.isBound(reference.name())) return Optional.empty();
+        ExpressionFunction function = functions.get(reference.name());
+        if (function == null || ! function.arguments().isEmpty()) return Optional.empty();
+        if (inlining.contains(function.getName())) return Optional.empty(); // recursive: leave it to fail elsewhere
+        if (size(function.getBody().getRoot()) > maxInlineSize) return Optional.empty();
+
+        inlining.push(function.getName());
+        ExpressionNode body = inline(function.getBody().getRoot(), Scope.empty, inlining);
+        inlining.pop();
+        if (referencesBound(body, scope)) return Optional.empty(); // would be bound to something else here
+
+        report.incMetric("Inlined function references", 1);
+        if (body instanceof ArithmeticNode || body instanceof ComparisonNode) // keep precedence where inserted
+            body = new EmbracedNode(body);
+        return Optional.of(body);
+    }
+
+    // ------------------ Common subexpression extraction
+
+    /** Extracts the largest subexpression occurring multiple times, and returns whether one was found */
+    private boolean extractCommonSubexpression() {
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (ExpressionFunction function : functions.values())
+            collect(function.getBody().getRoot(), Scope.of(function.arguments()), candidates);
+        for (RankingExpression expression : expressions)
+            collect(expression.getRoot(), Scope.empty, candidates);
+
+        Candidate best = null;
+        for (Candidate candidate : candidates.values()) {
+            if (candidate.occurrences < 2) continue;
+            if (best == null || candidate.size > best.size)
+                best = candidate;
+        }
+        if (best == null) return false;
+
+        String name = existingFunctionComputing(best.key).orElse(newFunctionName());
+        Candidate extracted = best;
+        transformAll((node, scope) -> replace(node, extracted, name, scope));
+        if ( ! functions.containsKey(name))
+            functions.put(name, new ExpressionFunction(name, new RankingExpression(name, best.node)));
+        else // restore the body which was replaced by a reference to itself
+            functions.put(name, functions.get(name).withBody(new RankingExpression(name, best.node)));
+
+        report.incMetric("Extracted common subexpressions", 1);
+        report.incMetric("Replaced common subexpression occurrences", best.occurrences);
+        report.note("Extracted '" + best.key + "' occurring " + best.occurrences + " times to function '" + name + "'");
+        return true;
+    }
+
+    /** Adds the candidate subexpressions of the given node and returns the size of it */
+    private int collect(ExpressionNode node, Scope scope, Map<String, Candidate> candidates) {
+        if ( ! (node instanceof CompositeNode)) return 1;
+        if (node instanceof LambdaFunctionNode || node instanceof GeneratorLambdaFunctionNode) return size(node);
+
+        int size = 1;
+        Scope childScope = scope.enter(node);
+        List<ExpressionNode> children = ((CompositeNode)node).children();
+        for (int i = 0; i < children.size(); i++) {
+            if (node instanceof IfNode && i > 0) // branches are not always computed
+                size += size(children.get(i));
+            else
+                size += collect(children.get(i), childScope, candidates);
+        }
+        if (node instanceof EmbracedNode) return size - 1; // its child is the candidate
+        if (size >= minExtractedSize && ! referencesBound(node, scope)) {
+            int nodeSize = size;
+            candidates.computeIfAbsent(node.toString(), key -> new Candidate(key, node, nodeSize)).occurrences++;
+        }
+        return size;
+    }
+
+    private ExpressionNode replace(ExpressionNode node, Candidate candidate, String name, Scope scope) {
+        if ( ! (node instanceof CompositeNode)) return node;
+        if (node instanceof LambdaFunctionNode || node instanceof GeneratorLambdaFunctionNode) return node;
+        ExpressionNode unembraced = node instanceof EmbracedNode ? ((EmbracedNode)node).children().get(0) : node;
+        if (size(unembraced) == candidate.size && unembraced.toString().equals(candidate.key) && ! referencesBound(node, scope))
+            return new ReferenceNode(name);
+
+        Scope childScope = scope.enter(node);
+        List<ExpressionNode> children = ((CompositeNode)node).children();
+        List<ExpressionNode> replacedChildren = new ArrayList<>(children.size());
+        boolean changed = false;
+        for (ExpressionNode child : children) {
+            ExpressionNode replaced = replace(child, candidate, name, childScope);
+            changed |= replaced != child;
+            replacedChildren.add(replaced);
+        }
+        return changed ? ((CompositeNode)node).setChildren(replacedChildren) : node;
+    }
+
+    /** Returns the name of a function without arguments having the given expression as its body, if any */
+    private Optional<String> existingFunctionComputing(String expression) {
+        for (ExpressionFunction function : functions.values()) {
+            if ( ! function.arguments().isEmpty()) continue;
+            if (function.getBody().getRoot().toString().equals(expression))
+                return Optional.of(function.getName());
+        }
+        return Optional.empty();
+    }
+
+    private String newFunctionName() {
+        for (int i = 1; ; i++) {
+            String name = extractedFunctionPrefix + i;
+            if ( ! functions.containsKey(name) && ! reservedNames.contains(name)) return name;
+        }
+    }
+
+    // ------------------ Utilities
+
+    /** Returns the number of nodes in the given expression, not counting parentheses */
+    static int size(ExpressionNode node) {
+        if ( ! (node instanceof CompositeNode)) return 1;
+        int size = node instanceof EmbracedNode ? 0 : 1;
+        for (ExpressionNode child : ((CompositeNode)node).children())
+            size += size(child);
+        return size;
+    }
+
+    /** Returns whether the given expression contains a reference which is bound in the given scope */
+    private static boolean referencesBound(ExpressionNode node, Scope scope) {
+        if (scope.isEmpty()) return false;
+        if (node instanceof ReferenceNode && ((ReferenceNode)node).reference().isIdentifier() &&
+            scope.isBound(((ReferenceNode)node).getName()))
+            return true;
+        if ( ! (node instanceof CompositeNode)) return false;
+        for (ExpressionNode child : ((CompositeNode)node).children())
+            if (referencesBound(child, scope)) return true;
+        return false;
+    }
+
+    /** The result of an optimization */
+    public static class Result {
+
+        private final Map<String, ExpressionFunction> functions;
+        private final List<RankingExpression> expressions;
+
+        private Result(Map<String, ExpressionFunction> functions, List<RankingExpression> expressions) {
+            this.functions = Collections.unmodifiableMap(functions);
+            this.expressions = Collections.unmodifiableList(expressions);
+        }
+
+        /** Returns the optimized functions, in the given order, followed by any extracted functions */
+        public Map<String, ExpressionFunction> functions() { return functions; }
+
+        /** Returns the optimized expressions, in the given order */
+        public List<RankingExpression> expressions() { return expressions; }
+
+    }
+
+    private static class Candidate {
+
+        final String key;
+        final ExpressionNode node;
+        final int size;
+        int occurrences = 0;
+
+        Candidate(String key, ExpressionNode node, int size) {
+            this.key = key;
+            this.node = node;
+            this.size = size;
+        }
+
+    }
+
+    /** The names bound to function or lambda arguments at some point in an expression */
+    private static class Scope {
+
+        static final Scope empty = new Scope(Set.of(), false);
+
+        /** The scope inside lambdas, which can only reference their arguments */
+        static final Scope lambda = new Scope(Set.of(), true);
+
+        private final Set<String> boundNames;
+        private final boolean allBound;
+
+        private Scope(Set<String> boundNames, boolean allBound) {
+            this.boundNames = boundNames;
+            this.allBound = allBound;
+        }
+
+        boolean isBound(String name) { return allBound || boundNames.contains(name); }
+
+        boolean isEmpty() { return ! allBound && boundNames.isEmpty(); }
+
+        /** Returns the scope of the children of the given node */
+        Scope enter(ExpressionNode node) {
+            if (node instanceof LambdaFunctionNode) return lambda;
+            if (node instanceof GeneratorLambdaFunctionNode)
+                return binding(((GeneratorLambdaFunctionNode)node).type(null).dimensionNames());
+            if (node instanceof TensorFunctionNode && ((TensorFunctionNode)node).function() instanceof Generate)
+                return binding(((TensorFunctionNode)node).function().type(null).dimensionNames());
+            return this;
+        }
+
+        /** Returns this with the dimension names of a generated tensor added */
+        private Scope binding(Set<String> dimensionNames) {
+            Set<String> boundNames = new HashSet<>(this.boundNames);
+            boundNames.addAll(dimensionNames);
+            return new Scope(boundNames, allBound);
+        }
+
+        static Scope of(Collection<String> arguments) {
+            return arguments.isEmpty() ? empty : new Scope(new HashSet<>(arguments), false);
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface ScopedTransform {
+
+        ExpressionNode apply(ExpressionNode node, Scope scope);
+
+    }
+
+}
@@ -5,6 +5,9 @@ import com.yahoo.searchlib.aggregation.hll.*;
 import com.yahoo.vespa.objects.BufferSerializer;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -54,6 +57,55 @@ public class ExpressionCountAggregationResultTest {
         testSerialization(from, to);
     }
 
+    @Test
+    public void requireThatEstimateOfResultsMergedFromManyNodesIsAccurate() {
+        assertEstimateOfMergedResults(16, 100, 0);
+        assertEstimateOfMergedResults(16, 5_000, 0.1);
+        assertEstimateOfMergedResults(16, 200_000, 0.1);
+        assertEstimateOfMergedResults(128, 1_000, 0.1);
+    }
+
+    /**
+     * Aggregates the given number of random hash values, with duplicates, into sketches on the given number of nodes,
+     * passes them to a single node through serialization and verifies the relative error of the merged estimate
+     */
+    private void assertEstimateOfMergedResults(int nodes, int values, double maxRelativeError) {
+        Random random = new Random(values);
+        int[] hashes = random.ints(values).toArray();
+        ExpressionCountAggregationResult merged = null;
+        for (int node = 0; node < nodes; node++) {
+            Sketch<?> sketch = new SparseSketch();
+            for (int i = 0; i < values / 2; i++)
+                sketch = aggregate(hashes[random.nextInt(values)], sketch);
+            for (int i = node; i < values; i += nodes)
+                sketch = aggregate(hashes[i], sketch);
+
+            BufferSerializer buffer = new BufferSerializer();
+            new ExpressionCountAggregationResult(sketch, new HyperLogLogEstimator()).serialize(buffer);
+            buffer.flip();
+            ExpressionCountAggregationResult result = new ExpressionCountAggregationResult();
+            result.deserialize(buffer);
+            if (merged == null)
+                merged = result;
+            else
+                merged.merge(result);
+        }
+        long distinctCount = Arrays.stream(hashes).distinct().count();
+        assertEquals("Estimate of " + distinctCount + " distinct values",
+                     distinctCount, merged.getEstimatedUniqueCount(), distinctCount * maxRelativeError);
+    }
+
+    /** Aggregates the given hash into the given sketch, which is converted to a normal sketch when large, as on content nodes */
+    private static Sketch<?> aggregate(int hash, Sketch<?> sketch) {
+        sketch.aggregate(hash);
+        if (sketch instanceof SparseSketch && ((SparseSketch)sketch).size() > HyperLogLog.SPARSE_SKETCH_CONVERSION_THRESHOLD) {
+            NormalSketch normalSketch = new NormalSketch();
+            normalSketch.aggregate(((SparseSketch)sketch).data());
+            return normalSketch;
+        }
+        return sketch;
+    }
+
     private void testSerialization(ExpressionCountAggregationResult from, ExpressionCountAggregationResult to) {
         BufferSerializer buffer = new BufferSerializer();
         from.serialize(buffer);
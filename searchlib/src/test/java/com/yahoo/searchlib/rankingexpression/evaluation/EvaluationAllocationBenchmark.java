@@ -0,0 +1,93 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization.ScalarOptimizer;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Measures the memory allocated and the time spent per evaluation of scalar expressions when evaluating to
+ * a value and when evaluating directly to a double, by the interpreter, optimized without scalar compilation,
+ * and compiled.
+ *
+ * @author agent
+ */
+public class EvaluationAllocationBenchmark {
+
+    private static final String linear =
+            "sigmoid(0.3 * a + 0.25 * b - 0.7 * c + 0.1 * a * b + 0.05 * b * c - 0.02 * a * c + 1.5) * " +
+            "if (a > b, 1.0 + log10(1 + a), 0.5) + max(a, c) / (1 + b * b)";
+
+    private static final String conditions =
+            "10 * if (a > 35, if (a > b, if (a >= 670, 4, 8), if (a > 8000, 5, 3)), if (a == 478, 90, 91)) + " +
+            "if (c < 0.5 && b > 10, c * 2, b + c) + if (!(a < 100) || c == 0, 1, 0)";
+
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private final String expression;
+
+    public EvaluationAllocationBenchmark(String expression) {
+        this.expression = expression;
+    }
+
+    public void benchmark(int iterations) throws ParseException {
+        System.out.println(expression);
+        RankingExpression interpreted = new RankingExpression(expression);
+        benchmark("Interpreted", interpreted, bind(new MapContext()), iterations);
+
+        RankingExpression optimized = new RankingExpression(expression);
+        ArrayContext optimizedContext = new ArrayContext(optimized);
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ScalarOptimizer.class).setEnabled(false);
+        optimizer.optimize(optimized, optimizedContext);
+        benchmark("Optimized  ", optimized, bind(optimizedContext), iterations);
+
+        RankingExpression compiled = new RankingExpression(expression);
+        ArrayContext compiledContext = new ArrayContext(compiled);
+        new ExpressionOptimizer().optimize(compiled, compiledContext);
+        benchmark("Compiled   ", compiled, bind(compiledContext), iterations);
+    }
+
+    private void benchmark(String description, RankingExpression expression, Context context, int iterations) {
+        double value = measure(description + " evaluate      ", c -> expression.evaluate(c).asDouble(), context, iterations);
+        double doubleValue = measure(description + " evaluateDouble", expression::evaluateDouble, context, iterations);
+        if (value != doubleValue)
+            throw new IllegalStateException("Expected " + value + " but got " + doubleValue);
+    }
+
+    private double measure(String description, ToDoubleFunction<Context> evaluator, Context context, int iterations) {
+        double total = evaluate(evaluator, context, iterations / 5); // warm-up
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long startTime = System.nanoTime();
+        total = evaluate(evaluator, context, iterations);
+        long totalTime = System.nanoTime() - startTime;
+        long allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        System.out.println("  " + description + ": " + totalTime / iterations + " ns and " +
+                           allocated / iterations + " bytes per evaluation");
+        return total;
+    }
+
+    private double evaluate(ToDoubleFunction<Context> evaluator, Context context, int iterations) {
+        double total = 0;
+        for (int i = 0; i < iterations; i++)
+            total += evaluator.applyAsDouble(context);
+        return total;
+    }
+
+    private Context bind(Context context) {
+        context.put("a", 477);
+        context.put("b", 12.3);
+        context.put("c", 0.3);
+        return context;
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new EvaluationAllocationBenchmark(linear).benchmark(5 * 1000 * 1000);
+        new EvaluationAllocationBenchmark(conditions).benchmark(5 * 1000 * 1000);
+    }
+
+}
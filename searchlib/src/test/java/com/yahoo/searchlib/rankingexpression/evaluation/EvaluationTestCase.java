@@ -10,8 +10,11 @@ import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
 import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
 import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.tensor.Tensor;
 import org.junit.Test;
 
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -407,6 +410,33 @@ public class EvaluationTestCase {
                 "tensor(repeats0[2]):[3,1]");
     }
 
+    @Test
+    public void testEvaluateDouble() throws ParseException {
+        RankingExpression expression = new RankingExpression("if (a > b, a * b - c / 2, -c) + max(a, c) ^ 2 + !(c == 1) + b % 2");
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+        MapContext mapContext = new MapContext();
+        for (double[] values : new double[][] { { 1, 2, 3 }, { 3, 2, 1 }, { -1, 0.5, Double.NaN } }) {
+            for (Context c : new Context[] { context, mapContext }) {
+                c.put("a", values[0]);
+                c.put("b", values[1]);
+                c.put("c", values[2]);
+            }
+            double expected = expression.evaluate(mapContext).asDouble();
+            assertEquals(expected, expression.evaluateDouble(mapContext), 0);
+            assertEquals(expected, expression.evaluateDouble(context), 0);
+            assertEquals(expected, expression.evaluate(context).asDouble(), 0);
+        }
+        assertEquals(0, new RankingExpression("unbound").evaluateDouble(context), 0);
+
+        try {
+            new RankingExpression("t * 2").evaluateDouble(new MapContext(Map.of("t", new TensorValue(Tensor.from("{{x:0}:1}")))));
+            fail("Expected exception");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected: a tensor with dimensions has no double value
+        }
+    }
+
     @Test
     public void testReshape() {
         EvaluationTester tester = new EvaluationTester();
@@ -76,6 +76,8 @@ public class EvaluationTester {
             if ( ! explanation.isEmpty())
                 explanation = explanation + ": ";
             assertEquals(explanation + expression.toString(), value, expression.evaluate(context));
+            if (value.hasDouble())
+                assertEquals(explanation + expression.toString(), value.asDouble(), expression.evaluateDouble(context), 0);
             return expression;
         }
         catch (ParseException e) {
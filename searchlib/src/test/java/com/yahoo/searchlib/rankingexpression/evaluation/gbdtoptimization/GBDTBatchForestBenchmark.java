@@ -0,0 +1,66 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization;
+
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares evaluating a large forest one row at a time to evaluating it for a batch of rows,
+ * by traversal and by bitvectors.
+ *
+ * @author agent
+ */
+public class GBDTBatchForestBenchmark {
+
+    private final GBDTBatchForestTestCase.Forest forest;
+    private final double[][] rows;
+
+    public GBDTBatchForestBenchmark(int trees, int depth, int features, int rows) throws ParseException {
+        System.out.println(trees + " trees of depth " + depth + " over " + features + " features, " + rows + " rows");
+        Random random = new Random(17);
+        this.forest = new GBDTBatchForestTestCase.Forest(GBDTBatchForestTestCase.createForest(trees, depth, features, "<", random),
+                                                         features);
+        this.rows = GBDTBatchForestTestCase.createRows(rows, features, random);
+    }
+
+    public void benchmark(int evaluations) {
+        double[] expected = benchmark("One row at a time", () -> forest.evaluateEachRow(rows), evaluations);
+        assertEquals(expected, benchmark("Batch traversal  ", evaluator(0), evaluations));
+        assertEquals(expected, benchmark("Batch bitvectors ", evaluator(GBDTBatchForest.maxBitvectorLeaves), evaluations));
+    }
+
+    private Supplier<double[]> evaluator(int maxBitvectorLeaves) {
+        GBDTBatchForest batchForest = new GBDTBatchForest(forest.node, maxBitvectorLeaves);
+        return () -> forest.evaluate(batchForest, rows);
+    }
+
+    private double[] benchmark(String description, Supplier<double[]> evaluator, int evaluations) {
+        double[] result = null;
+        for (int i = 0; i < evaluations / 5; i++) // warm-up
+            result = evaluator.get();
+        for (int round = 0; round < 3; round++) {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < evaluations; i++)
+                result = evaluator.get();
+            long totalTime = System.nanoTime() - startTime;
+            System.out.println("  " + description + ": " + totalTime / 1000000 + " ms (" +
+                               totalTime / evaluations / 1000 + " us per batch)");
+        }
+        return result;
+    }
+
+    private void assertEquals(double[] expected, double[] actual) {
+        if ( ! Arrays.equals(expected, actual))
+            throw new IllegalStateException("Batch evaluation produced different results");
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new GBDTBatchForestBenchmark(2000, 6, 100, 500).benchmark(20);
+        new GBDTBatchForestBenchmark(2000, 4, 100, 500).benchmark(20);
+        new GBDTBatchForestBenchmark(300, 8, 20, 500).benchmark(50);
+    }
+
+}
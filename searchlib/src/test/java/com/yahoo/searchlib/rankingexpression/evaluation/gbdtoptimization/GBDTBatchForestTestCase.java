@@ -0,0 +1,146 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class GBDTBatchForestTestCase {
+
+    @Test
+    public void requireThatBatchEvaluationEqualsSingleEvaluation() throws ParseException {
+        for (String conditions : new String[] { "<", "<!", "<=!i" }) {
+            Forest forest = new Forest(createForest(50, 4, 8, conditions, new Random(11)), 8);
+            double[][] rows = createRows(100, 8, new Random(13));
+            double[] expected = forest.evaluateEachRow(rows);
+
+            assertArrayEquals(conditions, expected, forest.evaluate(new GBDTBatchForest(forest.node, 64), rows), 0);
+            assertArrayEquals(conditions, expected, forest.evaluate(new GBDTBatchForest(forest.node, 8), rows), 0);
+            assertArrayEquals(conditions, expected, forest.evaluate(new GBDTBatchForest(forest.node, 0), rows), 0);
+        }
+    }
+
+    @Test
+    public void requireThatOnlyForestsOfSmallTreesWithThresholdConditionsUseBitvectors() throws ParseException {
+        Forest thresholds = new Forest("if (a < 1, 2, 3) + if (!(a >= 1), if (b < 2, 4, 5), 6)", 2);
+        GBDTBatchForest batchForest = new GBDTBatchForest(thresholds.node);
+        assertEquals(2, batchForest.treeCount());
+        assertEquals(2, batchForest.features().length);
+        assertTrue(batchForest.usesBitvectors());
+        assertFalse(new GBDTBatchForest(thresholds.node, 2).usesBitvectors());
+        assertFalse(new GBDTBatchForest(thresholds.node, 0).usesBitvectors());
+
+        Forest mixed = new Forest("if (a < 1, 2, 3) + if (b == 1, 2, 3) + if (a in [1, 2], 7, 8)", 2);
+        assertEquals(3, new GBDTBatchForest(mixed.node).treeCount());
+        assertFalse(new GBDTBatchForest(mixed.node).usesBitvectors());
+
+        double[][] rows = { { 0, 1 }, { 1, 1 }, { 2, 0 }, { Double.NaN, 3 }, { 0.5, Double.NaN } };
+        assertArrayEquals(thresholds.evaluateEachRow(rows), thresholds.evaluate(batchForest, rows), 0);
+        assertArrayEquals(mixed.evaluateEachRow(rows), mixed.evaluate(new GBDTBatchForest(mixed.node), rows), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requireThatTheNumberOfFeatureValuesIsChecked() throws ParseException {
+        new GBDTBatchForest(new Forest("if (a < 1, 2, 3) + if (b < 1, 2, 3)", 2).node).evaluate(new double[5], 2);
+    }
+
+    /** Returns a forest of random trees using the conditions given as characters: < == ! (for !(>=)) i (for in) */
+    static String createForest(int trees, int depth, int features, String conditions, Random random) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < trees; i++) {
+            if (i > 0) b.append(" + ");
+            appendTree(depth - random.nextInt(2), features, conditions, false, random, b);
+        }
+        return b.toString();
+    }
+
+    private static void appendTree(int depth, int features, String conditions, boolean mayBeLeaf,
+                                   Random random, StringBuilder b) {
+        if (depth == 0 || mayBeLeaf && random.nextInt(8) == 0) {
+            b.append(random.nextInt(2000) / 1000.0 - 1);
+            return;
+        }
+        String feature = "f" + random.nextInt(features);
+        int threshold = random.nextInt(10);
+        b.append("if (");
+        switch (conditions.charAt(random.nextInt(conditions.length()))) {
+            case '<': b.append(feature).append(" < ").append(threshold); break;
+            case '=': b.append(feature).append(" == ").append(threshold); break;
+            case '!': b.append("!(").append(feature).append(" >= ").append(threshold).append(")"); break;
+            default: b.append(feature).append(" in [").append(threshold).append(", ").append(threshold + 2).append("]");
+        }
+        b.append(", ");
+        appendTree(depth - 1, features, conditions, true, random, b);
+        b.append(", ");
+        appendTree(depth - 1, features, conditions, true, random, b);
+        b.append(")");
+    }
+
+    static double[][] createRows(int count, int features, Random random) {
+        double[][] rows = new double[count][features];
+        for (double[] row : rows)
+            for (int i = 0; i < features; i++)
+                row[i] = random.nextInt(50) == 0 ? Double.NaN : random.nextInt(12);
+        return rows;
+    }
+
+    /** A forest over the features f0, f1 ... or a, b ... */
+    static class Forest {
+
+        final DoubleOnlyArrayContext context;
+        final GBDTForestNode node;
+        final String[] features;
+
+        Forest(String expressionString, int featureCount) throws ParseException {
+            RankingExpression expression = new RankingExpression(expressionString);
+            context = new DoubleOnlyArrayContext(expression, true);
+            new ExpressionOptimizer().optimize(expression, context);
+            assertTrue(expression.getRoot() instanceof GBDTForestNode);
+            node = (GBDTForestNode)expression.getRoot();
+            features = new String[featureCount];
+            for (int i = 0; i < featureCount; i++)
+                features[i] = expressionString.contains("f0") ? "f" + i : String.valueOf((char)('a' + i));
+        }
+
+        double[] evaluateEachRow(double[][] rows) {
+            double[] result = new double[rows.length];
+            for (int row = 0; row < rows.length; row++) {
+                for (int i = 0; i < features.length; i++)
+                    context.put(features[i], rows[row][i]);
+                result[row] = node.evaluate(context).asDouble();
+            }
+            return result;
+        }
+
+        double[] evaluate(GBDTBatchForest batchForest, double[][] rows) {
+            double[] columns = new double[batchForest.features().length * rows.length];
+            for (int column = 0; column < batchForest.features().length; column++) {
+                int feature = indexOf(batchForest.features()[column]);
+                for (int row = 0; row < rows.length; row++)
+                    columns[column * rows.length + row] = rows[row][feature];
+            }
+            return batchForest.evaluate(columns, rows.length);
+        }
+
+        /** Returns the position in features of the feature at the given context index */
+        private int indexOf(int contextIndex) {
+            for (int i = 0; i < features.length; i++)
+                if (context.names().contains(features[i]) && context.getIndex(features[i]) == contextIndex) return i;
+            throw new IllegalArgumentException("No feature at index " + contextIndex);
+        }
+
+    }
+
+}
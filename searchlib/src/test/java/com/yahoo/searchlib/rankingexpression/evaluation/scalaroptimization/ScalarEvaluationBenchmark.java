@@ -0,0 +1,81 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+
+/**
+ * Compares evaluation of scalar expressions by the interpreter, optimized by the expression optimizer
+ * without scalar compilation, and compiled.
+ *
+ * @author agent
+ */
+public class ScalarEvaluationBenchmark {
+
+    private static final String linear =
+            "sigmoid(0.3 * a + 0.25 * b - 0.7 * c + 0.1 * a * b + 0.05 * b * c - 0.02 * a * c + 1.5) * " +
+            "if (a > b, 1.0 + log10(1 + a), 0.5) + max(a, c) / (1 + b * b)";
+
+    private static final String conditions =
+            "10 * if (a > 35, if (a > b, if (a >= 670, 4, 8), if (a > 8000, 5, 3)), if (a == 478, 90, 91)) + " +
+            "if (c < 0.5 && b > 10, c * 2, b + c) + if (!(a < 100) || c == 0, 1, 0)";
+
+    private final String expression;
+
+    public ScalarEvaluationBenchmark(String expression) {
+        this.expression = expression;
+    }
+
+    public void benchmark(int iterations) throws ParseException {
+        System.out.println(expression);
+        double interpreted = benchmark("Interpreted", new RankingExpression(expression), new MapContext(), iterations);
+
+        RankingExpression optimized = new RankingExpression(expression);
+        ArrayContext optimizedContext = new ArrayContext(optimized);
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ScalarOptimizer.class).setEnabled(false);
+        optimizer.optimize(optimized, optimizedContext);
+        double optimizedTotal = benchmark("Optimized  ", optimized, optimizedContext, iterations);
+
+        RankingExpression compiled = new RankingExpression(expression);
+        ArrayContext compiledContext = new ArrayContext(compiled);
+        new ExpressionOptimizer().optimize(compiled, compiledContext);
+        double compiledTotal = benchmark("Compiled   ", compiled, compiledContext, iterations);
+
+        if (interpreted != optimizedTotal || interpreted != compiledTotal)
+            throw new IllegalStateException("Expected " + interpreted + ", but got " + optimizedTotal + " and " + compiledTotal);
+    }
+
+    private double benchmark(String description, RankingExpression expression, Context context, int iterations) {
+        double total = evaluate(expression, context, iterations / 5); // warm-up
+        for (int round = 0; round < 3; round++) {
+            long startTime = System.nanoTime();
+            total = evaluate(expression, context, iterations);
+            long totalTime = System.nanoTime() - startTime;
+            System.out.println("  " + description + ": " + totalTime / 1000000 + " ms (" +
+                               totalTime / iterations + " ns per evaluation)");
+        }
+        return total;
+    }
+
+    private double evaluate(RankingExpression expression, Context context, int iterations) {
+        double total = 0;
+        for (int i = 0; i < iterations; i++) {
+            context.put("a", i % 1000);
+            context.put("b", (i % 37) / 3.0);
+            context.put("c", (i % 11) / 10.0);
+            total += expression.evaluate(context).asDouble();
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws ParseException {
+        new ScalarEvaluationBenchmark(linear).benchmark(5 * 1000 * 1000);
+        new ScalarEvaluationBenchmark(conditions).benchmark(5 * 1000 * 1000);
+    }
+
+}
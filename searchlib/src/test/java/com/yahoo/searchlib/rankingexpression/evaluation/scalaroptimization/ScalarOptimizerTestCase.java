@@ -0,0 +1,118 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ScalarOptimizerTestCase {
+
+    private static final double[][] values = { { 1, 2, 3 }, { 0, -1.5, 7 }, { 3, 3, 0 }, { -2, 0.5, 1e6 } };
+
+    @Test
+    public void requireThatCompiledExpressionsEvaluateAsInterpreted() throws ParseException {
+        assertCompiled("a + b * c");
+        assertCompiled("a - b - c");
+        assertCompiled("a / b % c");
+        assertCompiled("a ^ b ^ c + 1");
+        assertCompiled("a + b * c ^ 2 - a / (b + 1) % 3");
+        assertCompiled("a || b && c");
+        assertCompiled("a && b || c + 1");
+        assertCompiled("a + b || c");
+        assertCompiled("a < b");
+        assertCompiled("a <= b");
+        assertCompiled("a == b");
+        assertCompiled("a ~= b");
+        assertCompiled("a > b");
+        assertCompiled("a >= b");
+        assertCompiled("a != b");
+        assertCompiled("!(a > b)");
+        assertCompiled("-(a * b)");
+        assertCompiled("if (a > b, a * c, -c)");
+        assertCompiled("if (a > b, a < c, b < c)");
+        assertCompiled("if (a, 1, c)");
+        assertCompiled("max(a, b) + min(b, c) + pow(a, 2) + exp(b) + sigmoid(c) + fmod(c, 2) + atan2(a, b)");
+        assertCompiled("10 * if (a > 0.5, if (b > c, if (c >= 2, 4, 8), if (a > 2, 5, 3)), if (c == 7, 90, 91))");
+    }
+
+    @Test
+    public void requireThatOnlyScalarSubexpressionsAreCompiled() throws ParseException {
+        RankingExpression expression = new RankingExpression("reduce(t, sum) * (a + b * c) + (a - c)");
+        ArrayContext context = new ArrayContext(expression);
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, context);
+        assertEquals(2, report.getMetric("Compiled scalar expressions"));
+        assertTrue(expression.getRoot() instanceof ArithmeticNode);
+        assertEquals("reduce(t, sum) * (a + b * c) + (a - c)", expression.toString());
+
+        Tensor t = Tensor.from("tensor(x[2]):[1.0, 2.0]");
+        context.put("t", new TensorValue(t));
+        context.put("a", 1);
+        context.put("b", 2);
+        context.put("c", 3);
+        assertEquals(new DoubleValue(3 * 7 - 2), expression.evaluate(context));
+    }
+
+    @Test
+    public void requireThatValuesWhichAreNotDoublesAreEvaluatedByTheInterpreter() throws ParseException {
+        RankingExpression expression = new RankingExpression("a * 2 + b");
+        ArrayContext context = new ArrayContext(expression);
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, context);
+        assertEquals(1, report.getMetric("Compiled scalar expressions"));
+        assertTrue(expression.getRoot() instanceof CompiledScalarNode);
+
+        context.put("a", 1);
+        context.put("b", 2);
+        assertEquals(new DoubleValue(4), expression.evaluate(context));
+
+        context.put("a", new TensorValue(Tensor.from("tensor(x[2]):[1.0, 2.0]")));
+        assertEquals(new TensorValue(Tensor.from("tensor(x[2]):[4.0, 6.0]")), expression.evaluate(context));
+
+        context.put("a", 1);
+        assertEquals(new DoubleValue(4), expression.evaluate(context));
+    }
+
+    private void assertCompiled(String expressionString) throws ParseException {
+        RankingExpression interpreted = new RankingExpression(expressionString);
+        RankingExpression compiled = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(compiled, true);
+        OptimizationReport report = new ExpressionOptimizer().optimize(compiled, context);
+        assertEquals(expressionString, 1, report.getMetric("Compiled scalar expressions"));
+        assertTrue(compiled.getRoot() instanceof CompiledScalarNode);
+        assertEquals(interpreted.toString(), compiled.toString());
+
+        for (double[] value : values) {
+            MapContext mapContext = new MapContext();
+            bind(value, mapContext);
+            bind(value, context);
+            Value expected = interpreted.evaluate(mapContext);
+            Value actual = compiled.evaluate(context);
+            assertEquals(expressionString, expected.getClass(), actual.getClass());
+            assertEquals(expressionString, expected.toString(), actual.toString());
+            assertEquals(expressionString, expected.asDouble(), interpreted.evaluateDouble(mapContext), 0);
+            assertEquals(expressionString, expected.asDouble(), compiled.evaluateDouble(context), 0);
+        }
+    }
+
+    private void bind(double[] value, Context context) {
+        context.put("a", value[0]);
+        context.put("b", value[1]);
+        context.put("c", value[2]);
+    }
+
+}
@@ -0,0 +1,186 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.transform;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapTypeContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class FunctionSetOptimizerTestCase {
+
+    @Test
+    public void testConstantFolding() {
+        Map<String, Value> constants = new HashMap<>();
+        constants.put("a", Value.parse("2"));
+        constants.put("t", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        constants.put("large", new TensorValue(Tensor.from("tensor(x[200]):[" + "1, ".repeat(199) + "1]")));
+        Optimized optimized = new Optimized(constants);
+        optimized.function("scalar", "reduce(constant(t) * a, sum) + attribute(foo)");
+        optimized.function("tensor", "constant(t) * a + attribute(v)");
+        optimized.function("large", "constant(large) * a + attribute(v)");
+        optimized.function("lambda", "map(constant(t), f(a)(a + 1))");
+        optimized.function("generate", "tensor(a[2])(a + 1) + tensor(x[2])(x + a * 2)");
+        optimized.function("argument", "a * 3 + 1", "a");
+        optimized.function("infinite", "attribute(a) + 1 / 0");
+        optimized.function("infiniteCell", "constant(t) / 0 + attribute(v)");
+        optimized.optimize();
+
+        assertEquals("6.0 + attribute(foo)", optimized.function("scalar"));
+        assertEquals("tensor(x[2]):[2.0, 4.0] + attribute(v)", optimized.function("tensor"));
+        assertEquals("Large tensors are not folded",
+                     "constant(large) * a + attribute(v)", optimized.function("large"));
+        assertEquals("Lambda arguments are not constants",
+                     "tensor(x[2]):[2.0, 3.0]", optimized.function("lambda"));
+        assertEquals("Dimension names are not constants, but other references in generators are",
+                     "tensor(a[2])((a + 1)) + tensor(x[2])((x + 4.0))", optimized.function("generate"));
+        assertEquals("Arguments are not constants", "a * 3 + 1", optimized.function("argument"));
+        assertEquals("Infinities are not folded", "attribute(a) + 1 / 0", optimized.function("infinite"));
+        assertEquals("constant(t) / 0 + attribute(v)", optimized.function("infiniteCell"));
+        assertEquals(5, optimized.report.getMetric("Folded constant subexpressions"));
+    }
+
+    @Test
+    public void testInlining() {
+        Optimized optimized = new Optimized();
+        optimized.function("small", "attribute(x) * 2");
+        optimized.function("smallest", "query(y)");
+        optimized.function("large", "attribute(x) * 2 + query(y)");
+        optimized.function("withArgument", "attribute(x) * p", "p");
+        optimized.function("shadowed", "x * 2");
+        optimized.function("caller", "1 - small + smallest + large + withArgument(3)");
+        optimized.function("callerWithArgument", "shadowed + p", "x", "p");
+        optimized.expression("small * caller");
+        optimized.optimize();
+
+        assertEquals("Small functions without arguments are inlined",
+                     "1 - (attribute(x) * 2) + query(y) + large + withArgument(3)", optimized.function("caller"));
+        assertEquals("Inlined functions are kept",
+                     "attribute(x) * 2", optimized.function("small"));
+        assertEquals("Not inlined where its references would be bound to arguments",
+                     "shadowed + p", optimized.function("callerWithArgument"));
+        assertEquals("(attribute(x) * 2) * caller", optimized.expression(0));
+        assertEquals(3, optimized.report.getMetric("Inlined function references"));
+    }
+
+    @Test
+    public void testCommonSubexpressionExtraction() {
+        Optimized optimized = new Optimized();
+        optimized.function("f1", "sqrt(attribute(a) * attribute(b) + 1) * 2");
+        optimized.function("f2", "sqrt(attribute(a) * attribute(b) + 1) + attribute(c)");
+        optimized.function("f3", "if (attribute(c) > 0, log(attribute(a) + attribute(c)), 0)");
+        optimized.function("f4", "if (attribute(b) > 0, log(attribute(a) + attribute(c)), 1)");
+        optimized.function("f5", "attribute(a) * attribute(b) + p", "p");
+        optimized.expression("f1 + f2 + sqrt(attribute(a) * attribute(b) + 1)");
+        optimized.optimize();
+
+        assertEquals("sqrt(attribute(a) * attribute(b) + 1)", optimized.function("common_subexpression_1"));
+        assertEquals("common_subexpression_1 * 2", optimized.function("f1"));
+        assertEquals("common_subexpression_1 + attribute(c)", optimized.function("f2"));
+        assertEquals("f1 + f2 + common_subexpression_1", optimized.expression(0));
+        assertEquals("Subexpressions in branches are not extracted",
+                     "if (attribute(c) > 0, log(attribute(a) + attribute(c)), 0)", optimized.function("f3"));
+        assertEquals("attribute(a) * attribute(b) + p", optimized.function("f5"));
+        assertFalse(optimized.result.functions().containsKey("common_subexpression_2"));
+        assertEquals(1, optimized.report.getMetric("Extracted common subexpressions"));
+        assertEquals(3, optimized.report.getMetric("Replaced common subexpression occurrences"));
+        assertTrue(optimized.report.toString().contains("Extracted 'sqrt(attribute(a) * attribute(b) + 1)' occurring 3 times"));
+    }
+
+    @Test
+    public void testExtractionReusesFunctionsAndAvoidsArguments() {
+        Optimized optimized = new Optimized();
+        optimized.function("shared", "sqrt(attribute(a) * attribute(b) + 1)");
+        optimized.function("user", "sqrt(attribute(a) * attribute(b) + 1) * 3");
+        optimized.function("withArgument", "sqrt(attribute(a) * x + 1) * 3", "x");
+        optimized.function("sameWithArgument", "sqrt(attribute(a) * x + 1) * 3", "x");
+        optimized.function("common_subexpression_1", "query(q)");
+        optimized.expression("sqrt(attribute(a) * x + 1)");
+        optimized.expression("sqrt(attribute(a) * x + 1) + 1");
+        optimized.optimize();
+
+        assertEquals("Existing functions computing a common subexpression are reused",
+                     "shared * 3", optimized.function("user"));
+        assertEquals("sqrt(attribute(a) * attribute(b) + 1)", optimized.function("shared"));
+        assertEquals("Subexpressions referencing arguments are not extracted",
+                     "sqrt(attribute(a) * x + 1) * 3", optimized.function("withArgument"));
+        assertEquals("Generated names does not collide with existing functions",
+                     "common_subexpression_2 + 1", optimized.expression(1));
+        assertEquals("sqrt(attribute(a) * x + 1)", optimized.function("common_subexpression_2"));
+    }
+
+    @Test
+    public void testGeneratedDimensionsAreNotExtracted() {
+        Optimized optimized = new Optimized();
+        optimized.function("f1", "reduce(tensor(x[3])(x * x + x * 2), sum)");
+        optimized.function("f2", "reduce(tensor(x[4])(x * x + x * 2), sum)");
+        optimized.function("f3", "reduce(tensor(x[3])(x * x + x * 2), sum) + attribute(a)");
+        optimized.optimize();
+
+        assertEquals("Subexpressions referencing the generated dimensions are not extracted",
+                     "reduce(tensor(x[4])((x * x + x * 2)), sum)", optimized.function("f2"));
+        assertEquals("Whole generators are extracted",
+                     "reduce(tensor(x[3])((x * x + x * 2)), sum)", optimized.function("f1"));
+        assertEquals("f1 + attribute(a)", optimized.function("f3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExtractedFunctionsMustBeLargerThanInlinedFunctions() {
+        new FunctionSetOptimizer(5, 5, 100);
+    }
+
+    private static class Optimized {
+
+        private final Map<String, ExpressionFunction> functions = new LinkedHashMap<>();
+        private final List<RankingExpression> expressions = new ArrayList<>();
+        private final TransformContext context;
+        private final OptimizationReport report = new OptimizationReport();
+        private FunctionSetOptimizer.Result result;
+
+        Optimized() {
+            this(Map.of());
+        }
+
+        Optimized(Map<String, Value> constants) {
+            context = new TransformContext(constants, new MapTypeContext());
+        }
+
+        void function(String name, String expression, String ... arguments) {
+            functions.put(name, new ExpressionFunction(name, List.of(arguments), RankingExpression.from(expression)));
+        }
+
+        void expression(String expression) {
+            expressions.add(RankingExpression.from(expression));
+        }
+
+        void optimize() {
+            result = new FunctionSetOptimizer().optimize(functions, expressions, context, report);
+        }
+
+        String function(String name) {
+            return result.functions().get(name).getBody().getRoot().toString();
+        }
+
+        String expression(int index) {
+            return result.expressions().get(index).getRoot().toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,288 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespavisit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.json.JsonWriter;
+import com.yahoo.text.Utf8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the documents of one document type in a columnar format: Documents are buffered in chunks
+ * of a given number of rows, and each chunk is written as one block per column, where each block
+ * holds the values of one field in all the documents of the chunk. The columns are given by the
+ * fields of the document type, preceded by the columns <code>[documentid]</code> and <code>[lastmodified]</code>.
+ *
+ * <p>All numbers are big endian. The output is</p>
+ * <pre>
+ * file:   "VCOL" int:version utf:documenttype int:columncount (utf:name byte:columntype)* chunk* int:0
+ * chunk:  int:rowcount block*
+ * block:  byte:encoding byte:compressiontype int:uncompressedsize int:size byte[size]
+ * </pre>
+ * <p>The uncompressed content of a block is a presence bitmap of <code>ceil(rowcount / 8)</code> bytes,
+ * where bit <i>i % 8</i> (counting from the least significant) of byte <i>i / 8</i> is set if row <i>i</i> has a value, followed by the values of the
+ * rows which have one. Numbers and booleans are written with the fixed width of their {@link ColumnType}.
+ * String values are written either {@link #PLAIN} as int:length utf8:bytes, or {@link #DICTIONARY} encoded as
+ * int:dictionarysize (int:length utf8:bytes)* followed by an index into the dictionary for each value,
+ * which is 1, 2 or 4 bytes wide depending on the dictionary size. Values of other field types,
+ * like structs, collections and tensors, are written as strings holding their JSON representation.</p>
+ *
+ * <p>This is not thread safe.</p>
+ *
+ * @author agent
+ */
+public class ColumnarDocumentWriter implements Closeable {
+
+    public static final int VERSION = 1;
+    public static final byte PLAIN = 0;
+    public static final byte DICTIONARY = 1;
+
+    /** The type of values stored in a column */
+    public enum ColumnType {
+
+        INT8(0), INT32(1), INT64(2), FLOAT32(3), FLOAT64(4), BOOL(5), STRING(6), JSON(7);
+
+        private final byte code;
+
+        ColumnType(int code) { this.code = (byte)code; }
+
+        public byte code() { return code; }
+
+        static ColumnType of(DataType type) {
+            if (type == DataType.BYTE) return INT8;
+            if (type == DataType.INT) return INT32;
+            if (type == DataType.LONG) return INT64;
+            if (type == DataType.FLOAT) return FLOAT32;
+            if (type == DataType.DOUBLE) return FLOAT64;
+            if (type == DataType.BOOL) return BOOL;
+            if (type == DataType.STRING || type == DataType.URI) return STRING;
+            return JSON;
+        }
+
+    }
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final DataOutputStream out;
+    private final int rowsPerChunk;
+    private final Compressor compressor;
+    private final List<Field> fields;
+    private final List<Column> columns = new ArrayList<>();
+    private int rows = 0;
+    private long totalRows = 0;
+
+    /**
+     * Creates a writer of documents of the given type, and writes the header to the given stream
+     *
+     * @param type the type of the documents to write
+     * @param out the stream to write to, which is owned by this and closed by {@link #close()}
+     * @param rowsPerChunk the number of documents to write in each chunk
+     * @param compression the compression to use for blocks, if it makes them smaller
+     */
+    public ColumnarDocumentWriter(DocumentType type, OutputStream out, int rowsPerChunk, CompressionType compression) throws IOException {
+        if (rowsPerChunk < 1)
+            throw new IllegalArgumentException("Must have at least one row per chunk, got " + rowsPerChunk);
+        this.out = new DataOutputStream(out);
+        this.rowsPerChunk = rowsPerChunk;
+        this.compressor = new Compressor(compression);
+        this.fields = fieldsOf(type);
+
+        columns.add(new Column("[documentid]", ColumnType.STRING, rowsPerChunk));
+        columns.add(new Column("[lastmodified]", ColumnType.INT64, rowsPerChunk));
+        for (Field field : fields)
+            columns.add(new Column(field.getName(), ColumnType.of(field.getDataType()), rowsPerChunk));
+
+        this.out.write(Utf8.toBytes("VCOL"));
+        this.out.writeInt(VERSION);
+        this.out.writeUTF(type.getName());
+        this.out.writeInt(columns.size());
+        for (Column column : columns) {
+            this.out.writeUTF(column.name);
+            this.out.writeByte(column.type.code());
+        }
+    }
+
+    /** Returns the document fields of the given type, from its configured field set if present */
+    private static List<Field> fieldsOf(DocumentType type) {
+        if (type.fieldSet() != null) return new ArrayList<>(type.fieldSet());
+
+        Map<String, Field> fields = new LinkedHashMap<>();
+        for (Field field : type.getFields())
+            fields.put(field.getName(), field);
+        return new ArrayList<>(fields.values());
+    }
+
+    /** Adds a document, which must be of the type of this writer, and writes a chunk if it is full */
+    public void write(Document document, long lastModified) throws IOException {
+        columns.get(0).add(rows, document.getId().toString());
+        columns.get(1).add(rows, lastModified);
+        for (int i = 0; i < fields.size(); i++) {
+            FieldValue value = document.getFieldValue(fields.get(i));
+            if (value != null)
+                columns.get(i + 2).add(rows, value);
+        }
+        if (++rows == rowsPerChunk)
+            flushChunk();
+    }
+
+    /** Returns the number of documents written to this so far */
+    public long rowCount() { return totalRows + rows; }
+
+    private void flushChunk() throws IOException {
+        if (rows == 0) return;
+        out.writeInt(rows);
+        for (Column column : columns)
+            column.writeTo(out, rows, compressor);
+        totalRows += rows;
+        rows = 0;
+    }
+
+    /** Writes any buffered documents and the end marker, and closes the underlying stream */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushChunk();
+            out.writeInt(0);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static class Column {
+
+        final String name;
+        final ColumnType type;
+        final BitSet present;
+
+        /** The values of fixed width types */
+        final ByteArrayOutputStream fixedBytes = new ByteArrayOutputStream();
+        final DataOutputStream fixed = new DataOutputStream(fixedBytes);
+
+        /** The values of string types */
+        final List<byte[]> strings = new ArrayList<>();
+
+        Column(String name, ColumnType type, int rowsPerChunk) {
+            this.name = name;
+            this.type = type;
+            this.present = new BitSet(rowsPerChunk);
+        }
+
+        void add(int row, Object value) throws IOException {
+            present.set(row);
+            if (value instanceof FieldValue && type != ColumnType.JSON)
+                value = ((FieldValue)value).getWrappedValue();
+            switch (type) {
+                case INT8: fixed.writeByte(((Number)value).byteValue()); break;
+                case INT32: fixed.writeInt(((Number)value).intValue()); break;
+                case INT64: fixed.writeLong(((Number)value).longValue()); break;
+                case FLOAT32: fixed.writeFloat(((Number)value).floatValue()); break;
+                case FLOAT64: fixed.writeDouble(((Number)value).doubleValue()); break;
+                case BOOL: fixed.writeBoolean((Boolean)value); break;
+                case STRING: strings.add(Utf8.toBytes(value.toString())); break;
+                case JSON: strings.add(toJson((FieldValue)value)); break;
+            }
+        }
+
+        void writeTo(DataOutputStream out, int rows, Compressor compressor) throws IOException {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] bitmap = new byte[(rows + 7) / 8];
+            byte[] bits = present.toByteArray();
+            System.arraycopy(bits, 0, bitmap, 0, bits.length);
+            content.write(bitmap);
+
+            byte encoding = PLAIN;
+            if (type == ColumnType.STRING || type == ColumnType.JSON)
+                encoding = writeStrings(new DataOutputStream(content));
+            else
+                fixedBytes.writeTo(content);
+
+            byte[] uncompressed = content.toByteArray();
+            Compressor.Compression compressed = compressor.compress(uncompressed);
+            out.writeByte(encoding);
+            out.writeByte(compressed.type().getCode());
+            out.writeInt(uncompressed.length);
+            out.writeInt(compressed.data().length);
+            out.write(compressed.data());
+
+            present.clear();
+            fixedBytes.reset();
+            strings.clear();
+        }
+
+        /** Writes the strings of this column, using a dictionary if it pays off, and returns the encoding used */
+        private byte writeStrings(DataOutputStream out) throws IOException {
+            Map<ByteBuffer, Integer> dictionary = new HashMap<>();
+            List<byte[]> entries = new ArrayList<>();
+            int[] indexes = new int[strings.size()];
+            for (int i = 0; i < strings.size() && entries.size() <= strings.size() / 2; i++) {
+                byte[] value = strings.get(i);
+                Integer index = dictionary.putIfAbsent(ByteBuffer.wrap(value), entries.size());
+                if (index == null) {
+                    index = entries.size();
+                    entries.add(value);
+                }
+                indexes[i] = index;
+            }
+
+            if (entries.size() > strings.size() / 2) {
+                for (byte[] value : strings)
+                    writeString(value, out);
+                return PLAIN;
+            }
+
+            out.writeInt(entries.size());
+            for (byte[] entry : entries)
+                writeString(entry, out);
+            for (int index : indexes) {
+                if (entries.size() <= 1 << 8)
+                    out.writeByte(index);
+                else if (entries.size() <= 1 << 16)
+                    out.writeShort(index);
+                else
+                    out.writeInt(index);
+            }
+            return DICTIONARY;
+        }
+
+        private static void writeString(byte[] value, DataOutputStream out) throws IOException {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+
+        private static byte[] toJson(FieldValue value) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                JsonGenerator generator = jsonFactory.createGenerator(bytes);
+                value.serialize(null, new JsonWriter(generator));
+                generator.close();
+                return bytes.toByteArray();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
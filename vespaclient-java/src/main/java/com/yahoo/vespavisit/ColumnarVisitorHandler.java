@@ -0,0 +1,114 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespavisit;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.documentapi.DumpVisitorDataHandler;
+import com.yahoo.documentapi.VisitorDataHandler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A visitor handler which writes the visited documents to one columnar file per document type
+ * in a local directory, see {@link ColumnarDocumentWriter} for the format.
+ * Remove entries are counted, but not written.
+ *
+ * @author agent
+ */
+public class ColumnarVisitorHandler extends VdsVisitHandler {
+
+    public static final int DEFAULT_ROWS_PER_CHUNK = 16384;
+
+    private final Path directory;
+    private final String fileSuffix;
+    private final int rowsPerChunk;
+    private final VisitorDataHandler dataHandler = new DataHandler();
+
+    /**
+     * Creates a columnar visitor handler
+     *
+     * @param directory the directory to write files to, which is created if missing
+     * @param fileSuffix the suffix to append to the document type name to produce the name of each file
+     * @param rowsPerChunk the number of documents to buffer and write together as a chunk of columns
+     */
+    public ColumnarVisitorHandler(Path directory, String fileSuffix, int rowsPerChunk,
+                                  boolean showProgress, boolean showStatistics, boolean abortOnClusterDown) {
+        super(showProgress, showStatistics, abortOnClusterDown);
+        this.directory = directory;
+        this.fileSuffix = fileSuffix;
+        this.rowsPerChunk = rowsPerChunk;
+    }
+
+    @Override
+    public VisitorDataHandler getDataHandler() { return dataHandler; }
+
+    class DataHandler extends DumpVisitorDataHandler {
+
+        private final Map<String, ColumnarDocumentWriter> writers = new ConcurrentHashMap<>();
+        private final AtomicLong removes = new AtomicLong();
+
+        @Override
+        public void onDocument(Document doc, long timestamp) {
+            ColumnarDocumentWriter writer = writers.computeIfAbsent(doc.getDataType().getName(), name -> createWriter(doc));
+            try {
+                synchronized (writer) {
+                    writer.write(doc, timestamp);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed writing " + doc.getId(), e);
+            }
+        }
+
+        private ColumnarDocumentWriter createWriter(Document doc) {
+            try {
+                Files.createDirectories(directory);
+                Path file = directory.resolve(doc.getDataType().getName() + fileSuffix);
+                return new ColumnarDocumentWriter(doc.getDataType(),
+                                                  new BufferedOutputStream(Files.newOutputStream(file), 1 << 16),
+                                                  rowsPerChunk,
+                                                  CompressionType.LZ4);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed creating output file in " + directory, e);
+            }
+        }
+
+        @Override
+        public void onRemove(DocumentId id) {
+            removes.incrementAndGet();
+        }
+
+        @Override
+        public void onDone() {
+            for (Map.Entry<String, ColumnarDocumentWriter> entry : writers.entrySet()) {
+                try {
+                    synchronized (entry.getValue()) {
+                        entry.getValue().close();
+                    }
+                    if (showStatistics)
+                        System.err.println("Wrote " + entry.getValue().rowCount() + " documents of type " + entry.getKey() +
+                                           " to " + directory.resolve(entry.getKey() + fileSuffix));
+                }
+                catch (IOException e) {
+                    System.err.println("Failed writing " + entry.getKey() + fileSuffix + ": " + e.getMessage());
+                    getControlHandler().abort();
+                }
+            }
+            writers.clear();
+            if (removes.get() > 0)
+                System.err.println("Skipped " + removes.get() + " remove entries, which are not written in columnar output");
+            super.onDone();
+        }
+
+    }
+
+}
@@ -25,6 +25,7 @@ import org.apache.commons.cli.Options;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -327,6 +328,23 @@ public class VdsVisit {
                 .desc("Skip visiting super buckets with fatal error codes.")
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("slices")
+                .hasArg(true)
+                .argName("num")
+                .desc("Split the buckets to visit into this number of slices, and only visit the slice given by --sliceid. " +
+                      "Running one visit for each slice id, e.g. in parallel, visits all documents.")
+                .type(Number.class)
+                .build());
+
+        options.addOption(Option.builder()
+                .longOpt("sliceid")
+                .hasArg(true)
+                .argName("id")
+                .desc("The slice to visit, in the range [0, slices). Must be given with --slices.")
+                .type(Number.class)
+                .build());
+
         options.addOption(Option.builder()
                 .longOpt("jsonoutput")
                 .desc("Output documents as JSON (default format)")
@@ -339,6 +357,14 @@ public class VdsVisit {
               .hasArg(false)
               .build());
 
+        options.addOption(Option.builder()
+              .longOpt("columnaroutput")
+              .hasArg(true)
+              .argName("directory")
+              .desc("Write documents in a compressed columnar format to one file per document type in the given directory, " +
+                    "instead of to STDOUT. Remove entries are not written.")
+              .build());
+
         options.addOption(Option.builder()
                 .longOpt("bucketspace")
                 .hasArg(true)
@@ -362,6 +388,7 @@ public class VdsVisit {
         private int processTime = 0;
         private int fullTimeout = 7 * 24 * 60 * 60 * 1000;
         private boolean jsonOutput = false;
+        private String columnarOutputDirectory = null;
 
         public VisitorParameters getVisitorParameters() {
             return visitorParameters;
@@ -430,6 +457,15 @@ public class VdsVisit {
         public void setJsonOutput(boolean jsonOutput) {
             this.jsonOutput = jsonOutput;
         }
+
+        /** Returns the directory to write columnar output to, or null to write documents to STDOUT */
+        public String getColumnarOutputDirectory() {
+            return columnarOutputDirectory;
+        }
+
+        public void setColumnarOutputDirectory(String columnarOutputDirectory) {
+            this.columnarOutputDirectory = columnarOutputDirectory;
+        }
     }
 
     protected static class ArgumentParser {
@@ -548,6 +584,13 @@ public class VdsVisit {
             if (line.hasOption("skipbucketsonfatalerrors")) {
                 params.skipBucketsOnFatalErrors(true);
             }
+            if (line.hasOption("slices") != line.hasOption("sliceid")) {
+                throw new IllegalArgumentException("--slices and --sliceid must be given together");
+            }
+            if (line.hasOption("slices")) {
+                params.slice(((Number)line.getParsedOptionValue("slices")).intValue(),
+                             ((Number)line.getParsedOptionValue("sliceid")).intValue());
+            }
             if (line.hasOption("maxpendingsuperbuckets")) {
                 StaticThrottlePolicy throttlePolicy = new StaticThrottlePolicy();
                 throttlePolicy.setMaxPendingCount(((Number)line.getParsedOptionValue("maxpendingsuperbuckets")).intValue());
@@ -560,6 +603,12 @@ public class VdsVisit {
                 throw new IllegalArgumentException("Cannot combine both xml and json output");
             }
             allParams.setJsonOutput(!xmlOutput);
+            if (line.hasOption("columnaroutput")) {
+                if (jsonOutput || xmlOutput || allParams.isPrintIdsOnly()) {
+                    throw new IllegalArgumentException("Cannot combine columnar output with json, xml or id output");
+                }
+                allParams.setColumnarOutputDirectory(line.getOptionValue("columnaroutput"));
+            }
 
             allParams.setVisitorParameters(params);
             return allParams;
@@ -635,6 +684,9 @@ public class VdsVisit {
         if (vdsParams.isPrintIdsOnly()) {
             out.println("Only showing document identifiers.");
         }
+        if (vdsParams.getColumnarOutputDirectory() != null) {
+            out.println("Writing columnar output to: " + vdsParams.getColumnarOutputDirectory());
+        }
         out.println("Let visitor have maximum " + params.getMaxPending() + " replies pending on data handlers per storage node visitor.");
         out.println("Visit maximum " + params.getMaxBucketsPerVisitor() + " buckets per visitor.");
         if (params.getRemoteDataHandler() != null) {
@@ -656,6 +708,9 @@ public class VdsVisit {
         if (params.getPriority() != DocumentProtocol.Priority.NORMAL_3) {
             out.println("Visitor priority " + params.getPriority().name());
         }
+        if (params.getSlices() > 1) {
+            out.println("Visiting slice " + params.getSliceId() + " of " + params.getSlices() + ".");
+        }
         if (params.skipBucketsOnFatalErrors()) {
             out.println("Skip visiting super buckets with fatal errors.");
         }
@@ -715,15 +770,26 @@ public class VdsVisit {
 
         VdsVisitHandler handler;
 
-        handler = new StdOutVisitorHandler(
-                params.isPrintIdsOnly(),
-                params.isVerbose(),
-                params.isVerbose(),
-                params.isVerbose(),
-                params.getStatisticsParts() != null,
-                params.getAbortOnClusterDown(),
-                params.getProcessTime(),
-                params.jsonOutput);
+        if (params.getColumnarOutputDirectory() != null) {
+            String fileSuffix = (visitorParameters.getSlices() > 1 ? "." + visitorParameters.getSliceId() : "") + ".vcol";
+            handler = new ColumnarVisitorHandler(
+                    Paths.get(params.getColumnarOutputDirectory()),
+                    fileSuffix,
+                    ColumnarVisitorHandler.DEFAULT_ROWS_PER_CHUNK,
+                    params.isVerbose(),
+                    params.isVerbose(),
+                    params.getAbortOnClusterDown());
+        } else {
+            handler = new StdOutVisitorHandler(
+                    params.isPrintIdsOnly(),
+                    params.isVerbose(),
+                    params.isVerbose(),
+                    params.isVerbose(),
+                    params.getStatisticsParts() != null,
+                    params.getAbortOnClusterDown(),
+                    params.getProcessTime(),
+                    params.jsonOutput);
+        }
 
         if (visitorParameters.getResumeFileName() != null) {
             handler.setProgressFileName(visitorParameters.getResumeFileName());
@@ -0,0 +1,223 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespavisit;
+
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.BoolFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValue;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.text.Utf8;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ColumnarDocumentWriterTest {
+
+    private static DocumentType createType() {
+        DocumentType type = new DocumentType("music");
+        type.addField("genre", DataType.STRING);
+        type.addField("title", DataType.STRING);
+        type.addField("year", DataType.INT);
+        type.addField("score", DataType.DOUBLE);
+        type.addField("live", DataType.BOOL);
+        type.addField("tags", new ArrayDataType(DataType.STRING));
+        return type;
+    }
+
+    private static Document createDocument(DocumentType type, int i) {
+        Document doc = new Document(type, "id:ns:music::" + i);
+        doc.setFieldValue("genre", new StringFieldValue(i % 3 == 0 ? "rock" : "jazz"));
+        doc.setFieldValue("title", new StringFieldValue("Title " + i));
+        if (i % 2 == 0)
+            doc.setFieldValue("year", new IntegerFieldValue(1950 + i));
+        doc.setFieldValue("score", new DoubleFieldValue(i / 4.0));
+        doc.setFieldValue("live", new BoolFieldValue(i % 5 == 0));
+        Array<StringFieldValue> tags = new Array<>(DataType.getArray(DataType.STRING));
+        tags.add(new StringFieldValue("tag" + i));
+        doc.setFieldValue("tags", tags);
+        return doc;
+    }
+
+    @Test
+    public void documents_are_written_column_by_column_in_chunks() throws IOException {
+        DocumentType type = createType();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarDocumentWriter writer = new ColumnarDocumentWriter(type, out, 4, CompressionType.LZ4);
+        for (int i = 0; i < 10; i++)
+            writer.write(createDocument(type, i), 1000 + i);
+        assertEquals(10, writer.rowCount());
+        writer.close();
+
+        ColumnarFile file = ColumnarFile.read(out.toByteArray());
+        assertEquals("music", file.documentType);
+        assertEquals(List.of("[documentid]", "[lastmodified]", "genre", "title", "year", "score", "live", "tags"),
+                     new ArrayList<>(file.columnTypes.keySet()));
+        assertEquals(ColumnarDocumentWriter.ColumnType.STRING, file.columnTypes.get("genre"));
+        assertEquals(ColumnarDocumentWriter.ColumnType.INT32, file.columnTypes.get("year"));
+        assertEquals(ColumnarDocumentWriter.ColumnType.FLOAT64, file.columnTypes.get("score"));
+        assertEquals(ColumnarDocumentWriter.ColumnType.BOOL, file.columnTypes.get("live"));
+        assertEquals(ColumnarDocumentWriter.ColumnType.JSON, file.columnTypes.get("tags"));
+        assertEquals(List.of(4, 4, 2), file.chunkRows);
+
+        assertEquals(10, file.rows.size());
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> row = file.rows.get(i);
+            assertEquals("id:ns:music::" + i, row.get("[documentid]"));
+            assertEquals(1000L + i, row.get("[lastmodified]"));
+            assertEquals(i % 3 == 0 ? "rock" : "jazz", row.get("genre"));
+            assertEquals("Title " + i, row.get("title"));
+            if (i % 2 == 0)
+                assertEquals(1950 + i, row.get("year"));
+            else
+                assertNull(row.get("year"));
+            assertEquals(i / 4.0, row.get("score"));
+            assertEquals(i % 5 == 0, row.get("live"));
+            assertEquals("[\"tag" + i + "\"]", row.get("tags"));
+        }
+        assertTrue("Low cardinality strings are dictionary encoded", file.dictionaryColumns.contains("genre"));
+        assertTrue("Unique strings are not dictionary encoded", ! file.dictionaryColumns.contains("title"));
+    }
+
+    @Test
+    public void empty_output_has_header_and_end_marker() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ColumnarDocumentWriter(createType(), out, 10, CompressionType.NONE).close();
+        ColumnarFile file = ColumnarFile.read(out.toByteArray());
+        assertEquals(8, file.columnTypes.size());
+        assertTrue(file.rows.isEmpty());
+    }
+
+    @Test
+    public void repeated_values_are_compressed() throws IOException {
+        DocumentType type = new DocumentType("test");
+        type.addField("value", DataType.LONG);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarDocumentWriter writer = new ColumnarDocumentWriter(type, out, 10000, CompressionType.LZ4);
+        for (int i = 0; i < 10000; i++) {
+            Document doc = new Document(type, "id:ns:test::" + i);
+            doc.setFieldValue("value", new LongFieldValue(7));
+            writer.write(doc, 0);
+        }
+        writer.close();
+        assertTrue("Output size " + out.size(), out.size() < 10000 * 8);
+        ColumnarFile file = ColumnarFile.read(out.toByteArray());
+        assertEquals(10000, file.rows.size());
+        assertEquals(7L, file.rows.get(9999).get("value"));
+    }
+
+    /** Reads a file in the format written by {@link ColumnarDocumentWriter} into rows */
+    private static class ColumnarFile {
+
+        String documentType;
+        final Map<String, ColumnarDocumentWriter.ColumnType> columnTypes = new LinkedHashMap<>();
+        final List<Integer> chunkRows = new ArrayList<>();
+        final List<String> dictionaryColumns = new ArrayList<>();
+        final List<Map<String, Object>> rows = new ArrayList<>();
+
+        static ColumnarFile read(byte[] data) throws IOException {
+            ColumnarFile file = new ColumnarFile();
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+            assertEquals("VCOL", Utf8.toString(magic));
+            assertEquals(ColumnarDocumentWriter.VERSION, in.readInt());
+            file.documentType = in.readUTF();
+            int columnCount = in.readInt();
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.readUTF();
+                byte code = in.readByte();
+                for (ColumnarDocumentWriter.ColumnType type : ColumnarDocumentWriter.ColumnType.values())
+                    if (type.code() == code)
+                        file.columnTypes.put(name, type);
+            }
+            for (int rowCount = in.readInt(); rowCount > 0; rowCount = in.readInt()) {
+                file.chunkRows.add(rowCount);
+                List<Map<String, Object>> chunk = new ArrayList<>();
+                for (int i = 0; i < rowCount; i++)
+                    chunk.add(new LinkedHashMap<>());
+                for (Map.Entry<String, ColumnarDocumentWriter.ColumnType> column : file.columnTypes.entrySet())
+                    file.readBlock(in, column.getKey(), column.getValue(), chunk);
+                file.rows.addAll(chunk);
+            }
+            assertEquals(0, in.available());
+            return file;
+        }
+
+        private void readBlock(DataInputStream in, String column, ColumnarDocumentWriter.ColumnType type,
+                               List<Map<String, Object>> chunk) throws IOException {
+            byte encoding = in.readByte();
+            CompressionType compression = CompressionType.valueOf(in.readByte());
+            int uncompressedSize = in.readInt();
+            byte[] compressed = new byte[in.readInt()];
+            in.readFully(compressed);
+            ByteBuffer block = ByteBuffer.wrap(new Compressor().decompress(compressed, compression, uncompressedSize));
+
+            byte[] bitmap = new byte[(chunk.size() + 7) / 8];
+            block.get(bitmap);
+            List<Integer> presentRows = new ArrayList<>();
+            for (int row = 0; row < chunk.size(); row++)
+                if ((bitmap[row / 8] & (1 << (row % 8))) != 0)
+                    presentRows.add(row);
+
+            List<String> dictionary = new ArrayList<>();
+            if (encoding == ColumnarDocumentWriter.DICTIONARY) {
+                dictionaryColumns.add(column);
+                int size = block.getInt();
+                for (int i = 0; i < size; i++)
+                    dictionary.add(readString(block));
+            }
+            for (int row : presentRows) {
+                Object value;
+                switch (type) {
+                    case INT8: value = block.get(); break;
+                    case INT32: value = block.getInt(); break;
+                    case INT64: value = block.getLong(); break;
+                    case FLOAT32: value = block.getFloat(); break;
+                    case FLOAT64: value = block.getDouble(); break;
+                    case BOOL: value = block.get() != 0; break;
+                    default:
+                        if (encoding == ColumnarDocumentWriter.PLAIN)
+                            value = readString(block);
+                        else if (dictionary.size() <= 1 << 8)
+                            value = dictionary.get(block.get() & 0xff);
+                        else if (dictionary.size() <= 1 << 16)
+                            value = dictionary.get(block.getShort() & 0xffff);
+                        else
+                            value = dictionary.get(block.getInt());
+                }
+                chunk.get(row).put(column, value);
+            }
+            assertEquals(0, block.remaining());
+        }
+
+        private static String readString(ByteBuffer block) {
+            byte[] bytes = new byte[block.getInt()];
+            block.get(bytes);
+            return Utf8.toString(bytes);
+        }
+
+    }
+
+}
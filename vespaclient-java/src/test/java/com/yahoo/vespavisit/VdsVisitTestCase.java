@@ -192,6 +192,45 @@ public class VdsVisitTestCase {
 
     private static String[] emptyArgList() { return new String[]{}; }
 
+    @Test
+    public void slice_options_are_passed_to_visitor_parameters() throws Exception {
+        VdsVisit.VdsVisitParameters allParams = createMockArgumentParser().parse(new String[] { "--slices", "8", "--sliceid", "3" });
+        assertEquals(8, allParams.getVisitorParameters().getSlices());
+        assertEquals(3, allParams.getVisitorParameters().getSliceId());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PrintStream printStream = new PrintStream(outputStream);
+        VdsVisit.verbosePrintParameters(allParams, printStream);
+        printStream.flush();
+        assertTrue(outputStream.toString("utf-8").contains("Visiting slice 3 of 8."));
+
+        allParams = createMockArgumentParser().parse(emptyArgList());
+        assertEquals(1, allParams.getVisitorParameters().getSlices());
+        assertEquals(0, allParams.getVisitorParameters().getSliceId());
+    }
+
+    @Test
+    public void columnar_output_directory_is_parsed() throws Exception {
+        VdsVisit.VdsVisitParameters allParams = createMockArgumentParser().parse(new String[] { "--columnaroutput", "export" });
+        assertEquals("export", allParams.getColumnarOutputDirectory());
+        assertNull(createMockArgumentParser().parse(emptyArgList()).getColumnarOutputDirectory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void columnar_output_cannot_be_combined_with_json_output() throws Exception {
+        createMockArgumentParser().parse(new String[] { "--columnaroutput", "export", "--jsonoutput" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void slice_id_requires_slices() throws Exception {
+        createMockArgumentParser().parse(new String[] { "--sliceid", "3" });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void slice_id_must_be_less_than_slices() throws Exception {
+        createMockArgumentParser().parse(new String[] { "--slices", "3", "--sliceid", "3" });
+    }
+
     @Test
     public void visitor_priority_is_low1_by_default() throws Exception {
         VdsVisit.VdsVisitParameters allParams = createMockArgumentParser().parse(emptyArgList());
@@ -0,0 +1,211 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of byte buffers backing {@link GrowableByteBuffer} instances, used to avoid allocating (and growing)
+ * a fresh buffer for every serialization on hot paths.
+ *
+ * Buffers are kept in power-of-two size classes, separately for heap and direct buffers. A buffer acquired
+ * from the pool must be given back using {@link #release(GrowableByteBuffer)} once its content has been consumed,
+ * and must not be used after that. A buffer which has grown while leased is returned to the size class
+ * matching its new capacity, so the pool adapts to the sizes actually needed.
+ * The pool bounds both the number of idle buffers in each size class and their total capacity,
+ * and drops buffers released when either limit is reached.
+ *
+ * When leak detection is enabled, the pool keeps track of every leased buffer together with the stack trace
+ * of the acquiring thread, and fails on releasing a buffer which is not currently leased. Leak detection
+ * is enabled for the {@link #shared() shared} pool by setting the system property
+ * <code>vespa.bufferpool.leakdetection</code> to true, and is intended for tests only.
+ *
+ * This class is thread safe.
+ *
+ * @author agent
+ */
+public class GrowableByteBufferPool {
+
+    /** The smallest size class handed out by this pool */
+    public static final int MIN_SIZE = 1 << 10;
+
+    /** The largest size class kept by this pool. Larger buffers are handed out but never pooled */
+    public static final int MAX_SIZE = 1 << 24;
+
+    public static final int DEFAULT_MAX_BUFFERS_PER_SIZE = 64;
+
+    /** The default max total capacity of the idle buffers, heap and direct, kept by a pool */
+    public static final long DEFAULT_MAX_IDLE_BYTES = 64L << 20;
+
+    private static final int MIN_SIZE_CLASS = Integer.numberOfTrailingZeros(MIN_SIZE);
+    private static final int MAX_SIZE_CLASS = Integer.numberOfTrailingZeros(MAX_SIZE);
+
+    private static final GrowableByteBufferPool shared =
+            new GrowableByteBufferPool(DEFAULT_MAX_BUFFERS_PER_SIZE, DEFAULT_MAX_IDLE_BYTES,
+                                       Boolean.getBoolean("vespa.bufferpool.leakdetection"));
+
+    private final ArrayBlockingQueue<ByteBuffer>[] heapBuffers;
+    private final ArrayBlockingQueue<ByteBuffer>[] directBuffers;
+
+    private final long maxIdleBytes;
+
+    /** The total capacity of the idle buffers in this, including buffers which are being offered to it */
+    private final AtomicLong idleBytes = new AtomicLong();
+
+    /** The currently leased buffers with the stack trace of the acquisition, or null if leak detection is off */
+    private final Map<GrowableByteBuffer, Throwable> leased;
+
+    public GrowableByteBufferPool() {
+        this(DEFAULT_MAX_BUFFERS_PER_SIZE, false);
+    }
+
+    /** Creates a buffer pool keeping idle buffers of at most {@link #DEFAULT_MAX_IDLE_BYTES} in total */
+    public GrowableByteBufferPool(int maxBuffersPerSize, boolean leakDetection) {
+        this(maxBuffersPerSize, DEFAULT_MAX_IDLE_BYTES, leakDetection);
+    }
+
+    /**
+     * Creates a buffer pool
+     *
+     * @param maxBuffersPerSize the max number of idle buffers to keep in each size class
+     * @param maxIdleBytes the max total capacity of the idle buffers to keep
+     * @param leakDetection whether to track leased buffers, see {@link #assertNoLeaks()}
+     */
+    public GrowableByteBufferPool(int maxBuffersPerSize, long maxIdleBytes, boolean leakDetection) {
+        if (maxBuffersPerSize < 1)
+            throw new IllegalArgumentException("Must allow at least one buffer per size class, got " + maxBuffersPerSize);
+        if (maxIdleBytes < 0)
+            throw new IllegalArgumentException("The max idle bytes cannot be negative, got " + maxIdleBytes);
+        this.heapBuffers = createSizeClasses(maxBuffersPerSize);
+        this.directBuffers = createSizeClasses(maxBuffersPerSize);
+        this.maxIdleBytes = maxIdleBytes;
+        this.leased = leakDetection ? new IdentityHashMap<>() : null;
+    }
+
+    /** Returns the pool shared by all users in this JVM */
+    public static GrowableByteBufferPool shared() { return shared; }
+
+    /** Returns a heap buffer with a capacity of at least the given size, positioned at 0 and in big endian order */
+    public GrowableByteBuffer acquire(int minCapacity) {
+        return acquire(minCapacity, false);
+    }
+
+    /** Returns a direct buffer with a capacity of at least the given size, positioned at 0 and in big endian order */
+    public GrowableByteBuffer acquireDirect(int minCapacity) {
+        return acquire(minCapacity, true);
+    }
+
+    private GrowableByteBuffer acquire(int minCapacity, boolean direct) {
+        int sizeClass = sizeClassFor(minCapacity);
+        ByteBuffer buffer = null;
+        if (sizeClass <= MAX_SIZE_CLASS)
+            buffer = (direct ? directBuffers : heapBuffers)[sizeClass - MIN_SIZE_CLASS].poll();
+        if (buffer != null)
+            idleBytes.addAndGet(-buffer.capacity());
+        else {
+            int capacity = sizeClass <= MAX_SIZE_CLASS ? 1 << sizeClass : minCapacity;
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        GrowableByteBuffer growable = new GrowableByteBuffer(buffer);
+        if (leased != null) {
+            synchronized (leased) {
+                leased.put(growable, new Throwable("Buffer acquired here"));
+            }
+        }
+        return growable;
+    }
+
+    /**
+     * Returns the buffer backing the given growable buffer to this pool.
+     * The given buffer must have been acquired from this pool, and must not be used after this is called.
+     *
+     * @throws IllegalStateException if leak detection is enabled and the given buffer is not currently leased
+     */
+    public void release(GrowableByteBuffer growable) {
+        if (leased != null) {
+            synchronized (leased) {
+                if (leased.remove(growable) == null)
+                    throw new IllegalStateException("Releasing a buffer which is not leased from this pool");
+            }
+        }
+        ByteBuffer buffer = growable.getByteBuffer();
+        if (buffer.isReadOnly() || buffer.capacity() < MIN_SIZE || buffer.capacity() >= 2 * MAX_SIZE) return;
+
+        // A buffer is pooled in the largest size class it can hold, as acquire takes the smallest class which fits
+        int sizeClass = 31 - Integer.numberOfLeadingZeros(buffer.capacity());
+        if ( ! reserveIdleBytes(buffer.capacity())) return;
+        if ( ! (buffer.isDirect() ? directBuffers : heapBuffers)[sizeClass - MIN_SIZE_CLASS].offer(buffer))
+            idleBytes.addAndGet(-buffer.capacity());
+    }
+
+    /** Adds the given capacity to the idle bytes of this and returns true, or returns false if this would exceed the max */
+    private boolean reserveIdleBytes(int capacity) {
+        while (true) {
+            long current = idleBytes.get();
+            if (current + capacity > maxIdleBytes) return false;
+            if (idleBytes.compareAndSet(current, current + capacity)) return true;
+        }
+    }
+
+    /** Returns the number of idle buffers currently held by this pool */
+    public int idleCount() {
+        int count = 0;
+        for (int i = 0; i < heapBuffers.length; i++)
+            count += heapBuffers[i].size() + directBuffers[i].size();
+        return count;
+    }
+
+    /** Returns the total capacity of the idle buffers currently held by this pool */
+    public long idleBytes() { return idleBytes.get(); }
+
+    /** Returns the number of buffers currently leased from this pool, or -1 if leak detection is not enabled */
+    public int leasedCount() {
+        if (leased == null) return -1;
+        synchronized (leased) {
+            return leased.size();
+        }
+    }
+
+    /**
+     * Verifies that all buffers acquired from this pool has been released.
+     * This does nothing if leak detection is not enabled.
+     *
+     * @throws IllegalStateException if some buffer is still leased, with the acquisition stack trace as the cause
+     */
+    public void assertNoLeaks() {
+        if (leased == null) return;
+        List<Throwable> acquisitions;
+        synchronized (leased) {
+            acquisitions = new ArrayList<>(leased.values());
+        }
+        if (acquisitions.isEmpty()) return;
+        IllegalStateException e = new IllegalStateException(acquisitions.size() + " buffer(s) acquired from this pool " +
+                                                            "were never released", acquisitions.get(0));
+        for (int i = 1; i < acquisitions.size(); i++)
+            e.addSuppressed(acquisitions.get(i));
+        throw e;
+    }
+
+    /** Returns the smallest size class (as a power of two) which can hold the given capacity */
+    private static int sizeClassFor(int capacity) {
+        if (capacity <= MIN_SIZE) return MIN_SIZE_CLASS;
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArrayBlockingQueue<ByteBuffer>[] createSizeClasses(int maxBuffersPerSize) {
+        ArrayBlockingQueue<ByteBuffer>[] sizeClasses = new ArrayBlockingQueue[MAX_SIZE_CLASS - MIN_SIZE_CLASS + 1];
+        for (int i = 0; i < sizeClasses.length; i++)
+            sizeClasses[i] = new ArrayBlockingQueue<>(maxBuffersPerSize);
+        return sizeClasses;
+    }
+
+}
@@ -44,9 +44,8 @@ final class BufferedOutput {
 
     final void put(byte[] bytes) {
         reserve(bytes.length);
-        for (byte b : bytes) {
-            buf[pos++] = b;
-        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
     }
 
     public byte[] toArray() {
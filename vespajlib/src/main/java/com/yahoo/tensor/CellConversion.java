@@ -0,0 +1,32 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+/**
+ * Conversions of cell values to and from the reduced precision cell value types
+ *
+ * @author agent
+ */
+public final class CellConversion {
+
+    private CellConversion() {}
+
+    /** Returns the bits of the bfloat16 closest to the given value, rounding to even on ties */
+    public static short toBFloat16(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        if (Float.isNaN(value)) return (short)((bits >>> 16) | 0x0040); // keep it NaN when the low bits are dropped
+        return (short)((bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16);
+    }
+
+    /** Returns the value of the bfloat16 with the given bits */
+    public static float fromBFloat16(short bits) {
+        return Float.intBitsToFloat((bits & 0xFFFF) << 16);
+    }
+
+    /** Returns the given value as an int8, truncating any fraction and saturating at the bounds of the int8 range */
+    public static byte toInt8(double value) {
+        if (value >= Byte.MAX_VALUE) return Byte.MAX_VALUE;
+        if (value <= Byte.MIN_VALUE) return Byte.MIN_VALUE;
+        return (byte)value;
+    }
+
+}
@@ -0,0 +1,125 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * An indexed tensor implementation holding values as bfloat16 bits: The upper half of the bits of a float, which are widened when read
+ *
+ * @author agent
+ */
+class IndexedBFloat16Tensor extends IndexedTensor {
+
+    private final short[] values;
+
+    IndexedBFloat16Tensor(TensorType type, DimensionSizes dimensionSizes, short[] values) {
+        super(type, dimensionSizes);
+        this.values = values;
+    }
+
+    @Override
+    public long size() {
+        return values.length;
+    }
+
+    @Override
+    public double get(long valueIndex) { return getFloat(valueIndex); }
+
+    @Override
+    public float getFloat(long valueIndex) { return CellConversion.fromBFloat16(values[(int)valueIndex]); }
+
+    @Override
+    public void getDoubles(long valueIndex, double[] target) {
+        for (int i = 0, source = (int)valueIndex; i < target.length; i++, source++)
+            target[i] = CellConversion.fromBFloat16(values[source]);
+    }
+
+    @Override
+    public IndexedTensor withType(TensorType type) {
+        throwOnIncompatibleType(type);
+        return new IndexedBFloat16Tensor(type, dimensionSizes(), values);
+    }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(values); }
+
+    /** A bound builder can create the short array directly */
+    public static class BoundBFloat16Builder extends BoundBuilder {
+
+        private short[] values;
+
+        BoundBFloat16Builder(TensorType type, DimensionSizes sizes) {
+            super(type, sizes);
+            this.values = new short[(int)sizes.totalSize()];
+        }
+
+        @Override
+        public IndexedTensor.BoundBuilder cell(double value, long ... indexes) {
+            values[(int)toValueIndex(indexes, sizes())] = CellConversion.toBFloat16((float)value);
+            return this;
+        }
+
+        @Override
+        public IndexedTensor.BoundBuilder cell(float value, long ... indexes) {
+            values[(int)toValueIndex(indexes, sizes())] = CellConversion.toBFloat16(value);
+            return this;
+        }
+
+        @Override
+        public CellBuilder cell() {
+            return new CellBuilder(type, this);
+        }
+
+        @Override
+        public Builder cell(TensorAddress address, double value) {
+            values[(int)toValueIndex(address, sizes(), type)] = CellConversion.toBFloat16((float)value);
+            return this;
+        }
+
+        @Override
+        public Builder cell(TensorAddress address, float value) {
+            values[(int)toValueIndex(address, sizes(), type)] = CellConversion.toBFloat16(value);
+            return this;
+        }
+
+        @Override
+        public IndexedTensor build() {
+            IndexedTensor tensor = new IndexedBFloat16Tensor(type, sizes(), values);
+            // prevent further modification
+            values = null;
+            return tensor;
+        }
+
+        @Override
+        public Builder cell(Cell cell, double value) {
+            long directIndex = cell.getDirectIndex();
+            if (directIndex >= 0) // optimization
+                values[(int)directIndex] = CellConversion.toBFloat16((float)value);
+            else
+                super.cell(cell, value);
+            return this;
+        }
+
+        @Override
+        public Builder cell(Cell cell, float value) {
+            long directIndex = cell.getDirectIndex();
+            if (directIndex >= 0) // optimization
+                values[(int)directIndex] = CellConversion.toBFloat16(value);
+            else
+                super.cell(cell, value);
+            return this;
+        }
+
+        @Override
+        public void cellByDirectIndex(long index, double value) {
+            values[(int)index] = CellConversion.toBFloat16((float)value);
+        }
+
+        @Override
+        public void cellByDirectIndex(long index, float value) {
+            values[(int)index] = CellConversion.toBFloat16(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,120 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * An indexed tensor implementation reading its values from buffers, which may be memory mapped,
+ * rather than holding them on the heap. The values may be split over several buffers, as a buffer
+ * cannot hold more than 2Gb.
+ *
+ * @author agent
+ */
+class IndexedBufferTensor extends IndexedTensor {
+
+    private final ByteBuffer[] segments;
+    /** The log2 of the number of bytes in each segment but the last, such that cells never span segments */
+    private final int segmentBits;
+    private final TensorType.Value cellType;
+
+    IndexedBufferTensor(TensorType type, DimensionSizes dimensionSizes, List<ByteBuffer> segments, TensorType.Value cellType) {
+        super(type, dimensionSizes);
+        this.segments = new ByteBuffer[segments.size()];
+        long bytes = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            this.segments[i] = segments.get(i).slice().asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
+            bytes += this.segments[i].remaining();
+        }
+        this.segmentBits = segmentBits(this.segments, cellType);
+        this.cellType = cellType;
+        long requiredBytes = dimensionSizes.totalSize() * bytesPerCell(cellType);
+        if (bytes < requiredBytes)
+            throw new IllegalArgumentException("Invalid size(" + bytes + " bytes) of supplied value buffer." +
+                                               " Type specifies that size should be " + requiredBytes + " bytes");
+    }
+
+    private static int segmentBits(ByteBuffer[] segments, TensorType.Value cellType) {
+        if (segments.length < 2) return Integer.SIZE - 1; // any index into a single buffer
+        int segmentSize = segments[0].remaining();
+        if (Integer.bitCount(segmentSize) != 1 || segmentSize < bytesPerCell(cellType))
+            throw new IllegalArgumentException("Value buffers must have a size which is a power of 2 of at least the " +
+                                               "cell size, but got " + segmentSize + " bytes");
+        for (int i = 1; i < segments.length - 1; i++)
+            if (segments[i].remaining() != segmentSize)
+                throw new IllegalArgumentException("All value buffers but the last must have the same size, but got " +
+                                                   segments[i].remaining() + " bytes where " + segmentSize + " was expected");
+        return Integer.numberOfTrailingZeros(segmentSize);
+    }
+
+    /** Returns the segment holding the given byte */
+    private ByteBuffer segment(long byteIndex) {
+        return segments[(int)(byteIndex >>> segmentBits)];
+    }
+
+    /** Returns the offset of the given byte in its segment */
+    private int offset(long byteIndex) {
+        return (int)(byteIndex & ((1L << segmentBits) - 1));
+    }
+
+    @Override
+    public long size() {
+        return dimensionSizes().totalSize();
+    }
+
+    @Override
+    public double get(long valueIndex) {
+        if (cellType == TensorType.Value.DOUBLE) {
+            long byteIndex = valueIndex * Double.BYTES;
+            return segment(byteIndex).getDouble(offset(byteIndex));
+        }
+        return getFloat(valueIndex);
+    }
+
+    @Override
+    public float getFloat(long valueIndex) {
+        long byteIndex = valueIndex * bytesPerCell(cellType);
+        switch (cellType) {
+            case FLOAT: return segment(byteIndex).getFloat(offset(byteIndex));
+            case BFLOAT16: return CellConversion.fromBFloat16(segment(byteIndex).getShort(offset(byteIndex)));
+            case INT8: return segment(byteIndex).get(offset(byteIndex));
+            default: return (float)get(valueIndex);
+        }
+    }
+
+    @Override
+    public IndexedTensor withType(TensorType type) {
+        throwOnIncompatibleType(type);
+        return new IndexedBufferTensor(type, dimensionSizes(), List.of(segments), cellType);
+    }
+
+    /** Returns the same hash code as the array implementation holding the same values would */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (long i = 0; i < size(); i++)
+            hashCode = 31 * hashCode + cellHashCode(i);
+        return hashCode;
+    }
+
+    private int cellHashCode(long valueIndex) {
+        long byteIndex = valueIndex * bytesPerCell(cellType);
+        switch (cellType) {
+            case FLOAT: return Float.hashCode(getFloat(valueIndex));
+            case BFLOAT16: return segment(byteIndex).getShort(offset(byteIndex));
+            case INT8: return segment(byteIndex).get(offset(byteIndex));
+            default: return Double.hashCode(get(valueIndex));
+        }
+    }
+
+    private static int bytesPerCell(TensorType.Value cellType) {
+        switch (cellType) {
+            case FLOAT: return Float.BYTES;
+            case BFLOAT16: return Short.BYTES;
+            case INT8: return Byte.BYTES;
+            default: return Double.BYTES;
+        }
+    }
+
+}
@@ -28,6 +28,11 @@ class IndexedDoubleTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return (float)get(valueIndex); }
 
+    @Override
+    public void getDoubles(long valueIndex, double[] target) {
+        System.arraycopy(values, (int)valueIndex, target, 0, target.length);
+    }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
@@ -28,6 +28,12 @@ class IndexedFloatTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return values[(int)valueIndex]; }
 
+    @Override
+    public void getDoubles(long valueIndex, double[] target) {
+        for (int i = 0, source = (int)valueIndex; i < target.length; i++, source++)
+            target[i] = values[source];
+    }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
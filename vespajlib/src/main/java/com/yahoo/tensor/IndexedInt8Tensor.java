@@ -0,0 +1,125 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * An indexed tensor implementation holding values as int8 values, which are widened when read
+ *
+ * @author agent
+ */
+class IndexedInt8Tensor extends IndexedTensor {
+
+    private final byte[] values;
+
+    IndexedInt8Tensor(TensorType type, DimensionSizes dimensionSizes, byte[] values) {
+        super(type, dimensionSizes);
+        this.values = values;
+    }
+
+    @Override
+    public long size() {
+        return values.length;
+    }
+
+    @Override
+    public double get(long valueIndex) { return values[(int)valueIndex]; }
+
+    @Override
+    public float getFloat(long valueIndex) { return values[(int)valueIndex]; }
+
+    @Override
+    public void getDoubles(long valueIndex, double[] target) {
+        for (int i = 0, source = (int)valueIndex; i < target.length; i++, source++)
+            target[i] = values[source];
+    }
+
+    @Override
+    public IndexedTensor withType(TensorType type) {
+        throwOnIncompatibleType(type);
+        return new IndexedInt8Tensor(type, dimensionSizes(), values);
+    }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(values); }
+
+    /** A bound builder can create the byte array directly */
+    public static class BoundInt8Builder extends BoundBuilder {
+
+        private byte[] values;
+
+        BoundInt8Builder(TensorType type, DimensionSizes sizes) {
+            super(type, sizes);
+            this.values = new byte[(int)sizes.totalSize()];
+        }
+
+        @Override
+        public IndexedTensor.BoundBuilder cell(double value, long ... indexes) {
+            values[(int)toValueIndex(indexes, sizes())] = CellConversion.toInt8(value);
+            return this;
+        }
+
+        @Override
+        public IndexedTensor.BoundBuilder cell(float value, long ... indexes) {
+            values[(int)toValueIndex(indexes, sizes())] = CellConversion.toInt8(value);
+            return this;
+        }
+
+        @Override
+        public CellBuilder cell() {
+            return new CellBuilder(type, this);
+        }
+
+        @Override
+        public Builder cell(TensorAddress address, double value) {
+            values[(int)toValueIndex(address, sizes(), type)] = CellConversion.toInt8(value);
+            return this;
+        }
+
+        @Override
+        public Builder cell(TensorAddress address, float value) {
+            values[(int)toValueIndex(address, sizes(), type)] = CellConversion.toInt8(value);
+            return this;
+        }
+
+        @Override
+        public IndexedTensor build() {
+            IndexedTensor tensor = new IndexedInt8Tensor(type, sizes(), values);
+            // prevent further modification
+            values = null;
+            return tensor;
+        }
+
+        @Override
+        public Builder cell(Cell cell, double value) {
+            long directIndex = cell.getDirectIndex();
+            if (directIndex >= 0) // optimization
+                values[(int)directIndex] = CellConversion.toInt8(value);
+            else
+                super.cell(cell, value);
+            return this;
+        }
+
+        @Override
+        public Builder cell(Cell cell, float value) {
+            long directIndex = cell.getDirectIndex();
+            if (directIndex >= 0) // optimization
+                values[(int)directIndex] = CellConversion.toInt8(value);
+            else
+                super.cell(cell, value);
+            return this;
+        }
+
+        @Override
+        public void cellByDirectIndex(long index, double value) {
+            values[(int)index] = CellConversion.toInt8(value);
+        }
+
+        @Override
+        public void cellByDirectIndex(long index, float value) {
+            values[(int)index] = CellConversion.toInt8(value);
+        }
+
+    }
+
+}
@@ -4,6 +4,7 @@ package com.yahoo.tensor;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -134,6 +135,18 @@ public abstract class IndexedTensor implements Tensor {
      */
     public abstract float getFloat(long valueIndex);
 
+    /**
+     * Copies the values starting at the given <i>standard value order</i> index into the given array, as doubles.
+     * This is faster than getting one value at a time when reading many values, such as rows of a matrix.
+     *
+     * @param valueIndex the direct index into the underlying data of the first value to copy
+     * @param target the array to copy values to: As many values as the length of this array are copied
+     */
+    public void getDoubles(long valueIndex, double[] target) {
+        for (int i = 0; i < target.length; i++)
+            target[i] = get(valueIndex + i);
+    }
+
     static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
         if (indexes.length == 0) return 0; // for speed
@@ -223,10 +236,8 @@ public abstract class IndexedTensor implements Tensor {
             // value
             if (tensor.type().valueType() == TensorType.Value.DOUBLE)
                 b.append(tensor.get(index));
-            else if (tensor.type().valueType() == TensorType.Value.FLOAT)
-                b.append(tensor.getFloat(index));
             else
-                throw new IllegalStateException("Unexpected value type " + tensor.type().valueType());
+                b.append(tensor.getFloat(index));
 
             // end bracket and comma
             for (int i = 0; i < indexes.nextDimensionsAtEnd(); i++)
@@ -242,6 +253,36 @@ public abstract class IndexedTensor implements Tensor {
         return Tensor.equals(this, ((Tensor)other));
     }
 
+    /**
+     * Returns a tensor which reads its values from the given buffer rather than holding them on the heap,
+     * such that large tensors can be backed by memory mapped files.
+     *
+     * @param type the type of the tensor
+     * @param sizes the sizes of the dimensions of the tensor
+     * @param values the values of the tensor in the <i>standard value order</i>, as big-endian floats if the value type
+     *               of the type is float, big-endian bfloat16 bits if it is bfloat16, bytes if it is int8
+     *               and doubles otherwise, starting at the position of the buffer.
+     *               This <b>transfers ownership</b> of the buffer - it must not be further mutated by the caller
+     */
+    public static IndexedTensor fromBuffer(TensorType type, DimensionSizes sizes, ByteBuffer values) {
+        return fromBuffers(type, sizes, List.of(values));
+    }
+
+    /**
+     * Returns a tensor which reads its values from the given buffers, in order, rather than holding them on the heap,
+     * such that tensors larger than a single buffer can be backed by memory mapped files.
+     *
+     * @param type the type of the tensor
+     * @param sizes the sizes of the dimensions of the tensor
+     * @param segments the values of the tensor as described in {@link #fromBuffer}, split over buffers where
+     *                 all but the last must have the same size, which must be a power of 2.
+     *                 This <b>transfers ownership</b> of the buffers - they must not be further mutated by the caller
+     */
+    public static IndexedTensor fromBuffers(TensorType type, DimensionSizes sizes, List<ByteBuffer> segments) {
+        Builder.validate(type, sizes);
+        return new IndexedBufferTensor(type, sizes, segments, type.valueType());
+    }
+
     public abstract static class Builder implements Tensor.Builder {
 
         final TensorType type;
@@ -295,6 +336,10 @@ public abstract class IndexedTensor implements Tensor {
 
             if (type.valueType() == TensorType.Value.FLOAT)
                 return new IndexedFloatTensor.BoundFloatBuilder(type, sizes);
+            else if (type.valueType() == TensorType.Value.BFLOAT16)
+                return new IndexedBFloat16Tensor.BoundBFloat16Builder(type, sizes);
+            else if (type.valueType() == TensorType.Value.INT8)
+                return new IndexedInt8Tensor.BoundInt8Builder(type, sizes);
             else if (type.valueType() == TensorType.Value.DOUBLE)
                 return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes);
             else
@@ -315,6 +360,10 @@ public abstract class IndexedTensor implements Tensor {
 
             if (type.valueType() == TensorType.Value.FLOAT)
                 return new IndexedFloatTensor.BoundFloatBuilder(type, sizes, values);
+            else if (type.valueType() == TensorType.Value.BFLOAT16)
+                return new IndexedBFloat16Tensor.BoundBFloat16Builder(type, sizes).fill(values);
+            else if (type.valueType() == TensorType.Value.INT8)
+                return new IndexedInt8Tensor.BoundInt8Builder(type, sizes).fill(values);
             else if (type.valueType() == TensorType.Value.DOUBLE)
                 return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes).fill(values);
             else
@@ -335,6 +384,10 @@ public abstract class IndexedTensor implements Tensor {
 
             if (type.valueType() == TensorType.Value.FLOAT)
                 return new IndexedFloatTensor.BoundFloatBuilder(type, sizes).fill(values);
+            else if (type.valueType() == TensorType.Value.BFLOAT16)
+                return new IndexedBFloat16Tensor.BoundBFloat16Builder(type, sizes).fill(values);
+            else if (type.valueType() == TensorType.Value.INT8)
+                return new IndexedInt8Tensor.BoundInt8Builder(type, sizes).fill(values);
             else if (type.valueType() == TensorType.Value.DOUBLE)
                 return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes, values);
             else
@@ -449,6 +502,8 @@ public abstract class IndexedTensor implements Tensor {
             DimensionSizes dimensionSizes = findDimensionSizes(firstDimension);
             double[] values = new double[(int)dimensionSizes.totalSize()];
             fillValues(0, 0, firstDimension, dimensionSizes, values);
+            if (type.valueType() == TensorType.Value.BFLOAT16 || type.valueType() == TensorType.Value.INT8)
+                return Builder.of(type, dimensionSizes, values).build();
             return new IndexedDoubleTensor(type, dimensionSizes, values);
         }
 
@@ -529,12 +529,7 @@ public class MixedTensor implements Tensor {
                     b.append("[");
 
                 // value
-                if (type.valueType() == TensorType.Value.DOUBLE)
-                    b.append(getDouble(subspaceIndex, index, tensor));
-                else if (tensor.type().valueType() == TensorType.Value.FLOAT)
-                    b.append(getDouble(subspaceIndex, index, tensor)); // TODO: Really use floats
-                else
-                    throw new IllegalStateException("Unexpected value type " + type.valueType());
+                b.append(getDouble(subspaceIndex, index, tensor)); // TODO: Really use floats
 
                 // end bracket and comma
                 for (int i = 0; i < indexes.nextDimensionsAtEnd(); i++)
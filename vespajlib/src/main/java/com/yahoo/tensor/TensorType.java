@@ -33,7 +33,7 @@ public class TensorType {
     public enum Value {
 
         // Types added must also be added to TensorTypeParser.parseValueTypeSpec, serialization, and largestOf below
-        DOUBLE("double"), FLOAT("float");
+        DOUBLE("double"), FLOAT("float"), BFLOAT16("bfloat16"), INT8("int8");
 
         private final String id;
 
@@ -59,7 +59,18 @@ public class TensorType {
 
         public static Value largestOf(Value value1, Value value2) {
             if (value1 == DOUBLE || value2 == DOUBLE) return DOUBLE;
-            return FLOAT;
+            if (value1 == FLOAT || value2 == FLOAT) return FLOAT;
+            if (value1 == BFLOAT16 || value2 == BFLOAT16) return BFLOAT16;
+            return INT8;
+        }
+
+        /**
+         * Returns the value type of the result of computing on values of this type:
+         * The reduced precision types are stored only, and are computed with as floats.
+         */
+        public Value decayed() {
+            if (this == BFLOAT16 || this == INT8) return FLOAT;
+            return this;
         }
 
         @Override
@@ -69,7 +80,10 @@ public class TensorType {
             switch (valueTypeString) {
                 case "double" : return Value.DOUBLE;
                 case "float" : return Value.FLOAT;
-                default : throw new IllegalArgumentException("Value type must be either 'double' or 'float'" +
+                case "bfloat16" : return Value.BFLOAT16;
+                case "int8" : return Value.INT8;
+                default : throw new IllegalArgumentException("Value type must be either 'double', 'float', " +
+                                                             "'bfloat16' or 'int8'" +
                                                              " but was '" + valueTypeString + "'");
             }
         }
@@ -107,7 +121,7 @@ public class TensorType {
                 valueTypes.add(type.valueType());
             }
         }
-        return Value.largestOf(valueTypes);
+        return Value.largestOf(valueTypes).decayed();
     }
 
     /**
@@ -13,4 +13,7 @@ public interface EvaluationContext<NAMETYPE extends Name> extends TypeContext<NA
     /** Returns the tensor bound to this name, or null if none */
     Tensor getTensor(String name);
 
+    /** Returns the parallelism to use when evaluating tensor operations in this context */
+    default EvaluationParallelism parallelism() { return EvaluationParallelism.none; }
+
 }
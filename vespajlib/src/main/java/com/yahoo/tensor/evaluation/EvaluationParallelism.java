@@ -0,0 +1,117 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.evaluation;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Settings for evaluating large dense tensor operations in parallel: Such operations are split into
+ * tasks computing a range of slices of the outermost dimensions of the result each, which are run in a fork-join pool.
+ * Operations computing fewer cells than the minimum number of cells per task are evaluated in the calling thread.
+ *
+ * @author agent
+ */
+public class EvaluationParallelism {
+
+    /** Evaluate all operations in the calling thread */
+    public static final EvaluationParallelism none = new EvaluationParallelism();
+
+    private final ForkJoinPool pool;
+    private final long minCellsPerTask;
+
+    private EvaluationParallelism() {
+        this.pool = null;
+        this.minCellsPerTask = Long.MAX_VALUE;
+    }
+
+    /**
+     * Creates a parallelism setting
+     *
+     * @param pool the pool to run evaluation tasks in. The calling thread will wait for these tasks to complete.
+     * @param minCellsPerTask the minimum number of cells to compute in each task, to avoid the overhead of
+     *                        splitting operations over small tensors
+     * @throws IllegalArgumentException if minCellsPerTask is less than 1
+     */
+    public EvaluationParallelism(ForkJoinPool pool, long minCellsPerTask) {
+        if (minCellsPerTask < 1)
+            throw new IllegalArgumentException("The minimum number of cells per task must be positive, not " + minCellsPerTask);
+        this.pool = Objects.requireNonNull(pool, "The pool cannot be null");
+        this.minCellsPerTask = minCellsPerTask;
+    }
+
+    /** Returns whether operations may be evaluated in parallel with this */
+    public boolean isEnabled() { return pool != null; }
+
+    /** Returns the minimum number of cells to compute in each task */
+    public long minCellsPerTask() { return minCellsPerTask; }
+
+    /** Returns the number of tasks to split computing the given number of slices having the given number of cells each into */
+    public int tasks(long slices, long cellsPerSlice) {
+        if ( ! isEnabled()) return 1;
+        long cells = slices * Math.max(cellsPerSlice, 1);
+        return (int)Math.max(1, Math.min(Math.min(pool.getParallelism(), slices), cells / minCellsPerTask));
+    }
+
+    /**
+     * Computes the given number of slices, in parallel if there are enough cells,
+     * and returns when all of them are computed.
+     *
+     * @param slices the number of slices, each of which can be computed independently of the others
+     * @param cellsPerSlice the number of cells computed in each slice
+     * @param task the task computing a range of slices
+     */
+    public void forEachSlice(long slices, long cellsPerSlice, SliceTask task) {
+        int tasks = tasks(slices, cellsPerSlice);
+        if (tasks == 1)
+            task.compute(0, slices);
+        else
+            pool.invoke(new SliceAction(0, tasks, tasks, slices, task));
+    }
+
+    @Override
+    public String toString() {
+        if ( ! isEnabled()) return "no parallelism";
+        return "parallelism " + pool.getParallelism() + " with at least " + minCellsPerTask + " cells per task";
+    }
+
+    /** A task computing a range of slices */
+    @FunctionalInterface
+    public interface SliceTask {
+
+        /** Computes the slices from the given index (inclusive) to the given index (exclusive) */
+        void compute(long fromSlice, long toSlice);
+
+    }
+
+    /** Splits a range of tasks in two until each action computes the slices of a single task */
+    @SuppressWarnings("serial")
+    private static class SliceAction extends RecursiveAction {
+
+        private final int fromTask, toTask, tasks;
+        private final long slices;
+        private final SliceTask task;
+
+        SliceAction(int fromTask, int toTask, int tasks, long slices, SliceTask task) {
+            this.fromTask = fromTask;
+            this.toTask = toTask;
+            this.tasks = tasks;
+            this.slices = slices;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (toTask - fromTask == 1) {
+                task.compute(slices * fromTask / tasks, slices * toTask / tasks);
+            }
+            else {
+                int middle = (fromTask + toTask) / 2;
+                invokeAll(new SliceAction(fromTask, middle, tasks, slices, task),
+                          new SliceAction(middle, toTask, tasks, slices, task));
+            }
+        }
+
+    }
+
+}
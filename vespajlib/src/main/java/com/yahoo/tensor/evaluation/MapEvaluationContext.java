@@ -12,9 +12,13 @@ import java.util.HashMap;
 public class MapEvaluationContext<NAMETYPE extends Name> implements EvaluationContext<NAMETYPE> {
 
     private final java.util.Map<String, Tensor> bindings = new HashMap<>();
+    private EvaluationParallelism parallelism = EvaluationParallelism.none;
 
     public void put(String name, Tensor tensor) { bindings.put(name, tensor); }
 
+    /** Sets the parallelism to use when evaluating tensor operations in this context */
+    public void setParallelism(EvaluationParallelism parallelism) { this.parallelism = parallelism; }
+
     @Override
     public TensorType getType(String name) {
         Tensor tensor = bindings.get(name);
@@ -30,4 +34,7 @@ public class MapEvaluationContext<NAMETYPE extends Name> implements EvaluationCo
     @Override
     public Tensor getTensor(String name) { return bindings.get(name); }
 
+    @Override
+    public EvaluationParallelism parallelism() { return parallelism; }
+
 }
@@ -10,6 +10,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
 
@@ -88,12 +89,21 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         Tensor a = argumentA.evaluate(context);
         Tensor b = argumentB.evaluate(context);
         TensorType joinedType = outputType(a.type(), b.type());
-        return evaluate(a, b, joinedType, combinator);
+        return evaluate(a, b, joinedType, combinator, context.parallelism());
     }
 
     static Tensor evaluate(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        return evaluate(a, b, joinedType, combinator, EvaluationParallelism.none);
+    }
+
+    static Tensor evaluate(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                           EvaluationParallelism parallelism) {
         // Choose join algorithm
-        if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
+        if (parallelism.isEnabled() && isDenseSuffixJoin(a, b))
+            return denseSuffixJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator, parallelism);
+        else if (parallelism.isEnabled() && isDenseSuffixJoin(b, a))
+            return denseSuffixJoin((IndexedTensor)b, (IndexedTensor)a, joinedType, reversed(combinator), parallelism);
+        else if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
             return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator);
         else if (joinedType.dimensions().size() == a.type().dimensions().size() && joinedType.dimensions().size() == b.type().dimensions().size())
             return singleSpaceJoin(a, b, joinedType, combinator);
@@ -106,6 +116,52 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
 
     }
 
+    /**
+     * Returns whether both tensors are dense and the dimensions of the subspace are the innermost dimensions
+     * of the superspace, having the same sizes, such that the cells of the subspace are repeated in the
+     * same order in each slice of the outer dimensions of the superspace. This is the case for e.g adding a bias
+     * vector to each row of a matrix, and for joining tensors of the same type.
+     */
+    private static boolean isDenseSuffixJoin(Tensor superspace, Tensor subspace) {
+        if ( ! (superspace instanceof IndexedTensor) || ! (subspace instanceof IndexedTensor)) return false;
+        int suffixStart = superspace.type().rank() - subspace.type().rank();
+        if (suffixStart < 0) return false;
+        DimensionSizes superSizes = ((IndexedTensor)superspace).dimensionSizes();
+        DimensionSizes subSizes = ((IndexedTensor)subspace).dimensionSizes();
+        for (int i = 0; i < subspace.type().rank(); i++) {
+            if ( ! superspace.type().dimensions().get(suffixStart + i).name().equals(subspace.type().dimensions().get(i).name()))
+                return false;
+            if (superSizes.size(suffixStart + i) != subSizes.size(i)) return false;
+        }
+        return true;
+    }
+
+    /** Joins a dense tensor into a superspace where it is the innermost dimensions, computing the outer slices in parallel */
+    private static Tensor denseSuffixJoin(IndexedTensor superspace, IndexedTensor subspace, TensorType joinedType,
+                                          DoubleBinaryOperator combinator, EvaluationParallelism parallelism) {
+        IndexedTensor.BoundBuilder builder =
+                (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(joinedType, superspace.dimensionSizes());
+        long sliceSize = subspace.size();
+        if (sliceSize == 0) return builder.build();
+        parallelism.forEachSlice(superspace.size() / sliceSize, sliceSize, (fromSlice, toSlice) -> {
+            double[] subspaceValues = new double[(int)sliceSize];
+            double[] superspaceValues = new double[(int)sliceSize];
+            subspace.getDoubles(0, subspaceValues);
+            for (long slice = fromSlice; slice < toSlice; slice++) {
+                long sliceStart = slice * sliceSize;
+                superspace.getDoubles(sliceStart, superspaceValues);
+                for (int i = 0; i < sliceSize; i++)
+                    builder.cellByDirectIndex(sliceStart + i, combinator.applyAsDouble(superspaceValues[i], subspaceValues[i]));
+            }
+        });
+        return builder.build();
+    }
+
+    /** Returns the given combinator with the argument order reversed */
+    private static DoubleBinaryOperator reversed(DoubleBinaryOperator combinator) {
+        return (a, b) -> combinator.applyAsDouble(b, a);
+    }
+
     private static boolean hasSingleIndexedDimension(Tensor tensor) {
         return tensor.type().dimensions().size() == 1 && tensor.type().dimensions().get(0).isIndexed();
     }
@@ -2,11 +2,13 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.ImmutableList;
+import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
 import com.yahoo.tensor.evaluation.Name;
 import com.yahoo.tensor.evaluation.TypeContext;
 
@@ -19,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * The <i>reduce</i> tensor operation returns a tensor produced from the argument tensor where some dimensions
@@ -60,7 +63,7 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     public static TensorType outputType(TensorType inputType, List<String> reduceDimensions) {
-        TensorType.Builder b = new TensorType.Builder(inputType.valueType());
+        TensorType.Builder b = new TensorType.Builder(inputType.valueType().decayed());
         if (reduceDimensions.isEmpty()) return b.build(); // means reduce all
         for (TensorType.Dimension dimension : inputType.dimensions()) {
             if ( ! reduceDimensions.contains(dimension.name()))
@@ -108,7 +111,7 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     private static TensorType type(TensorType argumentType, List<String> dimensions) {
-        TensorType.Builder builder = new TensorType.Builder(argumentType.valueType());
+        TensorType.Builder builder = new TensorType.Builder(argumentType.valueType().decayed());
         if (dimensions.isEmpty()) return builder.build(); // means reduce all
         for (TensorType.Dimension dimension : argumentType.dimensions())
             if ( ! dimensions.contains(dimension.name())) // keep
@@ -118,10 +121,14 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
 
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
-        return evaluate(this.argument.evaluate(context), dimensions, aggregator);
+        return evaluate(this.argument.evaluate(context), dimensions, aggregator, context.parallelism());
     }
 
     static Tensor evaluate(Tensor argument, List<String> dimensions, Aggregator aggregator) {
+        return evaluate(argument, dimensions, aggregator, EvaluationParallelism.none);
+    }
+
+    static Tensor evaluate(Tensor argument, List<String> dimensions, Aggregator aggregator, EvaluationParallelism parallelism) {
         if ( ! dimensions.isEmpty() && ! argument.type().dimensionNames().containsAll(dimensions))
             throw new IllegalArgumentException("Cannot reduce " + argument + " over dimensions " +
                                                dimensions + ": Not all those dimensions are present in this tensor");
@@ -135,6 +142,9 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
 
         TensorType reducedType = type(argument.type(), dimensions);
 
+        if (parallelism.isEnabled() && reducesInnermostDenseDimensions(argument, dimensions))
+            return reduceInnermostDenseDimensions((IndexedTensor)argument, reducedType, aggregator, parallelism);
+
         // Reduce cells
         Map<TensorAddress, ValueAggregator> aggregatingCells = new HashMap<>();
         for (Iterator<Tensor.Cell> i = argument.cellIterator(); i.hasNext(); ) {
@@ -164,6 +174,44 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         return TensorAddress.of(reducedLabels);
     }
 
+    /** Returns whether the argument is dense and the given dimensions are its innermost dimensions */
+    private static boolean reducesInnermostDenseDimensions(Tensor argument, List<String> dimensions) {
+        if ( ! (argument instanceof IndexedTensor)) return false;
+        List<String> dimensionNames = argument.type().dimensions().stream().map(TensorType.Dimension::name).collect(Collectors.toList());
+        return new HashSet<>(dimensionNames.subList(dimensionNames.size() - dimensions.size(), dimensionNames.size()))
+                       .equals(new HashSet<>(dimensions));
+    }
+
+    /**
+     * Reduces the innermost dimensions of a dense tensor, such that each cell of the result is aggregated from
+     * a consecutive range of argument values, computing ranges of result cells in parallel.
+     */
+    private static Tensor reduceInnermostDenseDimensions(IndexedTensor argument, TensorType reducedType,
+                                                         Aggregator aggregator, EvaluationParallelism parallelism) {
+        DimensionSizes.Builder reducedSizes = new DimensionSizes.Builder(reducedType.rank());
+        long reducedSize = 1;
+        for (int i = 0; i < reducedType.rank(); i++) {
+            reducedSizes.set(i, argument.dimensionSizes().size(i)); // the outermost dimensions are kept
+            reducedSize *= reducedSizes.size(i);
+        }
+        IndexedTensor.BoundBuilder builder =
+                (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType, reducedSizes.build());
+        if (reducedSize == 0) return builder.build();
+        long sliceSize = argument.size() / reducedSize;
+        parallelism.forEachSlice(reducedSize, sliceSize, (fromCell, toCell) -> {
+            ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
+            double[] values = new double[(int)sliceSize];
+            for (long cell = fromCell; cell < toCell; cell++) {
+                valueAggregator.reset();
+                argument.getDoubles(cell * sliceSize, values);
+                for (double value : values)
+                    valueAggregator.aggregate(value);
+                builder.cellByDirectIndex(cell, valueAggregator.aggregatedValue());
+            }
+        });
+        return builder.build();
+    }
+
     private static Tensor reduceAllGeneral(Tensor argument, Aggregator aggregator) {
         ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
         for (Iterator<Double> i = argument.valueIterator(); i.hasNext(); )
@@ -7,6 +7,7 @@ import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
 import com.yahoo.tensor.evaluation.Name;
 
 import java.util.Arrays;
@@ -73,10 +74,11 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         Tensor b = argumentB.evaluate(context);
         TensorType joinedType = new TensorType.Builder(a.type(), b.type()).build();
 
+        EvaluationParallelism parallelism = context.parallelism();
         if (canOptimize(a, b)) {
-            return evaluate((IndexedTensor)a, (IndexedTensor)b, joinedType);
+            return evaluate((IndexedTensor)a, (IndexedTensor)b, joinedType, parallelism);
         }
-        return Reduce.evaluate(Join.evaluate(a, b, joinedType, combinator), dimensions, aggregator);
+        return Reduce.evaluate(Join.evaluate(a, b, joinedType, combinator, parallelism), dimensions, aggregator, parallelism);
     }
 
     /**
@@ -117,9 +119,10 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
 
     /**
      * Evaluates the reduce-join. Special handling for common cases where the
-     * reduce dimension is the innermost dimension in both tensors.
+     * reduce dimension is the innermost dimension in both tensors, which are computed in parallel
+     * with the given parallelism.
      */
-    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType) {
+    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType, EvaluationParallelism parallelism) {
         TensorType reducedType = Reduce.outputType(joinedType, dimensions);
 
         if (reduceDimensionIsInnermost(a, b)) {
@@ -127,13 +130,13 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
                 return vectorVectorProduct(a, b, reducedType);
             }
             if (a.type().dimensions().size() == 1 && b.type().dimensions().size() == 2) {
-                return vectorMatrixProduct(a, b, reducedType, false);
+                return vectorMatrixProduct(a, b, reducedType, false, parallelism);
             }
             if (a.type().dimensions().size() == 2 && b.type().dimensions().size() == 1) {
-                return vectorMatrixProduct(b, a, reducedType, true);
+                return vectorMatrixProduct(b, a, reducedType, true, parallelism);
             }
             if (a.type().dimensions().size() == 2 && b.type().dimensions().size() == 2) {
-                return matrixMatrixProduct(a, b, reducedType);
+                return matrixMatrixProduct(a, b, reducedType, parallelism);
             }
         }
         return evaluateGeneral(a, b, reducedType);
@@ -146,17 +149,17 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         long commonSize = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
 
+        double[] valuesA = values(a, 0, (int)commonSize);
+        double[] valuesB = values(b, 0, (int)commonSize);
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ic = 0; ic < commonSize; ++ic) {
-            double va = a.get(ic);
-            double vb = b.get(ic);
-            agg.aggregate(combinator.applyAsDouble(va, vb));
-        }
+        for (int ic = 0; ic < commonSize; ++ic)
+            agg.aggregate(combinator.applyAsDouble(valuesA[ic], valuesB[ic]));
         builder.cellByDirectIndex(0, agg.aggregatedValue());
         return builder.build();
     }
 
-    private Tensor vectorMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, boolean swapped) {
+    private Tensor vectorMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, boolean swapped,
+                                       EvaluationParallelism parallelism) {
         if ( a.type().dimensions().size() != 1 || b.type().dimensions().size() != 2) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for vector-matrix product");
         }
@@ -164,21 +167,28 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
 
-        Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ib = 0; ib < sizesB.size(0); ++ib) {
-            agg.reset();
-            for (int ic = 0; ic < Math.min(sizesA.size(0), sizesB.size(1)); ++ic) {
-                double va = a.get(ic);
-                double vb = b.get(ib * sizesB.size(1) + ic);
-                double result = swapped ? combinator.applyAsDouble(vb, va) : combinator.applyAsDouble(va, vb);
-                agg.aggregate(result);
+        int commonSize = (int)Math.min(sizesA.size(0), sizesB.size(1));
+        double[] valuesA = values(a, 0, commonSize);
+
+        parallelism.forEachSlice(sizesB.size(0), commonSize, (fromRow, toRow) -> {
+            double[] rowB = new double[commonSize];
+            Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
+            for (long ib = fromRow; ib < toRow; ++ib) {
+                agg.reset();
+                b.getDoubles(ib * sizesB.size(1), rowB);
+                for (int ic = 0; ic < commonSize; ++ic) {
+                    double va = valuesA[ic];
+                    double vb = rowB[ic];
+                    double result = swapped ? combinator.applyAsDouble(vb, va) : combinator.applyAsDouble(va, vb);
+                    agg.aggregate(result);
+                }
+                builder.cellByDirectIndex(ib, agg.aggregatedValue());
             }
-            builder.cellByDirectIndex(ib, agg.aggregatedValue());
-        }
+        });
         return builder.build();
     }
 
-    private Tensor matrixMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
+    private Tensor matrixMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, EvaluationParallelism parallelism) {
         if ( a.type().dimensions().size() != 2 || b.type().dimensions().size() != 2) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for matrix-matrix product");
         }
@@ -190,21 +200,39 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
 
-        Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ia = 0; ia < sizesA.size(0); ++ia) {
-            for (int ib = 0; ib < sizesB.size(0); ++ib) {
-                agg.reset();
-                for (int ic = 0; ic < Math.min(sizesA.size(1), sizesB.size(1)); ++ic) {
-                    double va = a.get(ia * sizesA.size(1) + ic);
-                    double vb = b.get(ib * sizesB.size(1) + ic);
-                    agg.aggregate(combinator.applyAsDouble(va, vb));
+        int commonSize = (int)Math.min(sizesA.size(1), sizesB.size(1));
+
+        // Slices are pairs of rows in a and b, such that this is split evenly also when one of them has few rows
+        long rowsB = sizesB.size(0);
+        parallelism.forEachSlice(sizesA.size(0) * rowsB, commonSize, (fromPair, toPair) -> {
+            double[] rowA = new double[commonSize];
+            double[] rowB = new double[commonSize];
+            Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
+            long currentRowA = -1;
+            for (long pair = fromPair; pair < toPair; ++pair) {
+                long ia = pair / rowsB;
+                long ib = pair % rowsB;
+                if (ia != currentRowA) {
+                    a.getDoubles(ia * sizesA.size(1), rowA);
+                    currentRowA = ia;
                 }
+                agg.reset();
+                b.getDoubles(ib * sizesB.size(1), rowB);
+                for (int ic = 0; ic < commonSize; ++ic)
+                    agg.aggregate(combinator.applyAsDouble(rowA[ic], rowB[ic]));
                 builder.cellByDirectIndex(ia * strideA + ib * strideB, agg.aggregatedValue());
             }
-        }
+        });
         return builder.build();
     }
 
+    /** Returns the given number of values of the given tensor starting at the given index, as doubles */
+    private static double[] values(IndexedTensor tensor, long valueIndex, int count) {
+        double[] values = new double[count];
+        tensor.getDoubles(valueIndex, values);
+        return values;
+    }
+
     private Tensor evaluateGeneral(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         TensorType onlyInA = Reduce.outputType(a.type(), dimensions);
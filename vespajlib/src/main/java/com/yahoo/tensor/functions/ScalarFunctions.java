@@ -51,6 +51,8 @@ public class ScalarFunctions {
     public static DoubleUnaryOperator tan() { return new Tan(); }
     public static DoubleUnaryOperator tanh() { return new Tanh(); }
     public static DoubleUnaryOperator erf() { return new Erf(); }
+    public static DoubleUnaryOperator gelu() { return new Gelu(); }
+    public static DoubleUnaryOperator geluTanh() { return new GeluTanh(); }
 
     public static DoubleUnaryOperator elu() { return new Elu(); }
     public static DoubleUnaryOperator elu(double alpha) { return new Elu(alpha); }
@@ -356,6 +358,24 @@ public class ScalarFunctions {
         }
     }
 
+    /** The gaussian error linear unit: a times the standard normal cumulative distribution function of a */
+    public static class Gelu implements DoubleUnaryOperator {
+        @Override
+        public double applyAsDouble(double operand) { return 0.5 * operand * (1 + Erf.erf(operand * 0.7071067811865476)); }
+        @Override
+        public String toString() { return "f(a)(0.5 * a * (1 + erf(a * 0.7071067811865476)))"; }
+    }
+
+    /** The gaussian error linear unit approximated by tanh, which is cheaper to compute */
+    public static class GeluTanh implements DoubleUnaryOperator {
+        @Override
+        public double applyAsDouble(double operand) {
+            return 0.5 * operand * (1 + Math.tanh(0.7978845608028654 * (operand + 0.044715 * operand * operand * operand)));
+        }
+        @Override
+        public String toString() { return "f(a)(0.5 * a * (1 + tanh(0.7978845608028654 * (a + 0.044715 * a * a * a))))"; }
+    }
+
     // Variable-length operators -----------------------------------------------------------------------------
 
     public static class EqualElements implements Function<List<Long>, Double> {
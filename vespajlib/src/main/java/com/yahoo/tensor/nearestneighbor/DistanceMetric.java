@@ -0,0 +1,64 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.nearestneighbor;
+
+/**
+ * The distance metrics which can be used to find nearest neighbors.
+ * These are defined as in nearest neighbor search over tensor attributes.
+ *
+ * @author agent
+ */
+public enum DistanceMetric {
+
+    /** The euclidean distance between the vectors */
+    EUCLIDEAN {
+        @Override
+        double distance(double[] a, int aOffset, double[] b, int bOffset, int dimensions) {
+            double sum = 0;
+            for (int i = 0; i < dimensions; i++) {
+                double difference = a[aOffset + i] - b[bOffset + i];
+                sum += difference * difference;
+            }
+            return Math.sqrt(sum);
+        }
+    },
+
+    /** The angle between the vectors, in radians */
+    ANGULAR {
+        @Override
+        double distance(double[] a, int aOffset, double[] b, int bOffset, int dimensions) {
+            double dotProduct = 0, aSquares = 0, bSquares = 0;
+            for (int i = 0; i < dimensions; i++) {
+                double aValue = a[aOffset + i];
+                double bValue = b[bOffset + i];
+                dotProduct += aValue * bValue;
+                aSquares += aValue * aValue;
+                bSquares += bValue * bValue;
+            }
+            if (aSquares == 0 || bSquares == 0) return Math.PI / 2; // no direction: Not closer to anything
+            double cosine = dotProduct / Math.sqrt(aSquares * bSquares);
+            return Math.acos(Math.max(-1, Math.min(1, cosine)));
+        }
+    },
+
+    /** One minus the inner product of the vectors, which is a distance for normalized vectors only */
+    INNERPRODUCT {
+        @Override
+        double distance(double[] a, int aOffset, double[] b, int bOffset, int dimensions) {
+            double dotProduct = 0;
+            for (int i = 0; i < dimensions; i++)
+                dotProduct += a[aOffset + i] * b[bOffset + i];
+            return 1 - dotProduct;
+        }
+    };
+
+    /** Returns the distance between the vectors of the given number of dimensions starting at the given offsets */
+    abstract double distance(double[] a, int aOffset, double[] b, int bOffset, int dimensions);
+
+    /** Returns the distance between the two given vectors, which must have the same length */
+    public double distance(double[] a, double[] b) {
+        if (a.length != b.length)
+            throw new IllegalArgumentException("Vectors must have the same length, but got " + a.length + " and " + b.length);
+        return distance(a, 0, b, 0, a.length);
+    }
+
+}
@@ -0,0 +1,295 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.nearestneighbor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * A hierarchical navigable small world graph of vectors, as described by Malkov and Yashunin.
+ * This is mutable and not thread safe: It is wrapped by an {@link HnswIndex} when complete.
+ *
+ * @author agent
+ */
+class HnswGraph {
+
+    private static final Comparator<Candidate> closestFirst = Comparator.comparingDouble(c -> c.distance);
+    private static final Comparator<Candidate> furthestFirst = closestFirst.reversed();
+
+    private final int dimensions;
+    private final DistanceMetric distanceMetric;
+    private final int maxLinksPerNode;
+    private final int neighborsToExploreAtInsert;
+    private final double levelMultiplier;
+
+    /** The vectors of all nodes, one after the other */
+    private double[] vectors;
+    private final List<Node> nodes = new ArrayList<>();
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    private final Random levelRandom = new Random(1); // deterministic, to make graphs reproducible
+
+    /** Used when inserting, which is single threaded */
+    private final Visited visited = new Visited();
+
+    HnswGraph(int dimensions, DistanceMetric distanceMetric, int maxLinksPerNode, int neighborsToExploreAtInsert) {
+        this.dimensions = dimensions;
+        this.distanceMetric = distanceMetric;
+        this.maxLinksPerNode = maxLinksPerNode;
+        this.neighborsToExploreAtInsert = neighborsToExploreAtInsert;
+        this.levelMultiplier = 1 / Math.log(maxLinksPerNode);
+        this.vectors = new double[16 * dimensions];
+    }
+
+    int size() { return nodes.size(); }
+
+    int dimensions() { return dimensions; }
+
+    DistanceMetric distanceMetric() { return distanceMetric; }
+
+    /** Returns the approximately nearest vectors to the given query vector, nearest first */
+    List<Neighbor> find(double[] queryVector, int targetHits, int exploreAdditionalHits, Visited visited) {
+        if (nodes.isEmpty() || targetHits < 1) return Collections.emptyList();
+
+        Candidate entry = new Candidate(entryPoint, distance(queryVector, 0, entryPoint));
+        for (int level = topLevel; level > 0; level--)
+            entry = closest(queryVector, 0, entry, level);
+        PriorityQueue<Candidate> nearest = searchLevel(queryVector, 0, entry, targetHits + exploreAdditionalHits, 0,
+                                                       visited);
+        return toNeighbors(nearest, targetHits);
+    }
+
+    /** Returns the exactly nearest vectors to the given query vector, nearest first, by computing all distances */
+    List<Neighbor> findExact(double[] queryVector, int targetHits) {
+        if (targetHits < 1) return Collections.emptyList();
+
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(furthestFirst);
+        for (int id = 0; id < nodes.size(); id++) {
+            double distance = distance(queryVector, 0, id);
+            if (nearest.size() < targetHits || distance < nearest.peek().distance) {
+                nearest.add(new Candidate(id, distance));
+                if (nearest.size() > targetHits)
+                    nearest.poll();
+            }
+        }
+        return toNeighbors(nearest, targetHits);
+    }
+
+    /** Adds the given vector, which must have the dimensions of this, and returns its id */
+    int add(double[] vector) {
+        int id = nodes.size();
+        if (vectors.length < (id + 1) * dimensions)
+            vectors = Arrays.copyOf(vectors, vectors.length * 2);
+        System.arraycopy(vector, 0, vectors, id * dimensions, dimensions);
+        insert(id, randomLevel());
+        return id;
+    }
+
+    private void insert(int id, int level) {
+        Node node = new Node(level, maxLinksPerNode);
+        nodes.add(node);
+        if (entryPoint < 0) {
+            entryPoint = id;
+            topLevel = level;
+            return;
+        }
+
+        int offset = id * dimensions;
+        Candidate entry = new Candidate(entryPoint, distance(vectors, offset, entryPoint));
+        for (int l = topLevel; l > level; l--)
+            entry = closest(vectors, offset, entry, l);
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Candidate> nearest = sorted(searchLevel(vectors, offset, entry, neighborsToExploreAtInsert, l,
+                                                         visited));
+            entry = nearest.get(0);
+            for (Candidate neighbor : selectNeighbors(nearest, maxLinksPerNode)) {
+                node.link(l, neighbor.id);
+                linkBack(neighbor, id, l);
+            }
+        }
+        if (level > topLevel) {
+            entryPoint = id;
+            topLevel = level;
+        }
+    }
+
+    /** Adds a link from the given neighbor to a new node, pruning the links of the neighbor if it has too many */
+    private void linkBack(Candidate neighbor, int newId, int level) {
+        Node node = nodes.get(neighbor.id);
+        if (node.linkCount(level) < maxLinks(level)) {
+            node.link(level, newId);
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(node.linkCount(level) + 1);
+        candidates.add(new Candidate(newId, neighbor.distance));
+        for (int i = 0; i < node.linkCount(level); i++) {
+            int linked = node.links[level][i];
+            candidates.add(new Candidate(linked, distance(vectors, neighbor.id * dimensions, linked)));
+        }
+        candidates.sort(closestFirst);
+        node.clearLinks(level);
+        for (Candidate selected : selectNeighbors(candidates, maxLinks(level)))
+            node.link(level, selected.id);
+    }
+
+    /**
+     * Selects neighbors from the given candidates, sorted closest first, by keeping each candidate which is
+     * closer to the node than to any neighbor already selected. This gives links in diverse directions.
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int maxNeighbors) {
+        List<Candidate> selected = new ArrayList<>(maxNeighbors);
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxNeighbors) break;
+            boolean diverse = true;
+            for (Candidate neighbor : selected) {
+                if (distance(vectors, candidate.id * dimensions, neighbor.id) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse)
+                selected.add(candidate);
+        }
+        return selected;
+    }
+
+    /** Returns the node closest to the given vector found by greedily following links at the given level */
+    private Candidate closest(double[] vector, int offset, Candidate entry, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(entry.id);
+            for (int i = 0; i < node.linkCount(level); i++) {
+                int linked = node.links[level][i];
+                double distance = distance(vector, offset, linked);
+                if (distance < entry.distance) {
+                    entry = new Candidate(linked, distance);
+                    changed = true;
+                }
+            }
+        }
+        return entry;
+    }
+
+    /** Returns the (up to) given number of nodes closest to the given vector found at the given level, furthest first */
+    private PriorityQueue<Candidate> searchLevel(double[] vector, int offset, Candidate entry, int count, int level,
+                                                 Visited visited) {
+        visited.reset(nodes.size());
+        visited.visit(entry.id);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(closestFirst);
+        PriorityQueue<Candidate> nearest = new PriorityQueue<>(furthestFirst);
+        candidates.add(entry);
+        nearest.add(entry);
+        while ( ! candidates.isEmpty()) {
+            Candidate candidate = candidates.poll();
+            if (nearest.size() >= count && candidate.distance > nearest.peek().distance) break;
+
+            Node node = nodes.get(candidate.id);
+            for (int i = 0; i < node.linkCount(level); i++) {
+                int linked = node.links[level][i];
+                if ( ! visited.visit(linked)) continue;
+
+                double distance = distance(vector, offset, linked);
+                if (nearest.size() < count || distance < nearest.peek().distance) {
+                    Candidate found = new Candidate(linked, distance);
+                    candidates.add(found);
+                    nearest.add(found);
+                    if (nearest.size() > count)
+                        nearest.poll();
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /** Returns a random level with an exponentially decaying probability of each higher level */
+    private int randomLevel() {
+        return (int)(-Math.log(1 - levelRandom.nextDouble()) * levelMultiplier);
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * maxLinksPerNode : maxLinksPerNode;
+    }
+
+    private double distance(double[] vector, int offset, int id) {
+        return distanceMetric.distance(vector, offset, vectors, id * dimensions, dimensions);
+    }
+
+    private static List<Candidate> sorted(PriorityQueue<Candidate> candidates) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        sorted.sort(closestFirst);
+        return sorted;
+    }
+
+    private static List<Neighbor> toNeighbors(PriorityQueue<Candidate> candidates, int count) {
+        List<Neighbor> neighbors = new ArrayList<>(Math.min(count, candidates.size()));
+        for (Candidate candidate : sorted(candidates)) {
+            if (neighbors.size() == count) break;
+            neighbors.add(new Neighbor(candidate.id, candidate.distance));
+        }
+        return neighbors;
+    }
+
+    /** A node in the graph: The links of a vector at each level it is present in */
+    private final class Node {
+
+        final int[][] links;
+        final int[] linkCounts;
+
+        Node(int level, int maxLinksPerNode) {
+            links = new int[level + 1][];
+            linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++)
+                links[l] = new int[maxLinks(l)];
+        }
+
+        int linkCount(int level) { return linkCounts[level]; }
+
+        void link(int level, int id) { links[level][linkCounts[level]++] = id; }
+
+        void clearLinks(int level) { linkCounts[level] = 0; }
+
+    }
+
+    private static final class Candidate {
+
+        final int id;
+        final double distance;
+
+        Candidate(int id, double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+    }
+
+    /** The nodes visited in a search, reusable across searches without clearing */
+    static final class Visited {
+
+        private int[] marks = new int[0];
+        private int generation = 0;
+
+        void reset(int size) {
+            if (marks.length < size)
+                marks = new int[Math.max(size, marks.length * 2)];
+            if (++generation == 0) { // wrapped
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /** Marks the given node as visited and returns whether it was not already */
+        boolean visit(int id) {
+            if (marks[id] == generation) return false;
+            marks[id] = generation;
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.nearestneighbor;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.List;
+
+/**
+ * An in-memory index of dense vectors supporting approximate nearest neighbor search,
+ * using a hierarchical navigable small world graph (HNSW).
+ * An index is created by a {@link Builder} and is immutable and thread safe once built.
+ *
+ * @author agent
+ */
+public class HnswIndex {
+
+    public static final int DEFAULT_MAX_LINKS_PER_NODE = 16;
+    public static final int DEFAULT_NEIGHBORS_TO_EXPLORE_AT_INSERT = 200;
+
+    private final HnswGraph graph;
+    private final ThreadLocal<HnswGraph.Visited> visited = ThreadLocal.withInitial(HnswGraph.Visited::new);
+
+    private HnswIndex(HnswGraph graph) {
+        this.graph = graph;
+    }
+
+    /** Returns the number of vectors in this */
+    public int size() { return graph.size(); }
+
+    /** Returns the number of dimensions of the vectors in this */
+    public int dimensions() { return graph.dimensions(); }
+
+    public DistanceMetric distanceMetric() { return graph.distanceMetric(); }
+
+    /**
+     * Returns the approximately nearest vectors to the given query vector, nearest first.
+     *
+     * @param query the vector to find the neighbors of: A dense tensor with a single dimension of the size of the
+     *              vectors in this
+     * @param targetHits the number of neighbors to return, or all if this is larger than the size of this index
+     * @param exploreAdditionalHits the number of additional neighbors to explore during the search:
+     *                              Higher values gives more accurate results at higher cost
+     */
+    public List<Neighbor> find(Tensor query, int targetHits, int exploreAdditionalHits) {
+        return graph.find(vectorOf(query, dimensions()), targetHits, exploreAdditionalHits, visited.get());
+    }
+
+    /**
+     * Returns the exactly nearest vectors to the given query vector, nearest first, by computing the distance
+     * to every vector in this.
+     */
+    public List<Neighbor> findExact(Tensor query, int targetHits) {
+        return graph.findExact(vectorOf(query, dimensions()), targetHits);
+    }
+
+    private static double[] vectorOf(Tensor tensor, int dimensions) {
+        if ( ! (tensor instanceof IndexedTensor) || tensor.type().rank() != 1 || tensor.size() != dimensions)
+            throw new IllegalArgumentException("Expected a dense vector of size " + dimensions + ", but got " +
+                                               tensor.type() + " of size " + tensor.size());
+        double[] vector = new double[dimensions];
+        ((IndexedTensor)tensor).getDoubles(0, vector);
+        return vector;
+    }
+
+    public static class Builder {
+
+        private final int dimensions;
+        private DistanceMetric distanceMetric = DistanceMetric.EUCLIDEAN;
+        private int maxLinksPerNode = DEFAULT_MAX_LINKS_PER_NODE;
+        private int neighborsToExploreAtInsert = DEFAULT_NEIGHBORS_TO_EXPLORE_AT_INSERT;
+        private HnswGraph graph = null; // created when the first vector is added
+        private boolean built = false;
+
+        /** Creates a builder of an index of vectors of the given size */
+        public Builder(int dimensions) {
+            if (dimensions < 1)
+                throw new IllegalArgumentException("Vectors must have at least one dimension, not " + dimensions);
+            this.dimensions = dimensions;
+        }
+
+        /** Sets the metric to use to measure the distance between vectors. Default is euclidean. */
+        public Builder distanceMetric(DistanceMetric distanceMetric) {
+            requireNoVectors();
+            this.distanceMetric = distanceMetric;
+            return this;
+        }
+
+        /** Sets the max number of links of each node in the graph, above level 0 (where it is twice this). Default is 16. */
+        public Builder maxLinksPerNode(int maxLinksPerNode) {
+            requireNoVectors();
+            if (maxLinksPerNode < 2)
+                throw new IllegalArgumentException("Max links per node must be at least 2, not " + maxLinksPerNode);
+            this.maxLinksPerNode = maxLinksPerNode;
+            return this;
+        }
+
+        /** Sets the number of neighbors to explore when finding the nodes to link a new node to. Default is 200. */
+        public Builder neighborsToExploreAtInsert(int neighborsToExploreAtInsert) {
+            requireNoVectors();
+            if (neighborsToExploreAtInsert < 1)
+                throw new IllegalArgumentException("Neighbors to explore at insert must be at least 1, not " +
+                                                   neighborsToExploreAtInsert);
+            this.neighborsToExploreAtInsert = neighborsToExploreAtInsert;
+            return this;
+        }
+
+        /**
+         * Adds a vector to the index.
+         *
+         * @param vector a dense tensor with a single dimension of the size given to this builder
+         * @return the id of the vector, which is the number of vectors added before it
+         */
+        public int add(Tensor vector) {
+            double[] values = vectorOf(vector, dimensions);
+            return graph().add(values);
+        }
+
+        /**
+         * Adds all the vectors of the given tensor to the index, in the order of the other dimension of the tensor,
+         * such that the id of each vector is its index in that dimension, if no vectors were added before.
+         *
+         * @param vectors a dense tensor with two dimensions, where the given dimension has the size of the vectors
+         * @param vectorDimension the name of the dimension holding the values of each vector
+         */
+        public Builder addAll(Tensor vectors, String vectorDimension) {
+            TensorType type = vectors.type();
+            if ( ! (vectors instanceof IndexedTensor) || type.rank() != 2 || type.indexOfDimension(vectorDimension).isEmpty())
+                throw new IllegalArgumentException("Expected a dense tensor with two dimensions, one of which is '" +
+                                                   vectorDimension + "', but got " + type);
+            IndexedTensor tensor = (IndexedTensor)vectors;
+            int vectorDimensionIndex = type.indexOfDimension(vectorDimension).get();
+            if (tensor.dimensionSizes().size(vectorDimensionIndex) != dimensions)
+                throw new IllegalArgumentException("Expected vectors of size " + dimensions + ", but dimension '" +
+                                                   vectorDimension + "' of " + type + " has size " +
+                                                   tensor.dimensionSizes().size(vectorDimensionIndex));
+
+            int count = (int)tensor.dimensionSizes().size(1 - vectorDimensionIndex);
+            double[] vector = new double[dimensions];
+            for (int i = 0; i < count; i++) {
+                if (vectorDimensionIndex == 1) { // each vector is contiguous
+                    tensor.getDoubles((long)i * dimensions, vector);
+                }
+                else {
+                    for (int j = 0; j < dimensions; j++)
+                        vector[j] = tensor.get((long)j * count + i);
+                }
+                graph().add(vector);
+            }
+            return this;
+        }
+
+        /** Returns the index built by this. This builder cannot be used after this is called. */
+        public HnswIndex build() {
+            HnswIndex index = new HnswIndex(graph());
+            // prevent further modification
+            graph = null;
+            built = true;
+            return index;
+        }
+
+        private HnswGraph graph() {
+            if (built) throw new IllegalStateException("This index is already built");
+            if (graph == null)
+                graph = new HnswGraph(dimensions, distanceMetric, maxLinksPerNode, neighborsToExploreAtInsert);
+            return graph;
+        }
+
+        private void requireNoVectors() {
+            if (graph != null || built) throw new IllegalStateException("Parameters must be set before adding vectors");
+        }
+
+    }
+
+}
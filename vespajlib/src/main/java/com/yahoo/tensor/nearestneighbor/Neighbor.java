@@ -0,0 +1,56 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.nearestneighbor;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A vector found by a nearest neighbor search
+ *
+ * @author agent
+ */
+public final class Neighbor {
+
+    private final int id;
+    private final double distance;
+
+    public Neighbor(int id, double distance) {
+        this.id = id;
+        this.distance = distance;
+    }
+
+    /** Returns the id of this vector, which is the order in which it was added to the index, starting at 0 */
+    public int id() { return id; }
+
+    /** Returns the distance from the query vector to this */
+    public double distance() { return distance; }
+
+    /**
+     * Returns the given neighbors as a tensor with a single mapped dimension, whose labels are the neighbor ids
+     * and values the distances, such that they can be used in ranking expressions.
+     */
+    public static Tensor toTensor(String dimension, List<Neighbor> neighbors) {
+        Tensor.Builder builder = Tensor.Builder.of(new TensorType.Builder().mapped(dimension).build());
+        for (Neighbor neighbor : neighbors)
+            builder.cell().label(dimension, String.valueOf(neighbor.id())).value(neighbor.distance());
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if ( ! (o instanceof Neighbor)) return false;
+        Neighbor other = (Neighbor)o;
+        return this.id == other.id && this.distance == other.distance;
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(id, distance); }
+
+    @Override
+    public String toString() { return "neighbor " + id + " at distance " + distance; }
+
+}
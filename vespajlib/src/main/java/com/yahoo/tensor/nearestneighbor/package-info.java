@@ -0,0 +1,10 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+/**
+ * Approximate nearest neighbor search over dense tensors held in memory
+ *
+ * @author agent
+ */
+@ExportPackage
+package com.yahoo.tensor.nearestneighbor;
+
+import com.yahoo.osgi.annotation.ExportPackage;
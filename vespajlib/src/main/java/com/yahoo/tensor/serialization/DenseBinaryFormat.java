@@ -2,12 +2,18 @@
 package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.CellConversion;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -53,6 +59,8 @@ public class DenseBinaryFormat implements BinaryFormat {
         switch (serializationValueType) {
             case DOUBLE: encodeDoubleCells(tensor, buffer); break;
             case FLOAT: encodeFloatCells(tensor, buffer); break;
+            case BFLOAT16: encodeBFloat16Cells(tensor, buffer); break;
+            case INT8: encodeInt8Cells(tensor, buffer); break;
         }
     }
 
@@ -66,31 +74,58 @@ public class DenseBinaryFormat implements BinaryFormat {
             buffer.putFloat(tensor.getFloat(i));
     }
 
+    private void encodeBFloat16Cells(IndexedTensor tensor, GrowableByteBuffer buffer) {
+        for (int i = 0; i < tensor.size(); i++)
+            buffer.putShort(CellConversion.toBFloat16(tensor.getFloat(i)));
+    }
+
+    private void encodeInt8Cells(IndexedTensor tensor, GrowableByteBuffer buffer) {
+        for (int i = 0; i < tensor.size(); i++)
+            buffer.put(CellConversion.toInt8(tensor.get(i)));
+    }
+
     @Override
     public Tensor decode(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
-        TensorType type;
-        DimensionSizes sizes;
-        if (optionalType.isPresent()) {
-            type = optionalType.get();
-            if (type.valueType() != this.serializationValueType) {
-                throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
-                                                   " is not " + this.serializationValueType);
-            }
-            TensorType serializedType = decodeType(buffer);
-            if ( ! serializedType.isAssignableTo(type))
-                throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
-                                                   " cannot be assigned to type " + type);
-            sizes = sizesFromType(serializedType);
-        }
-        else {
-            type = decodeType(buffer);
-            sizes = sizesFromType(type);
-        }
-        Tensor.Builder builder = Tensor.Builder.of(type, sizes);
+        TensorType serializedType = decodeType(optionalType, buffer);
+        DimensionSizes sizes = sizesFromType(serializedType);
+        Tensor.Builder builder = Tensor.Builder.of(optionalType.orElse(serializedType), sizes);
         decodeCells(sizes, buffer, (IndexedTensor.BoundBuilder)builder);
         return builder.build();
     }
 
+    /** Decodes to a tensor which reads its cells from the buffer rather than copying them */
+    Tensor decodeWithoutCopying(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        TensorType serializedType = decodeType(optionalType, buffer);
+        return IndexedTensor.fromBuffer(optionalType.orElse(serializedType), sizesFromType(serializedType),
+                                        buffer.getByteBuffer());
+    }
+
+    /**
+     * Decodes to a tensor which reads its cells from the given file rather than copying them, where the header
+     * buffer holds the start of the file, positioned after the format type. The cells are mapped in
+     * segments of the given size, which must be a power of 2.
+     */
+    Tensor decodeWithoutCopying(Optional<TensorType> optionalType, GrowableByteBuffer header,
+                                FileChannel file, int segmentSize) throws IOException {
+        TensorType serializedType = decodeType(optionalType, header);
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (long offset = header.position(); offset < file.size(); offset += segmentSize)
+            segments.add(file.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentSize, file.size() - offset)));
+        return IndexedTensor.fromBuffers(optionalType.orElse(serializedType), sizesFromType(serializedType), segments);
+    }
+
+    /** Decodes the serialized type, and validates it against the given type if present */
+    private TensorType decodeType(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        if (optionalType.isPresent() && optionalType.get().valueType() != this.serializationValueType)
+            throw new IllegalArgumentException("Tensor value type mismatch. Value type " + optionalType.get().valueType() +
+                                               " is not " + this.serializationValueType);
+        TensorType serializedType = decodeType(buffer);
+        if (optionalType.isPresent() && ! serializedType.isAssignableTo(optionalType.get()))
+            throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
+                                               " cannot be assigned to type " + optionalType.get());
+        return serializedType;
+    }
+
     private TensorType decodeType(GrowableByteBuffer buffer) {
         TensorType.Builder builder = new TensorType.Builder(serializationValueType);
         int dimensionCount = buffer.getInt1_4Bytes();
@@ -111,6 +146,8 @@ public class DenseBinaryFormat implements BinaryFormat {
         switch (serializationValueType) {
             case DOUBLE: decodeDoubleCells(sizes, builder, buffer); break;
             case FLOAT: decodeFloatCells(sizes, builder, buffer); break;
+            case BFLOAT16: decodeBFloat16Cells(sizes, builder, buffer); break;
+            case INT8: decodeInt8Cells(sizes, builder, buffer); break;
         }
     }
 
@@ -124,4 +161,14 @@ public class DenseBinaryFormat implements BinaryFormat {
             builder.cellByDirectIndex(i, buffer.getFloat());
     }
 
+    private void decodeBFloat16Cells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
+        for (long i = 0; i < sizes.totalSize(); i++)
+            builder.cellByDirectIndex(i, CellConversion.fromBFloat16(buffer.getShort()));
+    }
+
+    private void decodeInt8Cells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
+        for (long i = 0; i < sizes.totalSize(); i++)
+            builder.cellByDirectIndex(i, (float)buffer.get());
+    }
+
 }
@@ -7,6 +7,9 @@ import com.yahoo.tensor.MixedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Optional;
 
 /**
@@ -27,8 +30,13 @@ public class TypedBinaryFormat {
     private static final int DENSE_BINARY_FORMAT_WITH_CELLTYPE = 6;
     private static final int MIXED_BINARY_FORMAT_WITH_CELLTYPE = 7;
 
+    /** The max number of bytes of cell values to map in one buffer */
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
     private static final int DOUBLE_VALUE_TYPE = 0; // Not encoded as it is default, and you know the type when deserializing
     private static final int FLOAT_VALUE_TYPE = 1;
+    private static final int BFLOAT16_VALUE_TYPE = 2;
+    private static final int INT8_VALUE_TYPE = 3;
 
     public static byte[] encode(Tensor tensor) {
         GrowableByteBuffer buffer = new GrowableByteBuffer();
@@ -50,6 +58,49 @@ public class TypedBinaryFormat {
         return decoder.decode(type, buffer);
     }
 
+    /**
+     * Decode some data to a tensor which, if it is dense, reads its cell values from the given buffer
+     * rather than copying them to the heap. This allows large tensors to be backed by memory mapped files.
+     *
+     * @param type the type to decode and validate to, or empty to use the type given in the data
+     * @param buffer the buffer containing the data. This <b>transfers ownership</b> of the buffer - it
+     *               must not be further mutated by the caller
+     * @return the resulting tensor
+     * @throws IllegalArgumentException if the tensor data was invalid
+     */
+    public static Tensor decodeWithoutCopying(Optional<TensorType> type, ByteBuffer buffer) {
+        GrowableByteBuffer growableBuffer = new GrowableByteBuffer(buffer);
+        BinaryFormat decoder = getFormatDecoder(growableBuffer);
+        if (decoder instanceof DenseBinaryFormat)
+            return ((DenseBinaryFormat)decoder).decodeWithoutCopying(type, growableBuffer);
+        return decoder.decode(type, growableBuffer);
+    }
+
+    /**
+     * Decode the data of a file to a tensor which, if it is dense, reads its cell values from the file
+     * memory mapped, rather than copying them to the heap. The cells are mapped in as many segments as needed,
+     * so dense tensors may be larger than 2Gb. Other tensors are decoded from a single mapping of the file.
+     *
+     * @param type the type to decode and validate to, or empty to use the type given in the data
+     * @param file the file containing the data, which must not be modified while the tensor is in use
+     * @return the resulting tensor
+     * @throws IllegalArgumentException if the tensor data was invalid
+     */
+    public static Tensor decodeWithoutCopying(Optional<TensorType> type, FileChannel file) throws IOException {
+        return decodeWithoutCopying(type, file, MAX_SEGMENT_SIZE);
+    }
+
+    static Tensor decodeWithoutCopying(Optional<TensorType> type, FileChannel file, int segmentSize) throws IOException {
+        GrowableByteBuffer buffer = new GrowableByteBuffer(file.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                                    Math.min(file.size(), Integer.MAX_VALUE)));
+        BinaryFormat decoder = getFormatDecoder(buffer);
+        if (decoder instanceof DenseBinaryFormat)
+            return ((DenseBinaryFormat)decoder).decodeWithoutCopying(type, buffer, file, segmentSize);
+        if (file.size() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Only dense tensors can be larger than 2Gb, but got " + file.size() + " bytes");
+        return decoder.decode(type, buffer);
+    }
+
     private static BinaryFormat getFormatEncoder(GrowableByteBuffer buffer, Tensor tensor) {
         boolean hasMappedDimensions = tensor.type().dimensions().stream().anyMatch(d -> d.isMapped());
         boolean hasIndexedDimensions = tensor.type().dimensions().stream().anyMatch(d -> d.isIndexed());
@@ -113,6 +164,8 @@ public class TypedBinaryFormat {
         switch (valueType) {
             case DOUBLE: buffer.putInt1_4Bytes(DOUBLE_VALUE_TYPE); break;
             case FLOAT: buffer.putInt1_4Bytes(FLOAT_VALUE_TYPE); break;
+            case BFLOAT16: buffer.putInt1_4Bytes(BFLOAT16_VALUE_TYPE); break;
+            case INT8: buffer.putInt1_4Bytes(INT8_VALUE_TYPE); break;
             default:
                 throw new IllegalArgumentException("Attempt to encode unknown tensor value type: " + valueType);
         }
@@ -123,8 +176,11 @@ public class TypedBinaryFormat {
         switch (valueType) {
             case DOUBLE_VALUE_TYPE: return TensorType.Value.DOUBLE;
             case FLOAT_VALUE_TYPE: return TensorType.Value.FLOAT;
+            case BFLOAT16_VALUE_TYPE: return TensorType.Value.BFLOAT16;
+            case INT8_VALUE_TYPE: return TensorType.Value.INT8;
         }
-        throw new IllegalArgumentException("Received tensor value type '" + valueType + "'. Only 0(double), or 1(float) are legal.");
+        throw new IllegalArgumentException("Received tensor value type '" + valueType + "'. " +
+                                           "Only 0(double), 1(float), 2(bfloat16) or 3(int8) are legal.");
     }
 
     private static byte[] asByteArray(GrowableByteBuffer buffer) {
@@ -0,0 +1,129 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class GrowableByteBufferPoolTestCase {
+
+    @Test
+    public void buffers_are_reused_within_size_class() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool();
+        GrowableByteBuffer first = pool.acquire(3000);
+        assertEquals(4096, first.capacity());
+        ByteBuffer backing = first.getByteBuffer();
+        first.putLong(7).order(ByteOrder.LITTLE_ENDIAN);
+        pool.release(first);
+        assertEquals(1, pool.idleCount());
+
+        GrowableByteBuffer second = pool.acquire(2049);
+        assertSame(backing, second.getByteBuffer());
+        assertEquals(0, second.position());
+        assertEquals(ByteOrder.BIG_ENDIAN, second.order());
+        assertEquals(0, pool.idleCount());
+
+        assertNotSame(backing, pool.acquire(4097).getByteBuffer());
+        assertEquals(GrowableByteBufferPool.MIN_SIZE, pool.acquire(1).capacity());
+    }
+
+    @Test
+    public void grown_buffers_are_pooled_by_their_new_capacity() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool();
+        GrowableByteBuffer buffer = pool.acquire(1024);
+        buffer.put(new byte[5000]);
+        int grownCapacity = buffer.capacity();
+        assertTrue(grownCapacity >= 5000);
+        pool.release(buffer);
+
+        assertEquals(grownCapacity, pool.acquire(8192).capacity());
+        assertEquals(8192, pool.acquire(8192).capacity());
+    }
+
+    @Test
+    public void heap_and_direct_buffers_are_pooled_separately() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool();
+        pool.release(pool.acquireDirect(2048));
+        assertFalse(pool.acquire(2048).isDirect());
+        assertTrue(pool.acquireDirect(2048).isDirect());
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    public void idle_buffers_are_bounded() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool(2, false);
+        GrowableByteBuffer a = pool.acquire(1024), b = pool.acquire(1024), c = pool.acquire(1024);
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        assertEquals(2, pool.idleCount());
+    }
+
+    @Test
+    public void total_capacity_of_idle_buffers_is_bounded() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool(64, 10000, false);
+        GrowableByteBuffer small1 = pool.acquire(1024), small2 = pool.acquire(1024);
+        GrowableByteBuffer large = pool.acquire(8192), direct = pool.acquireDirect(2048);
+        pool.release(small1);
+        pool.release(large);
+        assertEquals(9216, pool.idleBytes());
+        pool.release(direct);
+        pool.release(small2);
+        assertEquals("Buffers exceeding the max are dropped", 2, pool.idleCount());
+        assertEquals(9216, pool.idleBytes());
+
+        assertEquals(8192, pool.acquire(8192).capacity());
+        assertEquals(1024, pool.idleBytes());
+        pool.release(pool.acquireDirect(2048));
+        assertEquals(3072, pool.idleBytes());
+        assertEquals(2, pool.idleCount());
+    }
+
+    @Test
+    public void oversized_buffers_are_not_pooled() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool();
+        GrowableByteBuffer huge = pool.acquire(2 * GrowableByteBufferPool.MAX_SIZE + 1);
+        assertEquals(2 * GrowableByteBufferPool.MAX_SIZE + 1, huge.capacity());
+        pool.release(huge);
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    public void leak_detection() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool(4, true);
+        GrowableByteBuffer leaked = pool.acquire(100);
+        GrowableByteBuffer released = pool.acquire(100);
+        pool.release(released);
+        assertEquals(1, pool.leasedCount());
+        try {
+            pool.assertNoLeaks();
+            fail("Expected leak to be detected");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("1 buffer(s) acquired from this pool were never released", e.getMessage());
+            assertEquals("Buffer acquired here", e.getCause().getMessage());
+        }
+        try {
+            pool.release(released);
+            fail("Expected double release to be detected");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Releasing a buffer which is not leased from this pool", e.getMessage());
+        }
+        pool.release(leaked);
+        pool.assertNoLeaks();
+        assertEquals(-1, new GrowableByteBufferPool().leasedCount());
+    }
+
+}
@@ -0,0 +1,45 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class CellConversionTestCase {
+
+    @Test
+    public void testBFloat16Conversion() {
+        assertBFloat16(0.0f, 0.0f);
+        assertBFloat16(1.0f, 1.0f);
+        assertBFloat16(-2.5f, -2.5f);
+        assertBFloat16(3.140625f, 3.14159f);
+        assertBFloat16(1.0f, Float.intBitsToFloat(0x3F808000)); // tie: rounds to even
+        assertBFloat16(1.015625f, Float.intBitsToFloat(0x3F818000)); // tie: rounds to even
+        assertBFloat16(1.0078125f, Float.intBitsToFloat(0x3F808001)); // above tie: rounds up
+        assertBFloat16(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        assertBFloat16(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        assertBFloat16(Float.POSITIVE_INFINITY, Float.MAX_VALUE);
+        assertTrue(Float.isNaN(CellConversion.fromBFloat16(CellConversion.toBFloat16(Float.NaN))));
+        assertTrue(Float.isNaN(CellConversion.fromBFloat16(CellConversion.toBFloat16(Float.intBitsToFloat(0x7F800001)))));
+    }
+
+    @Test
+    public void testInt8Conversion() {
+        assertEquals(0, CellConversion.toInt8(0.0));
+        assertEquals(5, CellConversion.toInt8(5.9));
+        assertEquals(-5, CellConversion.toInt8(-5.9));
+        assertEquals(127, CellConversion.toInt8(127.0));
+        assertEquals(127, CellConversion.toInt8(1e10));
+        assertEquals(-128, CellConversion.toInt8(-1e10));
+        assertEquals(0, CellConversion.toInt8(Double.NaN));
+    }
+
+    private void assertBFloat16(float expected, float value) {
+        assertEquals(expected, CellConversion.fromBFloat16(CellConversion.toBFloat16(value)), 0);
+    }
+
+}
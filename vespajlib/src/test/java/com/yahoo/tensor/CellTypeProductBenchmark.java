@@ -0,0 +1,71 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.functions.ConstantTensor;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.ScalarFunctions;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Microbenchmark of the dense vector-matrix and matrix-matrix products of reduce-join with each cell value type
+ *
+ * @author agent
+ */
+public class CellTypeProductBenchmark {
+
+    private final static Random random = new Random(7);
+
+    public void benchmark(TensorType.Value cellType, int rows, int columns, int iterations) {
+        Tensor vector = tensor(cellType, "y", columns);
+        Tensor matrix = tensor(cellType, "x", rows, "y", columns);
+        Tensor otherMatrix = tensor(cellType, "w", 16, "y", columns);
+        benchmark(cellType + " vector-matrix", product(vector, matrix), iterations);
+        benchmark(cellType + " matrix-matrix", product(otherMatrix, matrix), iterations / 16);
+    }
+
+    private Runnable product(Tensor a, Tensor b) {
+        ReduceJoin<Name> product = new ReduceJoin<>(new ConstantTensor<>(a), new ConstantTensor<>(b),
+                                                    ScalarFunctions.multiply(), Reduce.Aggregator.sum, List.of("y"));
+        MapEvaluationContext<Name> context = new MapEvaluationContext<>();
+        return () -> product.evaluate(context);
+    }
+
+    private void benchmark(String description, Runnable product, int iterations) {
+        for (int i = 0; i < iterations / 5; i++) // warm-up
+            product.run();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            product.run();
+        long totalTime = System.nanoTime() - startTime;
+        System.out.printf("%-24s: %8.1f us per product\n", description, totalTime / 1000.0 / iterations);
+    }
+
+    private static Tensor tensor(TensorType.Value cellType, String dimension, int size) {
+        return fill(new TensorType.Builder(cellType).indexed(dimension, size).build());
+    }
+
+    private static Tensor tensor(TensorType.Value cellType, String dimension1, int size1, String dimension2, int size2) {
+        return fill(new TensorType.Builder(cellType).indexed(dimension1, size1).indexed(dimension2, size2).build());
+    }
+
+    private static Tensor fill(TensorType type) {
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(type);
+        long size = type.dimensions().stream().mapToLong(d -> d.size().get()).reduce(1, (a, b) -> a * b);
+        for (long i = 0; i < size; i++)
+            builder.cellByDirectIndex(i, (double)(random.nextInt(200) - 100));
+        return builder.build();
+    }
+
+    public static void main(String[] args) {
+        CellTypeProductBenchmark benchmark = new CellTypeProductBenchmark();
+        for (int round = 0; round < 2; round++)
+            for (TensorType.Value cellType : TensorType.Value.values())
+                benchmark.benchmark(cellType, 256, 256, 20000);
+    }
+
+}
@@ -50,6 +50,39 @@ public class TensorTestCase {
         assertEquals(Tensor.from("tensor<float>(x[1]):{{x:0}:5}").getClass(), IndexedFloatTensor.class);
         assertEquals(Tensor.Builder.of(TensorType.fromSpec("tensor<float>(x[1])")).cell(5.0, 0).build().getClass(),
                      IndexedFloatTensor.class);
+
+        assertEquals(Tensor.from("tensor<bfloat16>(x[1]):{{x:0}:5}").getClass(), IndexedBFloat16Tensor.class);
+        assertEquals(Tensor.from("tensor<bfloat16>(x[]):{{x:0}:5}").getClass(), IndexedBFloat16Tensor.class);
+        assertEquals(Tensor.from("tensor<int8>(x[1]):{{x:0}:5}").getClass(), IndexedInt8Tensor.class);
+        assertEquals(Tensor.Builder.of(TensorType.fromSpec("tensor<int8>(x[1])")).cell(5.0, 0).build().getClass(),
+                     IndexedInt8Tensor.class);
+    }
+
+    @Test
+    public void testReducedPrecisionValueTypes() {
+        assertEquals("tensor<bfloat16>(x[3]):[1.0, 3.140625, -1024.0]",
+                     Tensor.from("tensor<bfloat16>(x[3]):[1, 3.14159, -1024]").toString());
+        assertEquals("tensor<int8>(x[4]):[1.0, 3.0, 127.0, -128.0]",
+                     Tensor.from("tensor<int8>(x[4]):[1, 3.9, 1000, -1000]").toString());
+
+        // Computations produce floats
+        Tensor bfloat16 = Tensor.from("tensor<bfloat16>(x[3]):[1, 2, 3]");
+        Tensor int8 = Tensor.from("tensor<int8>(x[3]):[4, 5, 6]");
+        assertEquals(Tensor.from("tensor<float>(x[3]):[4, 10, 18]"), bfloat16.multiply(int8));
+        assertEquals(Tensor.from("tensor<float>():{32}"), bfloat16.multiply(int8).sum());
+        assertEquals(Tensor.from("tensor<float>(x[3]):[2, 4, 6]"), bfloat16.map(v -> v * 2));
+        assertEquals(Tensor.from("tensor<float>():{6}"), bfloat16.sum());
+        assertEquals(Tensor.from("tensor(x[3]):[4, 10, 18]"), Tensor.from("tensor(x[3]):[1, 2, 3]").multiply(int8));
+    }
+
+    @Test
+    public void testReducedPrecisionProducts() {
+        Tensor matrix = Tensor.from("tensor<bfloat16>(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        Tensor otherMatrix = Tensor.from("tensor<int8>(y[3],z[2]):[[1, -1], [2, -2], [3, -3]]");
+        Tensor vector = Tensor.from("tensor<int8>(y[3]):[1, 2, 3]");
+        assertEquals(Tensor.from("tensor<float>():{14}"), vector.multiply(vector).sum("y"));
+        assertEquals(Tensor.from("tensor<float>(x[2]):[14, 32]"), matrix.multiply(vector).sum("y"));
+        assertEquals(Tensor.from("tensor<float>(x[2],z[2]):[[14, -14], [32, -32]]"), matrix.multiply(otherMatrix).sum("y"));
     }
 
     @Test
@@ -98,6 +98,27 @@ public class TensorTypeTestCase {
         assertValueType(TensorType.Value.FLOAT, "tensor<float>(x[])");
         assertEquals("tensor(x[])", TensorType.fromSpec("tensor<double>(x[])").toString());
         assertEquals("tensor<float>(x[])", TensorType.fromSpec("tensor<float>(x[])").toString());
+        assertValueType(TensorType.Value.BFLOAT16, "tensor<bfloat16>(x[])");
+        assertValueType(TensorType.Value.INT8, "tensor<int8>(x[])");
+        assertEquals("tensor<bfloat16>(x[])", TensorType.fromSpec("tensor<bfloat16>(x[])").toString());
+        assertEquals("tensor<int8>(x[])", TensorType.fromSpec("tensor<int8>(x[])").toString());
+    }
+
+    @Test
+    public void testReducedPrecisionValueTypesDecayToFloat() {
+        assertEquals(TensorType.Value.FLOAT, TensorType.Value.BFLOAT16.decayed());
+        assertEquals(TensorType.Value.FLOAT, TensorType.Value.INT8.decayed());
+        assertEquals(TensorType.Value.DOUBLE, TensorType.Value.DOUBLE.decayed());
+        assertTrue(TensorType.Value.FLOAT.isEqualOrLargerThan(TensorType.Value.BFLOAT16));
+        assertTrue(TensorType.Value.BFLOAT16.isEqualOrLargerThan(TensorType.Value.INT8));
+        assertFalse(TensorType.Value.INT8.isEqualOrLargerThan(TensorType.Value.BFLOAT16));
+
+        assertEquals(TensorType.Value.FLOAT, TensorType.combinedValueType(TensorType.fromSpec("tensor<int8>(x[3])"),
+                                                                          TensorType.fromSpec("tensor<int8>(x[3])")));
+        assertEquals(TensorType.Value.FLOAT, TensorType.combinedValueType(TensorType.fromSpec("tensor<bfloat16>(x[3])"),
+                                                                          TensorType.fromSpec("tensor<float>(x[3])")));
+        assertEquals(TensorType.Value.DOUBLE, TensorType.combinedValueType(TensorType.fromSpec("tensor<bfloat16>(x[3])"),
+                                                                           TensorType.fromSpec("tensor(x[3])")));
     }
 
     private static void assertTensorType(String typeSpec) {
@@ -0,0 +1,135 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationParallelism;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that tensor operations evaluated in parallel produce the same result as when evaluated sequentially
+ *
+ * @author agent
+ */
+public class ParallelEvaluationTestCase {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static final EvaluationParallelism parallelism = new EvaluationParallelism(pool, 10);
+    private static final Random random = new Random(17);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTasks() {
+        assertEquals(1, EvaluationParallelism.none.tasks(1000, 1000));
+        assertEquals(4, parallelism.tasks(1000, 1000));
+        assertEquals("Not more tasks than slices", 2, parallelism.tasks(2, 1000));
+        assertEquals("Not fewer cells per task than the minimum", 3, parallelism.tasks(30, 1));
+        assertEquals(1, parallelism.tasks(9, 1));
+        assertEquals(1, parallelism.tasks(0, 1000));
+    }
+
+    @Test
+    public void testEachSliceIsComputedOnce() {
+        AtomicIntegerArray computed = new AtomicIntegerArray(1003);
+        parallelism.forEachSlice(1003, 100, (from, to) -> {
+            for (long slice = from; slice < to; slice++)
+                computed.incrementAndGet((int)slice);
+        });
+        for (int i = 0; i < computed.length(); i++)
+            assertEquals(1, computed.get(i));
+    }
+
+    @Test
+    public void testJoin() {
+        Tensor matrix = tensor("tensor(x[7],y[50])");
+        Tensor otherMatrix = tensor("tensor(x[7],y[50])");
+        Tensor floatMatrix = tensor("tensor<float>(x[7],y[50])");
+        Tensor vector = tensor("tensor(y[50])");
+        assertParallelEqualsSequential(join(matrix, otherMatrix));
+        assertParallelEqualsSequential(join(matrix, floatMatrix));
+        assertParallelEqualsSequential(join(matrix, vector));
+        assertParallelEqualsSequential(join(vector, matrix));
+        assertParallelEqualsSequential(join(matrix, tensor("tensor(x[7])")));
+        assertParallelEqualsSequential(join(matrix, tensor("tensor()")));
+        assertParallelEqualsSequential(join(matrix, tensor("tensor(x{},y[50])")));
+        assertParallelEqualsSequential(join(tensor("tensor(x[],y[50])"), vector));
+        assertParallelEqualsSequential(join(tensor("tensor(x[],y[50])"), tensor("tensor(x[],y[50])")));
+    }
+
+    @Test
+    public void testReduce() {
+        Tensor tensor = tensor("tensor(x[3],y[5],z[40])");
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            assertParallelEqualsSequential(new Reduce<>(constant(tensor), aggregator, "z"));
+            assertParallelEqualsSequential(new Reduce<>(constant(tensor), aggregator, List.of("z", "y")));
+            assertParallelEqualsSequential(new Reduce<>(constant(tensor), aggregator, "x"));
+        }
+        assertParallelEqualsSequential(new Reduce<>(constant(tensor("tensor(x{},z[40])")), Reduce.Aggregator.sum, "z"));
+        assertParallelEqualsSequential(new Reduce<>(constant(tensor("tensor(x[],z[40])")), Reduce.Aggregator.sum, "z"));
+    }
+
+    @Test
+    public void testMatmul() {
+        Tensor vector = tensor("tensor(y[60])");
+        Tensor matrix = tensor("tensor(x[30],y[60])");
+        assertParallelEqualsSequential(new Matmul<>(constant(vector), constant(matrix), "y"));
+        assertParallelEqualsSequential(new Matmul<>(constant(matrix), constant(vector), "y"));
+        assertParallelEqualsSequential(new Matmul<>(constant(tensor("tensor(w[3],y[60])")), constant(matrix), "y"));
+        assertParallelEqualsSequential(new Matmul<>(constant(matrix), constant(tensor("tensor(w[3],y[60])")), "y"));
+        assertParallelEqualsSequential(new Matmul<>(constant(tensor("tensor(x[30],w[60])")), constant(tensor("tensor(w[60],z[5])")), "w"));
+    }
+
+    private void assertParallelEqualsSequential(TensorFunction<Name> function) {
+        MapEvaluationContext<Name> sequentialContext = new MapEvaluationContext<>();
+        MapEvaluationContext<Name> parallelContext = new MapEvaluationContext<>();
+        parallelContext.setParallelism(parallelism);
+        Tensor expected = function.toPrimitive().evaluate(sequentialContext);
+        assertEquals(function.toString(), expected, function.evaluate(parallelContext));
+    }
+
+    private Join<Name> join(Tensor a, Tensor b) {
+        return new Join<>(constant(a), constant(b), ScalarFunctions.subtract());
+    }
+
+    private ConstantTensor<Name> constant(Tensor tensor) {
+        return new ConstantTensor<>(tensor);
+    }
+
+    private static Tensor tensor(String typeSpec) {
+        TensorType type = TensorType.fromSpec(typeSpec);
+        if (type.dimensions().stream().anyMatch(d -> ! d.isIndexed())) {
+            Tensor.Builder builder = Tensor.Builder.of(type);
+            for (int i = 0; i < 3; i++)
+                for (int j = 0; j < 40; j++)
+                    builder.cell().label(type.dimensions().get(0).name(), "label" + i)
+                                  .label(type.dimensions().get(1).name(), j)
+                                  .value(random.nextInt(200) - 100);
+            return builder.build();
+        }
+        DimensionSizes.Builder sizes = new DimensionSizes.Builder(type.rank());
+        for (int i = 0; i < type.rank(); i++)
+            sizes.set(i, type.dimensions().get(i).size().orElse(7L)); // unbound dimensions have size 7
+        DimensionSizes dimensionSizes = sizes.build();
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(type, dimensionSizes);
+        for (long i = 0; i < dimensionSizes.totalSize(); i++)
+            builder.cellByDirectIndex(i, (double)(random.nextInt(200) - 100));
+        return builder.build();
+    }
+
+}
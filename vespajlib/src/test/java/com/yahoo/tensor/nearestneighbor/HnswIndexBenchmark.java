@@ -0,0 +1,92 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.nearestneighbor;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.functions.Reduce;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the recall and latency of finding nearest neighbors with a HNSW index
+ * to the brute-force tensor path, reduce(join(vectors, query, ...), sum, x).
+ *
+ * @author agent
+ */
+public class HnswIndexBenchmark {
+
+    private final Tensor vectors;
+    private final List<Tensor> queries = new ArrayList<>();
+    private final HnswIndex index;
+
+    public HnswIndexBenchmark(int count, int dimensions, int queryCount) {
+        Random random = new Random(5);
+        vectors = HnswIndexTestCase.randomVectors(count, dimensions, false, random);
+        for (int i = 0; i < queryCount; i++)
+            queries.add(HnswIndexTestCase.randomVector(dimensions, false, random));
+
+        long startTime = System.currentTimeMillis();
+        index = new HnswIndex.Builder(dimensions).addAll(vectors, "x").build();
+        System.out.println(count + " vectors of " + dimensions + " dimensions indexed in " +
+                           (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    public void benchmark(int targetHits) {
+        List<Set<Integer>> expected = new ArrayList<>();
+        for (Tensor query : queries)
+            expected.add(ids(bruteForce(query, targetHits)));
+        benchmark("Brute-force tensor", query -> bruteForce(query, targetHits), expected);
+        benchmark("Exact             ", query -> index.findExact(query, targetHits), expected);
+        for (int exploreAdditionalHits : new int[] { 0, 40, 90, 190 })
+            benchmark("HNSW, explore " + String.format("%-4d", exploreAdditionalHits),
+                      query -> index.find(query, targetHits, exploreAdditionalHits), expected);
+    }
+
+    private void benchmark(String description, Finder finder, List<Set<Integer>> expected) {
+        for (Tensor query : queries) // warm-up
+            finder.find(query);
+        double recall = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < queries.size(); i++) {
+            Set<Integer> expectedIds = expected.get(i);
+            List<Neighbor> found = finder.find(queries.get(i));
+            recall += found.stream().filter(neighbor -> expectedIds.contains(neighbor.id())).count() /
+                      (double)expectedIds.size();
+        }
+        long totalTime = System.nanoTime() - startTime;
+        System.out.printf("  %s: recall %.3f, %8.1f us per query\n",
+                          description, recall / queries.size(), totalTime / 1000.0 / queries.size());
+    }
+
+    /** Finds the nearest neighbors by computing the distance to all vectors with tensor functions */
+    private List<Neighbor> bruteForce(Tensor query, int targetHits) {
+        IndexedTensor distances = (IndexedTensor)vectors.join(query, (a, b) -> (a - b) * (a - b))
+                                                        .reduce(Reduce.Aggregator.sum, "x");
+        PriorityQueue<Neighbor> nearest = new PriorityQueue<>((a, b) -> Double.compare(b.distance(), a.distance()));
+        for (int id = 0; id < distances.size(); id++) {
+            nearest.add(new Neighbor(id, Math.sqrt(distances.get(id))));
+            if (nearest.size() > targetHits)
+                nearest.poll();
+        }
+        return new ArrayList<>(nearest);
+    }
+
+    private static Set<Integer> ids(List<Neighbor> neighbors) {
+        return neighbors.stream().map(Neighbor::id).collect(Collectors.toSet());
+    }
+
+    private interface Finder {
+        List<Neighbor> find(Tensor query);
+    }
+
+    public static void main(String[] args) {
+        new HnswIndexBenchmark(10000, 64, 100).benchmark(10);
+        new HnswIndexBenchmark(50000, 16, 100).benchmark(10);
+    }
+
+}
@@ -0,0 +1,154 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.nearestneighbor;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class HnswIndexTestCase {
+
+    @Test
+    public void testFindingNeighbors() {
+        HnswIndex index = new HnswIndex.Builder(2)
+                .addAll(Tensor.from("tensor(id[4],x[2]):[[0, 0], [1, 0], [0, 3], [5, 5]]"), "x")
+                .build();
+        assertEquals(4, index.size());
+        assertEquals(2, index.dimensions());
+        assertEquals(DistanceMetric.EUCLIDEAN, index.distanceMetric());
+
+        List<Neighbor> expected = List.of(new Neighbor(1, 1.0), new Neighbor(0, Math.sqrt(2)));
+        assertEquals(expected, index.find(Tensor.from("tensor(x[2]):[1, 1]"), 2, 10));
+        assertEquals(expected, index.findExact(Tensor.from("tensor(x[2]):[1, 1]"), 2));
+        assertEquals(4, index.find(Tensor.from("tensor(x[2]):[1, 1]"), 10, 0).size());
+        assertEquals(List.of(), index.find(Tensor.from("tensor(x[2]):[1, 1]"), 0, 10));
+
+        assertEquals(Tensor.from("tensor(id{}):{1:1.0, 0:" + Math.sqrt(2) + "}"), Neighbor.toTensor("id", expected));
+    }
+
+    @Test
+    public void testAddingVectorsOneByOneAndInOtherDimensionOrder() {
+        HnswIndex.Builder builder = new HnswIndex.Builder(2).distanceMetric(DistanceMetric.ANGULAR);
+        assertEquals(0, builder.add(Tensor.from("tensor(x[2]):[1, 0]")));
+        builder.addAll(Tensor.from("tensor(id[2],x[2]):[[0, 1], [1, 1]]").rename("id", "y"), "x"); // x is now outermost
+        HnswIndex index = builder.build();
+        assertEquals(3, index.size());
+        assertEquals(List.of(new Neighbor(1, 0.0)), index.find(Tensor.from("tensor(x[2]):[0, 7]"), 1, 0));
+        assertEquals(2, index.find(Tensor.from("tensor(x[2]):[3, 3]"), 1, 0).get(0).id());
+
+        try {
+            builder.add(Tensor.from("tensor(x[2]):[1, 0]"));
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("This index is already built", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        HnswIndex index = new HnswIndex.Builder(3).build();
+        assertEquals(List.of(), index.find(Tensor.from("tensor(x[3]):[1, 2, 3]"), 10, 10));
+        assertEquals(List.of(), index.findExact(Tensor.from("tensor(x[3]):[1, 2, 3]"), 10));
+    }
+
+    @Test
+    public void testIllegalArguments() {
+        HnswIndex.Builder builder = new HnswIndex.Builder(3);
+        assertIllegalArgument("Expected a dense vector of size 3, but got tensor(x[2]) of size 2",
+                              () -> builder.add(Tensor.from("tensor(x[2]):[1, 2]")));
+        assertIllegalArgument("Expected a dense vector of size 3, but got tensor(x{}) of size 1",
+                              () -> builder.add(Tensor.from("tensor(x{}):{a:1}")));
+        assertIllegalArgument("Expected vectors of size 3, but dimension 'x' of tensor(id[1],x[2]) has size 2",
+                              () -> builder.addAll(Tensor.from("tensor(id[1],x[2]):[[1, 2]]"), "x"));
+        assertIllegalArgument("Expected a dense tensor with two dimensions, one of which is 'y', but got tensor(id[1],x[3])",
+                              () -> builder.addAll(Tensor.from("tensor(id[1],x[3]):[[1, 2, 3]]"), "y"));
+        assertIllegalArgument("Max links per node must be at least 2, not 1", () -> builder.maxLinksPerNode(1));
+
+        builder.add(Tensor.from("tensor(x[3]):[1, 2, 3]"));
+        try {
+            builder.maxLinksPerNode(4);
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Parameters must be set before adding vectors", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRecall() {
+        for (DistanceMetric metric : DistanceMetric.values()) {
+            Random random = new Random(3);
+            Tensor vectors = randomVectors(2000, 16, metric == DistanceMetric.INNERPRODUCT, random);
+            HnswIndex index = new HnswIndex.Builder(16).distanceMetric(metric)
+                                                       .maxLinksPerNode(8)
+                                                       .neighborsToExploreAtInsert(100)
+                                                       .addAll(vectors, "x")
+                                                       .build();
+            double recall = 0;
+            int queries = 50;
+            for (int i = 0; i < queries; i++) {
+                Tensor query = randomVector(16, metric == DistanceMetric.INNERPRODUCT, random);
+                List<Neighbor> found = index.find(query, 10, 90);
+                List<Neighbor> expected = index.findExact(query, 10);
+                assertEquals(10, found.size());
+                Set<Integer> expectedIds = expected.stream().map(Neighbor::id).collect(Collectors.toSet());
+                recall += found.stream().filter(neighbor -> expectedIds.contains(neighbor.id())).count() / 10.0;
+            }
+            recall /= queries;
+            assertTrue("Recall with " + metric + " is " + recall, recall > 0.95);
+        }
+    }
+
+    static Tensor randomVectors(int count, int dimensions, boolean normalize, Random random) {
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(
+                new TensorType.Builder().indexed("id", count).indexed("x", dimensions).build());
+        for (int i = 0; i < count; i++) {
+            double[] vector = randomValues(dimensions, normalize, random);
+            for (int j = 0; j < dimensions; j++)
+                builder.cellByDirectIndex((long)i * dimensions + j, vector[j]);
+        }
+        return builder.build();
+    }
+
+    static Tensor randomVector(int dimensions, boolean normalize, Random random) {
+        return IndexedTensor.Builder.of(new TensorType.Builder().indexed("x", dimensions).build(),
+                                        randomValues(dimensions, normalize, random)).build();
+    }
+
+    private static double[] randomValues(int dimensions, boolean normalize, Random random) {
+        double[] values = new double[dimensions];
+        double squares = 0;
+        for (int i = 0; i < dimensions; i++) {
+            values[i] = random.nextGaussian();
+            squares += values[i] * values[i];
+        }
+        if (normalize)
+            for (int i = 0; i < dimensions; i++)
+                values[i] /= Math.sqrt(squares);
+        return values;
+    }
+
+    private void assertIllegalArgument(String expectedMessage, Runnable action) {
+        try {
+            action.run();
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals(expectedMessage, e.getMessage());
+        }
+    }
+
+}
@@ -3,9 +3,18 @@ package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -19,6 +28,9 @@ import static org.junit.Assert.fail;
  */
 public class DenseBinaryFormatTestCase {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testSerialization() {
         assertSerialization("{-5.37}");
@@ -71,6 +83,79 @@ public class DenseBinaryFormatTestCase {
     public void testSerializationOfDifferentValueTypes() {
         assertSerialization("tensor<double>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
         assertSerialization("tensor<float>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertSerialization("tensor<bfloat16>(x[],y[]):{{x:0,y:0}:2.5, {x:0,y:1}:3.0, {x:1,y:0}:-4.0, {x:1,y:1}:1e30}");
+        assertSerialization("tensor<int8>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:127.0, {x:1,y:0}:-128.0, {x:1,y:1}:5.0}");
+    }
+
+    @Test
+    public void requireThatReducedPrecisionSerializationFormatDoNotChange() {
+        byte[] encodedBFloat16 = new byte[] { 6, // binary format type
+                                              2, // bfloat16 type
+                                              1, // dimension count
+                                              1, (byte) 'x', 2, // dimension x with size
+                                              64, 0, // value 1
+                                              64, 64 // value 2
+        };
+        assertEquals(Arrays.toString(encodedBFloat16),
+                     Arrays.toString(TypedBinaryFormat.encode(Tensor.from("tensor<bfloat16>(x[2]):[2.0, 3.0]"))));
+
+        byte[] encodedInt8 = new byte[] { 6, // binary format type
+                                          3, // int8 type
+                                          1, // dimension count
+                                          1, (byte) 'x', 2, // dimension x with size
+                                          2, // value 1
+                                          -3 // value 2
+        };
+        assertEquals(Arrays.toString(encodedInt8),
+                     Arrays.toString(TypedBinaryFormat.encode(Tensor.from("tensor<int8>(x[2]):[2.0, -3.0]"))));
+    }
+
+    @Test
+    public void testDecodingWithoutCopying() {
+        assertDecodingWithoutCopying("{-5.37}");
+        assertDecodingWithoutCopying("tensor(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertDecodingWithoutCopying("tensor<float>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertDecodingWithoutCopying("tensor<bfloat16>(x[],y[]):{{x:0,y:0}:2.5, {x:0,y:1}:3.0, {x:1,y:0}:-4.0, {x:1,y:1}:5.0}");
+        assertDecodingWithoutCopying("tensor<int8>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:-4.0, {x:1,y:1}:5.0}");
+        assertDecodingWithoutCopying("tensor(x[1],y[2],z[3]):{{y:0,x:0,z:0}:2.0,{y:1,x:0,z:2}:-1.5}");
+
+        Tensor tensor = Tensor.from("tensor(x[2],y[2]):{{x:0,y:0}:2.0, {x:1,y:1}:5.0}");
+        Tensor decoded = TypedBinaryFormat.decodeWithoutCopying(Optional.of(TensorType.fromSpec("tensor(x[],y[])")),
+                                                                ByteBuffer.wrap(TypedBinaryFormat.encode(tensor)));
+        assertEquals(TensorType.fromSpec("tensor(x[],y[])"), decoded.type());
+        assertEquals(5.0, decoded.get(TensorAddress.of(1, 1)), 0);
+    }
+
+    @Test
+    public void testDecodingFromFileMappedInSegments() throws IOException {
+        String values = "[[1.0, 2.0, 3.0], [4.0, 5.0, 6.0], [7.0, 8.0, 9.0]]";
+        for (String cellType : new String[] { "double", "float", "bfloat16", "int8" }) {
+            Tensor tensor = Tensor.from("tensor<" + cellType + ">(x[3],y[3]):" + values);
+            for (int segmentSize : new int[] { 8, 16, 1 << 30 })
+                assertEquals(tensor, decodeFromFile(tensor, segmentSize));
+        }
+        Tensor sparse = Tensor.from("tensor(x{}):{a:1.0, b:2.0}");
+        assertEquals(sparse, decodeFromFile(sparse, 8));
+    }
+
+    private Tensor decodeFromFile(Tensor tensor, int segmentSize) throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), TypedBinaryFormat.encode(tensor));
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return TypedBinaryFormat.decodeWithoutCopying(Optional.of(tensor.type()), channel, segmentSize);
+        }
+    }
+
+    private void assertDecodingWithoutCopying(String tensorString) {
+        Tensor tensor = Tensor.from(tensorString);
+        byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encodedTensor.length);
+        buffer.put(encodedTensor).flip();
+        Tensor decodedTensor = TypedBinaryFormat.decodeWithoutCopying(Optional.of(tensor.type()), buffer);
+        assertEquals(tensor, decodedTensor);
+        assertEquals(TypedBinaryFormat.decode(Optional.of(tensor.type()), GrowableByteBuffer.wrap(encodedTensor)).hashCode(),
+                     decodedTensor.hashCode());
+        assertEquals(tensor.sum(), decodedTensor.sum());
     }
 
     private void assertSerialization(String tensorString) {